@@ -0,0 +1,85 @@
+-- ============================================================================
+-- Migración 03 - Ajuste de índices para las consultas frecuentes
+-- ============================================================================
+-- Descripción: Elimina índices duplicados o que el optimizador no usa y
+--              agrega un índice compuesto para los listados.
+--
+-- Se ejecuta UNA sola vez, después de 01_crear_base_datos.sql (y de
+-- 02_datos_prueba.sql si se cargaron datos de prueba). La tabla
+-- version_esquema registra qué migraciones se aplicaron.
+--
+-- POR QUÉ:
+-- 1. Un CONSTRAINT UNIQUE ya crea su propio índice. Los INDEX sobre username,
+--    email y usuario_id repetían exactamente ese índice: cada INSERT o UPDATE
+--    mantenía dos árboles iguales sin ningún beneficio en las lecturas.
+-- 2. activo y eliminado tienen dos valores posibles cada uno. Un índice de una
+--    sola columna sobre ellos casi nunca es elegido por el optimizador (filtra
+--    muy poco) y aun así hay que mantenerlo.
+-- 3. Los listados (UsuarioDAO.obtenerActivos, obtenerActivosPagina y la
+--    paginación por id) filtran por eliminado y activo y ordenan por id.
+--    Con (eliminado, activo, id) el motor va directo al rango pedido y lo
+--    recorre ya ordenado, sin filesort.
+--
+-- La verificación de que cada consulta de los DAO usa el índice esperado
+-- está en ar.edu.utn.tup.dao.VerificadorPlanes (corre EXPLAIN sobre el SQL
+-- real de los DAO).
+-- ============================================================================
+
+USE sistema_usuarios;
+
+-- ============================================================================
+-- Registro de versiones del esquema
+-- ============================================================================
+-- 01 y 02 son la línea base; a partir de acá cada migración deja su fila.
+
+CREATE TABLE IF NOT EXISTS version_esquema (
+    version INT PRIMARY KEY,
+    descripcion VARCHAR(200) NOT NULL,
+    aplicada DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================================================
+-- TABLA: usuario
+-- ============================================================================
+
+-- Duplicados de uq_usuario_username y uq_usuario_email
+ALTER TABLE usuario DROP INDEX idx_usuario_username;
+ALTER TABLE usuario DROP INDEX idx_usuario_email;
+
+-- Baja cardinalidad: reemplazados por el índice compuesto
+ALTER TABLE usuario DROP INDEX idx_usuario_activo;
+ALTER TABLE usuario DROP INDEX idx_usuario_eliminado;
+
+-- Sirve a:
+--   WHERE eliminado = ? AND activo = ? ORDER BY id            (obtenerActivos)
+--   WHERE eliminado = ? AND activo = ? AND id > ? ORDER BY id  (obtenerActivosPagina)
+--   WHERE eliminado = ?                                        (prefijo)
+CREATE INDEX idx_usuario_listado ON usuario (eliminado, activo, id);
+
+-- ============================================================================
+-- TABLA: credencial_acceso
+-- ============================================================================
+-- Todas las consultas entran por id (PRIMARY) o por usuario_id
+-- (uq_credencial_usuario, que también cubre la FK). Ninguna filtra por
+-- eliminado sin pasar antes por una de esas dos claves.
+
+-- Duplicado de uq_credencial_usuario
+ALTER TABLE credencial_acceso DROP INDEX idx_credencial_usuario;
+
+-- Baja cardinalidad y sin consultas que lo usen
+ALTER TABLE credencial_acceso DROP INDEX idx_credencial_eliminado;
+
+-- Estadísticas al día para que el optimizador vea los índices nuevos
+-- (una tabla por sentencia: H2, el perfil embebido, no acepta la lista)
+ANALYZE TABLE usuario;
+ANALYZE TABLE credencial_acceso;
+
+INSERT INTO version_esquema (version, descripcion)
+VALUES (3, 'Índices: quita duplicados y de baja cardinalidad, agrega idx_usuario_listado');
+
+-- ============================================================================
+-- Verificación
+-- ============================================================================
+-- SHOW INDEX FROM usuario;
+-- SHOW INDEX FROM credencial_acceso;
+-- SELECT * FROM version_esquema;
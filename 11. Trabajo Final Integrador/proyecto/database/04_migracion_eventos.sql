@@ -0,0 +1,62 @@
+-- ============================================================================
+-- Migración 04 - Outbox de eventos de usuario
+-- ============================================================================
+-- Descripción: Agrega la tabla evento_usuario, donde UsuarioService y
+--              CredencialAccesoService anotan cada cambio (alta, edición,
+--              activación, desactivación, baja, cambio de contraseña) en la
+--              MISMA transacción que el cambio.
+--
+-- Se ejecuta UNA sola vez, después de 03_migracion_indices.sql. Solo hace
+-- falta si se activan los eventos (ver PublicadorEventos).
+--
+-- POR QUÉ (patrón "transactional outbox"):
+-- 1. Si el evento se publicara directamente desde el servicio, un ROLLBACK
+--    posterior dejaría afuera un evento de un cambio que nunca ocurrió, y una
+--    caída entre el COMMIT y la publicación perdería un cambio que sí ocurrió.
+-- 2. Con la fila en la misma transacción, el evento existe si y solo si el
+--    cambio se confirmó. El relay de PublicadorEventos lee las filas ya
+--    confirmadas, las entrega a los suscriptores y recién entonces las borra:
+--    cada evento se entrega al menos una vez.
+-- 3. Sin FK hacia usuario: la fila del outbox no debe bloquear ni depender
+--    de la fila del usuario (el evento de baja sobrevive a la baja).
+--
+-- El relay lee "ORDER BY id LIMIT n" y borra por id: le alcanza la PRIMARY.
+-- La tabla se mantiene chica porque las filas entregadas se borran.
+-- ============================================================================
+
+USE sistema_usuarios;
+
+-- Por si se aplica sobre una base sin la migración 03 (perfil embebido)
+CREATE TABLE IF NOT EXISTS version_esquema (
+    version INT PRIMARY KEY,
+    descripcion VARCHAR(200) NOT NULL,
+    aplicada DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================================================
+-- TABLA: evento_usuario
+-- ============================================================================
+
+CREATE TABLE evento_usuario (
+    -- Orden de los eventos: el relay los entrega por id creciente
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+
+    -- Usuario afectado (sin FK, ver arriba)
+    usuario_id BIGINT NOT NULL,
+
+    -- CREADO, ACTUALIZADO, ACTIVADO, DESACTIVADO, ELIMINADO, PASSWORD_CAMBIADO
+    tipo VARCHAR(30) NOT NULL,
+
+    -- Momento del cambio, según la aplicación
+    momento DATETIME NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO version_esquema (version, descripcion)
+VALUES (4, 'Outbox de eventos de usuario (evento_usuario)');
+
+-- ============================================================================
+-- Verificación
+-- ============================================================================
+-- SHOW CREATE TABLE evento_usuario;
+-- SELECT * FROM evento_usuario ORDER BY id;
+-- SELECT * FROM version_esquema;
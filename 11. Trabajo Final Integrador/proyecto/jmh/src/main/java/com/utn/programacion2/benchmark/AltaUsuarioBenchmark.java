@@ -0,0 +1,52 @@
+package ar.edu.utn.tup.benchmark;
+
+import ar.edu.utn.tup.entities.Usuario;
+import ar.edu.utn.tup.service.UsuarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UsuarioService.crearUsuarioConCredencial: chequeo de duplicados, hash de
+ * la contraseña e inserción de usuario y credencial en una transacción.
+ * Cada operación da de alta un usuario nuevo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AltaUsuarioBenchmark {
+
+    private static final String PASSWORD = "Benchmark#2024";
+
+    private final UsuarioService servicio = new UsuarioService();
+    private String prefijo;
+    private long siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar(BaseEmbebida base) {
+        // Prefijo por corrida: con el perfil mysql la tabla persiste entre corridas
+        prefijo = "alta_" + Long.toString(System.currentTimeMillis(), 36) + "_";
+        base.silenciar(true);
+    }
+
+    @Benchmark
+    public Usuario crearUsuarioConCredencial() throws SQLException {
+        String username = prefijo + siguiente++;
+        return servicio.crearUsuarioConCredencial(
+                new Usuario(username, username + "@bench.local", "Alta Benchmark"), PASSWORD);
+    }
+}
@@ -0,0 +1,80 @@
+package ar.edu.utn.tup.benchmark;
+
+import ar.edu.utn.tup.config.Configuracion;
+import ar.edu.utn.tup.config.DatabaseConfig;
+import ar.edu.utn.tup.security.EjecutorHashing;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.SQLException;
+
+/**
+ * Estado JMH compartido por los benchmarks que usan la base.
+ *
+ * Elige el perfil embebido (salvo que se indique otro con db.perfil) antes
+ * de que se cree DatabaseConfig. Cada fork de JMH es una JVM nueva, así que
+ * arranca con la base H2 en memoria recién creada por los scripts de
+ * database/ y solo con las filas sintéticas que pida su benchmark (ver
+ * DatosBenchmark).
+ *
+ * Mientras se mide, System.out se descarta: los servicios imprimen un
+ * mensaje por operación y eso se mediría junto con la operación.
+ */
+@State(Scope.Benchmark)
+public class BaseEmbebida {
+
+    private static final PrintStream DESCARTE = new PrintStream(OutputStream.nullOutputStream());
+
+    private final DatosBenchmark datos = new DatosBenchmark();
+    private PrintStream salidaOriginal;
+
+    @Setup(Level.Trial)
+    public void abrir() {
+        if (Configuracion.cargar().get("db.perfil", null) == null) {
+            System.setProperty("db.perfil", DatabaseConfig.PERFIL_EMBEBIDA);
+        }
+        DatabaseConfig.getInstance();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        silenciar(false);
+        DatabaseConfig.getInstance().cerrar();
+        EjecutorHashing.getInstancia().cerrar();
+    }
+
+    /**
+     * Deja al menos la cantidad pedida de usuarios sintéticos (ver
+     * DatosBenchmark.asegurarFilas).
+     */
+    public void asegurarFilas(long cantidad) throws SQLException {
+        datos.asegurarFilas(cantidad);
+    }
+
+    public long primerId() throws SQLException {
+        return datos.primerId();
+    }
+
+    public static String username(long numero) {
+        return DatosBenchmark.username(numero);
+    }
+
+    /**
+     * Descarta (o restaura) System.out. Se llama al terminar la preparación,
+     * así los mensajes de la carga de datos sí se ven.
+     */
+    public void silenciar(boolean silenciar) {
+        if (silenciar && salidaOriginal == null) {
+            salidaOriginal = System.out;
+            System.setOut(DESCARTE);
+        } else if (!silenciar && salidaOriginal != null) {
+            System.setOut(salidaOriginal);
+            salidaOriginal = null;
+        }
+    }
+}
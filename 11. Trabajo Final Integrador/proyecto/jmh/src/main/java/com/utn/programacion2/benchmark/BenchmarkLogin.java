@@ -0,0 +1,267 @@
+package ar.edu.utn.tup.benchmark;
+
+import ar.edu.utn.tup.config.Configuracion;
+import ar.edu.utn.tup.config.DatabaseConfig;
+import ar.edu.utn.tup.metricas.HistogramaLatencias;
+import ar.edu.utn.tup.security.EjecutorHashing;
+import ar.edu.utn.tup.security.PasswordHasher;
+import ar.edu.utn.tup.service.AutenticacionService;
+import ar.edu.utn.tup.service.CredencialAccesoService;
+import ar.edu.utn.tup.service.LimitadorIntentos;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prueba de carga del login (AutenticacionService.autenticar) contra la base
+ * embebida: logins por segundo y percentiles de latencia con distinta
+ * cantidad de hilos concurrentes.
+ *
+ * Cada hilo hace logins en bucle cerrado con usuarios sintéticos al azar
+ * (ver DatosBenchmark). Una fracción de los intentos usa una contraseña
+ * incorrecta, así se mide también el camino del intento fallido. Los
+ * usuarios inactivos (~10%) responden INACTIVO y las cuentas que acumulan
+ * fallidos, BLOQUEADO: todos cuentan como logins atendidos y al final se
+ * informa cuántos hubo de cada estado.
+ *
+ * El costo de un login lo domina el KDF. Con las iteraciones por defecto se
+ * mide el login real, limitado por la CPU; con bench.iteracionesHash bajo
+ * (por ejemplo 1000) queda a la vista el costo de la BD y del pool.
+ *
+ * No es un benchmark JMH: es un bucle cerrado con N hilos que reporta el
+ * reparto de estados del login además del throughput. Uso (desde proyecto/):
+ *
+ *    gradle :jmh:benchmarkLogin -Dbench.hilos=1,8,32
+ *
+ * Propiedades (además de bench.calentamiento, bench.iteraciones y
+ * bench.duracionMs):
+ * - bench.hilos:              hilos concurrentes (1,8,32,64)
+ * - bench.usuarios:           usuarios con credencial (10000)
+ * - bench.proporcionFallidos: fracción de contraseñas incorrectas (0.1)
+ * - bench.iteracionesHash:    iteraciones de PBKDF2 (las de PasswordHasher)
+ * - bench.limitador:          activa el limitador de intentos con las
+ *                             propiedades limitador.* (false); cada hilo
+ *                             usa un origen distinto
+ * - bench.salida:             archivo CSV (benchmark-login.csv),
+ *                             comparable con ComparadorResultados
+ */
+public final class BenchmarkLogin {
+
+    private static final String HILOS_POR_DEFECTO = "1,8,32,64";
+    private static final String SALIDA_POR_DEFECTO = "benchmark-login.csv";
+    private static final int CALENTAMIENTO_POR_DEFECTO = 1;
+    private static final int ITERACIONES_POR_DEFECTO = 3;
+    private static final long DURACION_MS_POR_DEFECTO = 5_000;
+    private static final int USUARIOS_POR_DEFECTO = 10_000;
+    private static final double PROPORCION_FALLIDOS_POR_DEFECTO = 0.1;
+
+    private static final String PASSWORD = "Benchmark#2024";
+    private static final String PASSWORD_INCORRECTA = "Incorrecta#2024";
+    private static final PrintStream DESCARTE = new PrintStream(OutputStream.nullOutputStream());
+
+    private final int calentamiento;
+    private final int iteraciones;
+    private final long duracionNanos;
+    private final int usuarios;
+    private final double proporcionFallidos;
+    private final int iteracionesHash;
+    private final boolean conLimitador;
+    private final int[] hilos;
+
+    private final List<Resultado> resultados = new ArrayList<>();
+
+    private BenchmarkLogin(Configuracion config) {
+        this.calentamiento = config.getInt("bench.calentamiento", CALENTAMIENTO_POR_DEFECTO);
+        this.iteraciones = config.getInt("bench.iteraciones", ITERACIONES_POR_DEFECTO);
+        this.duracionNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong("bench.duracionMs", DURACION_MS_POR_DEFECTO));
+        this.usuarios = config.getInt("bench.usuarios", USUARIOS_POR_DEFECTO);
+        this.proporcionFallidos = Double.parseDouble(config.get("bench.proporcionFallidos",
+                String.valueOf(PROPORCION_FALLIDOS_POR_DEFECTO)));
+        this.iteracionesHash = config.getInt("bench.iteracionesHash", PasswordHasher.ITERACIONES_POR_DEFECTO);
+        this.conLimitador = config.getBoolean("bench.limitador", false);
+        this.hilos = Arrays.stream(config.get("bench.hilos", HILOS_POR_DEFECTO).split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .sorted()
+                .toArray();
+        if (calentamiento < 0 || iteraciones <= 0 || duracionNanos <= 0 || usuarios <= 0 || iteracionesHash <= 0
+                || proporcionFallidos < 0 || proporcionFallidos > 1 || hilos.length == 0 || hilos[0] <= 0) {
+            throw new IllegalArgumentException("Configuración de benchmark inválida");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Configuracion config = Configuracion.cargar();
+        if (config.get("db.perfil", null) == null) {
+            System.setProperty("db.perfil", DatabaseConfig.PERFIL_EMBEBIDA);
+        }
+
+        BenchmarkLogin benchmark = new BenchmarkLogin(config);
+        List<String> entorno = benchmark.describirEntorno(config);
+        entorno.forEach(linea -> System.out.println("# " + linea));
+
+        int maxHilos = benchmark.hilos[benchmark.hilos.length - 1];
+        EjecutorHashing ejecutorHashing = new EjecutorHashing(new PasswordHasher(benchmark.iteracionesHash),
+                Runtime.getRuntime().availableProcessors(), Math.max(EjecutorHashing.CAPACIDAD_COLA_POR_DEFECTO,
+                        maxHilos * 2));
+        try {
+            DatosBenchmark datos = new DatosBenchmark();
+            datos.asegurarFilas(benchmark.usuarios);
+            datos.asegurarCredenciales(benchmark.usuarios, ejecutorHashing.hashear(PASSWORD));
+            AutenticacionService servicio = new AutenticacionService(new CredencialAccesoService(ejecutorHashing));
+            LimitadorIntentos limitador = benchmark.conLimitador ? LimitadorIntentos.desdeConfiguracion(config) : null;
+            if (limitador != null) {
+                servicio.activarLimitadorIntentos(limitador);
+            }
+            benchmark.correr(servicio);
+            if (limitador != null) {
+                System.out.println(limitador.getEstadisticas());
+            }
+        } finally {
+            ejecutorHashing.cerrar();
+            DatabaseConfig.getInstance().cerrar();
+            EjecutorHashing.getInstancia().cerrar();
+        }
+
+        System.out.println("\n==================== RESULTADOS ====================");
+        benchmark.resultados.forEach(System.out::println);
+
+        Path salida = Path.of(config.get("bench.salida", SALIDA_POR_DEFECTO));
+        benchmark.guardar(salida, entorno);
+        System.out.println("\n✓ Resultados guardados en " + salida.toAbsolutePath());
+    }
+
+    private void correr(AutenticacionService servicio) throws InterruptedException {
+        for (int concurrentes : hilos) {
+            resultados.add(medir(servicio, concurrentes));
+        }
+    }
+
+    private Resultado medir(AutenticacionService servicio, int concurrentes) throws InterruptedException {
+        String benchmark = "AutenticacionService.autenticar";
+        String parametro = "hilos=" + concurrentes;
+        System.out.println("→ " + benchmark + "[" + parametro + "]");
+        System.gc();
+
+        Map<AutenticacionService.Estado, LongAdder> porEstado = new EnumMap<>(AutenticacionService.Estado.class);
+        for (AutenticacionService.Estado estado : AutenticacionService.Estado.values()) {
+            porEstado.put(estado, new LongAdder());
+        }
+        LongAdder errores = new LongAdder();
+
+        // Los servicios imprimen por cada operación: no se mide la consola
+        PrintStream original = System.out;
+        System.setOut(DESCARTE);
+        try {
+            for (int i = 0; i < calentamiento; i++) {
+                original.printf("  calentamiento %d: %.1f logins/s%n", i + 1,
+                        correrIteracion(servicio, concurrentes, null, null, errores));
+            }
+
+            HistogramaLatencias histograma = new HistogramaLatencias();
+            double[] opsPorIteracion = new double[iteraciones];
+            errores.reset();
+            long[] gcAntes = Resultado.gc();
+
+            for (int i = 0; i < iteraciones; i++) {
+                opsPorIteracion[i] = correrIteracion(servicio, concurrentes, histograma, porEstado, errores);
+                original.printf("  iteración %d: %.1f logins/s%n", i + 1, opsPorIteracion[i]);
+            }
+
+            long[] gcDespues = Resultado.gc();
+            Resultado resultado = new Resultado(benchmark, parametro,
+                    Resultado.promedio(opsPorIteracion), Resultado.desvio(opsPorIteracion),
+                    histograma.percentil(0.50) / 1e3, histograma.percentil(0.90) / 1e3,
+                    histograma.percentil(0.99) / 1e3, histograma.percentil(0.999) / 1e3,
+                    histograma.getMaximo() / 1e3, Double.NaN, Double.NaN,
+                    gcDespues[0] - gcAntes[0], gcDespues[1] - gcAntes[1]);
+            original.println("  " + resultado);
+            original.println("  estados: " + porEstado + ", errores: " + errores.sum());
+            return resultado;
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    // Cada hilo hace logins hasta que vence la duración; se cuentan todos
+    private double correrIteracion(AutenticacionService servicio, int concurrentes, HistogramaLatencias histograma,
+                                   Map<AutenticacionService.Estado, LongAdder> porEstado, LongAdder errores)
+            throws InterruptedException {
+        LongAdder completados = new LongAdder();
+        CountDownLatch terminados = new CountDownLatch(concurrentes);
+        long inicio = System.nanoTime();
+        long fin = inicio + duracionNanos;
+
+        for (int h = 0; h < concurrentes; h++) {
+            String origen = "10.0.0." + h;
+            Thread hilo = new Thread(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < fin) {
+                        String username = DatosBenchmark.username(1 + random.nextInt(usuarios));
+                        String password = random.nextDouble() < proporcionFallidos ? PASSWORD_INCORRECTA : PASSWORD;
+                        long desde = System.nanoTime();
+                        try {
+                            AutenticacionService.Resultado resultado = servicio.autenticar(username, password, origen);
+                            if (histograma != null) {
+                                histograma.registrar(System.nanoTime() - desde);
+                                porEstado.get(resultado.estado()).increment();
+                            }
+                            completados.increment();
+                        } catch (Exception e) {
+                            errores.increment();
+                        }
+                    }
+                } finally {
+                    terminados.countDown();
+                }
+            }, "login-" + h);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+        terminados.await();
+
+        return completados.sum() / ((System.nanoTime() - inicio) / 1e9);
+    }
+
+    // ========================================================================
+    // Entorno y salida
+    // ========================================================================
+
+    private List<String> describirEntorno(Configuracion config) {
+        Runtime runtime = Runtime.getRuntime();
+        return List.of(
+                "fecha: " + LocalDateTime.now().withNano(0),
+                "jvm: " + System.getProperty("java.vm.name") + " " + Runtime.version(),
+                "flags: " + String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()),
+                "perfil: " + config.get("db.perfil", DatabaseConfig.PERFIL_MYSQL),
+                "cpus: " + runtime.availableProcessors() + ", heap max: " + runtime.maxMemory() / (1024 * 1024) + " MB",
+                "usuarios: " + usuarios + ", iteraciones hash: " + iteracionesHash
+                        + ", contraseñas incorrectas: " + proporcionFallidos + ", limitador: " + conLimitador,
+                "medición: calentamiento=" + calentamiento + ", iteraciones=" + iteraciones
+                        + "x" + TimeUnit.NANOSECONDS.toMillis(duracionNanos) + "ms");
+    }
+
+    private void guardar(Path archivo, List<String> entorno) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        entorno.forEach(linea -> lineas.add("# " + linea));
+        lineas.add(Resultado.ENCABEZADO_CSV);
+        resultados.forEach(resultado -> lineas.add(resultado.aCsv()));
+        Files.write(archivo, lineas, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,256 @@
+package ar.edu.utn.tup.benchmark;
+
+import ar.edu.utn.tup.config.Configuracion;
+import ar.edu.utn.tup.config.DatabaseConfig;
+import ar.edu.utn.tup.metricas.HistogramaLatencias;
+import ar.edu.utn.tup.security.EjecutorHashing;
+import ar.edu.utn.tup.service.CacheUsuarios;
+import ar.edu.utn.tup.service.EjecutorServicios;
+import ar.edu.utn.tup.service.UsuarioService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compara el throughput de la capa de servicios con hilos virtuales contra
+ * un pool fijo de hilos de plataforma (ver EjecutorServicios), con miles de
+ * llamadores concurrentes.
+ *
+ * Cada llamador hace, en bucle cerrado, una búsqueda por username que
+ * siempre va a la BD (caché de una entrada). Como la base embebida responde
+ * en microsegundos, bench.latenciaRedMs agrega una espera dentro de la
+ * llamada que simula el viaje de red a un servidor remoto; con el perfil
+ * mysql conviene ponerla en 0.
+ *
+ * La latencia reportada va desde que el llamador envía la llamada hasta que
+ * recibe el resultado: incluye la espera por un turno del limitador. También
+ * se informa el pico de hilos de plataforma vivos (los virtuales no cuentan).
+ *
+ * No es un benchmark JMH: miles de llamadores en bucle cerrado no encajan
+ * en un hilo de JMH por llamador, y la latencia que interesa incluye la
+ * espera por el turno. Uso (desde proyecto/):
+ *
+ *    gradle :jmh:benchmarkModosEjecucion -Dbench.concurrencias=1000,10000
+ *
+ * Propiedades (además de bench.calentamiento, bench.iteraciones y
+ * bench.duracionMs):
+ * - bench.concurrencias:    llamadores concurrentes (1000,2000,5000,10000)
+ * - bench.hilosPlataforma:  hilos del modo plataforma (200)
+ * - bench.limite:           turnos del limitador (db.pool.maximo)
+ * - bench.latenciaRedMs:    latencia de red simulada por llamada (1)
+ * - bench.salida:           archivo CSV (benchmark-modos-ejecucion.csv),
+ *                           comparable con ComparadorResultados
+ */
+public final class BenchmarkModosEjecucion {
+
+    private static final String CONCURRENCIAS_POR_DEFECTO = "1000,2000,5000,10000";
+    private static final String SALIDA_POR_DEFECTO = "benchmark-modos-ejecucion.csv";
+    private static final int CALENTAMIENTO_POR_DEFECTO = 1;
+    private static final int ITERACIONES_POR_DEFECTO = 3;
+    private static final long DURACION_MS_POR_DEFECTO = 3_000;
+    private static final long LATENCIA_RED_MS_POR_DEFECTO = 1;
+    private static final long TIMEOUT_TURNO_MS = 30_000;
+
+    private static final int USUARIOS_BUSQUEDA = 1_000;
+    private static final PrintStream DESCARTE = new PrintStream(OutputStream.nullOutputStream());
+
+    private final int calentamiento;
+    private final int iteraciones;
+    private final long duracionNanos;
+    private final int hilosPlataforma;
+    private final int limite;
+    private final long latenciaRedNanos;
+    private final int[] concurrencias;
+
+    // Caché de una sola entrada y usernames al azar: cada llamada va a la BD
+    private final UsuarioService servicio = new UsuarioService(new CacheUsuarios(1, 1));
+    private final List<Resultado> resultados = new ArrayList<>();
+
+    private BenchmarkModosEjecucion(Configuracion config) {
+        this.calentamiento = config.getInt("bench.calentamiento", CALENTAMIENTO_POR_DEFECTO);
+        this.iteraciones = config.getInt("bench.iteraciones", ITERACIONES_POR_DEFECTO);
+        this.duracionNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong("bench.duracionMs", DURACION_MS_POR_DEFECTO));
+        this.hilosPlataforma = config.getInt("bench.hilosPlataforma", EjecutorServicios.HILOS_PLATAFORMA_POR_DEFECTO);
+        this.limite = config.getInt("bench.limite", DatabaseConfig.getInstance().getTamanioMaximoPool());
+        this.latenciaRedNanos = TimeUnit.MILLISECONDS.toNanos(
+                config.getLong("bench.latenciaRedMs", LATENCIA_RED_MS_POR_DEFECTO));
+        this.concurrencias = Arrays.stream(config.get("bench.concurrencias", CONCURRENCIAS_POR_DEFECTO).split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .sorted()
+                .toArray();
+        if (calentamiento < 0 || iteraciones <= 0 || duracionNanos <= 0 || latenciaRedNanos < 0
+                || concurrencias.length == 0 || concurrencias[0] <= 0) {
+            throw new IllegalArgumentException("Configuración de benchmark inválida");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Configuracion config = Configuracion.cargar();
+        if (config.get("db.perfil", null) == null) {
+            System.setProperty("db.perfil", DatabaseConfig.PERFIL_EMBEBIDA);
+        }
+
+        BenchmarkModosEjecucion benchmark = new BenchmarkModosEjecucion(config);
+        List<String> entorno = benchmark.describirEntorno(config);
+        entorno.forEach(linea -> System.out.println("# " + linea));
+
+        try {
+            new DatosBenchmark().asegurarFilas(USUARIOS_BUSQUEDA);
+            benchmark.correr();
+        } finally {
+            DatabaseConfig.getInstance().cerrar();
+            EjecutorHashing.getInstancia().cerrar();
+        }
+
+        System.out.println("\n==================== RESULTADOS ====================");
+        benchmark.resultados.forEach(System.out::println);
+
+        Path salida = Path.of(config.get("bench.salida", SALIDA_POR_DEFECTO));
+        benchmark.guardar(salida, entorno);
+        System.out.println("\n✓ Resultados guardados en " + salida.toAbsolutePath());
+    }
+
+    private void correr() throws InterruptedException {
+        int maxConcurrencia = concurrencias[concurrencias.length - 1];
+        for (EjecutorServicios.Modo modo : EjecutorServicios.Modo.values()) {
+            EjecutorServicios ejecutor = new EjecutorServicios(modo, hilosPlataforma, limite, maxConcurrencia,
+                    TIMEOUT_TURNO_MS);
+            try {
+                for (int concurrentes : concurrencias) {
+                    resultados.add(medir(ejecutor, concurrentes));
+                }
+            } finally {
+                ejecutor.cerrar();
+            }
+        }
+    }
+
+    private Resultado medir(EjecutorServicios ejecutor, int concurrentes) throws InterruptedException {
+        String benchmark = "EjecutorServicios." + ejecutor.getModo().name().toLowerCase(Locale.ROOT);
+        String parametro = "concurrentes=" + concurrentes;
+        System.out.println("→ " + benchmark + "[" + parametro + "]");
+        System.gc();
+
+        ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+        LongAdder errores = new LongAdder();
+
+        // Los servicios imprimen por cada operación: no se mide la consola
+        PrintStream original = System.out;
+        System.setOut(DESCARTE);
+        try {
+            for (int i = 0; i < calentamiento; i++) {
+                original.printf("  calentamiento %d: %.1f ops/s%n", i + 1,
+                        correrIteracion(ejecutor, concurrentes, null, errores));
+            }
+
+            HistogramaLatencias histograma = new HistogramaLatencias();
+            double[] opsPorIteracion = new double[iteraciones];
+            errores.reset();
+            hilos.resetPeakThreadCount();
+            long[] gcAntes = Resultado.gc();
+
+            for (int i = 0; i < iteraciones; i++) {
+                opsPorIteracion[i] = correrIteracion(ejecutor, concurrentes, histograma, errores);
+                original.printf("  iteración %d: %.1f ops/s%n", i + 1, opsPorIteracion[i]);
+            }
+
+            long[] gcDespues = Resultado.gc();
+            Resultado resultado = new Resultado(benchmark, parametro,
+                    Resultado.promedio(opsPorIteracion), Resultado.desvio(opsPorIteracion),
+                    histograma.percentil(0.50) / 1e3, histograma.percentil(0.90) / 1e3,
+                    histograma.percentil(0.99) / 1e3, histograma.percentil(0.999) / 1e3,
+                    histograma.getMaximo() / 1e3, Double.NaN, Double.NaN,
+                    gcDespues[0] - gcAntes[0], gcDespues[1] - gcAntes[1]);
+            original.println("  " + resultado);
+            original.println("  pico de hilos de plataforma: " + hilos.getPeakThreadCount()
+                    + ", llamadas fallidas: " + errores.sum() + ", " + ejecutor.getEstadisticas());
+            return resultado;
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    // Bucle cerrado: siempre hay "concurrentes" llamadas en vuelo; cada una
+    // que termina libera el lugar para la siguiente
+    private double correrIteracion(EjecutorServicios ejecutor, int concurrentes, HistogramaLatencias histograma,
+                                   LongAdder errores) throws InterruptedException {
+        Semaphore enVuelo = new Semaphore(concurrentes);
+        LongAdder completadas = new LongAdder();
+        long inicio = System.nanoTime();
+        long fin = inicio + duracionNanos;
+
+        while (enVuelo.tryAcquire(fin - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            long enviada = System.nanoTime();
+            ejecutor.enviar(this::llamar).whenComplete((usuario, error) -> {
+                if (error == null) {
+                    completadas.increment();
+                    if (histograma != null) {
+                        histograma.registrar(System.nanoTime() - enviada);
+                    }
+                } else {
+                    errores.increment();
+                }
+                enVuelo.release();
+            });
+        }
+        // Se esperan las que quedaron en vuelo: también cuentan
+        enVuelo.acquire(concurrentes);
+
+        return completadas.sum() / ((System.nanoTime() - inicio) / 1e9);
+    }
+
+    private Object llamar() throws SQLException {
+        Object usuario = servicio.buscarUsuarioPorUsername(
+                DatosBenchmark.username(1 + ThreadLocalRandom.current().nextInt(USUARIOS_BUSQUEDA)));
+        if (latenciaRedNanos > 0) {
+            // parkNanos y no sleep: no obliga a manejar InterruptedException
+            // y en un hilo virtual libera igual al portador
+            LockSupport.parkNanos(latenciaRedNanos);
+        }
+        return usuario;
+    }
+
+    // ========================================================================
+    // Entorno y salida
+    // ========================================================================
+
+    private List<String> describirEntorno(Configuracion config) {
+        Runtime runtime = Runtime.getRuntime();
+        return List.of(
+                "fecha: " + LocalDateTime.now().withNano(0),
+                "jvm: " + System.getProperty("java.vm.name") + " " + Runtime.version(),
+                "flags: " + String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()),
+                "perfil: " + config.get("db.perfil", DatabaseConfig.PERFIL_MYSQL),
+                "cpus: " + runtime.availableProcessors() + ", heap max: " + runtime.maxMemory() / (1024 * 1024) + " MB",
+                "hilos plataforma: " + hilosPlataforma + ", limite: " + limite
+                        + ", latencia de red simulada: " + TimeUnit.NANOSECONDS.toMillis(latenciaRedNanos) + " ms",
+                "medición: calentamiento=" + calentamiento + ", iteraciones=" + iteraciones
+                        + "x" + TimeUnit.NANOSECONDS.toMillis(duracionNanos) + "ms");
+    }
+
+    private void guardar(Path archivo, List<String> entorno) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        entorno.forEach(linea -> lineas.add("# " + linea));
+        lineas.add(Resultado.ENCABEZADO_CSV);
+        resultados.forEach(resultado -> lineas.add(resultado.aCsv()));
+        Files.write(archivo, lineas, StandardCharsets.UTF_8);
+    }
+}
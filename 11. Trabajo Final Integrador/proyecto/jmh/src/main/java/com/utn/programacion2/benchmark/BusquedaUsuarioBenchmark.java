@@ -0,0 +1,63 @@
+package ar.edu.utn.tup.benchmark;
+
+import ar.edu.utn.tup.entities.Usuario;
+import ar.edu.utn.tup.service.CacheUsuarios;
+import ar.edu.utn.tup.service.UsuarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UsuarioService.buscarUsuarioPorUsername contra la base embebida:
+ * - cache=si: siempre el mismo username, todo acierto en CacheUsuarios
+ * - cache=no: caché de una sola entrada y usernames rotativos, así cada
+ *   búsqueda es un fallo y va a la base
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BusquedaUsuarioBenchmark {
+
+    private static final int USUARIOS_BUSQUEDA = 1_000;
+
+    @Param({"si", "no"})
+    public String cache;
+
+    private UsuarioService servicio;
+    private String[] usernames;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar(BaseEmbebida base) throws SQLException {
+        base.asegurarFilas(USUARIOS_BUSQUEDA);
+        boolean conCache = cache.equals("si");
+        servicio = conCache ? new UsuarioService() : new UsuarioService(new CacheUsuarios(1, 1));
+        usernames = new String[conCache ? 1 : USUARIOS_BUSQUEDA];
+        for (int i = 0; i < usernames.length; i++) {
+            usernames[i] = BaseEmbebida.username(i + 1);
+        }
+        base.silenciar(true);
+    }
+
+    @Benchmark
+    public Usuario buscarUsuarioPorUsername() throws SQLException {
+        String username = usernames[siguiente];
+        siguiente = siguiente + 1 == usernames.length ? 0 : siguiente + 1;
+        return servicio.buscarUsuarioPorUsername(username);
+    }
+}
@@ -0,0 +1,196 @@
+package ar.edu.utn.tup.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compara dos corridas de benchmarks (archivos CSV) y marca las regresiones.
+ *
+ * Entiende dos formatos:
+ * - el CSV de JMH (-rf csv, lo que deja gradle :jmh:jmh): se compara el
+ *   puntaje de cada benchmark, modo y parámetros. En throughput una caída es
+ *   regresión; en los modos de tiempo por operación, una suba. Las filas
+ *   gc.alloc.rate.norm del profiler gc dan los bytes por operación.
+ * - el CSV de las pruebas de carga (ver Resultado): se compara ops/s.
+ *
+ * Un benchmark es una regresión si empeora más que el umbral y la diferencia
+ * supera además la suma de los errores de ambas corridas (para no marcar
+ * ruido como regresión). El aumento de bytes por operación por encima del
+ * umbral se informa como aviso.
+ *
+ * Uso:
+ *
+ *    gradle :jmh:compararResultados -Pbase=base.csv -Pactual=actual.csv [-Pumbral=10]
+ *
+ * Termina con código 1 si hay alguna regresión.
+ */
+public final class ComparadorResultados {
+
+    private static final double UMBRAL_POR_DEFECTO = 10.0;
+
+    private static final String PREFIJO_PAQUETE = "ar.edu.utn.tup.";
+    private static final String ASIGNACION_JMH = ":gc.alloc.rate.norm";
+
+    /**
+     * Una medición comparable: un benchmark con su variante.
+     *
+     * @param mayorEsMejor true para throughput, false para tiempo por operación
+     * @param bytesPorOp   NaN si no se midió la asignación
+     */
+    private record Medicion(String clave, double puntaje, double error, boolean mayorEsMejor, String unidad,
+                            double bytesPorOp) {
+    }
+
+    private ComparadorResultados() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: ComparadorResultados <base.csv> <actual.csv> [umbral%]");
+            System.exit(2);
+            return;
+        }
+        double umbral = (args.length > 2 ? Double.parseDouble(args[2]) : UMBRAL_POR_DEFECTO) / 100;
+
+        Map<String, Medicion> base = leer(Path.of(args[0]));
+        Map<String, Medicion> actual = leer(Path.of(args[1]));
+
+        int regresiones = 0;
+        for (Medicion anterior : base.values()) {
+            Medicion nueva = actual.get(anterior.clave());
+            if (nueva == null) {
+                System.out.println("- " + anterior.clave() + ": no está en la corrida actual");
+                continue;
+            }
+
+            double cambio = (nueva.puntaje() - anterior.puntaje()) / anterior.puntaje();
+            double empeora = anterior.mayorEsMejor() ? -cambio : cambio;
+            double diferencia = Math.abs(nueva.puntaje() - anterior.puntaje());
+            boolean regresion = empeora > umbral
+                    && diferencia > sinNaN(anterior.error()) + sinNaN(nueva.error());
+            if (regresion) {
+                regresiones++;
+            }
+
+            System.out.printf(Locale.ROOT, "%s %-70s %14.3f → %14.3f %s (%+.1f%%)%n",
+                    regresion ? "✗" : "✓", anterior.clave(),
+                    anterior.puntaje(), nueva.puntaje(), nueva.unidad(), cambio * 100);
+
+            if (nueva.bytesPorOp() > anterior.bytesPorOp() * (1 + umbral)) {
+                System.out.printf(Locale.ROOT, "  ⚠ asignación: %.0f → %.0f B/op%n",
+                        anterior.bytesPorOp(), nueva.bytesPorOp());
+            }
+        }
+
+        if (regresiones > 0) {
+            System.err.println("\n✗ " + regresiones + " benchmark(s) con regresión mayor al "
+                    + Math.round(umbral * 100) + "%");
+            System.exit(1);
+        }
+        System.out.println("\n✓ Sin regresiones");
+    }
+
+    private static Map<String, Medicion> leer(Path archivo) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+            if (!linea.isBlank() && !linea.startsWith("#")) {
+                lineas.add(linea);
+            }
+        }
+        if (lineas.isEmpty()) {
+            throw new IllegalArgumentException("Sin resultados: " + archivo);
+        }
+        return lineas.get(0).startsWith("\"Benchmark\"") ? leerJmh(lineas) : leerPruebaCarga(lineas);
+    }
+
+    private static Map<String, Medicion> leerPruebaCarga(List<String> lineas) {
+        Map<String, Medicion> mediciones = new LinkedHashMap<>();
+        for (String linea : lineas) {
+            if (linea.equals(Resultado.ENCABEZADO_CSV)) {
+                continue;
+            }
+            Resultado resultado = Resultado.deCsv(linea);
+            mediciones.put(resultado.clave(), new Medicion(resultado.clave(), resultado.opsPorSegundo(),
+                    resultado.errorOps(), true, "ops/s", resultado.bytesPorOp()));
+        }
+        return mediciones;
+    }
+
+    // Columnas: Benchmark, Mode, Threads, Samples, Score, Score Error (99.9%),
+    // Unit y una "Param: x" por parámetro
+    private static Map<String, Medicion> leerJmh(List<String> lineas) {
+        List<String> encabezado = campos(lineas.get(0));
+        Map<String, Medicion> mediciones = new LinkedHashMap<>();
+        Map<String, Double> bytesPorOp = new LinkedHashMap<>();
+
+        for (String linea : lineas.subList(1, lineas.size())) {
+            List<String> campos = campos(linea);
+            String benchmark = campos.get(0);
+            String modo = campos.get(1);
+            StringBuilder parametros = new StringBuilder();
+            for (int i = 7; i < campos.size() && i < encabezado.size(); i++) {
+                if (!campos.get(i).isEmpty()) {
+                    parametros.append(parametros.isEmpty() ? "" : ",")
+                            .append(encabezado.get(i).substring("Param: ".length())).append('=').append(campos.get(i));
+                }
+            }
+
+            // Las filas secundarias (percentiles, profilers) son "benchmark:etiqueta"
+            int separador = benchmark.indexOf(':');
+            String principal = separador < 0 ? benchmark : benchmark.substring(0, separador);
+            String clave = clave(principal, parametros.toString(), modo);
+            if (separador < 0) {
+                mediciones.put(clave, new Medicion(clave, numero(campos.get(4)), numero(campos.get(5)),
+                        modo.equals("thrpt"), campos.get(6), Double.NaN));
+            } else if (benchmark.endsWith(ASIGNACION_JMH)) {
+                bytesPorOp.put(clave, numero(campos.get(4)));
+            }
+        }
+
+        bytesPorOp.forEach((clave, bytes) -> mediciones.computeIfPresent(clave, (k, medicion) ->
+                new Medicion(k, medicion.puntaje(), medicion.error(), medicion.mayorEsMejor(), medicion.unidad(),
+                        bytes)));
+        return mediciones;
+    }
+
+    private static String clave(String benchmark, String parametros, String modo) {
+        String nombre = benchmark.startsWith(PREFIJO_PAQUETE) ? benchmark.substring(PREFIJO_PAQUETE.length())
+                : benchmark;
+        return (parametros.isEmpty() ? nombre : nombre + "[" + parametros + "]") + " " + modo;
+    }
+
+    // CSV con campos opcionalmente entre comillas (sin comillas escapadas)
+    private static List<String> campos(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                entreComillas = !entreComillas;
+            } else if (c == ',' && !entreComillas) {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    private static double numero(String texto) {
+        return texto.isEmpty() || texto.equals("NaN") ? Double.NaN : Double.parseDouble(texto);
+    }
+
+    private static double sinNaN(double valor) {
+        return Double.isNaN(valor) ? 0 : valor;
+    }
+}
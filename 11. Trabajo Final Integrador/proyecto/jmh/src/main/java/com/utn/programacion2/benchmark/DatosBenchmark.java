@@ -0,0 +1,168 @@
+package ar.edu.utn.tup.benchmark;
+
+import ar.edu.utn.tup.config.DatabaseConfig;
+import ar.edu.utn.tup.dao.CredencialAccesoDAO;
+import ar.edu.utn.tup.dao.UsuarioDAO;
+import ar.edu.utn.tup.entities.CredencialAcceso;
+import ar.edu.utn.tup.entities.Usuario;
+import ar.edu.utn.tup.security.PasswordHasher;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Carga de usuarios sintéticos para los benchmarks.
+ *
+ * Los usuarios se llaman bench_0000001, bench_0000002, ... y se generan
+ * siempre iguales (semilla fija), así dos corridas con la misma cantidad de
+ * filas miden exactamente los mismos datos. La carga es incremental: pasar
+ * de 1.000 a 100.000 filas solo inserta las 99.000 que faltan.
+ */
+final class DatosBenchmark {
+
+    static final String PREFIJO = "bench_";
+
+    private static final int FILAS_POR_TRANSACCION = 5_000;
+    private static final long SEMILLA = 20_240_601L;
+
+    // El "_" del prefijo es comodín en LIKE: se escapa para que sea literal
+    private static final String FILTRO = " FROM usuario WHERE username LIKE 'bench!_%' ESCAPE '!'";
+    private static final String SQL_CONTAR = "SELECT COUNT(*)" + FILTRO;
+    private static final String SQL_PRIMER_ID = "SELECT MIN(id)" + FILTRO;
+
+    // Usernames con número de 7 dígitos: el orden alfabético es el numérico
+    private static final String SQL_SIN_CREDENCIAL = "SELECT u.id FROM usuario u " +
+            "LEFT JOIN credencial_acceso c ON c.usuario_id = u.id " +
+            "WHERE u.username LIKE 'bench!_%' ESCAPE '!' AND u.username <= ? AND c.id IS NULL ORDER BY u.id";
+    private static final String SQL_REINICIAR_CREDENCIALES = "UPDATE credencial_acceso " +
+            "SET hash_password = ?, salt = ?, intentos_fallidos = 0, eliminado = FALSE " +
+            "WHERE usuario_id IN (SELECT id" + FILTRO + ")";
+
+    private final UsuarioDAO usuarioDAO = new UsuarioDAO();
+    private final CredencialAccesoDAO credencialDAO = new CredencialAccesoDAO();
+
+    static String username(long numero) {
+        return String.format("%s%07d", PREFIJO, numero);
+    }
+
+    /**
+     * Deja al menos la cantidad pedida de usuarios sintéticos en la tabla.
+     *
+     * @return cantidad de usuarios sintéticos después de la carga
+     */
+    long asegurarFilas(long cantidad) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            long existentes = consultarNumero(conn, SQL_CONTAR);
+            if (existentes >= cantidad) {
+                return existentes;
+            }
+
+            long inicio = System.nanoTime();
+            conn.setAutoCommit(false);
+            try {
+                for (long desde = existentes + 1; desde <= cantidad; desde += FILAS_POR_TRANSACCION) {
+                    long hasta = Math.min(cantidad, desde + FILAS_POR_TRANSACCION - 1);
+                    usuarioDAO.crearEnLote(generar(desde, hasta), conn);
+                    conn.commit();
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            System.out.printf("✓ %d usuarios sintéticos cargados en %.1f s%n",
+                    cantidad - existentes, (System.nanoTime() - inicio) / 1e9);
+            return cantidad;
+        }
+    }
+
+    /**
+     * Da credencial a los primeros "cantidad" usuarios sintéticos (que ya
+     * tienen que existir, ver asegurarFilas) y deja la de todos con el hash
+     * indicado y sin intentos fallidos, así una corrida no hereda los
+     * bloqueos de la anterior. Todos comparten hash y salt: el costo de
+     * verificar depende de las iteraciones, no de la contraseña.
+     */
+    void asegurarCredenciales(long cantidad, PasswordHasher.HashYSalt hashYSalt) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            List<Long> sinCredencial = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(SQL_SIN_CREDENCIAL)) {
+                ps.setString(1, username(cantidad));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        sinCredencial.add(rs.getLong(1));
+                    }
+                }
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                for (int desde = 0; desde < sinCredencial.size(); desde += FILAS_POR_TRANSACCION) {
+                    List<CredencialAcceso> credenciales = new ArrayList<>();
+                    for (Long usuarioId : sinCredencial.subList(desde,
+                            Math.min(desde + FILAS_POR_TRANSACCION, sinCredencial.size()))) {
+                        CredencialAcceso credencial = new CredencialAcceso(hashYSalt.hash(), hashYSalt.salt(), false);
+                        credencial.setUsuarioId(usuarioId);
+                        credencial.setUltimoCambio(LocalDateTime.of(2024, 1, 1, 0, 0));
+                        credenciales.add(credencial);
+                    }
+                    credencialDAO.crearEnLote(credenciales, conn);
+                    conn.commit();
+                }
+                try (PreparedStatement ps = conn.prepareStatement(SQL_REINICIAR_CREDENCIALES)) {
+                    ps.setString(1, hashYSalt.hash());
+                    ps.setString(2, hashYSalt.salt());
+                    ps.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    long primerId() throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            long id = consultarNumero(conn, SQL_PRIMER_ID);
+            if (id == 0) {
+                throw new IllegalStateException("No hay usuarios sintéticos cargados");
+            }
+            return id;
+        }
+    }
+
+    // Cada usuario depende solo de su número: la misma fila en cualquier corrida
+    private static List<Usuario> generar(long desde, long hasta) {
+        List<Usuario> usuarios = new ArrayList<>((int) (hasta - desde + 1));
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (long numero = desde; numero <= hasta; numero++) {
+            Random random = new Random(SEMILLA ^ numero);
+            String username = username(numero);
+
+            Usuario usuario = new Usuario(username, username + "@bench.local", "Usuario Benchmark " + numero);
+            usuario.setActivo(random.nextInt(10) != 0);   // ~90% activos
+            usuario.setEliminado(false);
+            usuario.setFechaRegistro(base.plusMinutes(random.nextInt(525_600)));
+            usuarios.add(usuario);
+        }
+        return usuarios;
+    }
+
+    private static long consultarNumero(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ar.edu.utn.tup.benchmark;
+
+import ar.edu.utn.tup.security.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PasswordHasher.hashear (PBKDF2) con las iteraciones de
+ * hashing.iteraciones. Sin base: es el costo que se suma a cada alta y a
+ * cada cambio de contraseña.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class HashingBenchmark {
+
+    private static final String PASSWORD = "Benchmark#2024";
+
+    private final PasswordHasher hasher = PasswordHasher.getInstancia();
+
+    @Benchmark
+    public PasswordHasher.HashYSalt hashear() {
+        return hasher.hashear(PASSWORD);
+    }
+}
@@ -0,0 +1,92 @@
+package ar.edu.utn.tup.benchmark;
+
+import ar.edu.utn.tup.config.Configuracion;
+import ar.edu.utn.tup.service.LimitadorIntentos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LimitadorIntentos en memoria, sin BD, con 32 hilos contra el mismo
+ * limitador. Cada operación es lo que hace AutenticacionService en un
+ * intento fallido: intentar() y, si se permitió, registrarFallo() y
+ * tomarPendientes() al llegar al umbral.
+ * - escenario=ataque:    pocos usernames desde muchos orígenes. Casi todo se
+ *                        limita, con mucha contención sobre las mismas cubetas.
+ * - escenario=dispersos: usernames al azar entre muchos más que
+ *                        limitador.maxClaves, así se mide también el desalojo.
+ *
+ * Las propiedades limitador.* se toman de la configuración, como en el login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Threads(32)
+public class LimitadorIntentosBenchmark {
+
+    private static final int USERNAMES_ATACADOS = 16;
+    private static final int USERNAMES_DISPERSOS = 1_000_000;
+    private static final int ORIGENES = 10_000;
+
+    // El umbral de bloqueo de la BD, como en AutenticacionService
+    private static final int UMBRAL = 5;
+
+    @Param({"ataque", "dispersos"})
+    public String escenario;
+
+    private LimitadorIntentos limitador;
+    private String[] usernames;
+    private String[] origenes;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        limitador = LimitadorIntentos.desdeConfiguracion(Configuracion.cargar());
+        if (limitador == null) {
+            throw new IllegalArgumentException("El limitador está desactivado (limitador.maxClaves=0)");
+        }
+        usernames = claves("usuario", escenario.equals("ataque") ? USERNAMES_ATACADOS : USERNAMES_DISPERSOS);
+        origenes = claves("10.0.", ORIGENES);
+    }
+
+    @TearDown(Level.Trial)
+    public void informar() {
+        System.out.println(limitador.getEstadisticas());
+    }
+
+    @Benchmark
+    public int intentoFallido() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String username = usernames[random.nextInt(usernames.length)];
+        String origen = origenes[random.nextInt(origenes.length)];
+        if (limitador.intentar(username, origen) && limitador.registrarFallo(username) >= UMBRAL) {
+            return limitador.tomarPendientes(username);
+        }
+        return 0;
+    }
+
+    // Las claves se arman antes de medir: no se mide la concatenación
+    private static String[] claves(String prefijo, int cantidad) {
+        String[] claves = new String[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            claves[i] = prefijo + i;
+        }
+        return claves;
+    }
+}
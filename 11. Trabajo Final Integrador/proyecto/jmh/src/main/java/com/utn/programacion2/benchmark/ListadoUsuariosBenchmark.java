@@ -0,0 +1,53 @@
+package ar.edu.utn.tup.benchmark;
+
+import ar.edu.utn.tup.entities.Usuario;
+import ar.edu.utn.tup.service.UsuarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UsuarioService.listarTodosLosUsuarios (UsuarioDAO.obtenerTodos) con 1.000,
+ * 100.000 y 1.000.000 usuarios en la tabla. Cada volumen corre en su propio
+ * fork, con la base cargada desde cero.
+ *
+ * Iteraciones más largas que en los demás: con un millón de filas una sola
+ * operación tarda del orden de un segundo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ListadoUsuariosBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public long filas;
+
+    private final UsuarioService servicio = new UsuarioService();
+
+    @Setup(Level.Trial)
+    public void preparar(BaseEmbebida base) throws SQLException {
+        base.asegurarFilas(filas);
+        base.silenciar(true);
+    }
+
+    @Benchmark
+    public List<Usuario> listarTodosLosUsuarios() throws SQLException {
+        return servicio.listarTodosLosUsuarios();
+    }
+}
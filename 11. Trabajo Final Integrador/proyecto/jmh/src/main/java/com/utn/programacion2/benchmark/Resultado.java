@@ -0,0 +1,99 @@
+package ar.edu.utn.tup.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Resultado de una prueba de carga (BenchmarkLogin, BenchmarkModosEjecucion):
+ * throughput, percentiles de latencia y asignación de memoria durante las
+ * iteraciones de medición. Los benchmarks JMH informan lo suyo en el formato
+ * de JMH.
+ *
+ * @param benchmark       Operación medida (Clase.metodo)
+ * @param parametro       Variante (por ejemplo "filas=100000"), vacío si no hay
+ * @param opsPorSegundo   Promedio de las iteraciones de medición
+ * @param errorOps        Desvío estándar del throughput entre iteraciones
+ * @param p50Us           Latencias en microsegundos
+ * @param bytesPorOp      Bytes asignados por operación (todos los hilos)
+ * @param mbPorSegundo    Tasa de asignación durante la medición
+ * @param gcCantidad      Recolecciones durante la medición
+ * @param gcMs            Tiempo acumulado de esas recolecciones
+ */
+public record Resultado(String benchmark, String parametro, double opsPorSegundo, double errorOps,
+                        double p50Us, double p90Us, double p99Us, double p999Us, double maxUs,
+                        double bytesPorOp, double mbPorSegundo, long gcCantidad, long gcMs) {
+
+    static final String ENCABEZADO_CSV =
+            "benchmark,parametro,ops_s,error_ops_s,p50_us,p90_us,p99_us,p999_us,max_us,bytes_op,mb_s,gc,gc_ms";
+
+    /**
+     * Clave para comparar corridas: benchmark + variante.
+     */
+    public String clave() {
+        return parametro.isEmpty() ? benchmark : benchmark + "[" + parametro + "]";
+    }
+
+    String aCsv() {
+        return String.format(Locale.ROOT, "%s,%s,%.3f,%.3f,%.2f,%.2f,%.2f,%.2f,%.2f,%.1f,%.2f,%d,%d",
+                benchmark, parametro, opsPorSegundo, errorOps, p50Us, p90Us, p99Us, p999Us, maxUs,
+                bytesPorOp, mbPorSegundo, gcCantidad, gcMs);
+    }
+
+    static Resultado deCsv(String linea) {
+        String[] campos = linea.split(",", -1);
+        if (campos.length != 13) {
+            throw new IllegalArgumentException("Línea de resultados inválida: " + linea);
+        }
+        return new Resultado(campos[0], campos[1],
+                Double.parseDouble(campos[2]), Double.parseDouble(campos[3]),
+                Double.parseDouble(campos[4]), Double.parseDouble(campos[5]),
+                Double.parseDouble(campos[6]), Double.parseDouble(campos[7]),
+                Double.parseDouble(campos[8]), Double.parseDouble(campos[9]),
+                Double.parseDouble(campos[10]), Long.parseLong(campos[11]), Long.parseLong(campos[12]));
+    }
+
+    // ========================================================================
+    // Cálculos comunes de las pruebas de carga
+    // ========================================================================
+
+    // Recolecciones y ms de GC acumulados por la JVM hasta ahora
+    static long[] gc() {
+        long cantidad = 0;
+        long ms = 0;
+        for (GarbageCollectorMXBean recolector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            cantidad += Math.max(0, recolector.getCollectionCount());
+            ms += Math.max(0, recolector.getCollectionTime());
+        }
+        return new long[]{cantidad, ms};
+    }
+
+    static double promedio(double[] valores) {
+        double suma = 0;
+        for (double valor : valores) {
+            suma += valor;
+        }
+        return suma / valores.length;
+    }
+
+    static double desvio(double[] valores) {
+        if (valores.length < 2) {
+            return 0;
+        }
+        double media = promedio(valores);
+        double suma = 0;
+        for (double valor : valores) {
+            suma += (valor - media) * (valor - media);
+        }
+        return Math.sqrt(suma / (valores.length - 1));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%-55s %12.1f ± %-10.1f ops/s  p50=%.1fµs p90=%.1fµs p99=%.1fµs p99.9=%.1fµs max=%.1fµs  " +
+                        "asig=%.0f B/op (%.1f MB/s)  gc=%d (%d ms)",
+                clave(), opsPorSegundo, errorOps, p50Us, p90Us, p99Us, p999Us, maxUs,
+                bytesPorOp, mbPorSegundo, gcCantidad, gcMs);
+    }
+}
@@ -0,0 +1,70 @@
+package ar.edu.utn.tup.dao;
+
+import ar.edu.utn.tup.benchmark.BaseEmbebida;
+import ar.edu.utn.tup.config.DatabaseConfig;
+import ar.edu.utn.tup.entities.Usuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de UsuarioDAO.mapearUsuario sin la consulta.
+ *
+ * Ejecuta SQL_BUSCAR_POR_ID una vez y mapea la misma fila una y otra vez,
+ * con el ResultSet real del driver: lo que se mide son los getters JDBC,
+ * las conversiones (Timestamp → LocalDateTime) y la creación del Usuario.
+ *
+ * Está en el paquete dao porque mapearUsuario no es público.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MapeoUsuarioBenchmark {
+
+    private Connection conn;
+    private PreparedStatement ps;
+    private ResultSet rs;
+
+    @Setup(Level.Trial)
+    public void preparar(BaseEmbebida base) throws SQLException {
+        base.asegurarFilas(1);
+        long idUsuario = base.primerId();
+        conn = DatabaseConfig.getConnection();
+        ps = conn.prepareStatement(UsuarioDAO.SQL_BUSCAR_POR_ID);
+        ps.setLong(1, idUsuario);
+        rs = ps.executeQuery();
+        if (!rs.next()) {
+            throw new SQLException("No existe el usuario " + idUsuario + " para medir el mapeo");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        try (Connection c = conn; PreparedStatement p = ps; ResultSet r = rs) {
+            // Solo cierra, en orden inverso
+        }
+    }
+
+    @Benchmark
+    public Usuario mapearUsuario() throws SQLException {
+        return UsuarioDAO.mapearUsuario(rs);
+    }
+}
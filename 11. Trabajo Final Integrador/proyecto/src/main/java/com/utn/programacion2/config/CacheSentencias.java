@@ -0,0 +1,236 @@
+package ar.edu.utn.tup.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Caché de PreparedStatement de UNA conexión física, con clave por texto SQL.
+ *
+ * Cuando un DAO cierra la sentencia, no se cierra de verdad: se limpian sus
+ * parámetros y queda lista para el próximo prepareStatement con el mismo SQL
+ * sobre esta conexión. Así el servidor no vuelve a parsear la misma consulta.
+ *
+ * Está acotada (LRU): al superar el máximo se cierra la menos usada. Solo la
+ * usa el hilo que tiene prestada la conexión, por eso no lleva sincronización.
+ *
+ * Con el registro de consultas lentas activo, la medición (SentenciaMedida)
+ * corre dentro del mismo proxy de la sentencia prestada.
+ */
+final class CacheSentencias {
+
+    /**
+     * Crea la sentencia real contra la conexión física.
+     */
+    @FunctionalInterface
+    interface Preparador {
+        PreparedStatement preparar() throws SQLException;
+    }
+
+    /**
+     * Sentencia entregada y si salió de la caché.
+     */
+    record Obtenida(PreparedStatement sentencia, boolean acierto) {
+    }
+
+    private static final class Entrada {
+        private final PreparedStatement real;
+        private boolean enUso;
+        private boolean desalojada;
+
+        private Entrada(PreparedStatement real) {
+            this.real = real;
+        }
+    }
+
+    private final int maximo;
+    // accessOrder = true: el primero es el menos usado
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+
+    CacheSentencias(int maximo) {
+        this.maximo = maximo;
+    }
+
+    /**
+     * Devuelve una sentencia para el SQL pedido: la cacheada si está libre o
+     * una nueva si no. El proxy que se entrega devuelve la sentencia a la
+     * caché al cerrarse.
+     *
+     * @param clave          SQL más las opciones con que se preparó
+     * @param conexionProxy  Lo que debe devolver getConnection() (el préstamo, no la física)
+     * @param prestamoCerrado Indica si el préstamo ya terminó (la sentencia deja de ser usable)
+     * @param registro       Registro de consultas lentas, o null para no medir
+     * @param sql            SQL tal como lo pidió el DAO, para el registro
+     */
+    Obtenida obtener(String clave, Preparador preparador, Connection conexionProxy,
+                     BooleanSupplier prestamoCerrado, RegistroConsultasLentas registro, String sql)
+            throws SQLException {
+        Entrada entrada = entradas.get(clave);
+        boolean acierto = false;
+
+        if (entrada != null && !entrada.enUso) {
+            acierto = true;
+        } else if (entrada != null) {
+            // El mismo SQL ya está abierto en este préstamo (p. ej. un stream
+            // sin cerrar): se usa una sentencia aparte que no se cachea
+            entrada = new Entrada(preparador.preparar());
+            entrada.desalojada = true;
+        } else {
+            entrada = new Entrada(preparador.preparar());
+            entradas.put(clave, entrada);
+            desalojarExcedentes();
+        }
+
+        entrada.enUso = true;
+        PreparedStatement proxy = (PreparedStatement) Proxy.newProxyInstance(
+                CacheSentencias.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new SentenciaPrestada(entrada, conexionProxy, prestamoCerrado,
+                        registro != null ? new SentenciaMedida(entrada.real, sql, registro) : null));
+        return new Obtenida(proxy, acierto);
+    }
+
+    private void desalojarExcedentes() {
+        Iterator<Map.Entry<String, Entrada>> it = entradas.entrySet().iterator();
+        while (entradas.size() > maximo && it.hasNext()) {
+            Entrada vieja = it.next().getValue();
+            it.remove();
+            if (vieja.enUso) {
+                // Se cierra cuando el DAO la suelte
+                vieja.desalojada = true;
+            } else {
+                cerrarReal(vieja);
+            }
+        }
+    }
+
+    private void liberar(Entrada entrada) {
+        entrada.enUso = false;
+        if (entrada.desalojada) {
+            cerrarReal(entrada);
+            return;
+        }
+        try {
+            PreparedStatement ps = entrada.real;
+            ps.clearParameters();
+            ps.clearBatch();
+            // Los streams usan un fetch size especial: no debe heredarlo el próximo
+            if (ps.getFetchSize() != 0) {
+                ps.setFetchSize(0);
+            }
+        } catch (SQLException e) {
+            entradas.values().remove(entrada);
+            cerrarReal(entrada);
+        }
+    }
+
+    /**
+     * Al devolverse la conexión al pool: las sentencias que el DAO no cerró
+     * vuelven a quedar disponibles.
+     */
+    void liberarTodas() {
+        for (Entrada entrada : entradas.values().toArray(new Entrada[0])) {
+            if (entrada.enUso) {
+                liberar(entrada);
+            }
+        }
+    }
+
+    /**
+     * Cierra todas las sentencias (antes de cerrar la conexión física).
+     */
+    void cerrarTodas() {
+        for (Entrada entrada : entradas.values()) {
+            cerrarReal(entrada);
+        }
+        entradas.clear();
+    }
+
+    int getTamanio() {
+        return entradas.size();
+    }
+
+    private static void cerrarReal(Entrada entrada) {
+        try {
+            entrada.real.close();
+        } catch (SQLException e) {
+            // La conexión puede estar ya cortada; no hay nada más que hacer
+        }
+    }
+
+    /**
+     * Proxy de una sentencia cacheada. close() la devuelve a la caché; cualquier
+     * uso después de cerrarla (o de devolver la conexión) falla. Con medida, el
+     * resto de las llamadas pasa por ella en lugar de ir directo al driver.
+     */
+    private final class SentenciaPrestada implements InvocationHandler {
+        private final Entrada entrada;
+        private final Connection conexionProxy;
+        private final BooleanSupplier prestamoCerrado;
+        private final SentenciaMedida medida;
+        private boolean cerrada;
+
+        private SentenciaPrestada(Entrada entrada, Connection conexionProxy, BooleanSupplier prestamoCerrado,
+                                  SentenciaMedida medida) {
+            this.entrada = entrada;
+            this.conexionProxy = conexionProxy;
+            this.prestamoCerrado = prestamoCerrado;
+            this.medida = medida;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!cerrada) {
+                        cerrada = true;
+                        if (medida != null) {
+                            medida.terminarConsultaAbierta();
+                        }
+                        if (!prestamoCerrado.getAsBoolean()) {
+                            liberar(entrada);
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return cerrada || prestamoCerrado.getAsBoolean();
+                }
+                case "getConnection" -> {
+                    return conexionProxy;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "SentenciaCacheada[" + entrada.real + "]";
+                }
+                default -> {
+                    if (cerrada || prestamoCerrado.getAsBoolean()) {
+                        throw new SQLException("La sentencia ya fue cerrada");
+                    }
+                }
+            }
+
+            if (medida != null) {
+                return medida.invoke(proxy, method, args);
+            }
+            try {
+                return method.invoke(entrada.real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
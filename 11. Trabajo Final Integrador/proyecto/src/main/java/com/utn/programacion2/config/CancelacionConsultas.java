@@ -0,0 +1,256 @@
+package ar.edu.utn.tup.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Permite cortar desde otro hilo las consultas de una llamada en curso.
+ *
+ * El hilo que ejecuta la llamada la corre dentro de ejecutar(); mientras
+ * tanto, el pool asocia a esta cancelación cada sentencia que prepara (ver
+ * ConnectionPool). Al cancelar:
+ * - las sentencias que se están ejecutando reciben Statement.cancel(), así
+ *   que el DAO recibe una SQLException, cierra con su try-with-resources y
+ *   la conexión vuelve al pool (con rollback si había una transacción)
+ * - los próximos getConnection/prepareStatement de la llamada fallan enseguida
+ *
+ * Con plazo, además, cada sentencia lleva setQueryTimeout por el tiempo que
+ * le queda a la llamada: si el hilo que cancelaría no llega a tiempo, el
+ * propio motor corta la consulta.
+ *
+ * Con turno, la llamada lo toma al pedir su primera conexión y lo devuelve
+ * al cerrar la última: lo que hace sin conexión (por ejemplo, esperar el
+ * hash de una contraseña) no ocupa un turno de la BD.
+ */
+public final class CancelacionConsultas {
+
+    /**
+     * Cuerpo de la llamada.
+     */
+    @FunctionalInterface
+    public interface Tarea<T> {
+        T ejecutar() throws SQLException;
+    }
+
+    /**
+     * Permiso para usar la BD, compartido entre llamadas (ver
+     * EjecutorServicios). soltar() puede llegar más de una vez.
+     */
+    public interface Turno {
+        void tomar() throws SQLException;
+
+        void soltar();
+    }
+
+    private static final ThreadLocal<CancelacionConsultas> ACTUAL = new ThreadLocal<>();
+
+    private final long plazoNanos;
+    private final Turno turno;
+    private final AtomicInteger conexionesAbiertas = new AtomicInteger();
+    private final Set<Vigilada> enCurso = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelada;
+
+    /**
+     * @param plazoNanos momento límite según System.nanoTime(), o 0 sin plazo
+     */
+    public CancelacionConsultas(long plazoNanos) {
+        this(plazoNanos, null);
+    }
+
+    /**
+     * @param turno se toma con la primera conexión abierta; null = sin turno
+     */
+    public CancelacionConsultas(long plazoNanos, Turno turno) {
+        this.plazoNanos = plazoNanos;
+        this.turno = turno;
+    }
+
+    /**
+     * Corre la tarea en el hilo actual con esta cancelación activa.
+     */
+    public <T> T ejecutar(Tarea<T> tarea) throws SQLException {
+        CancelacionConsultas anterior = ACTUAL.get();
+        ACTUAL.set(this);
+        try {
+            return tarea.ejecutar();
+        } finally {
+            if (anterior == null) {
+                ACTUAL.remove();
+            } else {
+                ACTUAL.set(anterior);
+            }
+        }
+    }
+
+    /**
+     * Cancela las sentencias en ejecución y las que vengan. Se puede llamar
+     * desde cualquier hilo, más de una vez.
+     */
+    public void cancelar() {
+        cancelada = true;
+        for (Vigilada vigilada : enCurso) {
+            vigilada.cancelar();
+        }
+    }
+
+    public boolean isCancelada() {
+        return cancelada;
+    }
+
+    // ========================================================================
+    // Uso desde el pool
+    // ========================================================================
+
+    static CancelacionConsultas actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Falla si la llamada ya fue cancelada o se le venció el plazo.
+     */
+    void verificar() throws SQLException {
+        if (cancelada) {
+            throw new SQLException("La llamada fue cancelada");
+        }
+        if (plazoNanos != 0 && System.nanoTime() - plazoNanos >= 0) {
+            throw new SQLTimeoutException("Se venció el plazo de la llamada");
+        }
+    }
+
+    /**
+     * Lo llama el pool antes de prestar una conexión: si es la primera
+     * abierta de la llamada, espera el turno.
+     */
+    void tomarTurno() throws SQLException {
+        if (turno == null || conexionesAbiertas.getAndIncrement() > 0) {
+            return;
+        }
+        try {
+            turno.tomar();
+        } catch (SQLException | RuntimeException e) {
+            conexionesAbiertas.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Lo llama el pool al devolver una conexión (o si no llegó a prestarla).
+     */
+    void soltarTurno() {
+        if (turno != null && conexionesAbiertas.decrementAndGet() == 0) {
+            turno.soltar();
+        }
+    }
+
+    /**
+     * Asocia la sentencia a esta cancelación hasta que se cierre.
+     */
+    PreparedStatement vigilar(PreparedStatement sentencia) throws SQLException {
+        verificar();
+        boolean conTimeout = false;
+        if (plazoNanos != 0) {
+            // setQueryTimeout va en segundos enteros: se redondea hacia arriba
+            long restante = plazoNanos - System.nanoTime();
+            sentencia.setQueryTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(restante + 999_999_999)));
+            conTimeout = true;
+        }
+        Vigilada vigilada = new Vigilada(sentencia, conTimeout);
+        enCurso.add(vigilada);
+        // Si se canceló mientras se registraba, cancelar() pudo no verla
+        if (cancelada) {
+            vigilada.cancelar();
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                vigilada);
+    }
+
+    /**
+     * Sentencia asociada. close() y cancel() se excluyen entre sí: una
+     * sentencia cacheada que ya volvió a la caché puede estar prestada a
+     * otra llamada, y esa no debe recibir la cancelación.
+     */
+    private final class Vigilada implements InvocationHandler {
+        private final PreparedStatement real;
+        private final boolean conTimeout;
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean cerrada;
+
+        private Vigilada(PreparedStatement real, boolean conTimeout) {
+            this.real = real;
+            this.conTimeout = conTimeout;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    cerrar();
+                    return null;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "SentenciaCancelable[" + real + "]";
+                }
+                default -> {
+                }
+            }
+            try {
+                return method.invoke(real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void cerrar() throws SQLException {
+            enCurso.remove(this);
+            lock.lock();
+            try {
+                if (cerrada) {
+                    return;
+                }
+                cerrada = true;
+                // La sentencia puede volver a la caché: sin el timeout de esta llamada
+                if (conTimeout) {
+                    try {
+                        real.setQueryTimeout(0);
+                    } catch (SQLException e) {
+                        // Si la conexión ya se devolvió, la caché se vació con ella
+                    }
+                }
+                real.close();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void cancelar() {
+            lock.lock();
+            try {
+                if (!cerrada) {
+                    real.cancel();
+                }
+            } catch (SQLException e) {
+                // El motor no pudo cancelar: la consulta termina sola o por el timeout
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
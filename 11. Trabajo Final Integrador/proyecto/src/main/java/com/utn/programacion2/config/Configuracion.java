@@ -0,0 +1,124 @@
+package ar.edu.utn.tup.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Configuración externa de la aplicación.
+ *
+ * Cada clave (por ejemplo "db.url") se busca en este orden y gana la primera
+ * que tenga valor:
+ * 1. Propiedad de sistema:   -Ddb.url=...
+ * 2. Variable de entorno:    DB_URL=...   (mayúsculas, "." → "_")
+ * 3. Archivo de propiedades: db.url=...   (ver ARCHIVO_POR_DEFECTO)
+ * 4. Valor por defecto que indica quien pregunta
+ *
+ * El archivo se toma de -Dconfig.archivo / CONFIG_ARCHIVO, o si no de
+ * "db.properties" en el directorio de trabajo. Si no existe, se sigue con
+ * los otros orígenes (no es un error).
+ */
+public final class Configuracion {
+
+    public static final String ARCHIVO_POR_DEFECTO = "db.properties";
+    private static final String CLAVE_ARCHIVO = "config.archivo";
+
+    private final Properties archivo;
+    private final String origenArchivo;
+
+    private Configuracion(Properties archivo, String origenArchivo) {
+        this.archivo = archivo;
+        this.origenArchivo = origenArchivo;
+    }
+
+    /**
+     * Lee el archivo de propiedades (si existe) y deja lista la configuración.
+     *
+     * @throws IllegalStateException si se indicó un archivo que no se puede leer
+     */
+    public static Configuracion cargar() {
+        String indicado = System.getProperty(CLAVE_ARCHIVO, System.getenv(aVariableEntorno(CLAVE_ARCHIVO)));
+        Path ruta = Path.of(indicado != null ? indicado : ARCHIVO_POR_DEFECTO);
+
+        Properties propiedades = new Properties();
+        if (!Files.isRegularFile(ruta)) {
+            if (indicado != null) {
+                throw new IllegalStateException("No existe el archivo de configuración: " + ruta);
+            }
+            return new Configuracion(propiedades, null);
+        }
+
+        try (InputStream entrada = Files.newInputStream(ruta)) {
+            propiedades.load(entrada);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer el archivo de configuración: " + ruta, e);
+        }
+        return new Configuracion(propiedades, ruta.toAbsolutePath().toString());
+    }
+
+    // ========================================================================
+    // Lectura de valores
+    // ========================================================================
+
+    public String get(String clave, String porDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null) {
+            valor = System.getenv(aVariableEntorno(clave));
+        }
+        if (valor == null) {
+            valor = archivo.getProperty(clave);
+        }
+        return valor != null ? valor.trim() : porDefecto;
+    }
+
+    public int getInt(String clave, int porDefecto) {
+        String valor = get(clave, null);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor entero inválido para " + clave + ": " + valor);
+        }
+    }
+
+    public long getLong(String clave, long porDefecto) {
+        String valor = get(clave, null);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor numérico inválido para " + clave + ": " + valor);
+        }
+    }
+
+    public boolean getBoolean(String clave, boolean porDefecto) {
+        String valor = get(clave, null);
+        if (valor == null) {
+            return porDefecto;
+        }
+        return switch (valor.toLowerCase(Locale.ROOT)) {
+            case "true", "si", "sí", "1" -> true;
+            case "false", "no", "0" -> false;
+            default -> throw new IllegalArgumentException("Valor booleano inválido para " + clave + ": " + valor);
+        };
+    }
+
+    /**
+     * Ruta absoluta del archivo leído, o null si no se usó ninguno.
+     */
+    public String getOrigenArchivo() {
+        return origenArchivo;
+    }
+
+    // db.pool.maximo → DB_POOL_MAXIMO
+    private static String aVariableEntorno(String clave) {
+        return clave.toUpperCase(Locale.ROOT).replace('.', '_');
+    }
+}
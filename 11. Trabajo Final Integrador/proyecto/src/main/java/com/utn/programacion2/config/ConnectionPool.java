@@ -0,0 +1,536 @@
+package ar.edu.utn.tup.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ *
+ * Mantiene abiertas un conjunto de conexiones físicas y las presta a los DAOs.
+ * Lo que se entrega es un proxy de Connection: al llamar a close() la conexión
+ * vuelve al pool en lugar de cerrar el socket. Por eso los bloques
+ * try (Connection conn = DatabaseConfig.getConnection()) siguen funcionando igual.
+ *
+ * Características:
+ * - Tamaño mínimo y máximo (el máximo lo garantiza un Semaphore)
+ * - Validación al prestar (Connection.isValid), solo para las conexiones que
+ *   llevan más de VALIDACION_OMITIDA_MS ociosas: una recién devuelta
+ *   funcionaba hace un momento y validarla costaría un viaje a la base
+ * - Las conexiones del mínimo se abren al crear el pool
+ * - Desalojo de conexiones ociosas por encima del mínimo
+ * - Detección de fugas: avisa si una conexión lleva prestada más que el umbral
+ *   (umbralFugaMs = 0 la apaga). Solo entonces cada préstamo guarda la pila
+ *   de quien la pidió, que es lo que se imprime al reportar la fuga
+ * - Métricas de espera para obtener una conexión
+ * - Caché de PreparedStatement por conexión física (ver CacheSentencias):
+ *   como las conexiones viven mucho, el mismo SQL se prepara una sola vez
+ * - Cancelación: las sentencias preparadas dentro de una
+ *   CancelacionConsultas se pueden cortar desde otro hilo
+ */
+public class ConnectionPool {
+
+    /**
+     * Abre una conexión física nueva (normalmente con DriverManager).
+     */
+    @FunctionalInterface
+    public interface FabricaConexiones {
+        Connection crear() throws SQLException;
+    }
+
+    /**
+     * Foto de las métricas del pool en un momento dado.
+     */
+    public record Estadisticas(int abiertas, int ociosas, int prestadas,
+                               long prestamos, long timeouts, long fugasDetectadas,
+                               double esperaPromedioMs, double esperaMaximaMs,
+                               long sentenciasAciertos, long sentenciasFallos) {
+
+        public double tasaAciertosSentencias() {
+            long total = sentenciasAciertos + sentenciasFallos;
+            return total == 0 ? 0 : (double) sentenciasAciertos / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Pool{abiertas=%d, ociosas=%d, prestadas=%d, prestamos=%d, timeouts=%d, " +
+                            "fugas=%d, esperaPromedio=%.3fms, esperaMaxima=%.3fms, " +
+                            "sentencias=%d/%d (%.1f%% aciertos)}",
+                    abiertas, ociosas, prestadas, prestamos, timeouts,
+                    fugasDetectadas, esperaPromedioMs, esperaMaximaMs,
+                    sentenciasAciertos, sentenciasAciertos + sentenciasFallos, tasaAciertosSentencias() * 100);
+        }
+    }
+
+    private static final int TIMEOUT_VALIDACION_SEGUNDOS = 2;
+    private static final long VALIDACION_OMITIDA_MS = 500;
+
+    private final FabricaConexiones fabrica;
+    private final int minimo;
+    private final int maximo;
+    private final long timeoutEsperaMs;
+    private final long tiempoMaxOciosoMs;
+    private final long umbralFugaMs;
+    private final boolean detectarFugas;
+    private final int maxSentenciasPorConexion;
+
+    // Conexiones libres: se presta desde el frente (la más "caliente")
+    // y se desaloja desde el final (la que lleva más tiempo sin usarse)
+    private final LinkedBlockingDeque<ConexionFisica> ociosas = new LinkedBlockingDeque<>();
+    private final Set<Prestamo> prestadas = ConcurrentHashMap.newKeySet();
+    private final Semaphore permisos;
+    private final AtomicInteger abiertas = new AtomicInteger();
+    private final AtomicBoolean cerrado = new AtomicBoolean(false);
+    private final ScheduledExecutorService mantenimiento;
+    private volatile RegistroConsultasLentas consultasLentas;
+
+    // Métricas
+    private final LongAdder prestamos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder fugasDetectadas = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+    private final LongAdder sentenciasAciertos = new LongAdder();
+    private final LongAdder sentenciasFallos = new LongAdder();
+
+    public ConnectionPool(FabricaConexiones fabrica, int minimo, int maximo,
+                          long timeoutEsperaMs, long tiempoMaxOciosoMs, long umbralFugaMs) {
+        this(fabrica, minimo, maximo, timeoutEsperaMs, tiempoMaxOciosoMs, umbralFugaMs, 0);
+    }
+
+    /**
+     * @param maxSentenciasPorConexion Tamaño de la caché de PreparedStatement de
+     *                                 cada conexión física; 0 la desactiva
+     */
+    public ConnectionPool(FabricaConexiones fabrica, int minimo, int maximo,
+                          long timeoutEsperaMs, long tiempoMaxOciosoMs, long umbralFugaMs,
+                          int maxSentenciasPorConexion) {
+        if (minimo < 0 || maximo <= 0 || minimo > maximo) {
+            throw new IllegalArgumentException("Tamaños de pool inválidos: min=" + minimo + ", max=" + maximo);
+        }
+        if (maxSentenciasPorConexion < 0) {
+            throw new IllegalArgumentException("El tamaño de la caché de sentencias no puede ser negativo");
+        }
+        this.fabrica = fabrica;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.timeoutEsperaMs = timeoutEsperaMs;
+        this.tiempoMaxOciosoMs = tiempoMaxOciosoMs;
+        this.umbralFugaMs = umbralFugaMs;
+        this.detectarFugas = umbralFugaMs > 0;
+        this.maxSentenciasPorConexion = maxSentenciasPorConexion;
+        this.permisos = new Semaphore(maximo, true);
+        completarMinimo();
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-conexiones-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000,
+                (detectarFugas ? Math.min(tiempoMaxOciosoMs, umbralFugaMs) : tiempoMaxOciosoMs) / 2);
+        mantenimiento.scheduleWithFixedDelay(this::mantener, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    // ========================================================================
+    // Préstamo y devolución
+    // ========================================================================
+
+    /**
+     * Presta una conexión. Espera como máximo timeoutEsperaMs si el pool está
+     * agotado y lanza SQLException si no se liberó ninguna a tiempo.
+     */
+    public Connection obtenerConexion() throws SQLException {
+        if (cerrado.get()) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+        CancelacionConsultas cancelacion = CancelacionConsultas.actual();
+        if (cancelacion != null) {
+            cancelacion.verificar();
+            // El turno va antes que el permiso: con él, la espera acá es corta
+            cancelacion.tomarTurno();
+        }
+        try {
+            return prestar(cancelacion);
+        } catch (SQLException | RuntimeException e) {
+            if (cancelacion != null) {
+                cancelacion.soltarTurno();
+            }
+            throw e;
+        }
+    }
+
+    private Connection prestar(CancelacionConsultas cancelacion) throws SQLException {
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(timeoutEsperaMs, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLException("Timeout esperando conexión del pool (" + timeoutEsperaMs + " ms, máximo "
+                        + maximo + " conexiones)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba una conexión", e);
+        }
+
+        try {
+            ConexionFisica fisica = tomarConexionValida();
+            registrarEspera(System.nanoTime() - inicio);
+
+            Prestamo prestamo = new Prestamo(fisica, cancelacion);
+            prestadas.add(prestamo);
+            prestamos.increment();
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    prestamo);
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    private ConexionFisica tomarConexionValida() throws SQLException {
+        long omitirDesde = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(VALIDACION_OMITIDA_MS);
+        ConexionFisica fisica;
+        while ((fisica = ociosas.pollFirst()) != null) {
+            if (fisica.ultimoUso - omitirDesde > 0 || esValida(fisica.conexion)) {
+                return fisica;
+            }
+            cerrarFisica(fisica);
+        }
+        return abrirFisica();
+    }
+
+    private void devolver(Prestamo prestamo) {
+        prestadas.remove(prestamo);
+        ConexionFisica fisica = prestamo.fisica;
+        try {
+            if (fisica.sentencias != null) {
+                fisica.sentencias.liberarTodas();
+            }
+            if (cerrado.get() || !restaurarEstado(fisica.conexion)) {
+                cerrarFisica(fisica);
+            } else {
+                fisica.ultimoUso = System.nanoTime();
+                ociosas.offerFirst(fisica);
+            }
+        } finally {
+            permisos.release();
+            if (prestamo.cancelacion != null) {
+                prestamo.cancelacion.soltarTurno();
+            }
+        }
+    }
+
+    /**
+     * Deja la conexión como recién abierta: si alguien la devolvió con una
+     * transacción pendiente se hace rollback y se vuelve a autocommit.
+     */
+    private boolean restaurarEstado(Connection conexion) {
+        try {
+            if (conexion.isClosed()) {
+                return false;
+            }
+            if (!conexion.getAutoCommit()) {
+                conexion.rollback();
+                conexion.setAutoCommit(true);
+            }
+            if (conexion.isReadOnly()) {
+                conexion.setReadOnly(false);
+            }
+            conexion.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // ========================================================================
+    // Conexiones físicas
+    // ========================================================================
+
+    private ConexionFisica abrirFisica() throws SQLException {
+        Connection conexion = fabrica.crear();
+        abiertas.incrementAndGet();
+        return new ConexionFisica(conexion,
+                maxSentenciasPorConexion > 0 ? new CacheSentencias(maxSentenciasPorConexion) : null);
+    }
+
+    private void cerrarFisica(ConexionFisica fisica) {
+        abiertas.decrementAndGet();
+        try {
+            if (fisica.sentencias != null) {
+                fisica.sentencias.cerrarTodas();
+            }
+            fisica.conexion.close();
+        } catch (SQLException e) {
+            System.err.println("✗ Error al cerrar conexión física: " + e.getMessage());
+        }
+    }
+
+    private boolean esValida(Connection conexion) {
+        try {
+            return !conexion.isClosed() && conexion.isValid(TIMEOUT_VALIDACION_SEGUNDOS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // ========================================================================
+    // Mantenimiento periódico: desalojo de ociosas, mínimo y fugas
+    // ========================================================================
+
+    private void mantener() {
+        try {
+            desalojarOciosas();
+            completarMinimo();
+            detectarFugas();
+        } catch (RuntimeException e) {
+            System.err.println("✗ Error en mantenimiento del pool: " + e.getMessage());
+        }
+    }
+
+    private void desalojarOciosas() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(tiempoMaxOciosoMs);
+        while (abiertas.get() > minimo) {
+            ConexionFisica masVieja = ociosas.pollLast();
+            if (masVieja == null) {
+                return;
+            }
+            if (masVieja.ultimoUso - limite > 0) {
+                // La más vieja todavía no venció: las demás tampoco
+                ociosas.offerLast(masVieja);
+                return;
+            }
+            cerrarFisica(masVieja);
+        }
+    }
+
+    private void completarMinimo() {
+        while (!cerrado.get() && abiertas.get() < minimo && permisos.tryAcquire()) {
+            try {
+                ociosas.offerLast(abrirFisica());
+            } catch (SQLException e) {
+                System.err.println("✗ No se pudo precargar conexión: " + e.getMessage());
+                return;
+            } finally {
+                permisos.release();
+            }
+        }
+    }
+
+    private void detectarFugas() {
+        if (!detectarFugas) {
+            return;
+        }
+        long ahora = System.nanoTime();
+        long umbral = TimeUnit.MILLISECONDS.toNanos(umbralFugaMs);
+        for (Prestamo prestamo : prestadas) {
+            if (ahora - prestamo.desde > umbral && prestamo.fugaReportada.compareAndSet(false, true)) {
+                fugasDetectadas.increment();
+                System.err.println("✗ Posible fuga de conexión: prestada hace "
+                        + TimeUnit.NANOSECONDS.toMillis(ahora - prestamo.desde) + " ms sin devolverse");
+                prestamo.origen.printStackTrace();
+            }
+        }
+    }
+
+    // ========================================================================
+    // Métricas y cierre
+    // ========================================================================
+
+    private void registrarEspera(long nanos) {
+        esperaTotalNanos.add(nanos);
+        esperaMaximaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public Estadisticas getEstadisticas() {
+        long total = prestamos.sum();
+        double promedioMs = total == 0 ? 0 : esperaTotalNanos.sum() / (double) total / 1_000_000;
+        return new Estadisticas(
+                abiertas.get(),
+                ociosas.size(),
+                prestadas.size(),
+                total,
+                timeouts.sum(),
+                fugasDetectadas.sum(),
+                promedioMs,
+                esperaMaximaNanos.get() / 1_000_000.0,
+                sentenciasAciertos.sum(),
+                sentenciasFallos.sum());
+    }
+
+    public int getMaximo() {
+        return maximo;
+    }
+
+    /**
+     * A partir de ahora las sentencias preparadas se miden y las que superen
+     * el umbral se registran (ver RegistroConsultasLentas). Es un setter y no
+     * un parámetro del constructor porque se activa después de los scripts
+     * de la base embebida, que no son tráfico de la aplicación.
+     */
+    void setRegistroConsultasLentas(RegistroConsultasLentas registro) {
+        this.consultasLentas = registro;
+    }
+
+    /**
+     * Cierra las conexiones ociosas y detiene el mantenimiento. Las conexiones
+     * que estén prestadas se cierran cuando se devuelvan.
+     */
+    public void cerrar() {
+        if (!cerrado.compareAndSet(false, true)) {
+            return;
+        }
+        mantenimiento.shutdownNow();
+        ConexionFisica fisica;
+        while ((fisica = ociosas.pollFirst()) != null) {
+            cerrarFisica(fisica);
+        }
+    }
+
+    // ========================================================================
+    // Clases internas
+    // ========================================================================
+
+    private static final class ConexionFisica {
+        private final Connection conexion;
+        private final CacheSentencias sentencias;
+        private volatile long ultimoUso;
+
+        private ConexionFisica(Connection conexion, CacheSentencias sentencias) {
+            this.conexion = conexion;
+            this.sentencias = sentencias;
+            this.ultimoUso = System.nanoTime();
+        }
+    }
+
+    /**
+     * Un préstamo vivo. Intercepta close() para devolver la conexión al pool
+     * y rechaza cualquier uso posterior del proxy. Los prepareStatement pasan
+     * por la caché de sentencias de la conexión física.
+     */
+    private final class Prestamo implements InvocationHandler {
+        private final ConexionFisica fisica;
+        // La llamada que la pidió, para devolverle el turno al cerrarla
+        private final CancelacionConsultas cancelacion;
+        private final long desde = System.nanoTime();
+        // Capturar la pila cuesta: solo se hace si se va a poder reportar
+        private final Exception origen = detectarFugas ? new Exception("Conexión obtenida aquí") : null;
+        private final AtomicBoolean devuelta = new AtomicBoolean(false);
+        private final AtomicBoolean fugaReportada = new AtomicBoolean(false);
+
+        private Prestamo(ConexionFisica fisica, CancelacionConsultas cancelacion) {
+            this.fisica = fisica;
+            this.cancelacion = cancelacion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (devuelta.compareAndSet(false, true)) {
+                        devolver(this);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    if (devuelta.get()) {
+                        return true;
+                    }
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "ConexionPool[" + fisica.conexion + "]";
+                }
+                case "prepareStatement" -> {
+                    if (devuelta.get()) {
+                        throw new SQLException("La conexión ya fue devuelta al pool");
+                    }
+                    String clave = claveSentencia(method, args);
+                    RegistroConsultasLentas registro = consultasLentas;
+                    PreparedStatement sentencia;
+                    if (fisica.sentencias != null && clave != null) {
+                        // La caché mide dentro de su propio proxy
+                        CacheSentencias.Obtenida obtenida = fisica.sentencias.obtener(clave,
+                                () -> (PreparedStatement) invocarEnFisica(method, args),
+                                (Connection) proxy, devuelta::get, registro, (String) args[0]);
+                        (obtenida.acierto() ? sentenciasAciertos : sentenciasFallos).increment();
+                        sentencia = obtenida.sentencia();
+                    } else {
+                        sentencia = (PreparedStatement) invocarEnFisica(method, args);
+                        if (registro != null) {
+                            sentencia = SentenciaMedida.envolver(sentencia, (String) args[0], registro);
+                        }
+                    }
+                    CancelacionConsultas cancelacion = CancelacionConsultas.actual();
+                    return cancelacion != null ? cancelacion.vigilar(sentencia) : sentencia;
+                }
+                default -> {
+                    if (devuelta.get()) {
+                        throw new SQLException("La conexión ya fue devuelta al pool");
+                    }
+                }
+            }
+
+            return invocarEnFisica(method, args);
+        }
+
+        private Object invocarEnFisica(Method method, Object[] args) throws SQLException {
+            try {
+                return method.invoke(fisica.conexion, args);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException sql) {
+                    throw sql;
+                }
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new SQLException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Clave de la caché de sentencias: el SQL más las opciones que cambian la
+     * sentencia. Devuelve null para las variantes que no se cachean
+     * (columnas de claves generadas por nombre o índice, holdability).
+     */
+    private static String claveSentencia(Method method, Object[] args) {
+        Class<?>[] tipos = method.getParameterTypes();
+        if (tipos.length == 1) {
+            return (String) args[0];
+        }
+        if (tipos.length == 2 && tipos[1] == int.class) {
+            return args[0] + "\u0000claves=" + args[1];
+        }
+        if (tipos.length == 3) {
+            return args[0] + "\u0000tipo=" + args[1] + "," + args[2];
+        }
+        return null;
+    }
+}
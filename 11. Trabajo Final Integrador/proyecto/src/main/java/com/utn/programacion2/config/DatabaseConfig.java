@@ -1,49 +1,204 @@
 package ar.edu.utn.tup.config;
 
+import ar.edu.utn.tup.metricas.Metricas;
+
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Configuración de la base de datos y pool de conexiones (Singleton).
+ *
+ * Los valores se leen con Configuracion (propiedades de sistema, variables de
+ * entorno o db.properties); las constantes de acá son solo los valores por
+ * defecto. Hay dos perfiles (clave db.perfil):
+ * - mysql (por defecto): la base MySQL de siempre
+ * - embebida: H2 en memoria en modo MySQL. Al arrancar corre los scripts de
+ *   database/ (01 a 04 por defecto), así que no hace falta tener MySQL
+ *   instalado para probar o medir la capa de persistencia. Requiere el jar
+ *   de H2 en el classpath.
+ */
 public class DatabaseConfig {
 
-    // Configuración de BD - AJUSTAR con tus datos
-    private static final String URL = "jdbc:mysql://localhost:3308/sistema_usuarios?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
-    private static final String USER = "root";
-    private static final String PASSWORD = "123123qwer";
-    private static final String DRIVER = "com.mysql.cj.jdbc.Driver";
+    public static final String PERFIL_MYSQL = "mysql";
+    public static final String PERFIL_EMBEBIDA = "embebida";
+
+    // Configuración de BD por defecto - AJUSTAR con tus datos o usar db.properties
+    private static final String URL_POR_DEFECTO = "jdbc:mysql://localhost:3308/sistema_usuarios?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
+    private static final String USER_POR_DEFECTO = "root";
+    private static final String PASSWORD_POR_DEFECTO = "123123qwer";
+    private static final String DRIVER_MYSQL = "com.mysql.cj.jdbc.Driver";
+
+    // Perfil embebido: H2 en memoria, compatible con el SQL de MySQL.
+    // DB_CLOSE_DELAY=-1 mantiene la base viva mientras dure la JVM;
+    // IGNORECASE imita la collation _ci de MySQL en username/email.
+    private static final String URL_EMBEBIDA = "jdbc:h2:mem:sistema_usuarios;MODE=MySQL;"
+            + "DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String USER_EMBEBIDA = "sa";
+    private static final String PASSWORD_EMBEBIDA = "";
+    private static final String DRIVER_H2 = "org.h2.Driver";
+    private static final String SCRIPTS_DIR_POR_DEFECTO = "database";
+    private static final String SCRIPTS_POR_DEFECTO = "01_crear_base_datos.sql,02_datos_prueba.sql,"
+            + "03_migracion_indices.sql,04_migracion_eventos.sql";
+
+    // Sentencias preparadas en el servidor: MySQL parsea cada SQL una vez por
+    // conexión y después solo recibe los parámetros. Combina con la caché de
+    // sentencias del pool, que mantiene abiertos los PreparedStatement.
+    private static final boolean PREPARAR_EN_SERVIDOR = true;
+    private static final String PARAMETRO_PREPARAR_EN_SERVIDOR = "useServerPrepStmts=true";
+
+    // Lotes reescritos: Connector/J manda un JDBC batch de INSERT como un solo
+    // INSERT de varias filas (y los UPDATE, en una ida), en lugar de una ida a
+    // la BD por fila. Los IDs generados se siguen devolviendo en orden.
+    private static final boolean REESCRIBIR_LOTES = true;
+    private static final String PARAMETRO_REESCRIBIR_LOTES = "rewriteBatchedStatements=true";
+
+    // Configuración del pool de conexiones
+    private static final int POOL_MINIMO = 2;
+    private static final int POOL_MAXIMO = 10;
+    private static final long POOL_TIMEOUT_ESPERA_MS = 5_000;
+    private static final long POOL_MAX_OCIOSO_MS = 60_000;
+    private static final long POOL_UMBRAL_FUGA_MS = 30_000;
+    private static final int POOL_MAX_SENTENCIAS_POR_CONEXION = 64;
 
-    // Singleton
+    // Tiempo de obtener una conexión del pool (incluye la espera si está lleno)
+    private static final Metricas.Operacion M_OBTENER_CONEXION =
+            Metricas.operacion("DatabaseConfig.getConnection");
+
+    // Singleton. La creación abre conexiones (I/O): se protege con un
+    // ReentrantLock y no con synchronized, que dejaría fijados a su hilo
+    // portador a los hilos virtuales que esperan (ver EjecutorServicios)
     private static volatile DatabaseConfig instance;
+    private static final ReentrantLock LOCK_INSTANCIA = new ReentrantLock();
+
+    private final String perfil;
+    private final Dialecto dialecto;
+    private final String url;
+    private final String usuario;
+    private final String password;
+    private final ConnectionPool pool;
+    private final RegistroConsultasLentas consultasLentas;
 
     private DatabaseConfig() {
+        this(Configuracion.cargar());
+    }
+
+    private DatabaseConfig(Configuracion config) {
+        this.perfil = config.get("db.perfil", PERFIL_MYSQL).toLowerCase(Locale.ROOT);
+        boolean embebida = switch (perfil) {
+            case PERFIL_MYSQL -> false;
+            case PERFIL_EMBEBIDA -> true;
+            default -> throw new IllegalArgumentException("Perfil de BD desconocido: " + perfil
+                    + " (valores válidos: " + PERFIL_MYSQL + ", " + PERFIL_EMBEBIDA + ")");
+        };
+
+        this.dialecto = embebida ? Dialecto.H2 : Dialecto.MYSQL;
+        String driver = config.get("db.driver", embebida ? DRIVER_H2 : DRIVER_MYSQL);
+        this.usuario = config.get("db.usuario", embebida ? USER_EMBEBIDA : USER_POR_DEFECTO);
+        this.password = config.get("db.password", embebida ? PASSWORD_EMBEBIDA : PASSWORD_POR_DEFECTO);
+
+        String urlConfigurada = config.get("db.url", embebida ? URL_EMBEBIDA : URL_POR_DEFECTO);
+        if (dialecto == Dialecto.MYSQL && config.getBoolean("db.prepararEnServidor", PREPARAR_EN_SERVIDOR)) {
+            urlConfigurada = agregarParametro(urlConfigurada, PARAMETRO_PREPARAR_EN_SERVIDOR);
+        }
+        if (dialecto == Dialecto.MYSQL && config.getBoolean("db.reescribirLotes", REESCRIBIR_LOTES)) {
+            urlConfigurada = agregarParametro(urlConfigurada, PARAMETRO_REESCRIBIR_LOTES);
+        }
+        this.url = urlConfigurada;
+
         try {
-            Class.forName(DRIVER);
-            System.out.println("✓ Driver JDBC cargado");
+            Class.forName(driver);
+            System.out.println("✓ Driver JDBC cargado (perfil " + perfil + ")");
         } catch (ClassNotFoundException e) {
-            System.err.println("✗ Driver JDBC no encontrado");
-            throw new RuntimeException("Driver JDBC no encontrado", e);
+            System.err.println("✗ Driver JDBC no encontrado: " + driver);
+            throw new RuntimeException("Driver JDBC no encontrado: " + driver
+                    + (embebida ? " (agregar el jar de H2 al classpath)" : ""), e);
+        }
+
+        this.pool = new ConnectionPool(this::abrirConexionFisica,
+                config.getInt("db.pool.minimo", POOL_MINIMO),
+                config.getInt("db.pool.maximo", POOL_MAXIMO),
+                config.getLong("db.pool.timeoutEsperaMs", POOL_TIMEOUT_ESPERA_MS),
+                config.getLong("db.pool.maxOciosoMs", POOL_MAX_OCIOSO_MS),
+                config.getLong("db.pool.umbralFugaMs", POOL_UMBRAL_FUGA_MS),
+                config.getInt("db.pool.sentenciasPorConexion", POOL_MAX_SENTENCIAS_POR_CONEXION));
+
+        if (embebida) {
+            inicializarBaseEmbebida(config.get("db.scripts.dir", SCRIPTS_DIR_POR_DEFECTO),
+                    config.get("db.scripts", SCRIPTS_POR_DEFECTO));
+        }
+
+        // Después de los scripts: la carga inicial no es tráfico de la aplicación
+        // El EXPLAIN usa una conexión física propia: no compite con la aplicación por el pool
+        this.consultasLentas = new RegistroConsultasLentas(config, this::abrirConexionFisica);
+        if (consultasLentas.isHabilitado()) {
+            pool.setRegistroConsultasLentas(consultasLentas);
+            System.out.println("✓ Registro de consultas lentas activo (umbral "
+                    + config.getLong("db.consultasLentas.umbralMs", 0) + " ms)");
         }
     }
 
+    // Crea el esquema y carga los datos con los scripts de database/
+    private void inicializarBaseEmbebida(String directorio, String scripts) {
+        try (Connection conn = pool.obtenerConexion()) {
+            for (String nombre : scripts.split(",")) {
+                if (nombre.isBlank()) {
+                    continue;
+                }
+                Path script = Path.of(directorio, nombre.trim());
+                int sentencias = EjecutorScripts.ejecutar(conn, script);
+                System.out.println("✓ Script " + script.getFileName() + " ejecutado (" + sentencias + " sentencias)");
+            }
+        } catch (SQLException e) {
+            pool.cerrar();
+            System.err.println("✗ Error al inicializar la base embebida: " + e.getMessage());
+            throw new RuntimeException("Error al inicializar la base embebida", e);
+        }
+    }
+
+    private static String agregarParametro(String url, String parametro) {
+        String nombre = parametro.substring(0, parametro.indexOf('='));
+        if (url.contains(nombre + "=")) {
+            // Si la URL ya lo trae, se respeta lo que diga
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + parametro;
+    }
+
     public static DatabaseConfig getInstance() {
-        if (instance == null) {
-            synchronized (DatabaseConfig.class) {
-                if (instance == null) {
-                    instance = new DatabaseConfig();
+        DatabaseConfig actual = instance;
+        if (actual == null) {
+            LOCK_INSTANCIA.lock();
+            try {
+                actual = instance;
+                if (actual == null) {
+                    actual = new DatabaseConfig();
+                    instance = actual;
                 }
+            } finally {
+                LOCK_INSTANCIA.unlock();
             }
         }
-        return instance;
+        return actual;
     }
 
-    // Método de instancia
+    // Método de instancia: presta una conexión del pool.
+    // Al cerrarla vuelve al pool, no se corta el socket.
     public Connection createConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        return pool.obtenerConexion();
+    }
+
+    // Abre una conexión física nueva (solo lo usa el pool)
+    private Connection abrirConexionFisica() throws SQLException {
+        return DriverManager.getConnection(url, usuario, password);
     }
 
     // Método estático para compatibilidad
     public static Connection getConnection() throws SQLException {
-        return getInstance().createConnection();
+        return M_OBTENER_CONEXION.medir(() -> getInstance().createConnection(), conexion -> 0);
     }
 
     public boolean testConnection() {
@@ -56,4 +211,41 @@ public class DatabaseConfig {
             return false;
         }
     }
+
+    public ConnectionPool.Estadisticas getEstadisticasPool() {
+        return pool.getEstadisticas();
+    }
+
+    public RegistroConsultasLentas.Estadisticas getEstadisticasConsultasLentas() {
+        return consultasLentas.getEstadisticas();
+    }
+
+    public boolean isRegistroConsultasLentasHabilitado() {
+        return consultasLentas.isHabilitado();
+    }
+
+    public int getTamanioMaximoPool() {
+        return pool.getMaximo();
+    }
+
+    public String getPerfil() {
+        return perfil;
+    }
+
+    /**
+     * Motor de la base configurada; los DAO lo consultan para lo poco que
+     * no es portable entre MySQL y H2.
+     */
+    public Dialecto getDialecto() {
+        return dialecto;
+    }
+
+    /**
+     * Cierra el pool y todas sus conexiones ociosas, y escribe las consultas
+     * lentas pendientes. Llamar al salir de la aplicación.
+     */
+    public void cerrar() {
+        consultasLentas.cerrar();
+        pool.cerrar();
+    }
 }
\ No newline at end of file
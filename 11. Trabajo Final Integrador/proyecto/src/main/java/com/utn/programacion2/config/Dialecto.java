@@ -0,0 +1,29 @@
+package ar.edu.utn.tup.config;
+
+/**
+ * Diferencias entre los motores soportados que afectan a los DAO.
+ *
+ * - MYSQL: la base real (Connector/J).
+ * - H2: base embebida en modo MySQL, para pruebas de carga locales. Acepta
+ *   casi todo el SQL de los DAO; lo que no, se resuelve acá.
+ */
+public enum Dialecto {
+
+    // Connector/J entrega las filas de a una solo con fetch size = Integer.MIN_VALUE
+    MYSQL(Integer.MIN_VALUE),
+    // H2 rechaza fetch size negativos; con uno positivo ya lee por bloques
+    H2(500);
+
+    private final int fetchSizeStreaming;
+
+    Dialecto(int fetchSizeStreaming) {
+        this.fetchSizeStreaming = fetchSizeStreaming;
+    }
+
+    /**
+     * Fetch size a usar para recorrer un ResultSet grande sin cargarlo entero.
+     */
+    public int getFetchSizeStreaming() {
+        return fetchSizeStreaming;
+    }
+}
@@ -0,0 +1,139 @@
+package ar.edu.utn.tup.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ejecuta los scripts SQL de la carpeta database/ sobre una conexión.
+ *
+ * Lo usa el perfil embebido para crear el esquema y cargar los datos de
+ * prueba al arrancar, con los mismos archivos que se corren a mano en MySQL.
+ *
+ * Los scripts se parten en sentencias por ";" (respetando comillas y
+ * comentarios). Las sentencias que eligen o recrean la base (DROP/CREATE
+ * DATABASE, USE) se omiten: en el perfil embebido la base ya es la de la URL.
+ */
+final class EjecutorScripts {
+
+    private EjecutorScripts() {
+    }
+
+    /**
+     * Ejecuta el script completo en una transacción.
+     *
+     * @return cantidad de sentencias ejecutadas
+     */
+    static int ejecutar(Connection conn, Path script) throws SQLException {
+        String contenido;
+        try {
+            contenido = Files.readString(script, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("No se pudo leer el script " + script + ": " + e.getMessage(), e);
+        }
+
+        boolean autoCommitOriginal = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        int ejecutadas = 0;
+        try (Statement st = conn.createStatement()) {
+            for (String sentencia : separarSentencias(contenido)) {
+                if (debeOmitirse(sentencia)) {
+                    continue;
+                }
+                try {
+                    st.execute(sentencia);
+                } catch (SQLException e) {
+                    throw new SQLException("Error en " + script.getFileName() + ": " + e.getMessage()
+                            + "\n  Sentencia: " + resumir(sentencia), e.getSQLState(), e);
+                }
+                ejecutadas++;
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommitOriginal);
+        }
+        return ejecutadas;
+    }
+
+    /**
+     * Separa un script en sentencias. Quita los comentarios de línea ("--")
+     * y de bloque, y no corta en los ";" que estén dentro de comillas.
+     */
+    static List<String> separarSentencias(String script) {
+        List<String> sentencias = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        int i = 0;
+        int largo = script.length();
+
+        while (i < largo) {
+            char c = script.charAt(i);
+            char siguiente = i + 1 < largo ? script.charAt(i + 1) : '\0';
+
+            if (c == '-' && siguiente == '-') {
+                // Comentario de línea
+                while (i < largo && script.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && siguiente == '*') {
+                int fin = script.indexOf("*/", i + 2);
+                i = fin < 0 ? largo : fin + 2;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                // Literal o identificador entre comillas: se copia tal cual
+                int inicio = i++;
+                while (i < largo) {
+                    char d = script.charAt(i++);
+                    if (d == c) {
+                        // Comilla duplicada ('') = comilla escapada
+                        if (i < largo && script.charAt(i) == c) {
+                            i++;
+                            continue;
+                        }
+                        break;
+                    }
+                    if (d == '\\' && i < largo) {
+                        i++;
+                    }
+                }
+                actual.append(script, inicio, i);
+            } else if (c == ';') {
+                agregarSiNoVacia(sentencias, actual);
+                i++;
+            } else {
+                actual.append(c);
+                i++;
+            }
+        }
+        agregarSiNoVacia(sentencias, actual);
+        return sentencias;
+    }
+
+    private static void agregarSiNoVacia(List<String> sentencias, StringBuilder actual) {
+        String sentencia = actual.toString().trim();
+        if (!sentencia.isEmpty()) {
+            sentencias.add(sentencia);
+        }
+        actual.setLength(0);
+    }
+
+    private static boolean debeOmitirse(String sentencia) {
+        String normalizada = sentencia.replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+        return normalizada.startsWith("DROP DATABASE")
+                || normalizada.startsWith("CREATE DATABASE")
+                || normalizada.startsWith("USE ");
+    }
+
+    private static String resumir(String sentencia) {
+        String unaLinea = sentencia.replaceAll("\\s+", " ");
+        return unaLinea.length() > 120 ? unaLinea.substring(0, 120) + "..." : unaLinea;
+    }
+}
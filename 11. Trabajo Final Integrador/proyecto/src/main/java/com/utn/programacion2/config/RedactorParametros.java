@@ -0,0 +1,193 @@
+package ar.edu.utn.tup.config;
+
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Arma la versión "segura para el log" de los parámetros de una sentencia.
+ *
+ * Para cada "?" del SQL deduce a qué columna corresponde: por la lista de
+ * columnas en un INSERT, o por el identificador que lo precede en
+ * comparaciones ("col = ?", "col > ?", "col LIKE ?", "col IN (?, ?)").
+ *
+ * Reglas:
+ * - hash_password y salt: nunca se muestran ("***")
+ * - números, booleanos y fechas: se muestran
+ * - textos de columnas conocidas: se muestran, recortados
+ * - textos cuya columna no se pudo deducir: solo su largo (ante la duda, no
+ *   se expone el valor)
+ */
+final class RedactorParametros {
+
+    private static final Set<String> COLUMNAS_SENSIBLES = Set.of("hash_password", "salt");
+    private static final String OCULTO = "***";
+    private static final int MAX_LARGO_TEXTO = 64;
+
+    // Las listas IN dinámicas generan SQL distintos: se acota lo que se guarda
+    private static final int MAX_SQL_EN_CACHE = 1_000;
+    private static final Map<String, String[]> COLUMNAS_POR_SQL = new ConcurrentHashMap<>();
+
+    private static final Pattern INSERT = Pattern.compile(
+            "^\\s*INSERT\\s+INTO\\s+[\\w.`]+\\s*\\(([^)]*)\\)\\s*VALUES\\s*\\(([^)]*)\\)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private RedactorParametros() {
+    }
+
+    /**
+     * Texto de los parámetros con los sensibles ocultos, por ejemplo
+     * [1:42, 2:'jperez', 3:***].
+     *
+     * @param valores valores por posición (índice 0 = primer "?")
+     */
+    static String formatear(String sql, Object[] valores) {
+        if (valores.length == 0) {
+            return "[]";
+        }
+        String[] columnas = columnasDeParametros(sql);
+        StringJoiner texto = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < valores.length; i++) {
+            String columna = i < columnas.length ? columnas[i] : null;
+            texto.add((i + 1) + ":" + formatearValor(columna, valores[i]));
+        }
+        return texto.toString();
+    }
+
+    static boolean esSensible(String columna) {
+        return columna != null && COLUMNAS_SENSIBLES.contains(columna);
+    }
+
+    private static String formatearValor(String columna, Object valor) {
+        if (esSensible(columna)) {
+            return OCULTO;
+        }
+        if (valor == null) {
+            return "NULL";
+        }
+        if (valor instanceof Number || valor instanceof Boolean) {
+            return valor.toString();
+        }
+        if (valor instanceof Date || valor instanceof Temporal) {
+            return "'" + valor + "'";
+        }
+        if (valor instanceof String texto) {
+            if (columna == null) {
+                return "<texto de " + texto.length() + " caracteres>";
+            }
+            return "'" + (texto.length() > MAX_LARGO_TEXTO ? texto.substring(0, MAX_LARGO_TEXTO) + "…" : texto) + "'";
+        }
+        if (valor instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        return "<" + valor.getClass().getSimpleName() + ">";
+    }
+
+    // ========================================================================
+    // Columna de cada parámetro
+    // ========================================================================
+
+    /**
+     * Columna de cada "?" en orden (en minúsculas, sin alias de tabla), o
+     * null donde no se pudo deducir.
+     */
+    static String[] columnasDeParametros(String sql) {
+        String[] columnas = COLUMNAS_POR_SQL.get(sql);
+        if (columnas == null) {
+            columnas = deducirColumnas(sql);
+            if (COLUMNAS_POR_SQL.size() < MAX_SQL_EN_CACHE) {
+                COLUMNAS_POR_SQL.put(sql, columnas);
+            }
+        }
+        return columnas;
+    }
+
+    private static String[] deducirColumnas(String sql) {
+        Matcher insert = INSERT.matcher(sql);
+        if (insert.find()) {
+            String[] nombres = insert.group(1).split(",");
+            String[] valores = insert.group(2).split(",");
+            String[] columnas = new String[valores.length];
+            for (int i = 0; i < valores.length && i < nombres.length; i++) {
+                columnas[i] = valores[i].trim().equals("?") ? normalizar(nombres[i]) : null;
+            }
+            return columnas;
+        }
+
+        List<String> columnas = new ArrayList<>();
+        char comilla = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (comilla != 0) {
+                if (c == comilla) {
+                    comilla = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                comilla = c;
+            } else if (c == '?') {
+                columnas.add(columnaAntesDe(sql, i));
+            }
+        }
+        return columnas.toArray(new String[0]);
+    }
+
+    private static String columnaAntesDe(String sql, int posicion) {
+        int i = saltarEspacios(sql, posicion - 1);
+
+        if (i >= 0 && (sql.charAt(i) == ',' || sql.charAt(i) == '(')) {
+            // Dentro de "col IN (?, ?, ...)": se retrocede hasta el paréntesis
+            while (i >= 0 && sql.charAt(i) != '(') {
+                i--;
+            }
+            i = saltarEspacios(sql, i - 1);
+            int inicio = inicioDePalabra(sql, i);
+            if (!sql.substring(inicio, i + 1).equalsIgnoreCase("IN")) {
+                return null;
+            }
+            i = saltarEspacios(sql, inicio - 1);
+        } else {
+            // Operador de comparación: =, <>, !=, <=, >=, LIKE
+            while (i >= 0 && "=<>!".indexOf(sql.charAt(i)) >= 0) {
+                i--;
+            }
+            i = saltarEspacios(sql, i);
+            int inicio = inicioDePalabra(sql, i);
+            if (sql.substring(inicio, i + 1).equalsIgnoreCase("LIKE")) {
+                i = saltarEspacios(sql, inicio - 1);
+            }
+        }
+
+        int inicio = inicioDePalabra(sql, i);
+        return inicio > i ? null : normalizar(sql.substring(inicio, i + 1));
+    }
+
+    private static int saltarEspacios(String sql, int i) {
+        while (i >= 0 && Character.isWhitespace(sql.charAt(i))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int inicioDePalabra(String sql, int fin) {
+        int i = fin;
+        while (i >= 0 && (Character.isLetterOrDigit(sql.charAt(i)) || "_.`".indexOf(sql.charAt(i)) >= 0)) {
+            i--;
+        }
+        return i + 1;
+    }
+
+    // "c.hash_password" / "`salt`" → "hash_password" / "salt"
+    private static String normalizar(String identificador) {
+        String limpio = identificador.trim().replace("`", "");
+        int punto = limpio.lastIndexOf('.');
+        return limpio.substring(punto + 1).toLowerCase(Locale.ROOT);
+    }
+}
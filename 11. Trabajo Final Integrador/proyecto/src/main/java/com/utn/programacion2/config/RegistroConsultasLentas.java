@@ -0,0 +1,344 @@
+package ar.edu.utn.tup.config;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de consultas lentas.
+ *
+ * Toda sentencia preparada por el pool (ver SentenciaMedida) que tarde al
+ * menos el umbral se escribe en un archivo con su SQL, los parámetros
+ * (redactados, ver RedactorParametros), las filas, el tamaño del lote y,
+ * opcionalmente, el plan de ejecución (EXPLAIN).
+ *
+ * La escritura es asíncrona: el hilo de la consulta solo encola el evento en
+ * una cola acotada y sigue. Si la cola está llena el evento se descarta (y se
+ * cuenta): el log nunca frena a la aplicación. Un hilo daemon vacía la cola,
+ * escribe y rota el archivo por tamaño (archivo.1 ... archivo.N).
+ *
+ * El EXPLAIN corre también en ese hilo, solo para SELECT, sobre una conexión
+ * física propia y no del pool: las consultas lentas suelen coincidir con el
+ * pool agotado, y pedirle una conexión le quitaría una a la aplicación. Se
+ * abre la primera vez que hace falta y se reutiliza; si falla se descarta y
+ * se vuelve a abrir en el siguiente EXPLAIN.
+ *
+ * Configuración (propiedades db.consultasLentas.*, ver Configuracion):
+ * - umbralMs:      desde cuántos ms se registra una consulta (0 = apagado)
+ * - explain:       agregar el plan de los SELECT (false)
+ * - archivo:       ruta del log (logs/consultas-lentas.log)
+ * - maxBytes:      tamaño a partir del cual se rota (10 MB)
+ * - archivos:      cuántos archivos rotados se conservan (5)
+ * - capacidadCola: eventos pendientes de escribir como máximo (1000)
+ */
+public final class RegistroConsultasLentas {
+
+    /**
+     * Foto de los contadores del registro.
+     */
+    public record Estadisticas(long registradas, long descartadas, long erroresEscritura, int pendientes) {
+
+        @Override
+        public String toString() {
+            return String.format("ConsultasLentas{registradas=%d, descartadas=%d, erroresEscritura=%d, pendientes=%d}",
+                    registradas, descartadas, erroresEscritura, pendientes);
+        }
+    }
+
+    // Valores crudos (para el EXPLAIN); nunca se escriben tal cual
+    private record Evento(LocalDateTime momento, String sql, Object[] valores, int lote,
+                          long nanos, long filas, String error) {
+    }
+
+    private static final String ARCHIVO_POR_DEFECTO = "logs/consultas-lentas.log";
+    private static final long MAX_BYTES_POR_DEFECTO = 10L * 1024 * 1024;
+    private static final int ARCHIVOS_POR_DEFECTO = 5;
+    private static final int CAPACIDAD_COLA_POR_DEFECTO = 1_000;
+    private static final long ESPERA_CIERRE_MS = 2_000;
+
+    private final long umbralNanos;
+    private final boolean explain;
+    private final Path archivo;
+    private final long maxBytes;
+    private final int archivos;
+    private final ConnectionPool.FabricaConexiones conexiones;
+
+    private final BlockingQueue<Evento> cola;
+    private final Thread escritor;
+    private volatile boolean cerrado;
+
+    private final LongAdder registradas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder erroresEscritura = new LongAdder();
+
+    // Solo los usa el hilo escritor
+    private BufferedWriter salida;
+    private long bytesEscritos;
+    private Connection conexionExplain;
+
+    /**
+     * @param conexiones abre la conexión física del EXPLAIN (no el pool)
+     */
+    public RegistroConsultasLentas(Configuracion config, ConnectionPool.FabricaConexiones conexiones) {
+        long umbralMs = config.getLong("db.consultasLentas.umbralMs", 0);
+        this.maxBytes = config.getLong("db.consultasLentas.maxBytes", MAX_BYTES_POR_DEFECTO);
+        this.archivos = config.getInt("db.consultasLentas.archivos", ARCHIVOS_POR_DEFECTO);
+        int capacidad = config.getInt("db.consultasLentas.capacidadCola", CAPACIDAD_COLA_POR_DEFECTO);
+        if (umbralMs < 0 || maxBytes <= 0 || archivos < 1 || capacidad <= 0) {
+            throw new IllegalArgumentException("Configuración de consultas lentas inválida: umbralMs=" + umbralMs
+                    + ", maxBytes=" + maxBytes + ", archivos=" + archivos + ", capacidadCola=" + capacidad);
+        }
+        this.umbralNanos = TimeUnit.MILLISECONDS.toNanos(umbralMs);
+        this.explain = config.getBoolean("db.consultasLentas.explain", false);
+        this.archivo = Paths.get(config.get("db.consultasLentas.archivo", ARCHIVO_POR_DEFECTO));
+        this.conexiones = conexiones;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+
+        if (isHabilitado()) {
+            this.escritor = new Thread(this::escribirPendientes, "consultas-lentas");
+            escritor.setDaemon(true);
+            escritor.start();
+        } else {
+            this.escritor = null;
+        }
+    }
+
+    public boolean isHabilitado() {
+        return umbralNanos > 0;
+    }
+
+    /**
+     * Encola la consulta si superó el umbral. No bloquea nunca.
+     *
+     * @param filas filas leídas o afectadas; -1 si falló o no se sabe
+     * @param error la excepción si la ejecución falló, o null
+     */
+    void registrar(String sql, Object[] valores, int lote, long nanos, long filas, Throwable error) {
+        if (nanos < umbralNanos || cerrado) {
+            return;
+        }
+        Evento evento = new Evento(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS), sql, valores, lote,
+                nanos, filas, error == null ? null : error.getClass().getSimpleName() + ": " + error.getMessage());
+        if (cola.offer(evento)) {
+            registradas.increment();
+        } else {
+            descartadas.increment();
+        }
+    }
+
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(registradas.sum(), descartadas.sum(), erroresEscritura.sum(), cola.size());
+    }
+
+    /**
+     * Escribe lo pendiente (esperando como máximo unos segundos) y cierra el
+     * archivo.
+     */
+    public void cerrar() {
+        if (escritor == null || cerrado) {
+            return;
+        }
+        cerrado = true;
+        try {
+            escritor.join(ESPERA_CIERRE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ========================================================================
+    // Hilo escritor
+    // ========================================================================
+
+    private void escribirPendientes() {
+        try {
+            while (!cerrado || !cola.isEmpty()) {
+                Evento evento = cola.poll(500, TimeUnit.MILLISECONDS);
+                if (evento == null) {
+                    continue;
+                }
+                // Se escribe todo lo acumulado y se vacía el buffer una vez
+                do {
+                    escribir(evento);
+                } while ((evento = cola.poll()) != null);
+                vaciarBuffer();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            cerrarArchivo();
+            cerrarConexionExplain();
+        }
+    }
+
+    private void escribir(Evento evento) {
+        StringBuilder texto = new StringBuilder(256)
+                .append(evento.momento())
+                .append(String.format(Locale.ROOT, " %.3fms", evento.nanos() / 1e6))
+                .append(" filas=").append(evento.filas());
+        if (evento.lote() > 0) {
+            texto.append(" lote=").append(evento.lote());
+        }
+        texto.append(" sql=").append(enUnaLinea(evento.sql()))
+                .append(" params=").append(RedactorParametros.formatear(evento.sql(), evento.valores()));
+        if (evento.error() != null) {
+            texto.append(" error=").append(enUnaLinea(evento.error()));
+        }
+        texto.append(System.lineSeparator());
+
+        if (explain && esSelect(evento.sql())) {
+            for (String fila : explicar(evento)) {
+                texto.append("    EXPLAIN ").append(fila).append(System.lineSeparator());
+            }
+        }
+
+        String linea = texto.toString();
+        int bytes = linea.getBytes(StandardCharsets.UTF_8).length;
+        try {
+            abrirORotar(bytes);
+            salida.write(linea);
+            bytesEscritos += bytes;
+        } catch (IOException e) {
+            erroresEscritura.increment();
+            cerrarArchivo();
+        }
+    }
+
+    // Plan del SELECT con los mismos parámetros. Se muestra genérico
+    // (columna=valor) porque el formato cambia según el motor
+    private List<String> explicar(Evento evento) {
+        List<String> filas = new ArrayList<>();
+        if (conexionExplain == null) {
+            try {
+                conexionExplain = conexiones.crear();
+            } catch (SQLException e) {
+                filas.add("no disponible: " + e.getMessage());
+                return filas;
+            }
+        }
+        try (PreparedStatement stmt = conexionExplain.prepareStatement("EXPLAIN " + evento.sql())) {
+            Object[] valores = evento.valores();
+            for (int i = 0; i < valores.length; i++) {
+                stmt.setObject(i + 1, valores[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    StringJoiner fila = new StringJoiner(", ");
+                    for (int c = 1; c <= meta.getColumnCount(); c++) {
+                        Object valor = rs.getObject(c);
+                        if (valor != null) {
+                            fila.add(meta.getColumnLabel(c).toLowerCase(Locale.ROOT) + "=" + enUnaLinea(valor.toString()));
+                        }
+                    }
+                    filas.add(fila.toString());
+                }
+            }
+        } catch (SQLException e) {
+            filas.add("no disponible: " + e.getMessage());
+            cerrarConexionExplain();
+        }
+        return filas;
+    }
+
+    private void cerrarConexionExplain() {
+        if (conexionExplain == null) {
+            return;
+        }
+        try {
+            conexionExplain.close();
+        } catch (SQLException e) {
+            // Se descarta igual; la próxima vez se abre otra
+        }
+        conexionExplain = null;
+    }
+
+    // ========================================================================
+    // Archivo y rotación
+    // ========================================================================
+
+    private void abrirORotar(int bytesNuevos) throws IOException {
+        if (salida != null && bytesEscritos + bytesNuevos <= maxBytes) {
+            return;
+        }
+        cerrarArchivo();
+
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        if (carpeta != null) {
+            Files.createDirectories(carpeta);
+        }
+        if (Files.exists(archivo) && Files.size(archivo) > 0 && Files.size(archivo) + bytesNuevos > maxBytes) {
+            rotar();
+        }
+        salida = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        bytesEscritos = Files.size(archivo);
+    }
+
+    // archivo.(N-1) → archivo.N, ..., archivo → archivo.1 (el más viejo se pierde)
+    private void rotar() throws IOException {
+        for (int i = archivos; i > 1; i--) {
+            Path anterior = rotado(i - 1);
+            if (Files.exists(anterior)) {
+                Files.move(anterior, rotado(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(archivo, rotado(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotado(int numero) {
+        return archivo.resolveSibling(archivo.getFileName() + "." + numero);
+    }
+
+    private void vaciarBuffer() {
+        if (salida == null) {
+            return;
+        }
+        try {
+            salida.flush();
+        } catch (IOException e) {
+            erroresEscritura.increment();
+            cerrarArchivo();
+        }
+    }
+
+    private void cerrarArchivo() {
+        if (salida == null) {
+            return;
+        }
+        try {
+            salida.close();
+        } catch (IOException e) {
+            erroresEscritura.increment();
+        }
+        salida = null;
+    }
+
+    private static boolean esSelect(String sql) {
+        return sql.stripLeading().regionMatches(true, 0, "SELECT", 0, 6);
+    }
+
+    private static String enUnaLinea(String texto) {
+        return texto.replaceAll("\\s+", " ").trim();
+    }
+}
@@ -0,0 +1,198 @@
+package ar.edu.utn.tup.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Proxy de PreparedStatement que mide cada ejecución y avisa al
+ * RegistroConsultasLentas cuando supera el umbral.
+ *
+ * Guarda los valores de los setXxx(indice, valor) para poder reportarlos
+ * (el registro los redacta antes de escribirlos, ver RedactorParametros).
+ *
+ * En executeQuery el tiempo corre hasta que se cierra el ResultSet: una
+ * consulta que devuelve rápido la primera fila pero tarda en recorrer el
+ * resto también es lenta para quien la usa. Para eso el ResultSet se
+ * devuelve envuelto en un ResultadoMedido.
+ *
+ * Con la caché de sentencias activa no hay un proxy propio: el de
+ * CacheSentencias le pasa cada llamada a invoke, así cada llamada a la
+ * sentencia cuesta un solo salto por reflexión y no dos proxies apilados.
+ * envolver() queda para las sentencias que no se cachean.
+ *
+ * Igual que CacheSentencias, lo usa solo el hilo que tiene prestada la
+ * conexión, así que no lleva sincronización.
+ */
+final class SentenciaMedida implements InvocationHandler {
+
+    private final PreparedStatement real;
+    private final String sql;
+    private final RegistroConsultasLentas registro;
+
+    private Object[] valores = new Object[8];
+    private int cantidadValores;
+    private int lote;
+    private ResultadoMedido abierto;
+
+    SentenciaMedida(PreparedStatement real, String sql, RegistroConsultasLentas registro) {
+        this.real = real;
+        this.sql = sql;
+        this.registro = registro;
+    }
+
+    static PreparedStatement envolver(PreparedStatement real, String sql, RegistroConsultasLentas registro) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new SentenciaMedida(real, sql, registro));
+    }
+
+    /**
+     * @param proxy La sentencia que ve el DAO; es la que devuelve
+     *              getStatement() del ResultSet
+     */
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String nombre = method.getName();
+        boolean sinArgumentos = args == null || args.length == 0;
+
+        // setInt(1, x), setString(2, s), setNull(3, tipo)...; los setXxx de
+        // un solo argumento (setFetchSize, setMaxRows) no son parámetros
+        if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+            guardarValor(indice, nombre.equals("setNull") ? null : args[1]);
+            return delegar(method, args);
+        }
+
+        switch (nombre) {
+            case "clearParameters" -> {
+                Arrays.fill(valores, null);
+                cantidadValores = 0;
+            }
+            case "addBatch" -> {
+                if (sinArgumentos) {
+                    lote++;
+                }
+            }
+            case "clearBatch" -> lote = 0;
+            case "executeQuery" -> {
+                if (sinArgumentos) {
+                    return ejecutarConsulta((Statement) proxy, method);
+                }
+            }
+            case "execute", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch" -> {
+                if (sinArgumentos) {
+                    return ejecutarActualizacion(method);
+                }
+            }
+            case "close" -> terminarConsultaAbierta();
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            case "toString" -> {
+                return "SentenciaMedida[" + real + "]";
+            }
+            default -> {
+            }
+        }
+        return delegar(method, args);
+    }
+
+    private Object ejecutarConsulta(Statement sentencia, Method method) throws Throwable {
+        terminarConsultaAbierta();
+        Object[] parametros = Arrays.copyOf(valores, cantidadValores);
+        long inicio = System.nanoTime();
+        ResultSet resultado;
+        try {
+            resultado = (ResultSet) delegar(method, null);
+        } catch (Throwable e) {
+            registro.registrar(sql, parametros, 0, System.nanoTime() - inicio, -1, e);
+            throw e;
+        }
+        abierto = new ResultadoMedido(resultado, sentencia, registro, sql, parametros, inicio);
+        return abierto;
+    }
+
+    private Object ejecutarActualizacion(Method method) throws Throwable {
+        terminarConsultaAbierta();
+        Object[] parametros = Arrays.copyOf(valores, cantidadValores);
+        int sentenciasLote = lote;
+        long inicio = System.nanoTime();
+        try {
+            Object resultado = delegar(method, null);
+            registro.registrar(sql, parametros, sentenciasLote, System.nanoTime() - inicio,
+                    filasAfectadas(resultado), null);
+            return resultado;
+        } catch (Throwable e) {
+            registro.registrar(sql, parametros, sentenciasLote, System.nanoTime() - inicio, -1, e);
+            throw e;
+        } finally {
+            if (method.getName().endsWith("Batch")) {
+                lote = 0;
+            }
+        }
+    }
+
+    // Si el DAO cierra la sentencia (o la reejecuta) sin cerrar el ResultSet,
+    // JDBC lo cierra implícitamente: la consulta terminó ahí. CacheSentencias
+    // lo llama al devolver la sentencia, que no se cierra de verdad
+    void terminarConsultaAbierta() {
+        if (abierto != null) {
+            abierto.terminar();
+            abierto = null;
+        }
+    }
+
+    private void guardarValor(int indice, Object valor) {
+        if (indice < 1) {
+            return;
+        }
+        if (indice > valores.length) {
+            valores = Arrays.copyOf(valores, Math.max(indice, valores.length * 2));
+        }
+        valores[indice - 1] = valor;
+        cantidadValores = Math.max(cantidadValores, indice);
+    }
+
+    // execute(): boolean (sin filas); executeUpdate: int/long; executeBatch:
+    // una cuenta por sentencia (SUCCESS_NO_INFO cuenta como 1)
+    private static long filasAfectadas(Object resultado) {
+        if (resultado instanceof Number numero) {
+            return numero.longValue();
+        }
+        long filas = 0;
+        if (resultado instanceof int[] cuentas) {
+            for (int cuenta : cuentas) {
+                filas += cuenta == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, cuenta);
+            }
+            return filas;
+        }
+        if (resultado instanceof long[] cuentas) {
+            for (long cuenta : cuentas) {
+                filas += cuenta == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, cuenta);
+            }
+            return filas;
+        }
+        return -1;
+    }
+
+    private Object delegar(Method method, Object[] args) throws Throwable {
+        return invocar(real, method, args);
+    }
+
+    private static Object invocar(Object destino, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
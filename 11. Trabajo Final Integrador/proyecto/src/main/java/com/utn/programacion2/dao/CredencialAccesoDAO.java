@@ -1,12 +1,117 @@
 package ar.edu.utn.tup.dao;
 
 import ar.edu.utn.tup.config.DatabaseConfig;
+import ar.edu.utn.tup.config.Dialecto;
 import ar.edu.utn.tup.entities.CredencialAcceso;
+import ar.edu.utn.tup.metricas.Metricas;
 
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CredencialAccesoDAO {
 
+    // ========================================================================
+    // Columnas: una sola definición para el SELECT y para el mapeo por índice
+    // ========================================================================
+
+    // El orden de las constantes es el orden de las columnas en el SELECT
+    private enum Columna {
+        ID("id"), ELIMINADO("eliminado"), USUARIO_ID("usuario_id"), HASH_PASSWORD("hash_password"),
+        SALT("salt"), ULTIMO_CAMBIO("ultimo_cambio"), REQUIERE_RESET("requiere_reset"),
+        INTENTOS_FALLIDOS("intentos_fallidos"), ULTIMO_LOGIN("ultimo_login");
+
+        private final String nombre;
+
+        Columna(String nombre) {
+            this.nombre = nombre;
+        }
+
+        // Índice JDBC de la columna cuando la lista arranca en "desde" (base 1)
+        private int indice(int desde) {
+            return desde + ordinal();
+        }
+    }
+
+    /**
+     * Lista de columnas para un SELECT, con prefijo de alias opcional ("c.").
+     * UsuarioDAO la usa para el JOIN y lee la credencial con mapearCredencial(rs, desde).
+     */
+    static String columnas(String alias) {
+        StringJoiner lista = new StringJoiner(", ");
+        for (Columna columna : Columna.values()) {
+            lista.add(alias + columna.nombre);
+        }
+        return lista.toString();
+    }
+
+    private static final String COLUMNAS = columnas("");
+
+    // ========================================================================
+    // SQL (constantes: el texto es la clave de la caché de sentencias del pool)
+    // ========================================================================
+    // Las que no son private las usa VerificadorPlanes para chequear el EXPLAIN
+
+    private static final String SQL_INSERTAR = "INSERT INTO credencial_acceso (usuario_id, hash_password, salt, " +
+            "ultimo_cambio, requiere_reset, intentos_fallidos, eliminado) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    static final String SQL_INCREMENTAR_INTENTOS = "UPDATE credencial_acceso " +
+            "SET intentos_fallidos = LAST_INSERT_ID(intentos_fallidos + ?) WHERE id = ?";
+
+    // H2 no tiene LAST_INSERT_ID(expr); FINAL TABLE devuelve la fila ya actualizada
+    private static final String SQL_INCREMENTAR_INTENTOS_H2 = "SELECT intentos_fallidos FROM FINAL TABLE (" +
+            "UPDATE credencial_acceso SET intentos_fallidos = intentos_fallidos + ? WHERE id = ?)";
+
+    private static final String SQL_LEER_INTENTOS = "SELECT intentos_fallidos FROM credencial_acceso WHERE id = ?";
+
+    static final String SQL_REGISTRAR_LOGIN_EXITOSO =
+            "UPDATE credencial_acceso SET intentos_fallidos = 0, ultimo_login = ? WHERE id = ?";
+
+    // Solo si nadie cambió la contraseña desde que se leyó la credencial
+    private static final String SQL_REEMPLAZAR_HASH =
+            "UPDATE credencial_acceso SET hash_password = ?, salt = ? WHERE id = ? AND hash_password = ?";
+
+    private static final String SQL_ACTUALIZAR_ULTIMO_LOGIN =
+            "UPDATE credencial_acceso SET ultimo_login = ? WHERE id = ?";
+
+    static final String SQL_BUSCAR_POR_USUARIO_ID =
+            "SELECT " + COLUMNAS + " FROM credencial_acceso WHERE usuario_id = ?";
+
+    static final String SQL_BUSCAR_POR_ID = "SELECT " + COLUMNAS + " FROM credencial_acceso WHERE id = ?";
+
+    // UPDATE parciales ya armados, por máscara de campos modificados
+    private static final Map<Integer, String> SQL_ACTUALIZAR = new ConcurrentHashMap<>();
+
+    // ========================================================================
+    // Métricas por operación (ver Metricas)
+    // ========================================================================
+
+    private static final Metricas.Operacion M_CREAR =
+            Metricas.operacion("CredencialAccesoDAO.crear");
+    private static final Metricas.Operacion M_CREAR_EN_LOTE =
+            Metricas.operacion("CredencialAccesoDAO.crearEnLote");
+    private static final Metricas.Operacion M_ACTUALIZAR =
+            Metricas.operacion("CredencialAccesoDAO.actualizar");
+    private static final Metricas.Operacion M_INCREMENTAR_INTENTOS_FALLIDOS =
+            Metricas.operacion("CredencialAccesoDAO.incrementarIntentosFallidos");
+    private static final Metricas.Operacion M_SUMAR_INTENTOS_FALLIDOS =
+            Metricas.operacion("CredencialAccesoDAO.sumarIntentosFallidos");
+    private static final Metricas.Operacion M_REGISTRAR_LOGIN_EXITOSO =
+            Metricas.operacion("CredencialAccesoDAO.registrarLoginExitoso");
+    private static final Metricas.Operacion M_REEMPLAZAR_HASH =
+            Metricas.operacion("CredencialAccesoDAO.reemplazarHash");
+    private static final Metricas.Operacion M_ACTUALIZAR_ULTIMO_LOGIN_EN_LOTE =
+            Metricas.operacion("CredencialAccesoDAO.actualizarUltimoLoginEnLote");
+    private static final Metricas.Operacion M_BUSCAR_POR_USUARIO_ID =
+            Metricas.operacion("CredencialAccesoDAO.buscarPorUsuarioId");
+    private static final Metricas.Operacion M_BUSCAR_POR_ID =
+            Metricas.operacion("CredencialAccesoDAO.buscarPorId");
+
     // ========================================================================
     // Métodos simples (crean su propia conexión)
     // ========================================================================
@@ -28,55 +133,293 @@ public class CredencialAccesoDAO {
     // ========================================================================
 
     public CredencialAcceso crear(CredencialAcceso credencial, Connection conn) throws SQLException {
-        String sql = "INSERT INTO credencial_acceso (usuario_id, hash_password, salt, " +
-                "ultimo_cambio, requiere_reset, intentos_fallidos, eliminado) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setLong(1, credencial.getUsuarioId());
-            ps.setString(2, credencial.getHashPassword());
-            ps.setString(3, credencial.getSalt());
-            ps.setTimestamp(4, credencial.getUltimoCambio() != null ?
-                    Timestamp.valueOf(credencial.getUltimoCambio()) : null);
-            ps.setBoolean(5, credencial.isRequiereReset());
-            ps.setInt(6, credencial.getIntentosFallidos());
-            ps.setBoolean(7, credencial.isEliminado());
-
-            int filasAfectadas = ps.executeUpdate();
-            if (filasAfectadas == 0) {
-                throw new SQLException("No se pudo crear la credencial");
+        return M_CREAR.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+                cargarParametrosInsert(ps, credencial);
+
+                int filasAfectadas = ps.executeUpdate();
+                if (filasAfectadas == 0) {
+                    throw new SQLException("No se pudo crear la credencial");
+                }
+
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        credencial.setId(generatedKeys.getLong(1));
+                    } else {
+                        throw new SQLException("No se pudo obtener el ID generado");
+                    }
+                }
+
+                credencial.limpiarCambios();
+                return credencial;
+            }
+        });
+    }
+
+    /**
+     * Inserta varias credenciales con un único JDBC batch y asigna los IDs
+     * generados en el mismo orden de la lista.
+     */
+    public List<CredencialAcceso> crearEnLote(List<CredencialAcceso> credenciales, Connection conn)
+            throws SQLException {
+        return M_CREAR_EN_LOTE.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+                for (CredencialAcceso credencial : credenciales) {
+                    cargarParametrosInsert(ps, credencial);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    for (CredencialAcceso credencial : credenciales) {
+                        if (!generatedKeys.next()) {
+                            throw new SQLException("No se pudieron obtener todos los IDs generados del lote");
+                        }
+                        credencial.setId(generatedKeys.getLong(1));
+                        credencial.limpiarCambios();
+                    }
+                }
+            }
+            return credenciales;
+        });
+    }
+
+    private void cargarParametrosInsert(PreparedStatement ps, CredencialAcceso credencial) throws SQLException {
+        ps.setLong(1, credencial.getUsuarioId());
+        ps.setString(2, credencial.getHashPassword());
+        ps.setString(3, credencial.getSalt());
+        ps.setTimestamp(4, credencial.getUltimoCambio() != null ?
+                Timestamp.valueOf(credencial.getUltimoCambio()) : null);
+        ps.setBoolean(5, credencial.isRequiereReset());
+        ps.setInt(6, credencial.getIntentosFallidos());
+        ps.setBoolean(7, credencial.isEliminado());
+    }
+
+    /**
+     * Actualiza solo las columnas modificadas (ver CredencialAcceso.getCamposModificados()).
+     * Si no cambió nada no se ejecuta ningún UPDATE y se devuelve true.
+     */
+    public boolean actualizar(CredencialAcceso credencial, Connection conn) throws SQLException {
+        Set<CredencialAcceso.Campo> campos = credencial.getCamposModificados();
+        if (campos.isEmpty()) {
+            return true;
+        }
+
+        return M_ACTUALIZAR.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(sqlActualizar(campos))) {
+                int indice = 1;
+                // EnumSet itera en el mismo orden con que se armó el SET
+                for (CredencialAcceso.Campo campo : campos) {
+                    switch (campo) {
+                        case HASH_PASSWORD -> ps.setString(indice++, credencial.getHashPassword());
+                        case SALT -> ps.setString(indice++, credencial.getSalt());
+                        case ULTIMO_CAMBIO -> ps.setTimestamp(indice++, aTimestamp(credencial.getUltimoCambio()));
+                        case REQUIERE_RESET -> ps.setBoolean(indice++, credencial.isRequiereReset());
+                        case INTENTOS_FALLIDOS -> ps.setInt(indice++, credencial.getIntentosFallidos());
+                        case ULTIMO_LOGIN -> ps.setTimestamp(indice++, aTimestamp(credencial.getUltimoLogin()));
+                        case ELIMINADO -> ps.setBoolean(indice++, credencial.isEliminado());
+                    }
+                }
+                ps.setLong(indice, credencial.getId());
+
+                int filasAfectadas = ps.executeUpdate();
+                if (filasAfectadas > 0) {
+                    credencial.limpiarCambios();
+                }
+                return filasAfectadas > 0;
+            }
+        });
+    }
+
+    // Un SQL por combinación de campos, armado una sola vez
+    private static String sqlActualizar(Set<CredencialAcceso.Campo> campos) {
+        int clave = 0;
+        for (CredencialAcceso.Campo campo : campos) {
+            clave |= 1 << campo.ordinal();
+        }
+        return SQL_ACTUALIZAR.computeIfAbsent(clave, k -> {
+            StringJoiner set = new StringJoiner(", ", "UPDATE credencial_acceso SET ", " WHERE id = ?");
+            for (CredencialAcceso.Campo campo : campos) {
+                set.add(columna(campo) + " = ?");
+            }
+            return set.toString();
+        });
+    }
+
+    private static String columna(CredencialAcceso.Campo campo) {
+        return switch (campo) {
+            case HASH_PASSWORD -> "hash_password";
+            case SALT -> "salt";
+            case ULTIMO_CAMBIO -> "ultimo_cambio";
+            case REQUIERE_RESET -> "requiere_reset";
+            case INTENTOS_FALLIDOS -> "intentos_fallidos";
+            case ULTIMO_LOGIN -> "ultimo_login";
+            case ELIMINADO -> "eliminado";
+        };
+    }
+
+    private static Timestamp aTimestamp(LocalDateTime momento) {
+        return momento != null ? Timestamp.valueOf(momento) : null;
+    }
+
+    // ========================================================================
+    // Contadores atómicos de login (un solo UPDATE, sin leer la fila antes)
+    // ========================================================================
+
+    /**
+     * Suma 1 a intentos_fallidos en la BD y devuelve el nuevo valor.
+     *
+     * El incremento lo hace MySQL (intentos_fallidos = intentos_fallidos + 1),
+     * así que dos intentos simultáneos no se pisan. LAST_INSERT_ID(expr) deja el
+     * nuevo valor en la respuesta del UPDATE y el driver lo expone como clave
+     * generada, sin una segunda consulta.
+     *
+     * @return nuevo valor de intentos_fallidos, o -1 si la credencial no existe
+     */
+    public int incrementarIntentosFallidos(Long id) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return incrementarIntentosFallidos(id, conn);
+        }
+    }
+
+    public int incrementarIntentosFallidos(Long id, Connection conn) throws SQLException {
+        return M_INCREMENTAR_INTENTOS_FALLIDOS.medir(() -> sumarIntentos(id, 1, conn),
+                intentos -> intentos >= 0 ? 1 : 0);
+    }
+
+    /**
+     * Suma varios intentos fallidos de una vez, con el mismo UPDATE atómico
+     * que incrementarIntentosFallidos. Lo usa el limitador de intentos, que
+     * acumula los fallidos en memoria y los graba al llegar al umbral de
+     * bloqueo (ver LimitadorIntentos).
+     *
+     * @return nuevo valor de intentos_fallidos, o -1 si la credencial no existe
+     */
+    public int sumarIntentosFallidos(Long id, int cantidad) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return sumarIntentosFallidos(id, cantidad, conn);
+        }
+    }
+
+    public int sumarIntentosFallidos(Long id, int cantidad, Connection conn) throws SQLException {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad de intentos debe ser positiva");
+        }
+        return M_SUMAR_INTENTOS_FALLIDOS.medir(() -> sumarIntentos(id, cantidad, conn),
+                intentos -> intentos >= 0 ? 1 : 0);
+    }
+
+    private int sumarIntentos(Long id, int cantidad, Connection conn) throws SQLException {
+        if (DatabaseConfig.getInstance().getDialecto() == Dialecto.H2) {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_INCREMENTAR_INTENTOS_H2)) {
+                ps.setInt(1, cantidad);
+                ps.setLong(2, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : -1;
+                }
+            }
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INCREMENTAR_INTENTOS, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, cantidad);
+            ps.setLong(2, id);
+
+            if (ps.executeUpdate() == 0) {
+                return -1;
             }
 
             try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
-                    credencial.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new SQLException("No se pudo obtener el ID generado");
+                    return generatedKeys.getInt(1);
                 }
             }
+        }
+
+        // El driver no devolvió el valor: se lee explícitamente
+        try (PreparedStatement ps = conn.prepareStatement(SQL_LEER_INTENTOS)) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
 
-            return credencial;
+    /**
+     * Marca un login exitoso: pone intentos_fallidos en 0 y guarda ultimo_login.
+     * Solo toca esas dos columnas.
+     */
+    public boolean registrarLoginExitoso(Long id, LocalDateTime momento) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return registrarLoginExitoso(id, momento, conn);
         }
     }
 
-    public boolean actualizar(CredencialAcceso credencial, Connection conn) throws SQLException {
-        String sql = "UPDATE credencial_acceso SET hash_password = ?, salt = ?, " +
-                "ultimo_cambio = ?, requiere_reset = ?, intentos_fallidos = ?, " +
-                "eliminado = ? WHERE id = ?";
+    public boolean registrarLoginExitoso(Long id, LocalDateTime momento, Connection conn) throws SQLException {
+        return M_REGISTRAR_LOGIN_EXITOSO.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_REGISTRAR_LOGIN_EXITOSO)) {
+                ps.setTimestamp(1, Timestamp.valueOf(momento));
+                ps.setLong(2, id);
+                return ps.executeUpdate() > 0;
+            }
+        });
+    }
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, credencial.getHashPassword());
-            ps.setString(2, credencial.getSalt());
-            ps.setTimestamp(3, credencial.getUltimoCambio() != null ?
-                    Timestamp.valueOf(credencial.getUltimoCambio()) : null);
-            ps.setBoolean(4, credencial.isRequiereReset());
-            ps.setInt(5, credencial.getIntentosFallidos());
-            ps.setBoolean(6, credencial.isEliminado());
-            ps.setLong(7, credencial.getId());
+    /**
+     * Cambia hash y salt por los de la misma contraseña con otros parámetros
+     * (rehash tras un login). No toca ultimo_cambio: la contraseña es la misma.
+     *
+     * @return false si el hash guardado ya no es hashAnterior (por ejemplo,
+     *         porque la contraseña se cambió mientras tanto)
+     */
+    public boolean reemplazarHash(Long id, String hashAnterior, String hashNuevo, String saltNuevo)
+            throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return reemplazarHash(id, hashAnterior, hashNuevo, saltNuevo, conn);
+        }
+    }
 
-            int filasAfectadas = ps.executeUpdate();
-            return filasAfectadas > 0;
+    public boolean reemplazarHash(Long id, String hashAnterior, String hashNuevo, String saltNuevo,
+                                  Connection conn) throws SQLException {
+        return M_REEMPLAZAR_HASH.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_REEMPLAZAR_HASH)) {
+                ps.setString(1, hashNuevo);
+                ps.setString(2, saltNuevo);
+                ps.setLong(3, id);
+                ps.setString(4, hashAnterior);
+                return ps.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * Graba ultimo_login de varias credenciales con un único JDBC batch.
+     * Lo usa la escritura diferida de logins (BufferUltimoLogin).
+     *
+     * @return cantidad de filas actualizadas
+     */
+    public int actualizarUltimoLoginEnLote(Map<Long, LocalDateTime> ultimosLogins) throws SQLException {
+        if (ultimosLogins.isEmpty()) {
+            return 0;
         }
+
+        return M_ACTUALIZAR_ULTIMO_LOGIN_EN_LOTE.medir(() -> {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_ACTUALIZAR_ULTIMO_LOGIN)) {
+
+                for (Map.Entry<Long, LocalDateTime> entrada : ultimosLogins.entrySet()) {
+                    ps.setTimestamp(1, Timestamp.valueOf(entrada.getValue()));
+                    ps.setLong(2, entrada.getKey());
+                    ps.addBatch();
+                }
+
+                int filas = 0;
+                for (int resultado : ps.executeBatch()) {
+                    // SUCCESS_NO_INFO (-2): el driver no informa filas pero el UPDATE se ejecutó
+                    filas += resultado == Statement.SUCCESS_NO_INFO ? 1 : Math.max(resultado, 0);
+                }
+                return filas;
+            }
+        }, filas -> filas);
     }
 
     // ========================================================================
@@ -84,64 +427,77 @@ public class CredencialAccesoDAO {
     // ========================================================================
 
     public CredencialAcceso buscarPorUsuarioId(Long usuarioId) throws SQLException {
-        String sql = "SELECT * FROM credencial_acceso WHERE usuario_id = ?";
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return M_BUSCAR_POR_USUARIO_ID.medir(() -> {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_BUSCAR_POR_USUARIO_ID)) {
 
-            ps.setLong(1, usuarioId);
+                ps.setLong(1, usuarioId);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return mapearCredencial(rs);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return mapearCredencial(rs, 1);
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     public CredencialAcceso buscarPorId(Long id) throws SQLException {
-        String sql = "SELECT * FROM credencial_acceso WHERE id = ?";
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return M_BUSCAR_POR_ID.medir(() -> {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_BUSCAR_POR_ID)) {
 
-            ps.setLong(1, id);
+                ps.setLong(1, id);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return mapearCredencial(rs);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return mapearCredencial(rs, 1);
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     // ========================================================================
     // Método auxiliar para mapear ResultSet
     // ========================================================================
 
-    private CredencialAcceso mapearCredencial(ResultSet rs) throws SQLException {
+    /**
+     * Arma la credencial a partir de la fila actual, leyendo por índice las
+     * columnas de columnas() a partir de la posición "desde".
+     *
+     * @return la credencial, o null si el id es NULL (LEFT JOIN sin credencial)
+     */
+    static CredencialAcceso mapearCredencial(ResultSet rs, int desde) throws SQLException {
+        long id = rs.getLong(Columna.ID.indice(desde));
+        if (rs.wasNull()) {
+            return null;
+        }
+
         CredencialAcceso credencial = new CredencialAcceso();
 
-        credencial.setId(rs.getLong("id"));
-        credencial.setUsuarioId(rs.getLong("usuario_id"));
-        credencial.setHashPassword(rs.getString("hash_password"));
-        credencial.setSalt(rs.getString("salt"));
-        credencial.setIntentosFallidos(rs.getInt("intentos_fallidos"));
-        credencial.setRequiereReset(rs.getBoolean("requiere_reset"));
-        credencial.setEliminado(rs.getBoolean("eliminado"));
+        credencial.setId(id);
+        credencial.setEliminado(rs.getBoolean(Columna.ELIMINADO.indice(desde)));
+        credencial.setUsuarioId(rs.getLong(Columna.USUARIO_ID.indice(desde)));
+        credencial.setHashPassword(rs.getString(Columna.HASH_PASSWORD.indice(desde)));
+        credencial.setSalt(rs.getString(Columna.SALT.indice(desde)));
+        credencial.setRequiereReset(rs.getBoolean(Columna.REQUIERE_RESET.indice(desde)));
+        credencial.setIntentosFallidos(rs.getInt(Columna.INTENTOS_FALLIDOS.indice(desde)));
 
-        Timestamp ultimoCambio = rs.getTimestamp("ultimo_cambio");
+        Timestamp ultimoCambio = rs.getTimestamp(Columna.ULTIMO_CAMBIO.indice(desde));
         if (ultimoCambio != null) {
             credencial.setUltimoCambio(ultimoCambio.toLocalDateTime());
         }
 
-        Timestamp ultimoLogin = rs.getTimestamp("ultimo_login");
+        Timestamp ultimoLogin = rs.getTimestamp(Columna.ULTIMO_LOGIN.indice(desde));
         if (ultimoLogin != null) {
             credencial.setUltimoLogin(ultimoLogin.toLocalDateTime());
         }
 
+        // Recién leída: coincide con la BD
+        credencial.limpiarCambios();
         return credencial;
     }
 }
\ No newline at end of file
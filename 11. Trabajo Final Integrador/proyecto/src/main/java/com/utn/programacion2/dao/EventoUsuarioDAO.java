@@ -0,0 +1,122 @@
+package ar.edu.utn.tup.dao;
+
+import ar.edu.utn.tup.config.DatabaseConfig;
+import ar.edu.utn.tup.entities.EventoUsuario;
+import ar.edu.utn.tup.metricas.Metricas;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outbox de eventos de usuario (tabla evento_usuario, ver
+ * database/04_migracion_eventos.sql).
+ *
+ * Los servicios anotan con la conexión de su transacción; el relay de
+ * PublicadorEventos lee lo confirmado y borra lo que ya entregó.
+ */
+public class EventoUsuarioDAO {
+
+    // ========================================================================
+    // SQL (constantes: el texto es la clave de la caché de sentencias del pool)
+    // ========================================================================
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO evento_usuario (usuario_id, tipo, momento) VALUES (?, ?, ?)";
+
+    private static final String SQL_BUSCAR_PENDIENTES =
+            "SELECT id, usuario_id, tipo, momento FROM evento_usuario ORDER BY id LIMIT ?";
+
+    private static final String SQL_ELIMINAR = "DELETE FROM evento_usuario WHERE id = ?";
+
+    // ========================================================================
+    // Métricas por operación (ver Metricas)
+    // ========================================================================
+
+    private static final Metricas.Operacion M_ANOTAR =
+            Metricas.operacion("EventoUsuarioDAO.anotar");
+    private static final Metricas.Operacion M_BUSCAR_PENDIENTES =
+            Metricas.operacion("EventoUsuarioDAO.buscarPendientes");
+    private static final Metricas.Operacion M_ELIMINAR =
+            Metricas.operacion("EventoUsuarioDAO.eliminar");
+
+    // ========================================================================
+    // Escritura (con la conexión de la transacción del cambio)
+    // ========================================================================
+
+    /**
+     * Anota un evento por cada usuario, con un único JDBC batch. Va dentro de
+     * la transacción del cambio: si hay ROLLBACK, los eventos tampoco quedan.
+     */
+    public void anotar(EventoUsuario.Tipo tipo, List<Long> usuarioIds, LocalDateTime momento, Connection conn)
+            throws SQLException {
+        if (usuarioIds.isEmpty()) {
+            return;
+        }
+        M_ANOTAR.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_INSERTAR)) {
+                Timestamp cuando = Timestamp.valueOf(momento);
+                for (Long usuarioId : usuarioIds) {
+                    ps.setLong(1, usuarioId);
+                    ps.setString(2, tipo.name());
+                    ps.setTimestamp(3, cuando);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return usuarioIds.size();
+        }, filas -> filas);
+    }
+
+    // ========================================================================
+    // Relay
+    // ========================================================================
+
+    /**
+     * Los eventos confirmados más viejos, en orden de id.
+     */
+    public List<EventoUsuario> buscarPendientes(int limite) throws SQLException {
+        return M_BUSCAR_PENDIENTES.medir(() -> {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_BUSCAR_PENDIENTES)) {
+                ps.setInt(1, limite);
+                List<EventoUsuario> eventos = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        eventos.add(new EventoUsuario(
+                                rs.getLong(1),
+                                EventoUsuario.Tipo.valueOf(rs.getString(2)),
+                                rs.getLong(3),
+                                rs.getTimestamp(4).toLocalDateTime()));
+                    }
+                }
+                return eventos;
+            }
+        }, List::size);
+    }
+
+    /**
+     * Borra los eventos ya entregados, con un único JDBC batch.
+     *
+     * Por id y no por rango: una transacción más vieja puede confirmar un id
+     * menor después de que el relay leyó los mayores, y ese todavía no se
+     * entregó.
+     */
+    public void eliminar(List<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        M_ELIMINAR.medir(() -> {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_ELIMINAR)) {
+                for (Long id : ids) {
+                    ps.setLong(1, id);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return ids.size();
+        }, filas -> filas);
+    }
+}
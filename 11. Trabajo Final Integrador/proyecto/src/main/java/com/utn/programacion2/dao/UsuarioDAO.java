@@ -1,15 +1,192 @@
 package ar.edu.utn.tup.dao;
 
 import ar.edu.utn.tup.config.DatabaseConfig;
-import ar.edu.utn.tup.entities.CredencialAcceso;
 import ar.edu.utn.tup.entities.Usuario;
+import ar.edu.utn.tup.entities.UsuarioResumen;
+import ar.edu.utn.tup.metricas.Metricas;
 
 import java.sql.*;
+import java.text.Normalizer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class UsuarioDAO {
 
+    // ========================================================================
+    // Columnas: una sola definición para el SELECT y para el mapeo por índice
+    // ========================================================================
+
+    // El orden de las constantes es el orden de las columnas en el SELECT
+    private enum Columna {
+        ID("id"), ELIMINADO("eliminado"), USERNAME("username"), EMAIL("email"),
+        NOMBRE_COMPLETO("nombre_completo"), ACTIVO("activo"), FECHA_REGISTRO("fecha_registro");
+
+        private final String nombre;
+
+        Columna(String nombre) {
+            this.nombre = nombre;
+        }
+
+        // Índice JDBC de la columna cuando la lista arranca en "desde" (base 1)
+        private int indice(int desde) {
+            return desde + ordinal();
+        }
+    }
+
+    private static String columnas(String alias) {
+        StringJoiner lista = new StringJoiner(", ");
+        for (Columna columna : Columna.values()) {
+            lista.add(alias + columna.nombre);
+        }
+        return lista.toString();
+    }
+
+    private static final String COLUMNAS = columnas("");
+
+    // Proyección angosta para listados: solo lo que muestra la pantalla.
+    // El orden debe coincidir con mapearResumen.
+    private static final String COLUMNAS_RESUMEN = "id, username, email, activo";
+
+    // ========================================================================
+    // SQL (constantes: el texto es la clave de la caché de sentencias del pool)
+    // ========================================================================
+    // Las que no son private las usa VerificadorPlanes para chequear el EXPLAIN
+
+    private static final String SQL_INSERTAR = "INSERT INTO usuario (username, email, nombre_completo, activo, " +
+            "eliminado, fecha_registro) VALUES (?, ?, ?, ?, ?, ?)";
+
+    static final String SQL_BUSCAR_POR_ID = "SELECT " + COLUMNAS + " FROM usuario WHERE id = ?";
+
+    static final String SQL_BUSCAR_POR_USERNAME = "SELECT " + COLUMNAS + " FROM usuario WHERE username = ?";
+
+    static final String SQL_BUSCAR_POR_EMAIL = "SELECT " + COLUMNAS + " FROM usuario WHERE email = ?";
+
+    static final String SQL_BUSCAR_POR_USERNAME_O_EMAIL =
+            "SELECT " + COLUMNAS + " FROM usuario WHERE username = ? OR email = ? LIMIT 1";
+
+    private static final String SQL_OBTENER_TODOS =
+            "SELECT " + COLUMNAS + " FROM usuario WHERE eliminado = FALSE ORDER BY id";
+
+    static final String SQL_OBTENER_ACTIVOS =
+            "SELECT " + COLUMNAS + " FROM usuario WHERE activo = TRUE AND eliminado = FALSE ORDER BY id";
+
+    static final String SQL_PAGINA_TODOS =
+            "SELECT " + COLUMNAS + " FROM usuario WHERE eliminado = FALSE AND id > ? ORDER BY id LIMIT ?";
+
+    static final String SQL_PAGINA_ACTIVOS =
+            "SELECT " + COLUMNAS + " FROM usuario WHERE activo = TRUE AND eliminado = FALSE AND id > ? " +
+            "ORDER BY id LIMIT ?";
+
+    private static final String SQL_RESUMEN_TODOS =
+            "SELECT " + COLUMNAS_RESUMEN + " FROM usuario WHERE eliminado = FALSE ORDER BY id";
+
+    // Incluye eliminados: sus username y email siguen ocupando el UNIQUE
+    private static final String SQL_RESUMEN_TODOS_CON_ELIMINADOS =
+            "SELECT " + COLUMNAS_RESUMEN + " FROM usuario";
+
+    static final String SQL_RESUMEN_PAGINA =
+            "SELECT " + COLUMNAS_RESUMEN + " FROM usuario WHERE eliminado = FALSE AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String SQL_ELIMINAR_LOGICAMENTE =
+            "UPDATE usuario SET eliminado = TRUE, activo = FALSE WHERE id = ?";
+
+    // Las columnas de la credencial arrancan después de las del usuario
+    private static final int DESDE_CREDENCIAL = 1 + Columna.values().length;
+
+    static final String SQL_BUSCAR_CON_CREDENCIAL =
+            "SELECT " + columnas("u.") + ", " + CredencialAccesoDAO.columnas("c.") + " " +
+            "FROM usuario u " +
+            "LEFT JOIN credencial_acceso c ON c.usuario_id = u.id " +
+            "WHERE u.id = ?";
+
+    // Login: una sola consulta por el índice único de username
+    static final String SQL_BUSCAR_CON_CREDENCIAL_POR_USERNAME =
+            "SELECT " + columnas("u.") + ", " + CredencialAccesoDAO.columnas("c.") + " " +
+            "FROM usuario u " +
+            "LEFT JOIN credencial_acceso c ON c.usuario_id = u.id " +
+            "WHERE u.username = ?";
+
+    // UPDATE parciales ya armados, por máscara de campos modificados
+    private static final Map<Integer, String> SQL_ACTUALIZAR = new ConcurrentHashMap<>();
+
+    // Búsquedas múltiples: "IN (?, ..., ?)" con a lo sumo MAX_CLAVES_POR_CONSULTA
+    // claves. La lista se completa hasta la potencia de 2 siguiente repitiendo
+    // la última clave, así hay pocos textos de SQL distintos (1, 2, 4, ... 256)
+    // y todos se reutilizan desde la caché de sentencias del pool.
+    static final int MAX_CLAVES_POR_CONSULTA = 256;
+    private static final Map<Integer, String> SQL_BUSCAR_POR_IDS = new ConcurrentHashMap<>();
+    private static final Map<Integer, String> SQL_BUSCAR_POR_USERNAMES = new ConcurrentHashMap<>();
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Map<Integer, String> SQL_BUSCAR_POR_USERNAMES_O_EMAILS = new ConcurrentHashMap<>();
+
+    // ========================================================================
+    // Métricas por operación (ver Metricas)
+    // ========================================================================
+    // Los métodos que abren su propia conexión incluyen en la latencia el
+    // tiempo de obtenerla; ese tiempo también se mide aparte en DatabaseConfig.
+
+    private static final Metricas.Operacion M_CREAR =
+            Metricas.operacion("UsuarioDAO.crear");
+    private static final Metricas.Operacion M_CREAR_EN_LOTE =
+            Metricas.operacion("UsuarioDAO.crearEnLote");
+    private static final Metricas.Operacion M_ACTUALIZAR =
+            Metricas.operacion("UsuarioDAO.actualizar");
+    private static final Metricas.Operacion M_BUSCAR_POR_ID =
+            Metricas.operacion("UsuarioDAO.buscarPorId");
+    private static final Metricas.Operacion M_BUSCAR_POR_USERNAME =
+            Metricas.operacion("UsuarioDAO.buscarPorUsername");
+    private static final Metricas.Operacion M_BUSCAR_POR_EMAIL =
+            Metricas.operacion("UsuarioDAO.buscarPorEmail");
+    private static final Metricas.Operacion M_BUSCAR_POR_USERNAME_O_EMAIL =
+            Metricas.operacion("UsuarioDAO.buscarPorUsernameOEmail");
+    private static final Metricas.Operacion M_OBTENER_TODOS =
+            Metricas.operacion("UsuarioDAO.obtenerTodos");
+    private static final Metricas.Operacion M_OBTENER_ACTIVOS =
+            Metricas.operacion("UsuarioDAO.obtenerActivos");
+    private static final Metricas.Operacion M_OBTENER_PAGINA =
+            Metricas.operacion("UsuarioDAO.obtenerPagina");
+    private static final Metricas.Operacion M_OBTENER_ACTIVOS_PAGINA =
+            Metricas.operacion("UsuarioDAO.obtenerActivosPagina");
+    private static final Metricas.Operacion M_OBTENER_RESUMENES_PAGINA =
+            Metricas.operacion("UsuarioDAO.obtenerResumenesPagina");
+    private static final Metricas.Operacion M_STREAM_TODOS =
+            Metricas.operacion("UsuarioDAO.streamTodos");
+    private static final Metricas.Operacion M_STREAM_ACTIVOS =
+            Metricas.operacion("UsuarioDAO.streamActivos");
+    private static final Metricas.Operacion M_STREAM_RESUMENES =
+            Metricas.operacion("UsuarioDAO.streamResumenes");
+    private static final Metricas.Operacion M_STREAM_RESUMENES_CON_ELIMINADOS =
+            Metricas.operacion("UsuarioDAO.streamResumenesConEliminados");
+    private static final Metricas.Operacion M_BUSCAR_POR_IDS =
+            Metricas.operacion("UsuarioDAO.buscarPorIds");
+    private static final Metricas.Operacion M_BUSCAR_POR_USERNAMES =
+            Metricas.operacion("UsuarioDAO.buscarPorUsernames");
+    private static final Metricas.Operacion M_BUSCAR_POR_USERNAMES_O_EMAILS =
+            Metricas.operacion("UsuarioDAO.buscarPorUsernamesOEmails");
+    private static final Metricas.Operacion M_ELIMINAR_LOGICAMENTE =
+            Metricas.operacion("UsuarioDAO.eliminarLogicamente");
+    private static final Metricas.Operacion M_BUSCAR_CON_CREDENCIAL =
+            Metricas.operacion("UsuarioDAO.buscarConCredencial");
+    private static final Metricas.Operacion M_BUSCAR_CON_CREDENCIAL_POR_USERNAME =
+            Metricas.operacion("UsuarioDAO.buscarConCredencialPorUsername");
+
     // Métodos simples (crean su propia conexión)
     public Usuario crear(Usuario usuario) throws SQLException {
         try (Connection conn = DatabaseConfig.getConnection()) {
@@ -25,210 +202,688 @@ public class UsuarioDAO {
 
     // Métodos transaccionales (reciben Connection externa)
     public Usuario crear(Usuario usuario, Connection conn) throws SQLException {
-        String sql = "INSERT INTO usuario (username, email, nombre_completo, activo, " +
-                "eliminado, fecha_registro) VALUES (?, ?, ?, ?, ?, ?)";
+        return M_CREAR.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+                cargarParametrosInsert(ps, usuario);
 
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, usuario.getUsername());
-            ps.setString(2, usuario.getEmail());
-            ps.setString(3, usuario.getNombreCompleto());
-            ps.setBoolean(4, usuario.isActivo());
-            ps.setBoolean(5, usuario.isEliminado());
-            ps.setTimestamp(6, Timestamp.valueOf(usuario.getFechaRegistro()));
+                int filasAfectadas = ps.executeUpdate();
+                if (filasAfectadas == 0) {
+                    throw new SQLException("No se pudo crear el usuario");
+                }
+
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        usuario.setId(generatedKeys.getLong(1));
+                    } else {
+                        throw new SQLException("No se pudo obtener el ID generado");
+                    }
+                }
 
-            int filasAfectadas = ps.executeUpdate();
-            if (filasAfectadas == 0) {
-                throw new SQLException("No se pudo crear el usuario");
+                usuario.limpiarCambios();
+                return usuario;
             }
+        });
+    }
+
+    /**
+     * Inserta varios usuarios con un único JDBC batch y asigna los IDs
+     * generados en el mismo orden de la lista.
+     * No hace commit: la transacción la maneja quien llama.
+     *
+     * Con rewriteBatchedStatements (ver DatabaseConfig) el batch viaja como
+     * INSERT de varias filas. InnoDB asigna IDs consecutivos a cada INSERT
+     * con cantidad de filas conocida, y el driver los devuelve en el orden
+     * de las filas, así que el mapeo por posición se mantiene.
+     */
+    public List<Usuario> crearEnLote(List<Usuario> usuarios, Connection conn) throws SQLException {
+        return M_CREAR_EN_LOTE.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+                for (Usuario usuario : usuarios) {
+                    cargarParametrosInsert(ps, usuario);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
 
-            try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    usuario.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new SQLException("No se pudo obtener el ID generado");
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    for (Usuario usuario : usuarios) {
+                        if (!generatedKeys.next()) {
+                            throw new SQLException("No se pudieron obtener todos los IDs generados del lote");
+                        }
+                        usuario.setId(generatedKeys.getLong(1));
+                        usuario.limpiarCambios();
+                    }
                 }
             }
+            return usuarios;
+        });
+    }
 
-            return usuario;
-        }
+    private void cargarParametrosInsert(PreparedStatement ps, Usuario usuario) throws SQLException {
+        ps.setString(1, usuario.getUsername());
+        ps.setString(2, usuario.getEmail());
+        ps.setString(3, usuario.getNombreCompleto());
+        ps.setBoolean(4, usuario.isActivo());
+        ps.setBoolean(5, usuario.isEliminado());
+        ps.setTimestamp(6, Timestamp.valueOf(usuario.getFechaRegistro()));
     }
 
+    /**
+     * Actualiza solo las columnas que cambiaron desde que el usuario se leyó
+     * o se guardó (ver Usuario.getCamposModificados()). Si no cambió nada no
+     * se ejecuta ningún UPDATE y se devuelve true.
+     */
     public boolean actualizar(Usuario usuario, Connection conn) throws SQLException {
-        String sql = "UPDATE usuario SET username = ?, email = ?, nombre_completo = ?, " +
-                "activo = ?, eliminado = ? WHERE id = ?";
+        Set<Usuario.Campo> campos = usuario.getCamposModificados();
+        if (campos.isEmpty()) {
+            return true;
+        }
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, usuario.getUsername());
-            ps.setString(2, usuario.getEmail());
-            ps.setString(3, usuario.getNombreCompleto());
-            ps.setBoolean(4, usuario.isActivo());
-            ps.setBoolean(5, usuario.isEliminado());
-            ps.setLong(6, usuario.getId());
+        return M_ACTUALIZAR.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(sqlActualizar(campos))) {
+                int indice = 1;
+                // EnumSet itera en el mismo orden con que se armó el SET
+                for (Usuario.Campo campo : campos) {
+                    switch (campo) {
+                        case USERNAME -> ps.setString(indice++, usuario.getUsername());
+                        case EMAIL -> ps.setString(indice++, usuario.getEmail());
+                        case NOMBRE_COMPLETO -> ps.setString(indice++, usuario.getNombreCompleto());
+                        case ACTIVO -> ps.setBoolean(indice++, usuario.isActivo());
+                        case ELIMINADO -> ps.setBoolean(indice++, usuario.isEliminado());
+                    }
+                }
+                ps.setLong(indice, usuario.getId());
+
+                int filasAfectadas = ps.executeUpdate();
+                if (filasAfectadas > 0) {
+                    usuario.limpiarCambios();
+                }
+                return filasAfectadas > 0;
+            }
+        });
+    }
 
-            int filasAfectadas = ps.executeUpdate();
-            return filasAfectadas > 0;
+    // Un SQL por combinación de campos (a lo sumo 2^5), armado una sola vez
+    private static String sqlActualizar(Set<Usuario.Campo> campos) {
+        int clave = 0;
+        for (Usuario.Campo campo : campos) {
+            clave |= 1 << campo.ordinal();
         }
+        return SQL_ACTUALIZAR.computeIfAbsent(clave, k -> {
+            StringJoiner set = new StringJoiner(", ", "UPDATE usuario SET ", " WHERE id = ?");
+            for (Usuario.Campo campo : campos) {
+                set.add(columna(campo) + " = ?");
+            }
+            return set.toString();
+        });
+    }
+
+    private static String columna(Usuario.Campo campo) {
+        return switch (campo) {
+            case USERNAME -> "username";
+            case EMAIL -> "email";
+            case NOMBRE_COMPLETO -> "nombre_completo";
+            case ACTIVO -> "activo";
+            case ELIMINADO -> "eliminado";
+        };
     }
 
     // Métodos de lectura
     public Usuario buscarPorId(Long id) throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE id = ?";
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return M_BUSCAR_POR_ID.medir(() -> {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_BUSCAR_POR_ID)) {
 
-            ps.setLong(1, id);
+                ps.setLong(1, id);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return mapearUsuario(rs);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return mapearUsuario(rs);
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     public Usuario buscarPorUsername(String username) throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE username = ?";
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return buscarPorUsername(username, conn);
+        }
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+    public Usuario buscarPorUsername(String username, Connection conn) throws SQLException {
+        return M_BUSCAR_POR_USERNAME.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_BUSCAR_POR_USERNAME)) {
+                ps.setString(1, username);
 
-            ps.setString(1, username);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return mapearUsuario(rs);
+                    }
+                }
+            }
+            return null;
+        });
+    }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return mapearUsuario(rs);
+    public Usuario buscarPorEmail(String email) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return buscarPorEmail(email, conn);
+        }
+    }
+
+    public Usuario buscarPorEmail(String email, Connection conn) throws SQLException {
+        return M_BUSCAR_POR_EMAIL.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_BUSCAR_POR_EMAIL)) {
+                ps.setString(1, email);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return mapearUsuario(rs);
+                    }
                 }
             }
+            return null;
+        });
+    }
+
+    // ========================================================================
+    // Búsquedas múltiples (listas IN por tramos)
+    // ========================================================================
+
+    public Map<Long, Usuario> buscarPorIds(Collection<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return buscarPorIds(ids, conn);
         }
-        return null;
     }
 
-    public Usuario buscarPorEmail(String email) throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE email = ?";
+    /**
+     * Busca varios usuarios por id con consultas IN de hasta
+     * MAX_CLAVES_POR_CONSULTA claves cada una, todas sobre la misma conexión.
+     * Los ids repetidos o null se ignoran.
+     *
+     * @return los encontrados, por id, en el orden en que aparecen en ids
+     *         (los que no existen no están en el mapa)
+     */
+    public Map<Long, Usuario> buscarPorIds(Collection<Long> ids, Connection conn) throws SQLException {
+        return M_BUSCAR_POR_IDS.medir(() -> buscarPorClaves(ids, id -> id, Usuario::getId,
+                UsuarioDAO::sqlBuscarPorIds, PreparedStatement::setLong, conn), Map::size);
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+    public Map<String, Usuario> buscarPorUsernames(Collection<String> usernames) throws SQLException {
+        if (usernames.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return buscarPorUsernames(usernames, conn);
+        }
+    }
+
+    /**
+     * Como buscarPorIds, por username. La comparación es la de la collation
+     * de MySQL (ver normalizar): de dos usernames que solo difieren en
+     * mayúsculas, acentos o espacios en los extremos se busca y se devuelve
+     * el primero.
+     *
+     * @return los encontrados, con el username tal como vino en usernames
+     */
+    public Map<String, Usuario> buscarPorUsernames(Collection<String> usernames, Connection conn)
+            throws SQLException {
+        return M_BUSCAR_POR_USERNAMES.medir(() -> buscarPorClaves(usernames, UsuarioDAO::normalizar,
+                usuario -> normalizar(usuario.getUsername()), UsuarioDAO::sqlBuscarPorUsernames,
+                (ps, indice, username) -> ps.setString(indice, username.trim()), conn), Map::size);
+    }
 
-            ps.setString(1, email);
+    @FunctionalInterface
+    private interface Asignador<K> {
+        void asignar(PreparedStatement ps, int indice, K valor) throws SQLException;
+    }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return mapearUsuario(rs);
+    // Deduplica por clave normalizada, consulta por tramos y arma el mapa en
+    // el orden de entrada
+    private <K> Map<K, Usuario> buscarPorClaves(Collection<K> claves, Function<K, Object> normalizar,
+                                                Function<Usuario, Object> claveDe, IntFunction<String> sql,
+                                                Asignador<K> asignador, Connection conn) throws SQLException {
+        Map<Object, K> unicas = new LinkedHashMap<>();
+        for (K clave : claves) {
+            if (clave != null) {
+                unicas.putIfAbsent(normalizar.apply(clave), clave);
+            }
+        }
+        List<K> pendientes = new ArrayList<>(unicas.values());
+
+        Map<Object, Usuario> encontrados = new HashMap<>();
+        for (int desde = 0; desde < pendientes.size(); desde += MAX_CLAVES_POR_CONSULTA) {
+            List<K> tramo = pendientes.subList(desde, Math.min(desde + MAX_CLAVES_POR_CONSULTA, pendientes.size()));
+            int marcadores = marcadoresParaTramo(tramo.size());
+            try (PreparedStatement ps = conn.prepareStatement(sql.apply(marcadores))) {
+                for (int i = 0; i < marcadores; i++) {
+                    // Relleno: repetir la última clave no cambia el resultado
+                    asignador.asignar(ps, i + 1, tramo.get(Math.min(i, tramo.size() - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Usuario usuario = mapearUsuario(rs);
+                        encontrados.put(claveDe.apply(usuario), usuario);
+                    }
                 }
             }
         }
-        return null;
+
+        Map<K, Usuario> resultado = new LinkedHashMap<>();
+        for (Map.Entry<Object, K> unica : unicas.entrySet()) {
+            Usuario usuario = encontrados.get(unica.getKey());
+            if (usuario != null) {
+                resultado.put(unica.getValue(), usuario);
+            }
+        }
+        return resultado;
     }
 
-    public List<Usuario> obtenerTodos() throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE eliminado = FALSE ORDER BY id";
-        List<Usuario> usuarios = new ArrayList<>();
+    // Potencia de 2 mayor o igual a la cantidad, con tope MAX_CLAVES_POR_CONSULTA
+    static int marcadoresParaTramo(int cantidad) {
+        return cantidad <= 1 ? 1 : Math.min(MAX_CLAVES_POR_CONSULTA, Integer.highestOneBit(cantidad - 1) << 1);
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+    static String sqlBuscarPorIds(int marcadores) {
+        return SQL_BUSCAR_POR_IDS.computeIfAbsent(marcadores,
+                n -> "SELECT " + COLUMNAS + " FROM usuario WHERE id IN (" + marcadores(n) + ")");
+    }
+
+    static String sqlBuscarPorUsernames(int marcadores) {
+        return SQL_BUSCAR_POR_USERNAMES.computeIfAbsent(marcadores,
+                n -> "SELECT " + COLUMNAS + " FROM usuario WHERE username IN (" + marcadores(n) + ")");
+    }
 
-            while (rs.next()) {
-                usuarios.add(mapearUsuario(rs));
+    /**
+     * Clave de comparación de username/email equivalente a la collation de la
+     * tabla (utf8mb4_unicode_ci), que no distingue mayúsculas ni acentos:
+     * "José" y "jose" son el mismo username. Todo lo que empareja valores con
+     * lo que devuelve la BD, o decide si uno está libre, compara con esta
+     * clave; con otra daría "libre" para un valor que la BD rechaza.
+     */
+    public static String normalizar(String valor) {
+        String clave = valor.trim();
+        for (int i = 0; i < clave.length(); i++) {
+            if (clave.charAt(i) > 0x7F) {
+                clave = ACENTOS.matcher(Normalizer.normalize(clave, Normalizer.Form.NFD)).replaceAll("");
+                break;
             }
         }
-        return usuarios;
+        return clave.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Chequeo de disponibilidad en una sola ida a la BD: devuelve algún usuario
+     * que ya use el username o el email, o null si ambos están libres.
+     */
+    public Usuario buscarPorUsernameOEmail(String username, String email, Connection conn) throws SQLException {
+        return M_BUSCAR_POR_USERNAME_O_EMAIL.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_BUSCAR_POR_USERNAME_O_EMAIL)) {
+                ps.setString(1, username);
+                ps.setString(2, email);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return mapearUsuario(rs);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    public List<Usuario> obtenerTodos() throws SQLException {
+        return M_OBTENER_TODOS.medir(() -> {
+            List<Usuario> usuarios = new ArrayList<>();
+
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_OBTENER_TODOS);
+                 ResultSet rs = ps.executeQuery()) {
+
+                while (rs.next()) {
+                    usuarios.add(mapearUsuario(rs));
+                }
+            }
+            return usuarios;
+        });
     }
 
     public List<Usuario> obtenerActivos() throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE activo = TRUE AND eliminado = FALSE ORDER BY id";
-        List<Usuario> usuarios = new ArrayList<>();
+        return M_OBTENER_ACTIVOS.medir(() -> {
+            List<Usuario> usuarios = new ArrayList<>();
+
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_OBTENER_ACTIVOS);
+                 ResultSet rs = ps.executeQuery()) {
+
+                while (rs.next()) {
+                    usuarios.add(mapearUsuario(rs));
+                }
+            }
+            return usuarios;
+        });
+    }
+
+    // ========================================================================
+    // Paginación por clave (keyset) y lectura en streaming
+    // ========================================================================
+
+    /**
+     * Devuelve hasta "limite" usuarios no eliminados con id mayor a despuesDeId,
+     * ordenados por id. Para la primera página pasar null o 0; para la siguiente,
+     * el id del último usuario recibido. A diferencia de OFFSET, el costo de cada
+     * página no crece a medida que se avanza en la tabla.
+     */
+    public List<Usuario> obtenerPagina(Long despuesDeId, int limite) throws SQLException {
+        return M_OBTENER_PAGINA.medir(() -> obtenerPagina(SQL_PAGINA_TODOS, despuesDeId, limite));
+    }
+
+    public List<Usuario> obtenerActivosPagina(Long despuesDeId, int limite) throws SQLException {
+        return M_OBTENER_ACTIVOS_PAGINA.medir(() -> obtenerPagina(SQL_PAGINA_ACTIVOS, despuesDeId, limite));
+    }
+
+    /**
+     * Página de la proyección angosta (id, username, email, activo) para
+     * pantallas de listado que no necesitan el usuario completo.
+     */
+    public List<UsuarioResumen> obtenerResumenesPagina(Long despuesDeId, int limite) throws SQLException {
+        return M_OBTENER_RESUMENES_PAGINA.medir(
+                () -> obtenerPagina(SQL_RESUMEN_PAGINA, despuesDeId, limite, UsuarioDAO::mapearResumen));
+    }
+
+    private List<Usuario> obtenerPagina(String sql, Long despuesDeId, int limite) throws SQLException {
+        return obtenerPagina(sql, despuesDeId, limite, UsuarioDAO::mapearUsuario);
+    }
+
+    private <T> List<T> obtenerPagina(String sql, Long despuesDeId, int limite, Mapeador<T> mapeador)
+            throws SQLException {
+        List<T> usuarios = new ArrayList<>(limite);
 
         try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            while (rs.next()) {
-                usuarios.add(mapearUsuario(rs));
+            ps.setLong(1, despuesDeId != null ? despuesDeId : 0L);
+            ps.setInt(2, limite);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    usuarios.add(mapeador.mapear(rs));
+                }
             }
         }
         return usuarios;
     }
 
-    public boolean eliminarLogicamente(Long id) throws SQLException {
-        String sql = "UPDATE usuario SET eliminado = TRUE, activo = FALSE WHERE id = ?";
+    /**
+     * Recorre todos los usuarios no eliminados sin cargarlos en memoria.
+     *
+     * El Stream mantiene abierta una conexión hasta que se cierra, así que
+     * SIEMPRE hay que usarlo dentro de un try-with-resources:
+     *
+     *    try (Stream<Usuario> usuarios = dao.streamTodos()) { ... }
+     */
+    public Stream<Usuario> streamTodos() throws SQLException {
+        return stream(SQL_OBTENER_TODOS, M_STREAM_TODOS);
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+    public Stream<Usuario> streamActivos() throws SQLException {
+        return stream(SQL_OBTENER_ACTIVOS, M_STREAM_ACTIVOS);
+    }
+
+    /**
+     * Como streamTodos(), pero con la proyección angosta de UsuarioResumen.
+     * También hay que cerrarlo con try-with-resources.
+     */
+    public Stream<UsuarioResumen> streamResumenes() throws SQLException {
+        return stream(SQL_RESUMEN_TODOS, UsuarioDAO::mapearResumen, M_STREAM_RESUMENES);
+    }
+
+    /**
+     * Como streamResumenes(), pero también con los usuarios eliminados y sin
+     * orden. Sirve para recorrer todos los username y email ocupados.
+     */
+    public Stream<UsuarioResumen> streamResumenesConEliminados() throws SQLException {
+        return stream(SQL_RESUMEN_TODOS_CON_ELIMINADOS, UsuarioDAO::mapearResumen, M_STREAM_RESUMENES_CON_ELIMINADOS);
+    }
 
-            ps.setLong(1, id);
-            int filasAfectadas = ps.executeUpdate();
-            return filasAfectadas > 0;
+    private Stream<Usuario> stream(String sql, Metricas.Operacion operacion) throws SQLException {
+        return stream(sql, UsuarioDAO::mapearUsuario, operacion);
+    }
+
+    // La latencia medida es la de abrir el stream (ejecutar la consulta); las
+    // filas se suman a medida que se consumen
+    private <T> Stream<T> stream(String sql, Mapeador<T> mapeador, Metricas.Operacion operacion)
+            throws SQLException {
+        return operacion.medir(() -> {
+            Connection conn = DatabaseConfig.getConnection();
+            PreparedStatement ps = null;
+            try {
+                ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // En MySQL (Integer.MIN_VALUE) el driver entrega las filas de a una a
+                // medida que llegan, en lugar de cargar todo el ResultSet
+                ps.setFetchSize(DatabaseConfig.getInstance().getDialecto().getFetchSizeStreaming());
+                ResultSet rs = ps.executeQuery();
+
+                Spliterator<T> filas = new Spliterators.AbstractSpliterator<>(
+                        Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                    @Override
+                    public boolean tryAdvance(Consumer<? super T> accion) {
+                        try {
+                            if (!rs.next()) {
+                                return false;
+                            }
+                            accion.accept(mapeador.mapear(rs));
+                            operacion.sumarFilas(1);
+                            return true;
+                        } catch (SQLException e) {
+                            throw new RuntimeException("Error al leer usuarios", e);
+                        }
+                    }
+                };
+
+                PreparedStatement psAbierto = ps;
+                return StreamSupport.stream(filas, false)
+                        .onClose(() -> cerrarSilenciosamente(rs, psAbierto, conn));
+
+            } catch (SQLException | RuntimeException e) {
+                cerrarSilenciosamente(null, ps, conn);
+                throw e;
+            }
+        }, abierto -> 0);
+    }
+
+    private void cerrarSilenciosamente(AutoCloseable... recursos) {
+        for (AutoCloseable recurso : recursos) {
+            if (recurso == null) {
+                continue;
+            }
+            try {
+                recurso.close();
+            } catch (Exception e) {
+                System.err.println("✗ Error al cerrar recurso: " + e.getMessage());
+            }
         }
     }
 
-    // Método auxiliar para mapear ResultSet
-    private Usuario mapearUsuario(ResultSet rs) throws SQLException {
+    /**
+     * Busca, en una sola consulta, los usuarios que ya usan alguno de los
+     * usernames o emails indicados. Se usa para chequear duplicados de un lote.
+     */
+    public List<Usuario> buscarPorUsernamesOEmails(Collection<String> usernames, Collection<String> emails)
+            throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return buscarPorUsernamesOEmails(usernames, emails, conn);
+        }
+    }
+
+    public List<Usuario> buscarPorUsernamesOEmails(Collection<String> usernames, Collection<String> emails,
+                                                   Connection conn) throws SQLException {
+        if (usernames.isEmpty() && emails.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> listaUsernames = new ArrayList<>(usernames);
+        List<String> listaEmails = new ArrayList<>(emails);
+
+        return M_BUSCAR_POR_USERNAMES_O_EMAILS.medir(() -> {
+            // Por id: un usuario puede coincidir por username en un tramo y
+            // por email en otro
+            Map<Long, Usuario> encontrados = new LinkedHashMap<>();
+            int total = Math.max(listaUsernames.size(), listaEmails.size());
+            for (int desde = 0; desde < total; desde += MAX_CLAVES_POR_CONSULTA) {
+                List<String> tramoUsernames = tramo(listaUsernames, desde);
+                List<String> tramoEmails = tramo(listaEmails, desde);
+                int marcadoresUsernames = tramoUsernames.isEmpty() ? 0 : marcadoresParaTramo(tramoUsernames.size());
+                int marcadoresEmails = tramoEmails.isEmpty() ? 0 : marcadoresParaTramo(tramoEmails.size());
+
+                try (PreparedStatement ps = conn.prepareStatement(
+                        sqlBuscarPorUsernamesOEmails(marcadoresUsernames, marcadoresEmails))) {
+                    // Relleno: repetir la última clave no cambia el resultado
+                    int parametro = 1;
+                    for (int i = 0; i < marcadoresUsernames; i++) {
+                        ps.setString(parametro++, tramoUsernames.get(Math.min(i, tramoUsernames.size() - 1)).trim());
+                    }
+                    for (int i = 0; i < marcadoresEmails; i++) {
+                        ps.setString(parametro++, tramoEmails.get(Math.min(i, tramoEmails.size() - 1)).trim());
+                    }
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Usuario usuario = mapearUsuario(rs);
+                            encontrados.putIfAbsent(usuario.getId(), usuario);
+                        }
+                    }
+                }
+            }
+            return new ArrayList<>(encontrados.values());
+        });
+    }
+
+    private static List<String> tramo(List<String> claves, int desde) {
+        return desde >= claves.size()
+                ? List.of()
+                : claves.subList(desde, Math.min(desde + MAX_CLAVES_POR_CONSULTA, claves.size()));
+    }
+
+    // Con 0 marcadores de un lado, esa condición no va: nunca queda "IN ()"
+    static String sqlBuscarPorUsernamesOEmails(int marcadoresUsernames, int marcadoresEmails) {
+        return SQL_BUSCAR_POR_USERNAMES_O_EMAILS.computeIfAbsent(
+                marcadoresUsernames * (MAX_CLAVES_POR_CONSULTA + 1) + marcadoresEmails, clave -> {
+                    List<String> condiciones = new ArrayList<>(2);
+                    if (marcadoresUsernames > 0) {
+                        condiciones.add("username IN (" + marcadores(marcadoresUsernames) + ")");
+                    }
+                    if (marcadoresEmails > 0) {
+                        condiciones.add("email IN (" + marcadores(marcadoresEmails) + ")");
+                    }
+                    return "SELECT " + COLUMNAS + " FROM usuario WHERE " + String.join(" OR ", condiciones);
+                });
+    }
+
+    public boolean eliminarLogicamente(Long id) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return eliminarLogicamente(id, conn);
+        }
+    }
+
+    public boolean eliminarLogicamente(Long id, Connection conn) throws SQLException {
+        return M_ELIMINAR_LOGICAMENTE.medir(() -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_ELIMINAR_LOGICAMENTE)) {
+                ps.setLong(1, id);
+                int filasAfectadas = ps.executeUpdate();
+                return filasAfectadas > 0;
+            }
+        });
+    }
+
+    // Genera "?, ?, ?" para armar listas IN. Con 0 elementos devuelve NULL
+    // para que "x IN (NULL)" sea válido y no matchee nada.
+    static String marcadores(int cantidad) {
+        return cantidad == 0 ? "NULL" : String.join(", ", Collections.nCopies(cantidad, "?"));
+    }
+
+    // ========================================================================
+    // Mapeo por índice (las columnas vienen de columnas() / COLUMNAS_RESUMEN)
+    // ========================================================================
+
+    @FunctionalInterface
+    private interface Mapeador<T> {
+        T mapear(ResultSet rs) throws SQLException;
+    }
+
+    // No es private: MapeoUsuarioBenchmark lo mide aislado de la consulta
+    static Usuario mapearUsuario(ResultSet rs) throws SQLException {
+        return mapearUsuario(rs, 1);
+    }
+
+    private static Usuario mapearUsuario(ResultSet rs, int desde) throws SQLException {
         Usuario usuario = new Usuario();
-        usuario.setId(rs.getLong("id"));
-        usuario.setEliminado(rs.getBoolean("eliminado"));
-        usuario.setUsername(rs.getString("username"));
-        usuario.setEmail(rs.getString("email"));
-        usuario.setNombreCompleto(rs.getString("nombre_completo"));
-        usuario.setActivo(rs.getBoolean("activo"));
-
-        Timestamp timestamp = rs.getTimestamp("fecha_registro");
+        usuario.setId(rs.getLong(Columna.ID.indice(desde)));
+        usuario.setEliminado(rs.getBoolean(Columna.ELIMINADO.indice(desde)));
+        usuario.setUsername(rs.getString(Columna.USERNAME.indice(desde)));
+        usuario.setEmail(rs.getString(Columna.EMAIL.indice(desde)));
+        usuario.setNombreCompleto(rs.getString(Columna.NOMBRE_COMPLETO.indice(desde)));
+        usuario.setActivo(rs.getBoolean(Columna.ACTIVO.indice(desde)));
+
+        Timestamp timestamp = rs.getTimestamp(Columna.FECHA_REGISTRO.indice(desde));
         if (timestamp != null) {
             usuario.setFechaRegistro(timestamp.toLocalDateTime());
         }
 
+        // Recién leído: coincide con la BD
+        usuario.limpiarCambios();
         return usuario;
     }
 
+    private static UsuarioResumen mapearResumen(ResultSet rs) throws SQLException {
+        return new UsuarioResumen(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBoolean(4));
+    }
+
     // Método especial: busca usuario con su credencial (hace JOIN)
     public Usuario buscarConCredencial(Long id) throws SQLException {
-        String sql = "SELECT u.*, c.id as cred_id, c.eliminado as cred_eliminado, " +
-                "c.usuario_id, c.hash_password, c.salt, c.ultimo_cambio, c.requiere_reset, " +
-                "c.intentos_fallidos, c.ultimo_login " +
-                "FROM usuario u " +
-                "LEFT JOIN credencial_acceso c ON c.usuario_id = u.id " +
-                "WHERE u.id = ?";
+        return M_BUSCAR_CON_CREDENCIAL.medir(() -> {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_BUSCAR_CON_CREDENCIAL)) {
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setLong(1, id);
-
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    Usuario usuario = mapearUsuario(rs);
-
-                    // Si tiene credencial, mapearla también
-                    Long credId = rs.getLong("cred_id");
-                    if (!rs.wasNull()) {
-                        CredencialAcceso credencial = new CredencialAcceso();
-                        credencial.setId(credId);
-                        credencial.setUsuarioId(usuario.getId());
-                        credencial.setEliminado(rs.getBoolean("cred_eliminado"));
-                        credencial.setHashPassword(rs.getString("hash_password"));
-                        credencial.setSalt(rs.getString("salt"));
-                        credencial.setIntentosFallidos(rs.getInt("intentos_fallidos"));
-                        credencial.setRequiereReset(rs.getBoolean("requiere_reset"));
-
-                        Timestamp ultimoCambio = rs.getTimestamp("ultimo_cambio");
-                        if (ultimoCambio != null) {
-                            credencial.setUltimoCambio(ultimoCambio.toLocalDateTime());
-                        }
+                ps.setLong(1, id);
 
-                        Timestamp ultimoLogin = rs.getTimestamp("ultimo_login");
-                        if (ultimoLogin != null) {
-                            credencial.setUltimoLogin(ultimoLogin.toLocalDateTime());
-                        }
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        Usuario usuario = mapearUsuario(rs, 1);
 
-                        usuario.setCredencialAcceso(credencial);
+                        // Sin credencial (LEFT JOIN) las columnas vienen en NULL
+                        usuario.setCredencialAcceso(CredencialAccesoDAO.mapearCredencial(rs, DESDE_CREDENCIAL));
+                        return usuario;
                     }
+                }
+            }
+            return null;
+        });
+    }
 
-                    return usuario;
+    /**
+     * Usuario con su credencial por username, en una sola consulta. Es la
+     * lectura del login (ver AutenticacionService).
+     */
+    public Usuario buscarConCredencialPorUsername(String username) throws SQLException {
+        return M_BUSCAR_CON_CREDENCIAL_POR_USERNAME.medir(() -> {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_BUSCAR_CON_CREDENCIAL_POR_USERNAME)) {
+
+                ps.setString(1, username);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        Usuario usuario = mapearUsuario(rs, 1);
+                        usuario.setCredencialAcceso(CredencialAccesoDAO.mapearCredencial(rs, DESDE_CREDENCIAL));
+                        return usuario;
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 }
\ No newline at end of file
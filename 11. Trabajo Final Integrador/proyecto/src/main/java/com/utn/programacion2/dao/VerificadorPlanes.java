@@ -0,0 +1,230 @@
+package ar.edu.utn.tup.dao;
+
+import ar.edu.utn.tup.config.DatabaseConfig;
+import ar.edu.utn.tup.config.Dialecto;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chequeo de regresión de planes de ejecución.
+ *
+ * Corre EXPLAIN sobre el SQL real de UsuarioDAO y CredencialAccesoDAO (las
+ * mismas constantes que usan los DAO) y verifica que cada consulta use el
+ * índice para el que fue pensada (ver database/03_migracion_indices.sql).
+ * Si alguien cambia una consulta o un índice y el plan deja de usarlo, el
+ * chequeo falla.
+ *
+ * Uso (con el perfil mysql, ver db.properties.ejemplo):
+ *
+ *    java ar.edu.utn.tup.dao.VerificadorPlanes
+ *
+ * Termina con código 1 si alguna consulta no usa su índice.
+ *
+ * Las consultas por clave única dan el mismo plan con cualquier volumen. Las
+ * de listado no: con pocas filas al optimizador le conviene recorrer la tabla
+ * entera. Por eso esas se omiten (con aviso) si la tabla tiene menos de
+ * MIN_FILAS_PARA_LISTADOS filas.
+ */
+public class VerificadorPlanes {
+
+    private static final int MIN_FILAS_PARA_LISTADOS = 1_000;
+
+    /**
+     * Una consulta a verificar.
+     *
+     * @param nombre           Para el reporte
+     * @param sql              SQL del DAO
+     * @param parametros       Valores de ejemplo para los "?"
+     * @param indicesEsperados Por tabla (o alias) del EXPLAIN, índices aceptables
+     * @param dependeDelVolumen true si el plan solo es representativo con datos suficientes
+     */
+    public record Caso(String nombre, String sql, List<Object> parametros,
+                Map<String, Set<String>> indicesEsperados, boolean dependeDelVolumen) {
+    }
+
+    /**
+     * Resultado de verificar un caso.
+     */
+    public record Resultado(Caso caso, boolean ok, boolean omitido, String detalle) {
+    }
+
+    static List<Caso> casos() {
+        return List.of(
+                // usuario: búsquedas puntuales
+                new Caso("UsuarioDAO.buscarPorId", UsuarioDAO.SQL_BUSCAR_POR_ID, List.of(1L),
+                        Map.of("usuario", Set.of("PRIMARY")), false),
+                new Caso("UsuarioDAO.buscarPorUsername", UsuarioDAO.SQL_BUSCAR_POR_USERNAME, List.of("jperez"),
+                        Map.of("usuario", Set.of("uq_usuario_username")), false),
+                new Caso("UsuarioDAO.buscarPorEmail", UsuarioDAO.SQL_BUSCAR_POR_EMAIL,
+                        List.of("juan.perez@email.com"),
+                        Map.of("usuario", Set.of("uq_usuario_email")), false),
+                // OR entre dos columnas únicas: index_merge (unión de ambos índices)
+                new Caso("UsuarioDAO.buscarPorUsernameOEmail", UsuarioDAO.SQL_BUSCAR_POR_USERNAME_O_EMAIL,
+                        List.of("jperez", "juan.perez@email.com"),
+                        Map.of("usuario", Set.of("uq_usuario_username,uq_usuario_email",
+                                "uq_usuario_email,uq_usuario_username")), true),
+                // IN por clave única: range sobre el mismo índice
+                new Caso("UsuarioDAO.buscarPorIds", UsuarioDAO.sqlBuscarPorIds(2), List.of(1L, 2L),
+                        Map.of("usuario", Set.of("PRIMARY")), false),
+                new Caso("UsuarioDAO.buscarPorUsernames", UsuarioDAO.sqlBuscarPorUsernames(2),
+                        List.of("jperez", "mgarcia"), Map.of("usuario", Set.of("uq_usuario_username")), false),
+                new Caso("UsuarioDAO.buscarPorUsernamesOEmails", UsuarioDAO.sqlBuscarPorUsernamesOEmails(2, 2),
+                        List.of("jperez", "mgarcia", "juan.perez@email.com", "maria.garcia@email.com"),
+                        Map.of("usuario", Set.of("uq_usuario_username,uq_usuario_email",
+                                "uq_usuario_email,uq_usuario_username")), true),
+                new Caso("UsuarioDAO.buscarConCredencial", UsuarioDAO.SQL_BUSCAR_CON_CREDENCIAL, List.of(1L),
+                        Map.of("u", Set.of("PRIMARY"), "c", Set.of("uq_credencial_usuario")), false),
+                new Caso("UsuarioDAO.buscarConCredencialPorUsername",
+                        UsuarioDAO.SQL_BUSCAR_CON_CREDENCIAL_POR_USERNAME, List.of("jperez"),
+                        Map.of("u", Set.of("uq_usuario_username"), "c", Set.of("uq_credencial_usuario")), false),
+
+                // usuario: listados
+                new Caso("UsuarioDAO.obtenerActivos", UsuarioDAO.SQL_OBTENER_ACTIVOS, List.of(),
+                        Map.of("usuario", Set.of("idx_usuario_listado")), true),
+                new Caso("UsuarioDAO.obtenerActivosPagina", UsuarioDAO.SQL_PAGINA_ACTIVOS, List.of(0L, 50),
+                        Map.of("usuario", Set.of("idx_usuario_listado")), true),
+                new Caso("UsuarioDAO.obtenerPagina", UsuarioDAO.SQL_PAGINA_TODOS, List.of(0L, 50),
+                        Map.of("usuario", Set.of("PRIMARY", "idx_usuario_listado")), true),
+                new Caso("UsuarioDAO.obtenerResumenesPagina", UsuarioDAO.SQL_RESUMEN_PAGINA, List.of(0L, 50),
+                        Map.of("usuario", Set.of("PRIMARY", "idx_usuario_listado")), true),
+
+                // credencial_acceso
+                new Caso("CredencialAccesoDAO.buscarPorId", CredencialAccesoDAO.SQL_BUSCAR_POR_ID, List.of(1L),
+                        Map.of("credencial_acceso", Set.of("PRIMARY")), false),
+                new Caso("CredencialAccesoDAO.buscarPorUsuarioId", CredencialAccesoDAO.SQL_BUSCAR_POR_USUARIO_ID,
+                        List.of(1L), Map.of("credencial_acceso", Set.of("uq_credencial_usuario")), false),
+                new Caso("CredencialAccesoDAO.incrementarIntentosFallidos",
+                        CredencialAccesoDAO.SQL_INCREMENTAR_INTENTOS, List.of(1, 1L),
+                        Map.of("credencial_acceso", Set.of("PRIMARY")), false),
+                new Caso("CredencialAccesoDAO.registrarLoginExitoso",
+                        CredencialAccesoDAO.SQL_REGISTRAR_LOGIN_EXITOSO,
+                        List.of(Timestamp.valueOf("2024-01-01 00:00:00"), 1L),
+                        Map.of("credencial_acceso", Set.of("PRIMARY")), false)
+        );
+    }
+
+    // ========================================================================
+    // Verificación
+    // ========================================================================
+
+    public static List<Resultado> verificar(Connection conn) throws SQLException {
+        long filasUsuario = contarFilas(conn, "usuario");
+        List<Resultado> resultados = new ArrayList<>();
+
+        for (Caso caso : casos()) {
+            if (caso.dependeDelVolumen() && filasUsuario < MIN_FILAS_PARA_LISTADOS) {
+                resultados.add(new Resultado(caso, true, true,
+                        "omitido: usuario tiene " + filasUsuario + " filas (< " + MIN_FILAS_PARA_LISTADOS + ")"));
+                continue;
+            }
+            resultados.add(verificar(conn, caso));
+        }
+        return resultados;
+    }
+
+    private static Resultado verificar(Connection conn, Caso caso) throws SQLException {
+        StringBuilder detalle = new StringBuilder();
+        Set<String> vistas = new HashSet<>();
+        boolean ok = true;
+
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + caso.sql())) {
+            for (int i = 0; i < caso.parametros().size(); i++) {
+                ps.setObject(i + 1, caso.parametros().get(i));
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String tabla = rs.getString("table");
+                    String tipo = rs.getString("type");
+                    String clave = rs.getString("key");
+                    String extra = rs.getString("Extra");
+
+                    Set<String> esperados = caso.indicesEsperados().get(tabla);
+                    if (esperados == null) {
+                        continue;
+                    }
+                    vistas.add(tabla);
+                    boolean usaEsperado = clave != null && esperados.contains(clave);
+                    ok &= usaEsperado;
+
+                    if (detalle.length() > 0) {
+                        detalle.append("; ");
+                    }
+                    detalle.append(tabla).append(": type=").append(tipo)
+                            .append(", key=").append(clave)
+                            .append(usaEsperado ? "" : " (esperado " + esperados + ")");
+                    if (extra != null && extra.contains("Using filesort")) {
+                        detalle.append(", filesort");
+                    }
+                }
+            }
+        }
+
+        // Una búsqueda const sobre un valor inexistente no muestra la tabla en el EXPLAIN
+        for (String tabla : caso.indicesEsperados().keySet()) {
+            if (!vistas.contains(tabla)) {
+                ok = false;
+                detalle.append(detalle.length() > 0 ? "; " : "")
+                        .append(tabla).append(": no aparece en el EXPLAIN (¿existe el valor de ejemplo?)");
+            }
+        }
+        return new Resultado(caso, ok, false, detalle.toString());
+    }
+
+    private static long contarFilas(Connection conn, String tabla) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + tabla)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // ========================================================================
+    // Ejecución desde consola
+    // ========================================================================
+
+    public static void main(String[] args) {
+        // Las columnas del EXPLAIN (type, key, Extra) son las de MySQL
+        if (DatabaseConfig.getInstance().getDialecto() != Dialecto.MYSQL) {
+            System.out.println("- Verificación de planes omitida: solo aplica al perfil mysql");
+            DatabaseConfig.getInstance().cerrar();
+            return;
+        }
+
+        List<Resultado> resultados;
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            resultados = verificar(conn);
+        } catch (SQLException e) {
+            System.err.println("✗ No se pudo verificar los planes: " + e.getMessage());
+            DatabaseConfig.getInstance().cerrar();
+            System.exit(2);
+            return;
+        }
+        DatabaseConfig.getInstance().cerrar();
+
+        int fallidos = 0;
+        for (Resultado resultado : resultados) {
+            String marca = resultado.omitido() ? "-" : resultado.ok() ? "✓" : "✗";
+            System.out.println(marca + " " + resultado.caso().nombre() + " → " + resultado.detalle());
+            if (!resultado.ok()) {
+                fallidos++;
+            }
+        }
+
+        if (fallidos > 0) {
+            System.err.println("\n✗ " + fallidos + " consulta(s) no usan el índice esperado");
+            System.exit(1);
+        }
+        System.out.println("\n✓ Todas las consultas verificadas usan su índice");
+    }
+}
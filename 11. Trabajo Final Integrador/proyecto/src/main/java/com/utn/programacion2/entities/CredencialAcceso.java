@@ -1,7 +1,9 @@
 package ar.edu.utn.tup.entities;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 
 public class CredencialAcceso {
 
@@ -15,6 +17,16 @@ public class CredencialAcceso {
     private int intentosFallidos;
     private LocalDateTime ultimoLogin;
 
+    // Campos persistentes que se pueden modificar con un UPDATE
+    public enum Campo {
+        HASH_PASSWORD, SALT, ULTIMO_CAMBIO, REQUIERE_RESET, INTENTOS_FALLIDOS, ULTIMO_LOGIN, ELIMINADO
+    }
+
+    // Campos que cambiaron desde la última carga/guardado. Un objeto nuevo
+    // arranca con todos marcados menos ultimo_login (que un UPDATE completo
+    // nunca pisó); el DAO los limpia al leer o guardar.
+    private final EnumSet<Campo> camposModificados = EnumSet.complementOf(EnumSet.of(Campo.ULTIMO_LOGIN));
+
     // Constructor vacío
     public CredencialAcceso() {
     }
@@ -43,6 +55,9 @@ public class CredencialAcceso {
     }
 
     public void setEliminado(boolean eliminado) {
+        if (this.eliminado != eliminado) {
+            camposModificados.add(Campo.ELIMINADO);
+        }
         this.eliminado = eliminado;
     }
 
@@ -59,6 +74,9 @@ public class CredencialAcceso {
     }
 
     public void setHashPassword(String hashPassword) {
+        if (!Objects.equals(this.hashPassword, hashPassword)) {
+            camposModificados.add(Campo.HASH_PASSWORD);
+        }
         this.hashPassword = hashPassword;
     }
 
@@ -67,6 +85,9 @@ public class CredencialAcceso {
     }
 
     public void setSalt(String salt) {
+        if (!Objects.equals(this.salt, salt)) {
+            camposModificados.add(Campo.SALT);
+        }
         this.salt = salt;
     }
 
@@ -75,6 +96,9 @@ public class CredencialAcceso {
     }
 
     public void setUltimoCambio(LocalDateTime ultimoCambio) {
+        if (!Objects.equals(this.ultimoCambio, ultimoCambio)) {
+            camposModificados.add(Campo.ULTIMO_CAMBIO);
+        }
         this.ultimoCambio = ultimoCambio;
     }
 
@@ -83,6 +107,9 @@ public class CredencialAcceso {
     }
 
     public void setRequiereReset(boolean requiereReset) {
+        if (this.requiereReset != requiereReset) {
+            camposModificados.add(Campo.REQUIERE_RESET);
+        }
         this.requiereReset = requiereReset;
     }
 
@@ -91,6 +118,9 @@ public class CredencialAcceso {
     }
 
     public void setIntentosFallidos(int intentosFallidos) {
+        if (this.intentosFallidos != intentosFallidos) {
+            camposModificados.add(Campo.INTENTOS_FALLIDOS);
+        }
         this.intentosFallidos = intentosFallidos;
     }
 
@@ -99,28 +129,50 @@ public class CredencialAcceso {
     }
 
     public void setUltimoLogin(LocalDateTime ultimoLogin) {
+        if (!Objects.equals(this.ultimoLogin, ultimoLogin)) {
+            camposModificados.add(Campo.ULTIMO_LOGIN);
+        }
         this.ultimoLogin = ultimoLogin;
     }
 
     // Métodos de lógica de negocio
     public void registrarIntentoFallido() {
-        this.intentosFallidos++;
+        setIntentosFallidos(this.intentosFallidos + 1);
     }
 
     public void registrarLoginExitoso() {
-        this.intentosFallidos = 0;
-        this.ultimoLogin = LocalDateTime.now();
+        setIntentosFallidos(0);
+        setUltimoLogin(LocalDateTime.now());
     }
 
     public boolean debeBloquearPorIntentos(int maxIntentos) {
-        return this.intentosFallidos >= maxIntentos;
+        return debeBloquearPorIntentos(this.intentosFallidos, maxIntentos);
+    }
+
+    // Misma regla, para decidir a partir del contador que devuelve la BD
+    // sin tener que cargar la credencial
+    public static boolean debeBloquearPorIntentos(int intentosFallidos, int maxIntentos) {
+        return intentosFallidos >= maxIntentos;
     }
 
     public void actualizarPassword(String nuevoHash, String nuevoSalt) {
-        this.hashPassword = nuevoHash;
-        this.salt = nuevoSalt;
-        this.ultimoCambio = LocalDateTime.now();
-        this.requiereReset = false;
+        setHashPassword(nuevoHash);
+        setSalt(nuevoSalt);
+        setUltimoCambio(LocalDateTime.now());
+        setRequiereReset(false);
+    }
+
+    // Métodos de seguimiento de cambios
+    public Set<Campo> getCamposModificados() {
+        return EnumSet.copyOf(camposModificados);
+    }
+
+    public boolean tieneCambios() {
+        return !camposModificados.isEmpty();
+    }
+
+    public void limpiarCambios() {
+        camposModificados.clear();
     }
 
     @Override
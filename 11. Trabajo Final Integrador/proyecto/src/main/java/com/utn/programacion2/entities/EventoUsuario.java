@@ -0,0 +1,29 @@
+package ar.edu.utn.tup.entities;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cambio confirmado sobre un usuario o su credencial, tal como se anotó en
+ * el outbox (tabla evento_usuario) dentro de la transacción del cambio.
+ *
+ * Solo lleva qué pasó y a quién: quien necesite el estado actual lo busca
+ * (por ejemplo, para refrescar una copia local), así un evento viejo nunca
+ * pisa datos más nuevos.
+ *
+ * @param id        Posición en el outbox; crece con cada evento
+ * @param tipo      Qué cambió
+ * @param usuarioId Usuario afectado
+ * @param momento   Cuándo se hizo el cambio
+ */
+public record EventoUsuario(long id, Tipo tipo, long usuarioId, LocalDateTime momento) {
+
+    public enum Tipo {
+        CREADO,
+        ACTUALIZADO,
+        ACTIVADO,
+        DESACTIVADO,
+        /** Baja lógica */
+        ELIMINADO,
+        PASSWORD_CAMBIADO
+    }
+}
@@ -1,7 +1,9 @@
 package ar.edu.utn.tup.entities;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Clase que representa a un usuario del sistema.
@@ -119,6 +121,28 @@ public class Usuario {
      */
     private CredencialAcceso credencialAcceso;
 
+    // ========================================================================
+    // Seguimiento de cambios (dirty tracking)
+    // ========================================================================
+
+    /**
+     * Campos persistentes que se pueden modificar con un UPDATE.
+     * El id y la fecha de registro no cambian después del INSERT.
+     */
+    public enum Campo {
+        USERNAME, EMAIL, NOMBRE_COMPLETO, ACTIVO, ELIMINADO
+    }
+
+    /**
+     * Campos que cambiaron desde que el objeto se cargó de la base de datos.
+     *
+     * Un objeto recién construido tiene todos los campos marcados (no sabemos
+     * qué hay en la BD). El DAO los limpia al leer o guardar la fila, y a
+     * partir de ahí cada setter marca solo el campo que realmente cambió.
+     * Así el DAO puede armar un UPDATE con las columnas modificadas y nada más.
+     */
+    private final EnumSet<Campo> camposModificados = EnumSet.allOf(Campo.class);
+
     // ========================================================================
     // Constructores
     // ========================================================================
@@ -193,6 +217,9 @@ public class Usuario {
     }
 
     public void setEliminado(boolean eliminado) {
+        if (this.eliminado != eliminado) {
+            camposModificados.add(Campo.ELIMINADO);
+        }
         this.eliminado = eliminado;
     }
 
@@ -201,6 +228,9 @@ public class Usuario {
     }
 
     public void setUsername(String username) {
+        if (!Objects.equals(this.username, username)) {
+            camposModificados.add(Campo.USERNAME);
+        }
         this.username = username;
     }
 
@@ -209,6 +239,9 @@ public class Usuario {
     }
 
     public void setEmail(String email) {
+        if (!Objects.equals(this.email, email)) {
+            camposModificados.add(Campo.EMAIL);
+        }
         this.email = email;
     }
 
@@ -217,6 +250,9 @@ public class Usuario {
     }
 
     public void setNombreCompleto(String nombreCompleto) {
+        if (!Objects.equals(this.nombreCompleto, nombreCompleto)) {
+            camposModificados.add(Campo.NOMBRE_COMPLETO);
+        }
         this.nombreCompleto = nombreCompleto;
     }
 
@@ -225,6 +261,9 @@ public class Usuario {
     }
 
     public void setActivo(boolean activo) {
+        if (this.activo != activo) {
+            camposModificados.add(Campo.ACTIVO);
+        }
         this.activo = activo;
     }
 
@@ -272,7 +311,7 @@ public class Usuario {
         if (eliminado) {
             return false;
         }
-        this.activo = true;
+        setActivo(true);
         return true;
     }
 
@@ -283,7 +322,7 @@ public class Usuario {
      * más complejo de recuperación.
      */
     public void desactivar() {
-        this.activo = false;
+        setActivo(false);
     }
 
     /**
@@ -294,8 +333,8 @@ public class Usuario {
      * Un usuario eliminado también debe ser desactivado automáticamente.
      */
     public void eliminarLogicamente() {
-        this.eliminado = true;
-        this.activo = false;
+        setEliminado(true);
+        setActivo(false);
     }
 
     /**
@@ -303,8 +342,8 @@ public class Usuario {
      * Lo reactiva y marca como no eliminado.
      */
     public void restaurar() {
-        this.eliminado = false;
-        this.activo = true;
+        setEliminado(false);
+        setActivo(true);
     }
 
     /**
@@ -317,6 +356,33 @@ public class Usuario {
         return credencialAcceso != null && credencialAcceso.isRequiereReset();
     }
 
+    // ========================================================================
+    // Métodos de seguimiento de cambios
+    // ========================================================================
+
+    /**
+     * Devuelve una copia de los campos modificados desde la última carga o
+     * guardado. El orden de iteración es siempre el del enum Campo.
+     */
+    public Set<Campo> getCamposModificados() {
+        return EnumSet.copyOf(camposModificados);
+    }
+
+    /**
+     * @return true si hay algún campo pendiente de guardar
+     */
+    public boolean tieneCambios() {
+        return !camposModificados.isEmpty();
+    }
+
+    /**
+     * Marca el objeto como sincronizado con la base de datos.
+     * Lo llama el DAO después de leer, insertar o actualizar la fila.
+     */
+    public void limpiarCambios() {
+        camposModificados.clear();
+    }
+
     // ========================================================================
     // Métodos de Object: equals, hashCode, toString
     // ========================================================================
@@ -0,0 +1,18 @@
+package ar.edu.utn.tup.entities;
+
+/**
+ * Vista reducida de un usuario para pantallas de listado.
+ *
+ * Trae solo las columnas que se muestran en una lista (id, username, email y
+ * estado), sin nombre, fechas ni credencial. Al leer muchas filas se
+ * transfieren y mapean menos columnas que con la entidad Usuario completa.
+ *
+ * Es de solo lectura: para modificar un usuario hay que buscar la entidad.
+ *
+ * @param id       Identificador del usuario
+ * @param username Nombre de usuario
+ * @param email    Correo electrónico
+ * @param activo   Si la cuenta está activa
+ */
+public record UsuarioResumen(Long id, String username, String email, boolean activo) {
+}
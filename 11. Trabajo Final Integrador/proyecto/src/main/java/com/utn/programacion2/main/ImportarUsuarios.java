@@ -0,0 +1,60 @@
+package ar.edu.utn.tup.main;
+
+import ar.edu.utn.tup.config.Configuracion;
+import ar.edu.utn.tup.config.DatabaseConfig;
+import ar.edu.utn.tup.service.ImportadorUsuarios;
+import ar.edu.utn.tup.service.UsuarioService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * Importación masiva de usuarios desde un archivo CSV o JSON Lines (ver
+ * ImportadorUsuarios):
+ *
+ *    java -cp "build/install/sistema-usuarios/lib/*" ar.edu.utn.tup.main.ImportarUsuarios usuarios.csv
+ *
+ * Si se corta, volver a ejecutar el mismo comando sigue desde el checkpoint.
+ * Termina con código 1 si la importación no se completó.
+ */
+public class ImportarUsuarios {
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Uso: ImportarUsuarios <archivo.csv | archivo.jsonl>");
+            System.exit(2);
+        }
+        Path archivo = Path.of(args[0]);
+        if (!Files.isRegularFile(archivo)) {
+            System.err.println("✗ No existe el archivo: " + archivo);
+            System.exit(2);
+        }
+
+        if (!DatabaseConfig.getInstance().testConnection()) {
+            System.err.println("✗ No se pudo conectar a la base de datos.");
+            System.exit(1);
+        }
+
+        boolean completa = false;
+        try {
+            ImportadorUsuarios importador =
+                    ImportadorUsuarios.desdeConfiguracion(new UsuarioService(), Configuracion.cargar());
+            importador.importar(archivo);
+            completa = true;
+        } catch (IllegalArgumentException e) {
+            System.err.println("\n✗ " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("\n✗ Error al leer o escribir archivos: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("\n✗ Error de base de datos: " + e.getMessage());
+            System.err.println("  Lo confirmado quedó en el checkpoint: volver a ejecutar para seguir.");
+        } finally {
+            DatabaseConfig.getInstance().cerrar();
+        }
+        if (!completa) {
+            System.exit(1);
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package ar.edu.utn.tup.main;
 
+import ar.edu.utn.tup.config.Configuracion;
 import ar.edu.utn.tup.config.DatabaseConfig;
 import ar.edu.utn.tup.entities.CredencialAcceso;
 import ar.edu.utn.tup.entities.Usuario;
+import ar.edu.utn.tup.entities.UsuarioResumen;
+import ar.edu.utn.tup.metricas.Metricas;
 import ar.edu.utn.tup.service.UsuarioService;
 
 import java.sql.SQLException;
-import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
 /**
  * Clase principal con menú de consola para gestión de usuarios.
@@ -16,6 +19,7 @@ public class Main {
 
     private static final Scanner scanner = new Scanner(System.in);
     private static final UsuarioService usuarioService = new UsuarioService();
+    private static final long CAPACIDAD_FILTRO_POR_DEFECTO = 1_000_000;
 
     public static void main(String[] args) {
         System.out.println("═══════════════════════════════════════════════════");
@@ -31,13 +35,31 @@ public class Main {
 
         System.out.println("\n✓ Conexión a base de datos exitosa\n");
 
+        activarFiltroDisponibilidad();
+
         // Mostrar menú principal
         mostrarMenuPrincipal();
 
         scanner.close();
+        DatabaseConfig.getInstance().cerrar();
         System.out.println("\n¡Hasta luego!");
     }
 
+    // Con el filtro, chequear si un username o email está libre casi nunca va a la BD
+    private static void activarFiltroDisponibilidad() {
+        Configuracion config = Configuracion.cargar();
+        long capacidad = config.getLong("disponibilidad.capacidad", CAPACIDAD_FILTRO_POR_DEFECTO);
+        if (capacidad <= 0) {
+            return;
+        }
+        try {
+            usuarioService.activarFiltroDisponibilidad(capacidad,
+                    Double.parseDouble(config.get("disponibilidad.falsosPositivos", "0.01")));
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("✗ No se pudo cargar el filtro de disponibilidad: " + e.getMessage());
+        }
+    }
+
     private static void mostrarMenuPrincipal() {
         boolean continuar = true;
 
@@ -52,7 +74,8 @@ public class Main {
             System.out.println("5. Actualizar Usuario");
             System.out.println("6. Activar/Desactivar Usuario");
             System.out.println("7. Eliminar Usuario (Baja Lógica)");
-            System.out.println("8. Salir");
+            System.out.println("8. Ver Métricas de la Base de Datos");
+            System.out.println("9. Salir");
             System.out.println("═══════════════════════════════════════════════════");
             System.out.print("Seleccione una opción: ");
 
@@ -67,7 +90,8 @@ public class Main {
                     case 5 -> actualizarUsuario();
                     case 6 -> cambiarEstadoUsuario();
                     case 7 -> eliminarUsuario();
-                    case 8 -> {
+                    case 8 -> mostrarMetricas();
+                    case 9 -> {
                         continuar = false;
                         System.out.println("\nCerrando sistema...");
                     }
@@ -175,28 +199,31 @@ public class Main {
     private static void listarUsuarios() {
         System.out.println("\n═══ LISTA DE USUARIOS ═══\n");
 
-        try {
-            List<Usuario> usuarios = usuarioService.listarTodosLosUsuarios();
+        // Se recorre en streaming y solo con las columnas que se muestran;
+        // el detalle completo está en "Buscar usuario"
+        try (Stream<UsuarioResumen> usuarios = usuarioService.streamResumenesDeUsuarios()) {
+            long total = 0;
 
-            if (usuarios.isEmpty()) {
+            for (UsuarioResumen usuario : (Iterable<UsuarioResumen>) usuarios::iterator) {
+                System.out.println("─────────────────────────────────────");
+                System.out.println("ID: " + usuario.id());
+                System.out.println("Username: " + usuario.username());
+                System.out.println("Email: " + usuario.email());
+                System.out.println("Activo: " + (usuario.activo() ? "Sí" : "No"));
+                total++;
+            }
+
+            if (total == 0) {
                 System.out.println("No hay usuarios registrados.");
             } else {
-                System.out.println("Total de usuarios: " + usuarios.size() + "\n");
-
-                for (Usuario usuario : usuarios) {
-                    System.out.println("─────────────────────────────────────");
-                    System.out.println("ID: " + usuario.getId());
-                    System.out.println("Username: " + usuario.getUsername());
-                    System.out.println("Email: " + usuario.getEmail());
-                    System.out.println("Nombre: " + usuario.getNombreCompleto());
-                    System.out.println("Activo: " + (usuario.isActivo() ? "Sí" : "No"));
-                    System.out.println("Eliminado: " + (usuario.isEliminado() ? "Sí" : "No"));
-                }
                 System.out.println("─────────────────────────────────────");
+                System.out.println("Total de usuarios: " + total);
             }
 
         } catch (SQLException e) {
             System.err.println("\n✗ Error de base de datos: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("\n✗ Error al leer usuarios: " + e.getMessage());
         }
     }
 
@@ -333,6 +360,23 @@ public class Main {
         }
     }
 
+    // ========================================================================
+    // OPCIÓN 8: MÉTRICAS DE LA BASE DE DATOS
+    // ========================================================================
+
+    private static void mostrarMetricas() {
+        System.out.println("\n═══ MÉTRICAS DE LA BASE DE DATOS ═══\n");
+        System.out.println(Metricas.volcar());
+        System.out.println(DatabaseConfig.getInstance().getEstadisticasPool());
+        System.out.println(usuarioService.getEstadisticasCache());
+        if (usuarioService.getEstadisticasFiltroDisponibilidad() != null) {
+            System.out.println(usuarioService.getEstadisticasFiltroDisponibilidad());
+        }
+        if (DatabaseConfig.getInstance().isRegistroConsultasLentasHabilitado()) {
+            System.out.println(DatabaseConfig.getInstance().getEstadisticasConsultasLentas());
+        }
+    }
+
     // ========================================================================
     // MÉTODO AUXILIAR: MOSTRAR USUARIO
     // ========================================================================
@@ -0,0 +1,113 @@
+package ar.edu.utn.tup.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en nanosegundos, seguro para varios hilos.
+ *
+ * Sigue la idea de HdrHistogram: cada potencia de 2 se divide en 16
+ * sub-rangos iguales, así que cualquier valor (200 ns o 2 s) se reporta con
+ * un error relativo menor al 6,25% usando un arreglo fijo de contadores.
+ * Registrar no asigna memoria ni toma locks: un cálculo de bits y un
+ * incremento atómico.
+ *
+ * Los percentiles se calculan recorriendo los contadores en el momento en
+ * que se piden; si hay registros concurrentes el resultado es aproximado,
+ * lo que alcanza para monitoreo.
+ */
+public final class HistogramaLatencias {
+
+    private static final int BITS_SUB_RANGO = 4;
+    private static final int SUB_RANGOS = 1 << BITS_SUB_RANGO;
+    // Exponentes 4..62 (los valores son positivos) más los 16 valores chicos
+    private static final int CUBETAS = (64 - BITS_SUB_RANGO) * SUB_RANGOS;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumaNanos = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        cuentas.incrementAndGet(indice(valor));
+        total.increment();
+        sumaNanos.add(valor);
+        if (valor > maximo.get()) {
+            maximo.accumulateAndGet(valor, Math::max);
+        }
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    public double getPromedio() {
+        long cantidad = total.sum();
+        return cantidad == 0 ? 0 : sumaNanos.sum() / (double) cantidad;
+    }
+
+    /**
+     * Valor por debajo del cual cae la fracción pedida de las muestras.
+     *
+     * @param fraccion entre 0 y 1 (0.99 = percentil 99)
+     */
+    public long percentil(double fraccion) {
+        long[] foto = new long[CUBETAS];
+        long cantidad = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            foto[i] = cuentas.get(i);
+            cantidad += foto[i];
+        }
+        if (cantidad == 0) {
+            return 0;
+        }
+
+        long objetivo = Math.max(1, (long) Math.ceil(fraccion * cantidad));
+        long acumulado = 0;
+        long max = maximo.get();
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += foto[i];
+            if (acumulado >= objetivo) {
+                return Math.min(valorMedio(i), max);
+            }
+        }
+        return max;
+    }
+
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cuentas.set(i, 0);
+        }
+        total.reset();
+        sumaNanos.reset();
+        maximo.set(0);
+    }
+
+    // Los valores chicos tienen cubeta propia; desde 16 se agrupan por
+    // potencia de 2 (exponente) y por los 4 bits siguientes al más alto
+    private static int indice(long valor) {
+        if (valor < SUB_RANGOS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int subRango = (int) (valor >>> (exponente - BITS_SUB_RANGO)) & (SUB_RANGOS - 1);
+        return (exponente - BITS_SUB_RANGO + 1) * SUB_RANGOS + subRango;
+    }
+
+    private static long valorMedio(int indice) {
+        if (indice < SUB_RANGOS) {
+            return indice;
+        }
+        int exponente = indice / SUB_RANGOS + BITS_SUB_RANGO - 1;
+        int subRango = indice % SUB_RANGOS;
+        long desde = (long) (SUB_RANGOS + subRango) << (exponente - BITS_SUB_RANGO);
+        long ancho = 1L << (exponente - BITS_SUB_RANGO);
+        return desde + ancho / 2;
+    }
+}
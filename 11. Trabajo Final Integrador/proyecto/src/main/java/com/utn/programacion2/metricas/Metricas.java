@@ -0,0 +1,286 @@
+package ar.edu.utn.tup.metricas;
+
+import ar.edu.utn.tup.config.Configuracion;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Métricas por operación de la capa de datos: llamadas, errores, filas y
+ * latencia (ver HistogramaLatencias).
+ *
+ * Cada DAO declara sus operaciones como constantes y envuelve el cuerpo del
+ * método:
+ *
+ *    private static final Metricas.Operacion M_BUSCAR_POR_ID = Metricas.operacion("UsuarioDAO.buscarPorId");
+ *
+ *    public Usuario buscarPorId(Long id) throws SQLException {
+ *        return M_BUSCAR_POR_ID.medir(() -> { ... });
+ *    }
+ *
+ * Las métricas se exponen por JMX (una OperacionMXBean por operación) y como
+ * texto con volcar().
+ *
+ * Se desactivan con metricas.habilitadas=false (ver Configuracion). El valor
+ * se lee una vez al cargar la clase y queda en una constante, así que con
+ * las métricas apagadas medir() se reduce a llamar a la consulta: el JIT
+ * elimina la rama de medición.
+ */
+public final class Metricas {
+
+    /**
+     * Cuerpo de una operación de la capa de datos.
+     */
+    @FunctionalInterface
+    public interface Consulta<T> {
+        T ejecutar() throws SQLException;
+    }
+
+    /**
+     * Foto de una operación en un momento dado. Latencias en milisegundos.
+     */
+    public record Foto(String nombre, long llamadas, long errores, long filas, double promedioMs,
+                       double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maximaMs) {
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%-45s llamadas=%d, errores=%d, filas=%d, prom=%.3fms, p50=%.3fms, p90=%.3fms, " +
+                            "p99=%.3fms, p99.9=%.3fms, max=%.3fms",
+                    nombre, llamadas, errores, filas, promedioMs, p50Ms, p90Ms, p99Ms, p999Ms, maximaMs);
+        }
+    }
+
+    private static final String DOMINIO_JMX = "ar.edu.utn.tup";
+
+    private static final boolean HABILITADAS = Configuracion.cargar().getBoolean("metricas.habilitadas", true);
+
+    // Ordenadas por nombre para que el volcado agrupe por DAO
+    private static final Map<String, Operacion> OPERACIONES = new ConcurrentSkipListMap<>();
+
+    private Metricas() {
+    }
+
+    /**
+     * Devuelve la operación con ese nombre, creándola (y registrándola en
+     * JMX) la primera vez.
+     */
+    public static Operacion operacion(String nombre) {
+        return OPERACIONES.computeIfAbsent(nombre, n -> {
+            Operacion operacion = new Operacion(n);
+            if (HABILITADAS) {
+                registrarEnJmx(operacion);
+            }
+            return operacion;
+        });
+    }
+
+    public static boolean isHabilitadas() {
+        return HABILITADAS;
+    }
+
+    /**
+     * Fotos de las operaciones que tuvieron al menos una llamada.
+     */
+    public static List<Foto> fotos() {
+        List<Foto> fotos = new ArrayList<>();
+        for (Operacion operacion : OPERACIONES.values()) {
+            if (operacion.getLlamadas() > 0) {
+                fotos.add(operacion.foto());
+            }
+        }
+        return fotos;
+    }
+
+    /**
+     * Texto con una línea por operación, para mostrar por consola.
+     */
+    public static String volcar() {
+        if (!HABILITADAS) {
+            return "Métricas deshabilitadas (metricas.habilitadas=false)";
+        }
+        List<Foto> fotos = fotos();
+        if (fotos.isEmpty()) {
+            return "Sin operaciones registradas todavía";
+        }
+        StringBuilder texto = new StringBuilder();
+        for (Foto foto : fotos) {
+            texto.append(foto).append(System.lineSeparator());
+        }
+        return texto.toString();
+    }
+
+    public static void reiniciar() {
+        OPERACIONES.values().forEach(Operacion::reiniciar);
+    }
+
+    private static void registrarEnJmx(Operacion operacion) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName(DOMINIO_JMX + ":type=Metricas,name="
+                    + ObjectName.quote(operacion.getNombre()));
+            if (!servidor.isRegistered(nombre)) {
+                servidor.registerMBean(operacion, nombre);
+            }
+        } catch (JMException e) {
+            // Sin JMX las métricas siguen disponibles por volcar()
+            System.err.println("✗ No se pudo registrar " + operacion.getNombre() + " en JMX: " + e.getMessage());
+        }
+    }
+
+    // Por defecto: colecciones por tamaño, boolean como 0/1, objeto como 1 fila
+    private static long contarFilas(Object resultado) {
+        if (resultado == null) {
+            return 0;
+        }
+        if (resultado instanceof Collection<?> coleccion) {
+            return coleccion.size();
+        }
+        if (resultado instanceof Boolean afectada) {
+            return afectada ? 1 : 0;
+        }
+        return 1;
+    }
+
+    // ========================================================================
+    // Operación
+    // ========================================================================
+
+    /**
+     * Contadores e histograma de una operación. Se obtiene con operacion().
+     */
+    public static final class Operacion implements OperacionMXBean {
+
+        private final String nombre;
+        private final LongAdder llamadas = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder filas = new LongAdder();
+        private final HistogramaLatencias latencias = new HistogramaLatencias();
+
+        private Operacion(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /**
+         * Ejecuta la consulta midiendo su latencia. Las filas se cuentan a
+         * partir del resultado (ver contarFilas).
+         */
+        public <T> T medir(Consulta<T> consulta) throws SQLException {
+            return medir(consulta, Metricas::contarFilas);
+        }
+
+        /**
+         * Como medir(consulta), con una forma propia de contar las filas
+         * (por ejemplo, cuando el resultado es un contador y no una fila).
+         */
+        public <T> T medir(Consulta<T> consulta, ToLongFunction<? super T> contador) throws SQLException {
+            if (!HABILITADAS) {
+                return consulta.ejecutar();
+            }
+
+            long inicio = System.nanoTime();
+            try {
+                T resultado = consulta.ejecutar();
+                registrar(System.nanoTime() - inicio, contador.applyAsLong(resultado), false);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                registrar(System.nanoTime() - inicio, 0, true);
+                throw e;
+            }
+        }
+
+        /**
+         * Suma filas leídas después de que la operación terminó (streams).
+         */
+        public void sumarFilas(long cantidad) {
+            if (HABILITADAS) {
+                filas.add(cantidad);
+            }
+        }
+
+        private void registrar(long nanos, long filasOperacion, boolean error) {
+            llamadas.increment();
+            if (error) {
+                errores.increment();
+            }
+            filas.add(filasOperacion);
+            latencias.registrar(nanos);
+        }
+
+        public Foto foto() {
+            return new Foto(nombre, llamadas.sum(), errores.sum(), filas.sum(), getLatenciaPromedioMs(),
+                    getLatenciaP50Ms(), getLatenciaP90Ms(), getLatenciaP99Ms(), getLatenciaP999Ms(),
+                    getLatenciaMaximaMs());
+        }
+
+        // ---- OperacionMXBean ----
+
+        @Override
+        public String getNombre() {
+            return nombre;
+        }
+
+        @Override
+        public long getLlamadas() {
+            return llamadas.sum();
+        }
+
+        @Override
+        public long getErrores() {
+            return errores.sum();
+        }
+
+        @Override
+        public long getFilas() {
+            return filas.sum();
+        }
+
+        @Override
+        public double getLatenciaPromedioMs() {
+            return latencias.getPromedio() / 1_000_000;
+        }
+
+        @Override
+        public double getLatenciaP50Ms() {
+            return latencias.percentil(0.50) / 1_000_000.0;
+        }
+
+        @Override
+        public double getLatenciaP90Ms() {
+            return latencias.percentil(0.90) / 1_000_000.0;
+        }
+
+        @Override
+        public double getLatenciaP99Ms() {
+            return latencias.percentil(0.99) / 1_000_000.0;
+        }
+
+        @Override
+        public double getLatenciaP999Ms() {
+            return latencias.percentil(0.999) / 1_000_000.0;
+        }
+
+        @Override
+        public double getLatenciaMaximaMs() {
+            return latencias.getMaximo() / 1_000_000.0;
+        }
+
+        @Override
+        public void reiniciar() {
+            llamadas.reset();
+            errores.reset();
+            filas.reset();
+            latencias.reiniciar();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ar.edu.utn.tup.metricas;
+
+/**
+ * Vista JMX de una operación medida (ver Metricas).
+ *
+ * Cada operación se registra como
+ * ar.edu.utn.tup:type=Metricas,name=&lt;Clase.metodo&gt; y se puede ver con
+ * jconsole o VisualVM.
+ */
+public interface OperacionMXBean {
+
+    String getNombre();
+
+    long getLlamadas();
+
+    long getErrores();
+
+    long getFilas();
+
+    double getLatenciaPromedioMs();
+
+    double getLatenciaP50Ms();
+
+    double getLatenciaP90Ms();
+
+    double getLatenciaP99Ms();
+
+    double getLatenciaP999Ms();
+
+    double getLatenciaMaximaMs();
+
+    void reiniciar();
+}
@@ -0,0 +1,227 @@
+package ar.edu.utn.tup.security;
+
+import ar.edu.utn.tup.config.Configuracion;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Pool de hilos dedicado a hashear y verificar contraseñas.
+ *
+ * PBKDF2 es caro a propósito: si cada hilo que atiende pedidos hashea por su
+ * cuenta, una ola de logins ocupa todos los núcleos y deja sin CPU al resto.
+ * Acá el trabajo de hashing se limita a una cantidad fija de hilos y a una
+ * cola acotada. Cuando la cola está llena la tarea se rechaza enseguida
+ * (RejectedExecutionException) en lugar de acumular espera sin límite.
+ *
+ * Los hilos que hacen I/O contra la BD nunca ejecutan el KDF: solo esperan
+ * (o encadenan) el CompletableFuture.
+ */
+public class EjecutorHashing {
+
+    /**
+     * Foto de las métricas del ejecutor.
+     */
+    public record Estadisticas(int hilos, int enCola, int capacidadCola, long completadas, long rechazadas,
+                               double esperaEnColaPromedioMs, double latenciaPromedioMs,
+                               double latenciaMaximaMs) {
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Hashing{hilos=%d, enCola=%d/%d, completadas=%d, rechazadas=%d, " +
+                            "esperaCola=%.2fms, latencia=%.2fms, latenciaMax=%.2fms}",
+                    hilos, enCola, capacidadCola, completadas, rechazadas,
+                    esperaEnColaPromedioMs, latenciaPromedioMs, latenciaMaximaMs);
+        }
+    }
+
+    public static final int CAPACIDAD_COLA_POR_DEFECTO = 1_000;
+
+    // La creación lee la configuración (I/O): ReentrantLock y no synchronized,
+    // como en DatabaseConfig.getInstance, para no fijar hilos virtuales
+    private static volatile EjecutorHashing instancia;
+    private static final ReentrantLock LOCK_INSTANCIA = new ReentrantLock();
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor executor;
+    private final int capacidadCola;
+
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder esperaEnColaNanos = new LongAdder();
+    private final LongAdder latenciaNanos = new LongAdder();
+    private final AtomicLong latenciaMaximaNanos = new AtomicLong();
+
+    public EjecutorHashing(PasswordHasher hasher, int hilos, int capacidadCola) {
+        if (hilos <= 0 || capacidadCola <= 0) {
+            throw new IllegalArgumentException("Hilos y capacidad de cola deben ser positivos");
+        }
+        this.hasher = hasher;
+        this.capacidadCola = capacidadCola;
+
+        AtomicInteger contador = new AtomicInteger();
+        ThreadFactory fabrica = r -> {
+            Thread t = new Thread(r, "hashing-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), fabrica, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Instancia compartida, sobre PasswordHasher.getInstancia(). Hilos y cola
+     * se leen de hashing.hilos (por defecto, uno por núcleo) y
+     * hashing.capacidadCola (CAPACIDAD_COLA_POR_DEFECTO).
+     */
+    public static EjecutorHashing getInstancia() {
+        EjecutorHashing actual = instancia;
+        if (actual == null) {
+            LOCK_INSTANCIA.lock();
+            try {
+                actual = instancia;
+                if (actual == null) {
+                    Configuracion config = Configuracion.cargar();
+                    actual = new EjecutorHashing(PasswordHasher.getInstancia(),
+                            config.getInt("hashing.hilos", Runtime.getRuntime().availableProcessors()),
+                            config.getInt("hashing.capacidadCola", CAPACIDAD_COLA_POR_DEFECTO));
+                    instancia = actual;
+                }
+            } finally {
+                LOCK_INSTANCIA.unlock();
+            }
+        }
+        return actual;
+    }
+
+    // ========================================================================
+    // API asíncrona
+    // ========================================================================
+
+    public CompletableFuture<PasswordHasher.HashYSalt> hashearAsync(String passwordPlano) {
+        return enviar(() -> hasher.hashear(passwordPlano));
+    }
+
+    public CompletableFuture<Boolean> verificarAsync(String passwordPlano, String hashGuardado, String salt) {
+        return enviar(() -> hasher.verificar(passwordPlano, hashGuardado, salt));
+    }
+
+    // ========================================================================
+    // API sincrónica (el trabajo igual corre en el pool; el llamador espera)
+    // ========================================================================
+
+    /**
+     * @throws RejectedExecutionException si el pool está saturado
+     */
+    public PasswordHasher.HashYSalt hashear(String passwordPlano) {
+        return esperar(hashearAsync(passwordPlano));
+    }
+
+    /**
+     * @throws RejectedExecutionException si el pool está saturado
+     */
+    public boolean verificar(String passwordPlano, String hashGuardado, String salt) {
+        return esperar(verificarAsync(passwordPlano, hashGuardado, salt));
+    }
+
+    /**
+     * Si el hash guardado es heredado o tiene menos iteraciones que las de
+     * este ejecutor (ver PasswordHasher.necesitaRehash). No hashea nada.
+     */
+    public boolean necesitaRehash(String hashGuardado) {
+        return hasher.necesitaRehash(hashGuardado);
+    }
+
+    private <T> CompletableFuture<T> enviar(Supplier<T> tarea) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        long encolada = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                // Si el llamador canceló mientras esperaba en cola, no gastamos CPU
+                if (futuro.isDone()) {
+                    return;
+                }
+                long inicio = System.nanoTime();
+                try {
+                    T resultado = tarea.get();
+                    registrar(inicio - encolada, System.nanoTime() - encolada);
+                    futuro.complete(resultado);
+                } catch (Throwable t) {
+                    registrar(inicio - encolada, System.nanoTime() - encolada);
+                    futuro.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            futuro.completeExceptionally(
+                    new RejectedExecutionException("Pool de hashing saturado (" + capacidadCola + " en cola)", e));
+        }
+        return futuro;
+    }
+
+    private static <T> T esperar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    // ========================================================================
+    // Métricas y cierre
+    // ========================================================================
+
+    private void registrar(long esperaNanos, long totalNanos) {
+        completadas.increment();
+        esperaEnColaNanos.add(esperaNanos);
+        latenciaNanos.add(totalNanos);
+        latenciaMaximaNanos.accumulateAndGet(totalNanos, Math::max);
+    }
+
+    public Estadisticas getEstadisticas() {
+        long total = completadas.sum();
+        return new Estadisticas(
+                executor.getMaximumPoolSize(),
+                executor.getQueue().size(),
+                capacidadCola,
+                total,
+                rechazadas.sum(),
+                total == 0 ? 0 : esperaEnColaNanos.sum() / (double) total / 1_000_000,
+                total == 0 ? 0 : latenciaNanos.sum() / (double) total / 1_000_000,
+                latenciaMaximaNanos.get() / 1_000_000.0);
+    }
+
+    public int getProfundidadCola() {
+        return executor.getQueue().size();
+    }
+
+    public int getCapacidadCola() {
+        return capacidadCola;
+    }
+
+    /**
+     * Lugares libres en la cola en este momento. Quien envía muchas tareas
+     * juntas lo usa para no pasarse y provocar rechazos.
+     */
+    public int getCapacidadLibre() {
+        return executor.getQueue().remainingCapacity();
+    }
+
+    public void cerrar() {
+        executor.shutdown();
+    }
+}
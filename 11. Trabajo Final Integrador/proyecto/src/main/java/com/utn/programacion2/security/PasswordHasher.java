@@ -0,0 +1,222 @@
+package ar.edu.utn.tup.security;
+
+import ar.edu.utn.tup.config.Configuracion;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+
+/**
+ * Hash y verificación de contraseñas, compartido por todos los servicios.
+ *
+ * Formatos que se guardan en credencial_acceso.hash_password:
+ * - PBKDF2 (actual): "pbkdf2-sha256$<iteraciones>$<hash hex>"
+ *   Los parámetros viajan con el hash, así que se puede subir la cantidad de
+ *   iteraciones sin invalidar las contraseñas ya guardadas.
+ * - SHA-256 (heredado): 64 caracteres hex = SHA-256(password + salt)
+ *   Es el formato que generaba la versión anterior; se sigue pudiendo verificar.
+ *
+ * En ambos casos el salt (16 bytes aleatorios) se guarda en hex en la columna salt.
+ *
+ * Rendimiento: los MessageDigest, SecretKeyFactory y SecureRandom se reutilizan
+ * por hilo (no son baratos de crear) y la conversión a hex usa una tabla en
+ * lugar de String.format por byte.
+ */
+public final class PasswordHasher {
+
+    /**
+     * Hash listo para guardar y su salt, ambos en hex.
+     */
+    public record HashYSalt(String hash, String salt) {
+    }
+
+    public static final String PREFIJO_PBKDF2 = "pbkdf2-sha256";
+    public static final int ITERACIONES_POR_DEFECTO = 310_000;
+
+    private static final String SEPARADOR = "$";
+    private static final int BYTES_SALT = 16;
+    private static final int BITS_HASH = 256;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    private static final ThreadLocal<SecretKeyFactory> PBKDF2 = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA256 no disponible", e);
+        }
+    });
+
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    private final int iteraciones;
+
+    /**
+     * @param iteraciones Iteraciones de PBKDF2 para los hashes nuevos.
+     *                    Más iteraciones = más costo para un atacante (y para nosotros).
+     */
+    public PasswordHasher(int iteraciones) {
+        if (iteraciones <= 0) {
+            throw new IllegalArgumentException("La cantidad de iteraciones debe ser positiva");
+        }
+        this.iteraciones = iteraciones;
+    }
+
+    // Se crea la primera vez que se pide, con la configuración de ese momento
+    private static final class Compartida {
+        private static final PasswordHasher INSTANCIA = new PasswordHasher(
+                Configuracion.cargar().getInt("hashing.iteraciones", ITERACIONES_POR_DEFECTO));
+    }
+
+    /**
+     * Instancia compartida, con las iteraciones de hashing.iteraciones
+     * (ITERACIONES_POR_DEFECTO si no se configuró).
+     */
+    public static PasswordHasher getInstancia() {
+        return Compartida.INSTANCIA;
+    }
+
+    public int getIteraciones() {
+        return iteraciones;
+    }
+
+    // ========================================================================
+    // Hash y verificación
+    // ========================================================================
+
+    /**
+     * Genera un salt nuevo y hashea la contraseña con PBKDF2.
+     */
+    public HashYSalt hashear(String passwordPlano) {
+        byte[] saltBytes = new byte[BYTES_SALT];
+        RANDOM.get().nextBytes(saltBytes);
+
+        byte[] hash = pbkdf2(passwordPlano, saltBytes, iteraciones);
+        String hashGuardado = PREFIJO_PBKDF2 + SEPARADOR + iteraciones + SEPARADOR + aHex(hash);
+        return new HashYSalt(hashGuardado, aHex(saltBytes));
+    }
+
+    /**
+     * Verifica una contraseña contra el hash y salt guardados.
+     * Acepta tanto el formato PBKDF2 como el SHA-256 heredado.
+     * La comparación es de tiempo constante.
+     *
+     * @return true si la contraseña es correcta; false si no lo es o si el
+     *         hash guardado tiene un formato que no se reconoce
+     */
+    public boolean verificar(String passwordPlano, String hashGuardado, String salt) {
+        if (passwordPlano == null || hashGuardado == null || salt == null) {
+            return false;
+        }
+
+        byte[] esperado;
+        byte[] calculado;
+
+        if (hashGuardado.startsWith(PREFIJO_PBKDF2 + SEPARADOR)) {
+            String[] partes = hashGuardado.split("\\$");
+            if (partes.length != 3) {
+                return false;
+            }
+            int iteracionesGuardadas;
+            try {
+                iteracionesGuardadas = Integer.parseInt(partes[1]);
+                esperado = deHex(partes[2]);
+                calculado = pbkdf2(passwordPlano, deHex(salt), iteracionesGuardadas);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        } else if (hashGuardado.length() == 64) {
+            try {
+                esperado = deHex(hashGuardado);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            calculado = sha256Heredado(passwordPlano, salt);
+        } else {
+            return false;
+        }
+
+        return MessageDigest.isEqual(esperado, calculado);
+    }
+
+    /**
+     * Indica si un hash guardado debería regenerarse (formato heredado o
+     * menos iteraciones que las configuradas). El login lo usa para migrar
+     * contraseñas de forma transparente (ver
+     * CredencialAccesoService.rehashearSiHaceFalta).
+     */
+    public boolean necesitaRehash(String hashGuardado) {
+        if (hashGuardado == null || !hashGuardado.startsWith(PREFIJO_PBKDF2 + SEPARADOR)) {
+            return true;
+        }
+        String[] partes = hashGuardado.split("\\$");
+        try {
+            return partes.length != 3 || Integer.parseInt(partes[1]) < iteraciones;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    // ========================================================================
+    // Algoritmos
+    // ========================================================================
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iteraciones) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iteraciones, BITS_HASH);
+        try {
+            return PBKDF2.get().generateSecret(spec).getEncoded();
+        } catch (InvalidKeySpecException e) {
+            throw new IllegalStateException("Error al hashear contraseña", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // Formato de la versión anterior: SHA-256(password + saltHex)
+    private static byte[] sha256Heredado(String password, String saltHex) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return digest.digest((password + saltHex).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ========================================================================
+    // Hex
+    // ========================================================================
+
+    static String aHex(byte[] bytes) {
+        char[] resultado = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            resultado[i * 2] = HEX[v >>> 4];
+            resultado[i * 2 + 1] = HEX[v & 0x0F];
+        }
+        return new String(resultado);
+    }
+
+    static byte[] deHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Hex de longitud impar");
+        }
+        byte[] resultado = new byte[hex.length() / 2];
+        for (int i = 0; i < resultado.length; i++) {
+            int alto = Character.digit(hex.charAt(i * 2), 16);
+            int bajo = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (alto < 0 || bajo < 0) {
+                throw new IllegalArgumentException("Carácter no hexadecimal");
+            }
+            resultado[i] = (byte) ((alto << 4) | bajo);
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,210 @@
+package ar.edu.utn.tup.service;
+
+import ar.edu.utn.tup.dao.UsuarioDAO;
+import ar.edu.utn.tup.entities.CredencialAcceso;
+import ar.edu.utn.tup.entities.Usuario;
+
+import java.sql.SQLException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Login: verifica username y contraseña y actualiza los contadores de la
+ * credencial.
+ *
+ * Idas a la BD por intento:
+ * 1. Una consulta con JOIN por el índice único de username trae usuario y
+ *    credencial juntos. La conexión se devuelve antes de verificar el hash
+ *    (el KDF es lento a propósito y no debe retener una conexión del pool).
+ * 2. Un único UPDATE con el resultado:
+ *    - fallido: suma 1 a intentos_fallidos en la BD y devuelve el nuevo
+ *      valor, con el que se decide el bloqueo sin volver a leer la fila
+ *    - exitoso: pone intentos_fallidos en 0 y graba ultimo_login (o lo
+ *      difiere, si está activa la escritura diferida y no hay nada que
+ *      resetear, ver CredencialAccesoService.registrarLoginExitoso)
+ *
+ * Una cuenta bloqueada, inexistente o sin credencial no escribe nada.
+ *
+ * Si el login es exitoso y el hash guardado es heredado o tiene menos
+ * iteraciones que las configuradas, se regenera y se graba con un UPDATE
+ * más (una sola vez por usuario, ver CredencialAccesoService.rehashearSiHaceFalta).
+ *
+ * Con el limitador de intentos activo (ver activarLimitadorIntentos):
+ * - antes de ir a la BD se consume un intento del username y otro del
+ *   origen; si alguno se agotó se responde LIMITADO sin consultar nada
+ * - los fallidos se acumulan en memoria y se graban con un solo UPDATE
+ *   cuando, sumados a los de la BD, alcanzan el umbral de bloqueo. Hasta
+ *   entonces intentos_fallidos en la BD queda atrasado; si el proceso se
+ *   reinicia, esos fallidos (siempre menos que el umbral) se pierden
+ *
+ * La comparación del hash es de tiempo constante (ver PasswordHasher) y un
+ * username inexistente también paga una verificación completa, para que el
+ * tiempo de respuesta no revele qué usernames existen.
+ */
+public class AutenticacionService {
+
+    /**
+     * Resultado de un intento de login.
+     */
+    public enum Estado {
+        EXITOSO,
+        /** Username inexistente o contraseña incorrecta (no se distinguen) */
+        CREDENCIALES_INVALIDAS,
+        /** Demasiados intentos fallidos; no se verificó la contraseña */
+        BLOQUEADO,
+        /** Contraseña correcta, pero el usuario está desactivado */
+        INACTIVO,
+        /** Demasiados intentos recientes del username o del origen; no se consultó la BD */
+        LIMITADO
+    }
+
+    /**
+     * @param usuario          el usuario con su credencial, solo si el login fue exitoso
+     * @param intentosFallidos intentos fallidos consecutivos tras este intento
+     *                         (0 si el username no existe)
+     */
+    public record Resultado(Estado estado, Usuario usuario, int intentosFallidos) {
+
+        public boolean isExitoso() {
+            return estado == Estado.EXITOSO;
+        }
+    }
+
+    private final UsuarioDAO usuarioDAO;
+    private final CredencialAccesoService credencialService;
+
+    // Límite de intentos en memoria (null = desactivado, modo por defecto)
+    private volatile LimitadorIntentos limitador;
+
+    public AutenticacionService() {
+        this(new CredencialAccesoService());
+    }
+
+    public AutenticacionService(CredencialAccesoService credencialService) {
+        this.usuarioDAO = new UsuarioDAO();
+        this.credencialService = credencialService;
+    }
+
+    public Resultado autenticar(String username, String passwordPlano) throws SQLException {
+        return autenticar(username, passwordPlano, null);
+    }
+
+    /**
+     * @param origen identificador del cliente (por ejemplo, su IP) para el
+     *               límite por origen; null si no se conoce
+     */
+    public Resultado autenticar(String username, String passwordPlano, String origen) throws SQLException {
+        if (username == null || username.trim().isEmpty()) {
+            throw new IllegalArgumentException("Username vacío");
+        }
+        if (passwordPlano == null || passwordPlano.isEmpty()) {
+            throw new IllegalArgumentException("Contraseña obligatoria");
+        }
+
+        String nombre = username.trim();
+        LimitadorIntentos limitador = this.limitador;
+        if (limitador != null && !limitador.intentar(nombre, origen)) {
+            return new Resultado(Estado.LIMITADO, null, 0);
+        }
+
+        Usuario usuario = usuarioDAO.buscarConCredencialPorUsername(nombre);
+        CredencialAcceso credencial = usuario != null ? usuario.getCredencialAcceso() : null;
+        if (credencial == null || usuario.isEliminado() || credencial.isEliminado()) {
+            verificar(null, passwordPlano);
+            return new Resultado(Estado.CREDENCIALES_INVALIDAS, null, 0);
+        }
+
+        // Bloqueada: no se gasta CPU en el hash ni se sigue sumando intentos
+        if (credencialService.debeBloquearPorIntentos(credencial.getIntentosFallidos())) {
+            return new Resultado(Estado.BLOQUEADO, null, credencial.getIntentosFallidos());
+        }
+
+        if (!verificar(credencial, passwordPlano)) {
+            int intentos = registrarIntentoFallido(limitador, nombre, credencial);
+            if (intentos < 0) {
+                // La credencial se borró entre la lectura y el UPDATE
+                return new Resultado(Estado.CREDENCIALES_INVALIDAS, null, 0);
+            }
+            Estado estado = credencialService.debeBloquearPorIntentos(intentos)
+                    ? Estado.BLOQUEADO : Estado.CREDENCIALES_INVALIDAS;
+            return new Resultado(estado, null, intentos);
+        }
+
+        if (!usuario.isActivo()) {
+            return new Resultado(Estado.INACTIVO, null, credencial.getIntentosFallidos());
+        }
+
+        if (limitador != null) {
+            limitador.registrarExito(nombre, origen);
+        }
+        credencialService.registrarLoginExitoso(credencial);
+        credencialService.rehashearSiHaceFalta(credencial, passwordPlano);
+        return new Resultado(Estado.EXITOSO, usuario, 0);
+    }
+
+    // Sin credencial se verifica contra el hash de referencia (mismo tiempo).
+    // El pool de hashing saturado se informa como falla transitoria
+    private boolean verificar(CredencialAcceso credencial, String passwordPlano) throws SQLException {
+        try {
+            return credencial != null
+                    ? credencialService.verificarPassword(credencial, passwordPlano)
+                    : credencialService.verificarSinCredencial(passwordPlano);
+        } catch (RejectedExecutionException e) {
+            throw CredencialAccesoService.saturado(e);
+        }
+    }
+
+    // Sin limitador cada fallido es un UPDATE. Con limitador se acumulan en
+    // memoria y solo se escribe al cruzar el umbral de bloqueo
+    private int registrarIntentoFallido(LimitadorIntentos limitador, String username, CredencialAcceso credencial)
+            throws SQLException {
+        int pendientes = limitador != null ? limitador.registrarFallo(username) : -1;
+        if (pendientes < 0) {
+            return credencialService.registrarIntentoFallido(credencial.getId());
+        }
+
+        int intentos = credencial.getIntentosFallidos() + pendientes;
+        if (!credencialService.debeBloquearPorIntentos(intentos)) {
+            return intentos;
+        }
+        int aGrabar = limitador.tomarPendientes(username);
+        if (aGrabar == 0) {
+            // Otro hilo cruzó el umbral a la vez y ya los está grabando
+            return intentos;
+        }
+        try {
+            return credencialService.registrarIntentosFallidos(credencial.getId(), aGrabar);
+        } catch (SQLException | RuntimeException e) {
+            limitador.devolverPendientes(username, aGrabar);
+            throw e;
+        }
+    }
+
+    // ========================================================================
+    // Límite de intentos en memoria (opcional)
+    // ========================================================================
+
+    /**
+     * Activa el límite de intentos por username y por origen (ver
+     * LimitadorIntentos). Reemplaza al anterior: los fallidos que este
+     * tuviera pendientes se descartan.
+     */
+    public void activarLimitadorIntentos(LimitadorIntentos limitador) {
+        if (limitador == null) {
+            throw new IllegalArgumentException("Limitador no puede ser null");
+        }
+        this.limitador = limitador;
+    }
+
+    /**
+     * Vuelve a grabar cada intento fallido en el momento. Los fallidos
+     * pendientes del limitador se descartan (no alcanzaban el umbral).
+     */
+    public void desactivarLimitadorIntentos() {
+        limitador = null;
+    }
+
+    public LimitadorIntentos.Estadisticas getEstadisticasLimitadorIntentos() {
+        LimitadorIntentos actual = limitador;
+        return actual != null ? actual.getEstadisticas() : null;
+    }
+}
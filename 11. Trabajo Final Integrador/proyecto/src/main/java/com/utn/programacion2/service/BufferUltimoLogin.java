@@ -0,0 +1,207 @@
+package ar.edu.utn.tup.service;
+
+import ar.edu.utn.tup.dao.CredencialAccesoDAO;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura diferida (write-behind) de credencial_acceso.ultimo_login.
+ *
+ * En lugar de un UPDATE por cada login exitoso, el momento del login se anota
+ * en memoria, agrupado por credencial: si la misma credencial entra varias
+ * veces antes del próximo volcado solo se guarda el último (gana la última
+ * escritura). Cada intervaloMs todo lo pendiente se graba en un único batch.
+ *
+ * El buffer está acotado: si se llega a maxPendientes, el login que no entra
+ * se graba en el momento (sin diferir) y se adelanta un volcado.
+ *
+ * Al cerrar (o al apagarse la JVM) se vuelca lo pendiente.
+ */
+public final class BufferUltimoLogin {
+
+    /**
+     * Foto de las métricas del buffer.
+     */
+    public record Estadisticas(int pendientes, long volcados, long filasEscritas, long escriturasDirectas,
+                               long errores, double latenciaVolcadoPromedioMs,
+                               double latenciaVolcadoMaximaMs) {
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "BufferUltimoLogin{pendientes=%d, volcados=%d, filas=%d, directas=%d, errores=%d, " +
+                            "latencia=%.2fms, latenciaMax=%.2fms}",
+                    pendientes, volcados, filasEscritas, escriturasDirectas, errores,
+                    latenciaVolcadoPromedioMs, latenciaVolcadoMaximaMs);
+        }
+    }
+
+    private final CredencialAccesoDAO credencialDAO;
+    private final int maxPendientes;
+    private final ConcurrentHashMap<Long, LocalDateTime> pendientes = new ConcurrentHashMap<>();
+    private final ReentrantLock lockVolcado = new ReentrantLock();
+    private final ScheduledExecutorService programador;
+    private final AtomicBoolean cerrado = new AtomicBoolean(false);
+    private final Thread ganchoApagado;
+
+    private final LongAdder volcados = new LongAdder();
+    private final LongAdder filasEscritas = new LongAdder();
+    private final LongAdder escriturasDirectas = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private final LongAdder latenciaTotalNanos = new LongAdder();
+    private final AtomicLong latenciaMaximaNanos = new AtomicLong();
+
+    public BufferUltimoLogin(CredencialAccesoDAO credencialDAO, long intervaloMs, int maxPendientes) {
+        if (intervaloMs <= 0 || maxPendientes <= 0) {
+            throw new IllegalArgumentException("Intervalo y tamaño del buffer deben ser positivos");
+        }
+        this.credencialDAO = credencialDAO;
+        this.maxPendientes = maxPendientes;
+
+        this.programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "buffer-ultimo-login");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(this::volcarSilenciosamente, intervaloMs, intervaloMs,
+                TimeUnit.MILLISECONDS);
+
+        this.ganchoApagado = new Thread(this::cerrar, "buffer-ultimo-login-apagado");
+        Runtime.getRuntime().addShutdownHook(ganchoApagado);
+    }
+
+    /**
+     * Anota un login exitoso. Normalmente no toca la BD; solo lo hace si el
+     * buffer está lleno o ya fue cerrado.
+     */
+    public void registrar(Long credencialId, LocalDateTime momento) throws SQLException {
+        if (!cerrado.get()) {
+            // Si ya había un login pendiente para esta credencial se reemplaza
+            if (pendientes.size() < maxPendientes || pendientes.containsKey(credencialId)) {
+                pendientes.merge(credencialId, momento, (anterior, nuevo) -> nuevo.isAfter(anterior) ? nuevo : anterior);
+                return;
+            }
+            try {
+                programador.execute(this::volcarSilenciosamente);
+            } catch (RejectedExecutionException e) {
+                // Se cerró en paralelo: el volcado final se encarga
+            }
+        }
+
+        escriturasDirectas.increment();
+        credencialDAO.actualizarUltimoLoginEnLote(Map.of(credencialId, momento));
+    }
+
+    /**
+     * Descarta un valor pendiente (por ejemplo, porque se acaba de grabar
+     * ultimo_login de forma directa y el pendiente sería más viejo).
+     */
+    public void descartar(Long credencialId) {
+        pendientes.remove(credencialId);
+    }
+
+    /**
+     * Graba ya todo lo pendiente en un único batch.
+     *
+     * @return cantidad de filas actualizadas
+     */
+    public int volcar() throws SQLException {
+        lockVolcado.lock();
+        try {
+            if (pendientes.isEmpty()) {
+                return 0;
+            }
+
+            // Se retira cada entrada del mapa de forma atómica: un login que
+            // llegue durante el volcado queda pendiente para el siguiente
+            Map<Long, LocalDateTime> lote = new HashMap<>();
+            for (Long id : pendientes.keySet()) {
+                LocalDateTime momento = pendientes.remove(id);
+                if (momento != null) {
+                    lote.put(id, momento);
+                }
+            }
+
+            long inicio = System.nanoTime();
+            try {
+                int filas = credencialDAO.actualizarUltimoLoginEnLote(lote);
+                filasEscritas.add(filas);
+                return filas;
+            } catch (SQLException e) {
+                // Se devuelven al buffer sin pisar logins más nuevos
+                lote.forEach((id, momento) ->
+                        pendientes.merge(id, momento, (actual, viejo) -> actual.isAfter(viejo) ? actual : viejo));
+                throw e;
+            } finally {
+                long nanos = System.nanoTime() - inicio;
+                volcados.increment();
+                latenciaTotalNanos.add(nanos);
+                latenciaMaximaNanos.accumulateAndGet(nanos, Math::max);
+            }
+        } finally {
+            lockVolcado.unlock();
+        }
+    }
+
+    private void volcarSilenciosamente() {
+        try {
+            volcar();
+        } catch (SQLException | RuntimeException e) {
+            errores.increment();
+            System.err.println("✗ Error al volcar últimos logins: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Detiene el volcado periódico y graba lo pendiente. Se puede llamar más
+     * de una vez; también se ejecuta al apagarse la JVM.
+     */
+    public void cerrar() {
+        if (!cerrado.compareAndSet(false, true)) {
+            return;
+        }
+        programador.shutdown();
+        try {
+            programador.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        volcarSilenciosamente();
+
+        if (Thread.currentThread() != ganchoApagado) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(ganchoApagado);
+            } catch (IllegalStateException e) {
+                // La JVM ya se está apagando
+            }
+        }
+    }
+
+    public int getPendientes() {
+        return pendientes.size();
+    }
+
+    public Estadisticas getEstadisticas() {
+        long total = volcados.sum();
+        return new Estadisticas(
+                pendientes.size(),
+                total,
+                filasEscritas.sum(),
+                escriturasDirectas.sum(),
+                errores.sum(),
+                total == 0 ? 0 : latenciaTotalNanos.sum() / (double) total / 1_000_000,
+                latenciaMaximaNanos.get() / 1_000_000.0);
+    }
+}
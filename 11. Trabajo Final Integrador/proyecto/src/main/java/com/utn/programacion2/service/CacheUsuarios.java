@@ -0,0 +1,338 @@
+package ar.edu.utn.tup.service;
+
+import ar.edu.utn.tup.dao.UsuarioDAO;
+import ar.edu.utn.tup.entities.Usuario;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Caché acotada de usuarios en memoria, delante de UsuarioDAO.
+ *
+ * Cada usuario se guarda UNA vez (indexado por id) y se puede encontrar por
+ * tres claves: id, username y email. Los índices por username y email solo
+ * apuntan al id, así que al invalidar un usuario desaparecen las tres claves.
+ *
+ * Concurrencia: los usuarios se reparten por id en segmentos, cada uno con
+ * su lock y su LRU. Un acierto solo bloquea su segmento, así que lecturas de
+ * usuarios distintos no se esperan entre sí (con un único lock, cada acierto
+ * pasaba de a uno porque el LRU reordena la lista al leer). Los índices por
+ * username y email son ConcurrentHashMap, fuera de los segmentos.
+ *
+ * Desalojo:
+ * - LRU por segmento: al superar su parte de maxEntradas se descarta el
+ *   usado hace más tiempo en ese segmento (un LRU aproximado del total)
+ * - TTL: una entrada vencida se descarta al intentar leerla
+ *
+ * Se devuelven copias para que un llamador que modifique el objeto (por
+ * ejemplo antes de actualizarUsuario) no altere lo que está en caché. La
+ * credencial no se guarda: cambia con cada login sin pasar por acá.
+ *
+ * Lecturas concurrentes con una invalidación: quien lee de la BD toma antes
+ * inicioLectura() y se lo pasa a guardar(). Si el usuario se invalidó en el
+ * medio, lo leído puede ser anterior al cambio y se descarta.
+ */
+public class CacheUsuarios {
+
+    /**
+     * Foto de los contadores de la caché.
+     */
+    public record Estadisticas(long aciertos, long fallos, long desalojos, long expirados, long descartados,
+                               int tamanio) {
+
+        public double tasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0 : (double) aciertos / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Cache{aciertos=%d, fallos=%d, desalojos=%d, expirados=%d, descartados=%d, " +
+                            "tamaño=%d, tasa=%.1f%%}",
+                    aciertos, fallos, desalojos, expirados, descartados, tamanio, tasaAciertos() * 100);
+        }
+    }
+
+    // Potencia de 2; con menos entradas que esto se usan menos segmentos
+    private static final int MAX_SEGMENTOS = 16;
+
+    private static final class Entrada {
+        private final Usuario usuario;
+        private final long venceEn;
+
+        private Entrada(Usuario usuario, long venceEn) {
+            this.usuario = usuario;
+            this.venceEn = venceEn;
+        }
+    }
+
+    /**
+     * Una parte de la caché: los usuarios cuyo id cae en este segmento, con
+     * su LRU y su memoria de invalidaciones.
+     */
+    private static final class Segmento {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // accessOrder = true: el orden de iteración es del menos al más usado
+        private final LinkedHashMap<Long, Entrada> porId = new LinkedHashMap<>(16, 0.75f, true);
+
+        // De las últimas invalidaciones del segmento se recuerda la generación
+        // por id; de las más viejas, solo la mayor (generacionOlvidada): una
+        // lectura anterior a eso se descarta siempre
+        private final LinkedHashMap<Long, Long> invalidadoEn = new LinkedHashMap<>();
+        private long generacionOlvidada;
+    }
+
+    private final int maxPorSegmento;
+    private final long ttlNanos;
+    private final Segmento[] segmentos;
+
+    private final Map<String, Long> idPorUsername = new ConcurrentHashMap<>();
+    private final Map<String, Long> idPorEmail = new ConcurrentHashMap<>();
+
+    // Cada invalidación incrementa la generación (ver inicioLectura)
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder expirados = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+
+    public CacheUsuarios(int maxEntradas, long ttlMs) {
+        if (maxEntradas <= 0 || ttlMs <= 0) {
+            throw new IllegalArgumentException("Tamaño y TTL de la caché deben ser positivos");
+        }
+        int cantidad = Integer.highestOneBit(Math.min(MAX_SEGMENTOS, maxEntradas));
+        // Hacia abajo: entre todos los segmentos nunca pasan de maxEntradas
+        this.maxPorSegmento = maxEntradas / cantidad;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.segmentos = new Segmento[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            segmentos[i] = new Segmento();
+        }
+    }
+
+    private Segmento segmento(Long id) {
+        return segmentos[Long.hashCode(id) & (segmentos.length - 1)];
+    }
+
+    // ========================================================================
+    // Lecturas
+    // ========================================================================
+
+    public Usuario buscarPorId(Long id) {
+        return leer(id, null, null);
+    }
+
+    public Usuario buscarPorUsername(String username) {
+        String clave = normalizar(username);
+        return leer(idPorUsername.get(clave), clave, Usuario::getUsername);
+    }
+
+    public Usuario buscarPorEmail(String email) {
+        String clave = normalizar(email);
+        return leer(idPorEmail.get(clave), clave, Usuario::getEmail);
+    }
+
+    /**
+     * Lectura de varios ids.
+     *
+     * @return los que estaban en caché, por id (los demás no están)
+     */
+    public Map<Long, Usuario> buscarPorIds(Collection<Long> ids) {
+        Map<Long, Usuario> encontrados = new HashMap<>();
+        for (Long id : ids) {
+            Usuario usuario = leer(id, null, null);
+            if (usuario != null) {
+                encontrados.put(id, usuario);
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Como buscarPorIds, por username.
+     *
+     * @return los que estaban en caché, con el username tal como vino
+     */
+    public Map<String, Usuario> buscarPorUsernames(Collection<String> usernames) {
+        Map<String, Usuario> encontrados = new HashMap<>();
+        for (String username : usernames) {
+            Usuario usuario = buscarPorUsername(username);
+            if (usuario != null) {
+                encontrados.put(username, usuario);
+            }
+        }
+        return encontrados;
+    }
+
+    // Con clave, el usuario tiene que seguir teniéndola: los índices se
+    // actualizan fuera del lock del segmento y entre leer el id del índice y
+    // leer el usuario, este pudo cambiar de username o email
+    private Usuario leer(Long id, String clave, Function<Usuario, String> campo) {
+        if (id == null) {
+            fallos.increment();
+            return null;
+        }
+        Segmento segmento = segmento(id);
+        Entrada entrada;
+        segmento.lock.lock();
+        try {
+            entrada = segmento.porId.get(id);
+            if (entrada != null && System.nanoTime() - entrada.venceEn > 0) {
+                quitar(segmento, id);
+                expirados.increment();
+                entrada = null;
+            } else if (entrada != null && clave != null && !normalizar(campo.apply(entrada.usuario)).equals(clave)) {
+                entrada = null;
+            }
+        } finally {
+            segmento.lock.unlock();
+        }
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        aciertos.increment();
+        return copiar(entrada.usuario);
+    }
+
+    // ========================================================================
+    // Escrituras e invalidación
+    // ========================================================================
+
+    /**
+     * Marca el comienzo de una lectura de la BD; el valor se pasa a guardar().
+     */
+    public long inicioLectura() {
+        return generacion.get();
+    }
+
+    /**
+     * Guarda un usuario leído de la BD, salvo que se haya invalidado después
+     * de desde (ver inicioLectura).
+     */
+    public void guardar(Usuario usuario, long desde) {
+        if (usuario == null || usuario.getId() == null) {
+            return;
+        }
+        Usuario copia = copiar(usuario);
+        Segmento segmento = segmento(copia.getId());
+        segmento.lock.lock();
+        try {
+            Long invalidado = segmento.invalidadoEn.get(copia.getId());
+            if (desde < segmento.generacionOlvidada || (invalidado != null && invalidado > desde)) {
+                descartados.increment();
+                return;
+            }
+            // Si cambió el username o email, los índices viejos se descartan
+            quitar(segmento, copia.getId());
+            segmento.porId.put(copia.getId(), new Entrada(copia, System.nanoTime() + ttlNanos));
+            idPorUsername.put(normalizar(copia.getUsername()), copia.getId());
+            idPorEmail.put(normalizar(copia.getEmail()), copia.getId());
+
+            Iterator<Map.Entry<Long, Entrada>> it = segmento.porId.entrySet().iterator();
+            while (segmento.porId.size() > maxPorSegmento && it.hasNext()) {
+                Entrada masVieja = it.next().getValue();
+                it.remove();
+                quitarIndices(masVieja.usuario);
+                desalojos.increment();
+            }
+        } finally {
+            segmento.lock.unlock();
+        }
+    }
+
+    public void invalidar(Long id) {
+        if (id == null) {
+            return;
+        }
+        Segmento segmento = segmento(id);
+        segmento.lock.lock();
+        try {
+            quitar(segmento, id);
+            segmento.invalidadoEn.remove(id);
+            segmento.invalidadoEn.put(id, generacion.incrementAndGet());
+            if (segmento.invalidadoEn.size() > maxPorSegmento) {
+                Iterator<Long> masVieja = segmento.invalidadoEn.values().iterator();
+                segmento.generacionOlvidada = masVieja.next();
+                masVieja.remove();
+            }
+        } finally {
+            segmento.lock.unlock();
+        }
+    }
+
+    public void limpiar() {
+        // Toda lectura que empezó antes se descarta
+        long olvidada = generacion.incrementAndGet();
+        for (Segmento segmento : segmentos) {
+            segmento.lock.lock();
+            try {
+                segmento.porId.values().forEach(entrada -> quitarIndices(entrada.usuario));
+                segmento.porId.clear();
+                segmento.generacionOlvidada = olvidada;
+                segmento.invalidadoEn.clear();
+            } finally {
+                segmento.lock.unlock();
+            }
+        }
+    }
+
+    // Debe llamarse con el lock del segmento tomado
+    private void quitar(Segmento segmento, Long id) {
+        Entrada entrada = segmento.porId.remove(id);
+        if (entrada != null) {
+            quitarIndices(entrada.usuario);
+        }
+    }
+
+    // Solo si todavía apuntan a este usuario: el username pudo pasar a otro id
+    private void quitarIndices(Usuario usuario) {
+        idPorUsername.remove(normalizar(usuario.getUsername()), usuario.getId());
+        idPorEmail.remove(normalizar(usuario.getEmail()), usuario.getId());
+    }
+
+    // ========================================================================
+    // Utilidades
+    // ========================================================================
+
+    public Estadisticas getEstadisticas() {
+        int tamanio = 0;
+        for (Segmento segmento : segmentos) {
+            segmento.lock.lock();
+            try {
+                tamanio += segmento.porId.size();
+            } finally {
+                segmento.lock.unlock();
+            }
+        }
+        return new Estadisticas(aciertos.sum(), fallos.sum(), desalojos.sum(), expirados.sum(), descartados.sum(),
+                tamanio);
+    }
+
+    // Mismas claves que la BD (collation sin mayúsculas ni acentos)
+    private static String normalizar(String valor) {
+        return valor == null ? null : UsuarioDAO.normalizar(valor);
+    }
+
+    // Lo que está en caché refleja la BD, así que la copia arranca sin cambios.
+    // Sin credencial: compartirla dejaría que un llamador la modifique en caché
+    private static Usuario copiar(Usuario usuario) {
+        Usuario copia = new Usuario(usuario.getId(), usuario.isEliminado(), usuario.getUsername(),
+                usuario.getEmail(), usuario.getNombreCompleto(), usuario.isActivo(), usuario.getFechaRegistro(),
+                null);
+        copia.limpiarCambios();
+        return copia;
+    }
+}
@@ -2,16 +2,44 @@ package ar.edu.utn.tup.service;
 
 import ar.edu.utn.tup.dao.CredencialAccesoDAO;
 import ar.edu.utn.tup.entities.CredencialAcceso;
+import ar.edu.utn.tup.entities.EventoUsuario;
+import ar.edu.utn.tup.security.EjecutorHashing;
+import ar.edu.utn.tup.security.PasswordHasher;
 
 import java.sql.SQLException;
+import java.sql.SQLTransientException;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 public class CredencialAccesoService {
 
+    public static final int MAX_INTENTOS_FALLIDOS = 5;
+
     private final CredencialAccesoDAO credencialDAO;
+    private final EjecutorHashing ejecutorHashing;
+
+    // Hash de referencia para verificar cuando no hay credencial (ver
+    // verificarSinCredencial). Se calcula la primera vez que se necesita
+    private volatile PasswordHasher.HashYSalt hashDeReferencia;
+
+    // Escritura diferida de ultimo_login (null = desactivada, modo por defecto)
+    private volatile BufferUltimoLogin bufferUltimoLogin;
+
+    // Eventos de cambios con outbox (null = desactivados, modo por defecto)
+    private volatile PublicadorEventos eventos;
 
     public CredencialAccesoService() {
+        this(EjecutorHashing.getInstancia());
+    }
+
+    /**
+     * @param ejecutorHashing Pool acotado donde corre el KDF, separado de los
+     *                        hilos que hacen I/O contra la BD
+     */
+    public CredencialAccesoService(EjecutorHashing ejecutorHashing) {
         this.credencialDAO = new CredencialAccesoDAO();
+        this.ejecutorHashing = ejecutorHashing;
     }
 
     /**
@@ -48,7 +76,8 @@ public class CredencialAccesoService {
     }
 
     /**
-     * Cambia la contraseña de una credencial
+     * Cambia la contraseña de una credencial. Con eventos activos, anota
+     * PASSWORD_CAMBIADO en la misma transacción.
      */
     public boolean cambiarPassword(Long credencialId, String nuevoPassword) throws SQLException {
         CredencialAcceso credencial = buscarPorId(credencialId);
@@ -57,65 +86,240 @@ public class CredencialAccesoService {
         }
 
         // Hashear nueva contraseña
-        String[] hashYSalt = hashearPassword(nuevoPassword);
-        credencial.setHashPassword(hashYSalt[0]);
-        credencial.setSalt(hashYSalt[1]);
+        PasswordHasher.HashYSalt hashYSalt;
+        try {
+            hashYSalt = ejecutorHashing.hashear(nuevoPassword);
+        } catch (RejectedExecutionException e) {
+            throw saturado(e);
+        }
+        credencial.setHashPassword(hashYSalt.hash());
+        credencial.setSalt(hashYSalt.salt());
         credencial.setUltimoCambio(LocalDateTime.now());
         credencial.setRequiereReset(false);
 
+        PublicadorEventos publicador = eventos;
+        if (publicador != null) {
+            return publicador.escribir(EventoUsuario.Tipo.PASSWORD_CAMBIADO, credencial.getUsuarioId(),
+                    conn -> credencialDAO.actualizar(credencial, conn));
+        }
         return credencialDAO.actualizar(credencial);
     }
 
     /**
-     * Registra un intento de login fallido
+     * Verifica si una contraseña en texto plano corresponde a la credencial.
+     * Soporta tanto hashes PBKDF2 como los SHA-256 de la versión anterior.
      */
-    public void registrarIntentoFallido(Long credencialId) throws SQLException {
-        CredencialAcceso credencial = buscarPorId(credencialId);
-        if (credencial != null) {
-            credencial.registrarIntentoFallido();
-            credencialDAO.actualizar(credencial);
+    public boolean verificarPassword(CredencialAcceso credencial, String passwordPlano) {
+        if (credencial == null) {
+            throw new IllegalArgumentException("Credencial no puede ser null");
         }
+        return ejecutorHashing.verificar(passwordPlano, credencial.getHashPassword(), credencial.getSalt());
     }
 
     /**
-     * Registra un login exitoso
+     * Después de un login exitoso: si el hash guardado es del formato heredado
+     * o tiene menos iteraciones que las configuradas (hashing.iteraciones), lo
+     * regenera con la contraseña recién verificada. Pasa una vez por usuario.
+     * Con el pool de hashing saturado no hace nada y queda para el próximo
+     * login.
+     *
+     * @return true si se grabó el hash nuevo
      */
-    public void registrarLoginExitoso(Long credencialId) throws SQLException {
-        CredencialAcceso credencial = buscarPorId(credencialId);
-        if (credencial != null) {
-            credencial.registrarLoginExitoso();
-            credencialDAO.actualizar(credencial);
+    public boolean rehashearSiHaceFalta(CredencialAcceso credencial, String passwordPlano) throws SQLException {
+        String hashAnterior = credencial.getHashPassword();
+        if (!ejecutorHashing.necesitaRehash(hashAnterior)) {
+            return false;
+        }
+        PasswordHasher.HashYSalt nuevo;
+        try {
+            nuevo = ejecutorHashing.hashear(passwordPlano);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        if (!credencialDAO.reemplazarHash(credencial.getId(), hashAnterior, nuevo.hash(), nuevo.salt())) {
+            return false;
+        }
+        credencial.setHashPassword(nuevo.hash());
+        credencial.setSalt(nuevo.salt());
+        credencial.limpiarCambios();
+        return true;
+    }
+
+    /**
+     * Hace el mismo trabajo que verificarPassword contra un hash que no
+     * corresponde a nadie, y devuelve siempre false.
+     *
+     * Sirve para que un login con un username inexistente tarde lo mismo que
+     * uno con contraseña incorrecta: si respondiera antes, el tiempo de
+     * respuesta revelaría qué usernames existen.
+     */
+    public boolean verificarSinCredencial(String passwordPlano) {
+        PasswordHasher.HashYSalt referencia = hashDeReferencia;
+        if (referencia == null) {
+            // Dos hilos pueden calcularlo a la vez: cualquiera de los dos sirve
+            referencia = ejecutorHashing.hashear(Long.toHexString(System.nanoTime()));
+            hashDeReferencia = referencia;
         }
+        ejecutorHashing.verificar(passwordPlano != null ? passwordPlano : "", referencia.hash(), referencia.salt());
+        return false;
+    }
+
+    /**
+     * Traduce el rechazo del pool de hashing al error habitual de los
+     * servicios: una falla transitoria, que se puede reintentar más tarde.
+     */
+    static SQLTransientException saturado(RejectedExecutionException e) {
+        return new SQLTransientException("Sistema saturado, reintentar más tarde: " + e.getMessage(), e);
     }
 
     // ========================================================================
-    // Utilidad para hashear contraseñas
+    // Hashing asíncrono (pool acotado, ver EjecutorHashing)
     // ========================================================================
 
-    private String[] hashearPassword(String passwordPlano) {
-        try {
-            java.security.SecureRandom random = new java.security.SecureRandom();
-            byte[] saltBytes = new byte[16];
-            random.nextBytes(saltBytes);
-            String salt = bytesToHex(saltBytes);
+    /**
+     * Hashea una contraseña en el pool de hashing.
+     * Si el pool está saturado el futuro termina con RejectedExecutionException.
+     */
+    public CompletableFuture<PasswordHasher.HashYSalt> hashearPasswordAsync(String passwordPlano) {
+        return ejecutorHashing.hashearAsync(passwordPlano);
+    }
 
-            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
-            String passwordConSalt = passwordPlano + salt;
-            byte[] hashBytes = digest.digest(passwordConSalt.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            String hash = bytesToHex(hashBytes);
+    /**
+     * Verifica una contraseña en el pool de hashing.
+     * Si el pool está saturado el futuro termina con RejectedExecutionException.
+     */
+    public CompletableFuture<Boolean> verificarPasswordAsync(CredencialAcceso credencial, String passwordPlano) {
+        if (credencial == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Credencial no puede ser null"));
+        }
+        return ejecutorHashing.verificarAsync(passwordPlano, credencial.getHashPassword(), credencial.getSalt());
+    }
 
-            return new String[]{hash, salt};
+    public EjecutorHashing.Estadisticas getEstadisticasHashing() {
+        return ejecutorHashing.getEstadisticas();
+    }
 
-        } catch (java.security.NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error al hashear contraseña", e);
+    /**
+     * Registra un intento de login fallido con un único UPDATE atómico.
+     *
+     * @return cantidad de intentos fallidos consecutivos tras el incremento,
+     *         o -1 si la credencial no existe. Con ese valor se decide el
+     *         bloqueo (debeBloquearPorIntentos) sin volver a leer la fila.
+     */
+    public int registrarIntentoFallido(Long credencialId) throws SQLException {
+        if (credencialId == null || credencialId <= 0) {
+            throw new IllegalArgumentException("ID inválido");
         }
+        return credencialDAO.incrementarIntentosFallidos(credencialId);
     }
 
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
+    /**
+     * Suma varios intentos fallidos con un único UPDATE atómico (los que
+     * acumuló el limitador de intentos, ver AutenticacionService).
+     *
+     * @return intentos fallidos tras la suma, o -1 si la credencial no existe
+     */
+    public int registrarIntentosFallidos(Long credencialId, int cantidad) throws SQLException {
+        if (credencialId == null || credencialId <= 0) {
+            throw new IllegalArgumentException("ID inválido");
         }
-        return result.toString();
+        return credencialDAO.sumarIntentosFallidos(credencialId, cantidad);
+    }
+
+    /**
+     * Indica si, con esa cantidad de intentos fallidos, la cuenta debe bloquearse.
+     */
+    public boolean debeBloquearPorIntentos(int intentosFallidos) {
+        return CredencialAcceso.debeBloquearPorIntentos(intentosFallidos, MAX_INTENTOS_FALLIDOS);
+    }
+
+    /**
+     * Registra un login exitoso: resetea intentos_fallidos y guarda ultimo_login
+     * en un único UPDATE, sin leer la credencial antes.
+     *
+     * Como no se sabe si hay intentos fallidos que resetear, siempre escribe
+     * en el momento, aunque la escritura diferida esté activa.
+     */
+    public void registrarLoginExitoso(Long credencialId) throws SQLException {
+        if (credencialId == null || credencialId <= 0) {
+            throw new IllegalArgumentException("ID inválido");
+        }
+        BufferUltimoLogin buffer = bufferUltimoLogin;
+        if (buffer != null) {
+            buffer.descartar(credencialId);
+        }
+        credencialDAO.registrarLoginExitoso(credencialId, LocalDateTime.now());
+    }
+
+    /**
+     * Registra un login exitoso de una credencial ya cargada.
+     *
+     * Si la escritura diferida está activa y la credencial no tiene intentos
+     * fallidos que resetear, solo se anota ultimo_login en el buffer y se
+     * graba en el próximo volcado. Si hay intentos que resetear se escribe
+     * en el momento, para no demorar el desbloqueo.
+     */
+    public void registrarLoginExitoso(CredencialAcceso credencial) throws SQLException {
+        if (credencial == null || credencial.getId() == null) {
+            throw new IllegalArgumentException("Credencial debe tener ID");
+        }
+        BufferUltimoLogin buffer = bufferUltimoLogin;
+        if (buffer == null || credencial.getIntentosFallidos() > 0) {
+            registrarLoginExitoso(credencial.getId());
+        } else {
+            buffer.registrar(credencial.getId(), LocalDateTime.now());
+        }
+        credencial.registrarLoginExitoso();
+    }
+
+    // ========================================================================
+    // Escritura diferida de ultimo_login (opcional)
+    // ========================================================================
+
+    /**
+     * Activa la escritura diferida de ultimo_login.
+     *
+     * @param intervaloMs cada cuánto se vuelca lo pendiente a la BD
+     * @param maxPendientes máximo de credenciales en memoria; si se llena,
+     *                      los logins que no entran se graban en el momento
+     */
+    public void activarEscrituraDiferidaUltimoLogin(long intervaloMs, int maxPendientes) {
+        desactivarEscrituraDiferidaUltimoLogin();
+        bufferUltimoLogin = new BufferUltimoLogin(credencialDAO, intervaloMs, maxPendientes);
+    }
+
+    /**
+     * Vuelca lo pendiente y vuelve a la escritura inmediata.
+     */
+    public void desactivarEscrituraDiferidaUltimoLogin() {
+        BufferUltimoLogin buffer = bufferUltimoLogin;
+        bufferUltimoLogin = null;
+        if (buffer != null) {
+            buffer.cerrar();
+        }
+    }
+
+    public BufferUltimoLogin.Estadisticas getEstadisticasBufferUltimoLogin() {
+        BufferUltimoLogin buffer = bufferUltimoLogin;
+        return buffer != null ? buffer.getEstadisticas() : null;
+    }
+
+    // ========================================================================
+    // Eventos de cambios (opcional)
+    // ========================================================================
+
+    /**
+     * Anota PASSWORD_CAMBIADO en cada cambio de contraseña (ver
+     * UsuarioService.activarEventos).
+     */
+    public void activarEventos(PublicadorEventos publicador) {
+        if (publicador == null) {
+            throw new IllegalArgumentException("Publicador no puede ser null");
+        }
+        eventos = publicador;
+    }
+
+    public void desactivarEventos() {
+        eventos = null;
     }
 }
\ No newline at end of file
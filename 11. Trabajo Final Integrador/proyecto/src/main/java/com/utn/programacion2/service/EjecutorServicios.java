@@ -0,0 +1,408 @@
+package ar.edu.utn.tup.service;
+
+import ar.edu.utn.tup.config.CancelacionConsultas;
+import ar.edu.utn.tup.config.Configuracion;
+import ar.edu.utn.tup.config.DatabaseConfig;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ejecuta llamadas a los servicios (JDBC bloqueante) fuera del hilo que las
+ * pide, en uno de dos modos:
+ * - VIRTUAL: un hilo virtual por llamada. Mientras la llamada espera a la BD
+ *   el hilo portador queda libre, así que miles de llamadas concurrentes no
+ *   necesitan miles de hilos del sistema operativo.
+ * - PLATAFORMA: un pool fijo de hilos (el esquema clásico), para comparar.
+ *
+ * En ambos modos un limitador deja pasar a la BD como mucho "limite" llamadas
+ * a la vez (por defecto, el tamaño máximo del pool de conexiones): con más
+ * no se gana throughput, solo se alarga la espera dentro del pool. El turno
+ * se toma al pedir la primera conexión y se devuelve al cerrar la última
+ * (ver CancelacionConsultas.Turno): lo que la llamada hace sin conexión, como
+ * esperar el PBKDF2 en EjecutorHashing, no le quita el turno a otra. Las
+ * llamadas que no consiguen turno en timeoutEsperaMs fallan con SQLException,
+ * y si ya hay maxEnEspera sin turno todavía la nueva se rechaza enseguida
+ * (RejectedExecutionException), igual que en EjecutorHashing.
+ *
+ * Para que los hilos virtuales no queden fijados a su portador, el camino de
+ * una llamada no usa synchronized alrededor de I/O: el pool de conexiones,
+ * las cachés, DatabaseConfig.getInstance y EjecutorHashing.getInstancia usan
+ * Semaphore/ReentrantLock. El driver también cuenta (ver README).
+ *
+ * Configuración (propiedades servicios.*, ver Configuracion):
+ * - servicios.modo:            virtual o plataforma (virtual)
+ * - servicios.hilos:           hilos del modo plataforma (200)
+ * - servicios.limite:          llamadas simultáneas contra la BD (db.pool.maximo)
+ * - servicios.maxEnEspera:     llamadas sin turno todavía, como máximo (10000)
+ * - servicios.timeoutEsperaMs: espera máxima por un turno (5000)
+ */
+public final class EjecutorServicios {
+
+    public enum Modo {
+        VIRTUAL,
+        PLATAFORMA
+    }
+
+    /**
+     * Una llamada a la capa de servicios.
+     */
+    @FunctionalInterface
+    public interface Llamada<T> {
+        T ejecutar() throws SQLException;
+    }
+
+    /**
+     * Foto de las métricas del ejecutor.
+     */
+    public record Estadisticas(Modo modo, int limite, int enCurso, int enEspera, long completadas,
+                               long fallidas, long rechazadas, long sinTurno,
+                               double esperaPromedioMs, double esperaMaximaMs) {
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Servicios{modo=%s, enCurso=%d/%d, enEspera=%d, completadas=%d, fallidas=%d, " +
+                            "rechazadas=%d, sinTurno=%d, espera=%.2fms, esperaMax=%.2fms}",
+                    modo, enCurso, limite, enEspera, completadas, fallidas, rechazadas, sinTurno,
+                    esperaPromedioMs, esperaMaximaMs);
+        }
+    }
+
+    public static final int HILOS_PLATAFORMA_POR_DEFECTO = 200;
+    public static final int MAX_EN_ESPERA_POR_DEFECTO = 10_000;
+    public static final long TIMEOUT_ESPERA_MS_POR_DEFECTO = 5_000;
+
+    private final Modo modo;
+    private final ExecutorService executor;
+    private final Semaphore turnos;
+    private final int limite;
+    private final int maxEnEspera;
+    private final long timeoutEsperaNanos;
+    private final AtomicInteger enEspera = new AtomicInteger();
+
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder sinTurno = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final LongAdder esperas = new LongAdder();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+
+    /**
+     * @param hilosPlataforma solo se usa en modo PLATAFORMA
+     * @param limite          llamadas simultáneas contra la BD
+     */
+    public EjecutorServicios(Modo modo, int hilosPlataforma, int limite, int maxEnEspera, long timeoutEsperaMs) {
+        if (hilosPlataforma <= 0 || limite <= 0 || maxEnEspera <= 0 || timeoutEsperaMs <= 0) {
+            throw new IllegalArgumentException("Configuración de servicios inválida: hilos=" + hilosPlataforma
+                    + ", limite=" + limite + ", maxEnEspera=" + maxEnEspera + ", timeoutEsperaMs=" + timeoutEsperaMs);
+        }
+        this.modo = modo;
+        this.limite = limite;
+        this.maxEnEspera = maxEnEspera;
+        this.timeoutEsperaNanos = TimeUnit.MILLISECONDS.toNanos(timeoutEsperaMs);
+        this.turnos = new Semaphore(limite, true);
+
+        if (modo == Modo.VIRTUAL) {
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("servicio-", 1).factory());
+        } else {
+            AtomicInteger contador = new AtomicInteger();
+            ThreadFactory fabrica = r -> {
+                Thread t = new Thread(r, "servicio-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+            // Cola sin límite propio: la acota maxEnEspera
+            this.executor = new ThreadPoolExecutor(hilosPlataforma, hilosPlataforma, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), fabrica);
+        }
+    }
+
+    /**
+     * Ejecutor con la configuración de servicios.* (ver la documentación de
+     * la clase). El límite por defecto es el tamaño máximo del pool de
+     * conexiones.
+     */
+    public static EjecutorServicios desdeConfiguracion(Configuracion config) {
+        String modo = config.get("servicios.modo", Modo.VIRTUAL.name()).trim().toUpperCase(Locale.ROOT);
+        Modo elegido;
+        try {
+            elegido = Modo.valueOf(modo);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Modo de ejecución desconocido: " + modo.toLowerCase(Locale.ROOT)
+                    + " (valores válidos: virtual, plataforma)", e);
+        }
+        return new EjecutorServicios(elegido,
+                config.getInt("servicios.hilos", HILOS_PLATAFORMA_POR_DEFECTO),
+                config.getInt("servicios.limite", DatabaseConfig.getInstance().getTamanioMaximoPool()),
+                config.getInt("servicios.maxEnEspera", MAX_EN_ESPERA_POR_DEFECTO),
+                config.getLong("servicios.timeoutEsperaMs", TIMEOUT_ESPERA_MS_POR_DEFECTO));
+    }
+
+    // ========================================================================
+    // Ejecución
+    // ========================================================================
+
+    /**
+     * Encola la llamada y devuelve enseguida. El futuro falla con
+     * RejectedExecutionException si hay demasiadas esperando y con
+     * SQLException si no consiguió turno a tiempo.
+     *
+     * Cancelar el futuro (cancel, completar desde afuera) corta la llamada:
+     * si esperaba turno deja de esperar, y si ya estaba en la BD se cancelan
+     * sus sentencias (ver CancelacionConsultas), así la conexión vuelve al
+     * pool sin esperar a que termine la consulta.
+     */
+    public <T> CompletableFuture<T> enviar(Llamada<T> llamada) {
+        return enviar(llamada, 0);
+    }
+
+    /**
+     * Como enviar(llamada), con un plazo total (espera incluida). Al
+     * vencerse el futuro falla con TimeoutException y la llamada se corta;
+     * además cada sentencia lleva setQueryTimeout por el tiempo restante.
+     *
+     * @param timeoutMs plazo en milisegundos; 0 = sin plazo
+     */
+    public <T> CompletableFuture<T> enviar(Llamada<T> llamada, long timeoutMs) {
+        if (timeoutMs < 0) {
+            throw new IllegalArgumentException("El timeout no puede ser negativo");
+        }
+        if (enEspera.incrementAndGet() > maxEnEspera) {
+            enEspera.decrementAndGet();
+            rechazadas.increment();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Servicios saturados (" + maxEnEspera + " llamadas en espera)"));
+        }
+
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        long plazo = timeoutMs == 0 ? 0 : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            executor.execute(() -> correr(llamada, futuro, plazo));
+        } catch (RejectedExecutionException e) {
+            enEspera.decrementAndGet();
+            rechazadas.increment();
+            futuro.completeExceptionally(new RejectedExecutionException("El ejecutor de servicios está cerrado", e));
+            return futuro;
+        }
+        return timeoutMs == 0 ? futuro : futuro.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Como enviar(), pero espera el resultado. Las SQLException y las
+     * excepciones de validación llegan tal cual las lanzó el servicio.
+     */
+    public <T> T ejecutar(Llamada<T> llamada) throws SQLException {
+        try {
+            return enviar(llamada).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sql) {
+                throw sql;
+            }
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private <T> void correr(Llamada<T> llamada, CompletableFuture<T> futuro, long plazo) {
+        // Si el llamador canceló mientras estaba en cola, no llega a empezar
+        if (futuro.isDone()) {
+            enEspera.decrementAndGet();
+            return;
+        }
+        EnCurso enCurso = new EnCurso(Thread.currentThread(), plazo);
+        // También se dispara al completarlo la propia llamada; ahí no queda nada que cortar
+        futuro.whenComplete((resultado, error) -> enCurso.cortar());
+
+        try {
+            T resultado = enCurso.cancelacion.ejecutar(llamada::ejecutar);
+            completadas.increment();
+            futuro.complete(resultado);
+        } catch (Throwable t) {
+            if (!enCurso.fallaContada) {
+                fallidas.increment();
+            }
+            futuro.completeExceptionally(t);
+        } finally {
+            enCurso.terminar();
+        }
+    }
+
+    /**
+     * Estado de una llamada, para poder cortarla desde el hilo que completa
+     * su futuro, y su turno para la BD. Mientras espera turno se la
+     * interrumpe; fuera de esa espera se cancelan sus sentencias
+     * (interrumpir un hilo en medio de I/O de JDBC puede dejar la conexión
+     * inservible).
+     */
+    private final class EnCurso implements CancelacionConsultas.Turno {
+        private static final int LIBRE = 0;
+        private static final int ESPERANDO = 1;
+        private static final int INTERRUMPIENDO = 2;
+        private static final int CORTADA = 3;
+
+        private final Thread hilo;
+        private final long plazo;
+        private final CancelacionConsultas cancelacion;
+        private final AtomicInteger estado = new AtomicInteger(LIBRE);
+        private final AtomicBoolean conTurno = new AtomicBoolean();
+        // Solo los toca el hilo de la llamada
+        private boolean sinTurnoTodavia = true;
+        private boolean fallaContada;
+
+        private EnCurso(Thread hilo, long plazo) {
+            this.hilo = hilo;
+            this.plazo = plazo;
+            this.cancelacion = new CancelacionConsultas(plazo, this);
+        }
+
+        // Lo llama el pool, en el hilo de la llamada, al pedir la primera conexión
+        @Override
+        public void tomar() throws SQLException {
+            // Se cuenta desde que se pide: lo que la llamada hizo antes (hashear,
+            // por ejemplo) no le descuenta tiempo de espera
+            long desde = System.nanoTime();
+            long restante = timeoutEsperaNanos;
+            if (plazo != 0) {
+                restante = Math.min(restante, plazo - System.nanoTime());
+            }
+            if (!estado.compareAndSet(LIBRE, ESPERANDO)) {
+                throw new SQLException("La llamada fue cancelada");
+            }
+
+            boolean obtenido = false;
+            boolean interrumpida = false;
+            try {
+                obtenido = restante > 0 && turnos.tryAcquire(restante, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                interrumpida = true;
+            }
+            if (!estado.compareAndSet(ESPERANDO, LIBRE)) {
+                // La cortó cortar(): el futuro ya está completo
+                descartarInterrupcion();
+                if (obtenido) {
+                    turnos.release();
+                }
+                fallaContada = true;
+                throw new SQLException("La llamada fue cancelada mientras esperaba turno");
+            }
+
+            registrarEspera(System.nanoTime() - desde);
+            if (sinTurnoTodavia) {
+                sinTurnoTodavia = false;
+                enEspera.decrementAndGet();
+            }
+            if (interrumpida) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrumpido mientras se esperaba turno para la base de datos");
+            }
+            if (!obtenido) {
+                sinTurno.increment();
+                fallaContada = true;
+                throw new SQLException("No se obtuvo turno para la base de datos en "
+                        + TimeUnit.NANOSECONDS.toMillis(timeoutEsperaNanos) + " ms (límite " + limite + ")");
+            }
+            conTurno.set(true);
+        }
+
+        // El pool lo llama al cerrarse la última conexión; terminar(), por si
+        // la llamada dejó alguna sin cerrar
+        @Override
+        public void soltar() {
+            if (conTurno.compareAndSet(true, false)) {
+                turnos.release();
+            }
+        }
+
+        private void terminar() {
+            if (sinTurnoTodavia) {
+                sinTurnoTodavia = false;
+                enEspera.decrementAndGet();
+            }
+            soltar();
+        }
+
+        // La interrupción de cortar() se entrega antes de pasar a CORTADA:
+        // recién entonces se puede limpiar sin que llegue después, en medio
+        // de otra llamada que corra en el mismo hilo del pool
+        private void descartarInterrupcion() {
+            while (estado.get() == INTERRUMPIENDO) {
+                Thread.onSpinWait();
+            }
+            Thread.interrupted();
+        }
+
+        private void cortar() {
+            if (estado.compareAndSet(ESPERANDO, INTERRUMPIENDO)) {
+                hilo.interrupt();
+                estado.set(CORTADA);
+            } else {
+                estado.compareAndSet(LIBRE, CORTADA);
+            }
+            cancelacion.cancelar();
+        }
+    }
+
+    // ========================================================================
+    // Métricas y cierre
+    // ========================================================================
+
+    private void registrarEspera(long nanos) {
+        esperas.increment();
+        esperaTotalNanos.add(nanos);
+        esperaMaximaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public Estadisticas getEstadisticas() {
+        long total = esperas.sum();
+        return new Estadisticas(
+                modo,
+                limite,
+                limite - turnos.availablePermits(),
+                enEspera.get(),
+                completadas.sum(),
+                fallidas.sum(),
+                rechazadas.sum(),
+                sinTurno.sum(),
+                total == 0 ? 0 : esperaTotalNanos.sum() / (double) total / 1_000_000,
+                esperaMaximaNanos.get() / 1_000_000.0);
+    }
+
+    public Modo getModo() {
+        return modo;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    /**
+     * No acepta más llamadas y espera (como mucho timeoutEsperaMs) a que
+     * terminen las que están en curso.
+     */
+    public void cerrar() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeoutEsperaNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
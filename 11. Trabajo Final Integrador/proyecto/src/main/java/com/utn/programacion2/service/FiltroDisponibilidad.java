@@ -0,0 +1,178 @@
+package ar.edu.utn.tup.service;
+
+import ar.edu.utn.tup.dao.UsuarioDAO;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom sobre los usernames y emails en uso.
+ *
+ * Responde "seguro libre" sin ir a la BD: si alguna de las k posiciones de
+ * una clave está en 0, la clave nunca se agregó. Si están todas en 1 la
+ * clave probablemente esté en uso (con una tasa de falsos positivos que se
+ * elige al crearlo) y hay que confirmarlo contra la BD.
+ *
+ * Nunca da falsos negativos para lo que se le agregó. No se pueden quitar
+ * claves: un username que se libera (por ejemplo, al cambiarlo) sigue
+ * figurando como "probablemente en uso" y se resuelve en la BD, que es lo
+ * seguro. Con el tiempo eso sube la tasa de falsos positivos; reconstruirlo
+ * (ver UsuarioService.activarFiltroDisponibilidad) la vuelve a bajar.
+ *
+ * Los bits están en un AtomicLongArray: agregar y consultar no toman locks.
+ *
+ * Usernames y emails comparten el arreglo, con un prefijo distinto, y se
+ * normalizan como en MySQL (sin distinguir mayúsculas ni acentos). Otras
+ * equivalencias de la collation (como "ß" y "ss") no se replican: en esos
+ * casos raros el filtro puede decir "libre" y el alta igual la rechaza la
+ * restricción UNIQUE, que sigue siendo la que decide.
+ */
+public final class FiltroDisponibilidad {
+
+    /**
+     * Foto del filtro y de su uso.
+     *
+     * @param tasaFalsosPositivos estimada con las claves agregadas hasta ahora
+     */
+    public record Estadisticas(long claves, long capacidad, long bits, int funcionesHash, long bytes,
+                               double tasaFalsosPositivos, long consultas, long libres) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "FiltroDisponibilidad{claves=%d/%d, memoria=%.1f KB, k=%d, falsosPositivos≈%.3f%%, " +
+                            "consultas=%d, libresSinBD=%d}",
+                    claves, capacidad, bytes / 1024.0, funcionesHash, tasaFalsosPositivos * 100, consultas, libres);
+        }
+    }
+
+    private static final int MAX_FUNCIONES_HASH = 16;
+
+    private final long capacidad;
+    private final long bits;
+    private final int funcionesHash;
+    private final AtomicLongArray palabras;
+
+    private final LongAdder claves = new LongAdder();
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder libres = new LongAdder();
+
+    /**
+     * @param capacidad           claves esperadas (cada usuario aporta dos:
+     *                            username y email)
+     * @param tasaFalsosPositivos tasa buscada con esa cantidad de claves,
+     *                            entre 0 y 1 (por ejemplo 0.01)
+     */
+    public FiltroDisponibilidad(long capacidad, double tasaFalsosPositivos) {
+        if (capacidad <= 0 || !(tasaFalsosPositivos > 0 && tasaFalsosPositivos < 1)) {
+            throw new IllegalArgumentException("Capacidad y tasa de falsos positivos inválidas: capacidad="
+                    + capacidad + ", tasa=" + tasaFalsosPositivos);
+        }
+        // m = -n ln(p) / ln(2)^2 y k = (m / n) ln(2): los valores óptimos
+        long m = (long) Math.ceil(-capacidad * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        long palabrasNecesarias = (m + 63) / 64;
+        if (palabrasNecesarias > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filtro demasiado grande: " + m + " bits");
+        }
+        this.capacidad = capacidad;
+        this.bits = palabrasNecesarias * 64;
+        this.funcionesHash = (int) Math.max(1, Math.min(MAX_FUNCIONES_HASH,
+                Math.round((double) bits / capacidad * Math.log(2))));
+        this.palabras = new AtomicLongArray((int) palabrasNecesarias);
+    }
+
+    public void agregarUsername(String username) {
+        agregar('u', username);
+    }
+
+    public void agregarEmail(String email) {
+        agregar('e', email);
+    }
+
+    /**
+     * @return true si el username seguro está libre; false si puede estar en
+     *         uso (hay que confirmarlo en la BD)
+     */
+    public boolean usernameSeguroLibre(String username) {
+        return seguroLibre('u', username);
+    }
+
+    public boolean emailSeguroLibre(String email) {
+        return seguroLibre('e', email);
+    }
+
+    public Estadisticas getEstadisticas() {
+        long n = claves.sum();
+        double tasa = Math.pow(1 - Math.exp(-(double) funcionesHash * n / bits), funcionesHash);
+        return new Estadisticas(n, capacidad, bits, funcionesHash, bits / 8, tasa, consultas.sum(), libres.sum());
+    }
+
+    // ========================================================================
+    // Bits
+    // ========================================================================
+
+    private void agregar(char tipo, String valor) {
+        if (valor == null) {
+            return;
+        }
+        long hash = hash(tipo, valor);
+        // Doble hashing: h1 + i*h2 da k posiciones con un solo hash de 64 bits
+        long h1 = hash;
+        long h2 = mezclar(hash) | 1;
+        for (int i = 0; i < funcionesHash; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            int indice = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual;
+            do {
+                actual = palabras.get(indice);
+                if ((actual & mascara) != 0) {
+                    break;
+                }
+            } while (!palabras.compareAndSet(indice, actual, actual | mascara));
+        }
+        claves.increment();
+    }
+
+    private boolean seguroLibre(char tipo, String valor) {
+        consultas.increment();
+        if (valor == null) {
+            return false;
+        }
+        long hash = hash(tipo, valor);
+        long h1 = hash;
+        long h2 = mezclar(hash) | 1;
+        for (int i = 0; i < funcionesHash; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                libres.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Hash de 64 bits de la clave normalizada. Se normaliza como la collation
+    // de la tabla: si no, el filtro respondería "libre" para "José" cuando la
+    // BD ya tiene "jose"
+    private static long hash(char tipo, String valor) {
+        String clave = UsuarioDAO.normalizar(valor);
+        long h = 0x9E3779B97F4A7C15L ^ tipo;
+        for (int i = 0; i < clave.length(); i++) {
+            h = (h ^ clave.charAt(i)) * 0x100000001B3L;
+            h = Long.rotateLeft(h, 27);
+        }
+        return mezclar(h ^ clave.length());
+    }
+
+    // Finalizador de MurmurHash3: reparte los bits de entrada en toda la salida
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
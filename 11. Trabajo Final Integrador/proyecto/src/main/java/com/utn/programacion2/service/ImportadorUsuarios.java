@@ -0,0 +1,736 @@
+package ar.edu.utn.tup.service;
+
+import ar.edu.utn.tup.config.Configuracion;
+import ar.edu.utn.tup.entities.Usuario;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Importación masiva de usuarios desde un archivo CSV o JSON Lines, para
+ * migrar cuentas de otros sistemas.
+ *
+ * El archivo se lee en streaming, de a tandas de tamanioLote filas, así que
+ * la memoria no depende de su tamaño. Cada tanda:
+ * 1. Se interpreta en paralelo (una fila por línea)
+ * 2. Pasa por el alta en lote de UsuarioService: las mismas validaciones que
+ *    el alta por consola (en paralelo), el hash de las contraseñas en el pool
+ *    de hashing y UNA transacción con JDBC batch para toda la tanda
+ * 3. Anota sus filas rechazadas en "archivo.rechazados" (línea, username y
+ *    motivo; nunca la contraseña)
+ * 4. Guarda el checkpoint en "archivo.checkpoint"
+ *
+ * Una fila rechazada porque el pool de hashing estaba saturado no es un
+ * rechazo: se vuelve a enviar, con esperas crecientes. Si después de
+ * REINTENTOS_SATURACION sigue sin lugar, la importación se corta con
+ * SQLTransientException antes del checkpoint de esa tanda.
+ *
+ * Si el proceso se corta, la siguiente corrida sobre el mismo archivo sigue
+ * desde el checkpoint. Una tanda confirmada justo antes del corte, sin su
+ * checkpoint, se vuelve a procesar: sus filas ya están en la base y salen
+ * como rechazadas por username en uso, pero no se duplican.
+ *
+ * Formatos (según la extensión, en UTF-8, una fila por línea):
+ * - .csv: la primera línea nombra las columnas username, email,
+ *   nombre_completo y password, en cualquier orden. Los campos pueden ir
+ *   entre comillas dobles, con las comillas internas duplicadas (RFC 4180).
+ * - .jsonl o .ndjson: un objeto plano por línea, con las mismas claves
+ *   (también nombreCompleto).
+ * A username, email y nombre se les quitan los espacios de los extremos; a la
+ * contraseña no.
+ */
+public class ImportadorUsuarios {
+
+    public static final int TAMANIO_LOTE_POR_DEFECTO = UsuarioService.TAMANIO_LOTE_POR_DEFECTO;
+    public static final long INTERVALO_REPORTE_MS_POR_DEFECTO = 5_000;
+
+    // Una línea más larga se rechaza sin guardarla entera en memoria
+    static final int LARGO_MAXIMO_LINEA = 64 * 1024;
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+
+    // Reenvíos de las filas rechazadas por saturación: 100, 200, 400... ms
+    static final int REINTENTOS_SATURACION = 5;
+    private static final long ESPERA_SATURACION_MS = 100;
+
+    public enum Formato {
+        CSV,
+        JSON_LINES;
+
+        public static Formato de(Path archivo) {
+            String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (nombre.endsWith(".csv")) {
+                return CSV;
+            }
+            if (nombre.endsWith(".jsonl") || nombre.endsWith(".ndjson")) {
+                return JSON_LINES;
+            }
+            throw new IllegalArgumentException("Formato no soportado (se espera .csv, .jsonl o .ndjson): " + archivo);
+        }
+    }
+
+    /**
+     * Avance de una importación. Filas, creados y rechazados cuentan desde el
+     * principio del archivo (incluyen corridas anteriores); la velocidad y la
+     * ETA, solo la corrida actual.
+     *
+     * @param etaSegundos -1 mientras no hay datos para estimarla
+     */
+    public record Progreso(long filas, long creados, long rechazados, long bytesLeidos, long bytesTotales,
+                           double filasPorSegundo, long etaSegundos) {
+
+        public double porcentaje() {
+            return bytesTotales == 0 ? 100.0 : 100.0 * bytesLeidos / bytesTotales;
+        }
+
+        @Override
+        public String toString() {
+            String eta = etaSegundos < 0 ? "?" : String.format(Locale.ROOT, "%d:%02d:%02d",
+                    etaSegundos / 3600, etaSegundos / 60 % 60, etaSegundos % 60);
+            return String.format(Locale.ROOT,
+                    "%5.1f%% | %d filas: %d creadas, %d rechazadas | %.0f filas/s | ETA %s",
+                    porcentaje(), filas, creados, rechazados, filasPorSegundo, eta);
+        }
+    }
+
+    private final UsuarioService usuarioService;
+    private final int tamanioLote;
+    private final long intervaloReporteNanos;
+
+    /**
+     * @param tamanioLote         Filas por tanda (y por transacción); no puede
+     *                            superar la cola del pool de hashing
+     *                            (hashing.capacidadCola)
+     * @param intervaloReporteMs  Cada cuánto se informa el avance por consola
+     */
+    public ImportadorUsuarios(UsuarioService usuarioService, int tamanioLote, long intervaloReporteMs) {
+        if (usuarioService == null) {
+            throw new IllegalArgumentException("UsuarioService null");
+        }
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser positivo");
+        }
+        if (tamanioLote > usuarioService.getCapacidadColaHashing()) {
+            throw new IllegalArgumentException("El tamaño de lote (" + tamanioLote + ") supera la cola de hashing ("
+                    + usuarioService.getCapacidadColaHashing() + ", ver hashing.capacidadCola)");
+        }
+        if (intervaloReporteMs <= 0) {
+            throw new IllegalArgumentException("El intervalo de reporte debe ser positivo");
+        }
+        this.usuarioService = usuarioService;
+        this.tamanioLote = tamanioLote;
+        this.intervaloReporteNanos = TimeUnit.MILLISECONDS.toNanos(intervaloReporteMs);
+    }
+
+    /**
+     * Crea un importador con las propiedades importacion.* (ver
+     * db.properties.ejemplo).
+     */
+    public static ImportadorUsuarios desdeConfiguracion(UsuarioService usuarioService, Configuracion config) {
+        return new ImportadorUsuarios(usuarioService,
+                config.getInt("importacion.tamanioLote", TAMANIO_LOTE_POR_DEFECTO),
+                config.getLong("importacion.reporteMs", INTERVALO_REPORTE_MS_POR_DEFECTO));
+    }
+
+    // ========================================================================
+    // Importación
+    // ========================================================================
+
+    /**
+     * Importa el archivo, o lo que falte de él según su checkpoint.
+     *
+     * @return El avance final
+     * @throws IllegalArgumentException si el formato no se reconoce, falta una
+     *         columna, o el archivo cambió desde el checkpoint
+     * @throws SQLException si falla la BD, o SQLTransientException si el pool
+     *         de hashing siguió saturado: lo confirmado hasta la última tanda
+     *         queda en el checkpoint y se puede volver a ejecutar
+     */
+    public Progreso importar(Path archivo) throws IOException, SQLException {
+        Formato formato = Formato.de(archivo);
+        Path rutaCheckpoint = archivo.resolveSibling(archivo.getFileName() + ".checkpoint");
+        Path rutaRechazados = archivo.resolveSibling(archivo.getFileName() + ".rechazados");
+        long tamanio = Files.size(archivo);
+        long modificado = Files.getLastModifiedTime(archivo).toMillis();
+        Checkpoint checkpoint = Checkpoint.leer(rutaCheckpoint, tamanio, modificado);
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+             BufferedWriter rechazados = Files.newBufferedWriter(rutaRechazados, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            LectorLineas lector = new LectorLineas(canal, 0, 0);
+            int[] columnas = formato == Formato.CSV ? leerEncabezado(lector) : null;
+            if (checkpoint.posicion() > lector.getPosicion()) {
+                lector = new LectorLineas(canal, checkpoint.posicion(), checkpoint.linea());
+            }
+            if (Files.size(rutaRechazados) == 0) {
+                rechazados.write("linea,username,motivo");
+                rechazados.newLine();
+            }
+
+            System.out.println("→ Importando " + archivo + " (" + formato + ", " + tamanio + " bytes)"
+                    + (checkpoint.filas() > 0 ? " desde la línea " + (checkpoint.linea() + 1) : ""));
+
+            long inicio = System.nanoTime();
+            Checkpoint alInicio = checkpoint;
+            long proximoReporte = inicio + intervaloReporteNanos;
+            List<String> lineas = new ArrayList<>(tamanioLote);
+            long[] numeros = new long[tamanioLote];
+
+            while (true) {
+                lineas.clear();
+                String linea;
+                while (lineas.size() < tamanioLote && (linea = lector.leer()) != null) {
+                    if (lector.isDemasiadoLarga()) {
+                        numeros[lineas.size()] = lector.getNumero();
+                        lineas.add(null);
+                    } else if (!linea.isBlank()) {
+                        numeros[lineas.size()] = lector.getNumero();
+                        lineas.add(linea);
+                    }
+                }
+                if (lineas.isEmpty()) {
+                    break;
+                }
+
+                int creados = procesarTanda(lineas, numeros, formato, columnas, rechazados);
+
+                // Primero los rechazos y después el checkpoint: nunca queda
+                // un checkpoint más adelante que sus rechazos
+                rechazados.flush();
+                checkpoint = new Checkpoint(lector.getPosicion(), lector.getNumero(),
+                        checkpoint.filas() + lineas.size(), checkpoint.creados() + creados,
+                        checkpoint.rechazados() + lineas.size() - creados);
+                checkpoint.guardar(rutaCheckpoint, tamanio, modificado);
+
+                long ahora = System.nanoTime();
+                if (ahora >= proximoReporte) {
+                    System.out.println("→ " + progreso(checkpoint, alInicio, tamanio, inicio, ahora));
+                    proximoReporte = ahora + intervaloReporteNanos;
+                }
+            }
+
+            Progreso fin = progreso(checkpoint, alInicio, tamanio, inicio, System.nanoTime());
+            System.out.println("✓ Importación terminada: " + fin);
+            if (fin.rechazados() > 0) {
+                System.out.println("  Filas rechazadas en " + rutaRechazados);
+            }
+            return fin;
+        }
+    }
+
+    // Devuelve cuántas filas de la tanda se crearon
+    private int procesarTanda(List<String> lineas, long[] numeros, Formato formato, int[] columnas,
+                              BufferedWriter rechazados) throws IOException, SQLException {
+        int cantidad = lineas.size();
+        Usuario[] usuarios = new Usuario[cantidad];
+        String[] passwords = new String[cantidad];
+        String[] motivos = new String[cantidad];
+
+        IntStream.range(0, cantidad).parallel().forEach(i -> {
+            String linea = lineas.get(i);
+            if (linea == null) {
+                motivos[i] = "Línea de más de " + LARGO_MAXIMO_LINEA + " bytes";
+                return;
+            }
+            try {
+                String[] campos = formato == Formato.CSV ? camposCsv(linea, columnas) : camposJson(linea);
+                usuarios[i] = new Usuario(recortar(campos[USERNAME]), recortar(campos[EMAIL]),
+                        recortar(campos[NOMBRE_COMPLETO]));
+                passwords[i] = campos[PASSWORD];
+            } catch (IllegalArgumentException e) {
+                motivos[i] = e.getMessage();
+            }
+        });
+
+        List<Usuario> aCrear = new ArrayList<>(cantidad);
+        List<String> passwordsACrear = new ArrayList<>(cantidad);
+        List<Integer> posiciones = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            if (motivos[i] == null) {
+                aCrear.add(usuarios[i]);
+                passwordsACrear.add(passwords[i]);
+                posiciones.add(i);
+            }
+        }
+
+        int creados = 0;
+        for (int intento = 0; !aCrear.isEmpty(); intento++) {
+            if (intento > 0) {
+                esperarSaturacion(intento, aCrear.size());
+            }
+            // Un solo tramo: la tanda entera va en una transacción
+            ResultadoLote resultado = usuarioService.crearEnLote(aCrear, passwordsACrear, tamanioLote);
+            creados += resultado.getCantidadCreados();
+
+            // Las saturadas se reenvían; las demás son rechazos definitivos
+            List<Usuario> saturados = new ArrayList<>();
+            List<String> passwordsSaturados = new ArrayList<>();
+            List<Integer> posicionesSaturados = new ArrayList<>();
+            for (ResultadoLote.Fallo fallo : resultado.getFallos()) {
+                int posicion = posiciones.get(fallo.indice());
+                if (fallo.reintentable()) {
+                    saturados.add(usuarios[posicion]);
+                    passwordsSaturados.add(passwords[posicion]);
+                    posicionesSaturados.add(posicion);
+                } else {
+                    motivos[posicion] = fallo.motivo();
+                }
+            }
+            aCrear = saturados;
+            passwordsACrear = passwordsSaturados;
+            posiciones = posicionesSaturados;
+        }
+
+        // En el orden del archivo
+        for (int i = 0; i < cantidad; i++) {
+            if (motivos[i] != null) {
+                anotarRechazo(rechazados, numeros[i], usuarios[i] != null ? usuarios[i].getUsername() : null,
+                        motivos[i]);
+            }
+        }
+        return creados;
+    }
+
+    private static void esperarSaturacion(int intento, int pendientes) throws SQLException {
+        if (intento > REINTENTOS_SATURACION) {
+            throw new SQLTransientException("Pool de hashing saturado: " + pendientes
+                    + " filas de la tanda sin procesar después de " + REINTENTOS_SATURACION + " reintentos");
+        }
+        try {
+            Thread.sleep(ESPERA_SATURACION_MS << (intento - 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba lugar en el pool de hashing", e);
+        }
+    }
+
+    // La velocidad y la ETA, con lo avanzado desde alInicio (esta corrida)
+    private static Progreso progreso(Checkpoint checkpoint, Checkpoint alInicio, long tamanio, long inicio,
+                                     long ahora) {
+        double segundos = (ahora - inicio) / 1e9;
+        long bytesEnEstaCorrida = checkpoint.posicion() - alInicio.posicion();
+        double filasPorSegundo = segundos > 0 ? (checkpoint.filas() - alInicio.filas()) / segundos : 0;
+        long eta = -1;
+        if (bytesEnEstaCorrida > 0 && segundos > 0) {
+            eta = (long) ((tamanio - checkpoint.posicion()) / (bytesEnEstaCorrida / segundos));
+        }
+        return new Progreso(checkpoint.filas(), checkpoint.creados(), checkpoint.rechazados(),
+                checkpoint.posicion(), tamanio, filasPorSegundo, eta);
+    }
+
+    private static void anotarRechazo(BufferedWriter rechazados, long linea, String username, String motivo)
+            throws IOException {
+        rechazados.write(linea + "," + campoCsv(username) + "," + campoCsv(motivo));
+        rechazados.newLine();
+    }
+
+    private static String recortar(String valor) {
+        return valor != null ? valor.trim() : null;
+    }
+
+    // ========================================================================
+    // Campos de cada fila
+    // ========================================================================
+
+    // Posición de cada campo en lo que devuelven camposCsv y camposJson
+    private static final int USERNAME = 0;
+    private static final int EMAIL = 1;
+    private static final int NOMBRE_COMPLETO = 2;
+    private static final int PASSWORD = 3;
+    private static final String[] NOMBRES_CAMPOS = {"username", "email", "nombre_completo", "password"};
+
+    // "nombre_completo", "nombreCompleto" y "NOMBRE_COMPLETO" son el mismo campo
+    private static String normalizarNombre(String nombre) {
+        return nombre.trim().toLowerCase(Locale.ROOT).replace("_", "");
+    }
+
+    // Para cada campo, su columna en el CSV
+    private static int[] leerEncabezado(LectorLineas lector) throws IOException {
+        String encabezado = lector.leer();
+        if (encabezado == null || encabezado.isBlank()) {
+            throw new IllegalArgumentException("El archivo CSV no tiene encabezado");
+        }
+        List<String> nombres = leerCsv(encabezado);
+        int[] columnas = new int[NOMBRES_CAMPOS.length + 1];
+        for (int campo = 0; campo < NOMBRES_CAMPOS.length; campo++) {
+            columnas[campo] = -1;
+            for (int columna = 0; columna < nombres.size(); columna++) {
+                if (normalizarNombre(nombres.get(columna)).equals(normalizarNombre(NOMBRES_CAMPOS[campo]))) {
+                    columnas[campo] = columna;
+                }
+            }
+            if (columnas[campo] < 0) {
+                throw new IllegalArgumentException("Falta la columna " + NOMBRES_CAMPOS[campo]
+                        + " en el encabezado: " + encabezado);
+            }
+        }
+        // La última posición guarda cuántas columnas debe tener cada fila
+        columnas[NOMBRES_CAMPOS.length] = nombres.size();
+        return columnas;
+    }
+
+    private static String[] camposCsv(String linea, int[] columnas) {
+        List<String> valores = leerCsv(linea);
+        int esperadas = columnas[NOMBRES_CAMPOS.length];
+        if (valores.size() != esperadas) {
+            throw new IllegalArgumentException("Se esperaban " + esperadas + " columnas y hay " + valores.size());
+        }
+        String[] campos = new String[NOMBRES_CAMPOS.length];
+        for (int campo = 0; campo < campos.length; campo++) {
+            campos[campo] = valores.get(columnas[campo]);
+        }
+        return campos;
+    }
+
+    private static String[] camposJson(String linea) {
+        Map<String, String> objeto = new HashMap<>();
+        ObjetoJson.leer(linea).forEach((clave, valor) -> objeto.put(normalizarNombre(clave), valor));
+        String[] campos = new String[NOMBRES_CAMPOS.length];
+        for (int campo = 0; campo < campos.length; campo++) {
+            campos[campo] = objeto.get(normalizarNombre(NOMBRES_CAMPOS[campo]));
+        }
+        return campos;
+    }
+
+    // Campos separados por coma. Entre comillas dobles pueden llevar comas y
+    // comillas duplicadas: "Pérez, Juan ""JP"""
+    static List<String> leerCsv(String linea) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder valor = new StringBuilder();
+        boolean entreComillas = false;
+        boolean citado = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c != '"') {
+                    valor.append(c);
+                } else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    valor.append('"');
+                    i++;
+                } else {
+                    entreComillas = false;
+                }
+            } else if (c == ',') {
+                valores.add(valor.toString());
+                valor.setLength(0);
+                citado = false;
+            } else if (c == '"' && valor.isEmpty() && !citado) {
+                entreComillas = true;
+                citado = true;
+            } else {
+                valor.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar (cada fila debe ocupar una sola línea)");
+        }
+        valores.add(valor.toString());
+        return valores;
+    }
+
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0
+                && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"").replace("\r", " ").replace("\n", " ") + '"';
+    }
+
+    /**
+     * Objeto JSON plano: {"clave": "valor", ...}. Los números y booleanos se
+     * toman como texto y null como ausente; objetos y arrays no se aceptan.
+     */
+    static final class ObjetoJson {
+
+        private static final Pattern NUMERO = Pattern.compile("-?(0|[1-9]\\d*)(\\.\\d+)?([eE][+-]?\\d+)?");
+
+        private final String texto;
+        private int posicion;
+
+        private ObjetoJson(String texto) {
+            this.texto = texto;
+        }
+
+        static Map<String, String> leer(String texto) {
+            ObjetoJson json = new ObjetoJson(texto);
+            Map<String, String> campos = new HashMap<>();
+            json.esperar('{');
+            if (!json.consumir('}')) {
+                do {
+                    json.saltarEspacios();
+                    String clave = json.leerString();
+                    json.esperar(':');
+                    campos.put(clave, json.leerValor());
+                } while (json.consumir(','));
+                json.esperar('}');
+            }
+            json.saltarEspacios();
+            if (json.posicion != texto.length()) {
+                throw json.error("sobra texto después del objeto");
+            }
+            return campos;
+        }
+
+        private void saltarEspacios() {
+            while (posicion < texto.length()) {
+                char c = texto.charAt(posicion);
+                if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                    return;
+                }
+                posicion++;
+            }
+        }
+
+        private boolean consumir(char esperado) {
+            saltarEspacios();
+            if (posicion < texto.length() && texto.charAt(posicion) == esperado) {
+                posicion++;
+                return true;
+            }
+            return false;
+        }
+
+        private void esperar(char esperado) {
+            if (!consumir(esperado)) {
+                throw error("se esperaba '" + esperado + "'");
+            }
+        }
+
+        private String leerValor() {
+            saltarEspacios();
+            if (posicion < texto.length() && texto.charAt(posicion) == '"') {
+                return leerString();
+            }
+            int desde = posicion;
+            while (posicion < texto.length() && "+-.0123456789eEtrufalsn".indexOf(texto.charAt(posicion)) >= 0) {
+                posicion++;
+            }
+            String literal = texto.substring(desde, posicion);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false") || NUMERO.matcher(literal).matches()) {
+                return literal;
+            }
+            posicion = desde;
+            throw error("valor no soportado (solo strings, números, booleanos y null)");
+        }
+
+        private String leerString() {
+            if (posicion >= texto.length() || texto.charAt(posicion) != '"') {
+                throw error("se esperaba un string");
+            }
+            posicion++;
+            StringBuilder valor = new StringBuilder();
+            while (posicion < texto.length()) {
+                char c = texto.charAt(posicion++);
+                if (c == '"') {
+                    return valor.toString();
+                }
+                if (c < 0x20) {
+                    throw error("caracter de control sin escapar");
+                }
+                if (c != '\\') {
+                    valor.append(c);
+                    continue;
+                }
+                if (posicion >= texto.length()) {
+                    break;
+                }
+                char escape = texto.charAt(posicion++);
+                switch (escape) {
+                    case '"', '\\', '/' -> valor.append(escape);
+                    case 'b' -> valor.append('\b');
+                    case 'f' -> valor.append('\f');
+                    case 'n' -> valor.append('\n');
+                    case 'r' -> valor.append('\r');
+                    case 't' -> valor.append('\t');
+                    case 'u' -> {
+                        if (posicion + 4 > texto.length()) {
+                            throw error("escape \\u incompleto");
+                        }
+                        try {
+                            valor.append((char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("escape \\u inválido");
+                        }
+                        posicion += 4;
+                    }
+                    default -> throw error("escape \\" + escape + " inválido");
+                }
+            }
+            throw error("string sin cerrar");
+        }
+
+        private IllegalArgumentException error(String detalle) {
+            return new IllegalArgumentException("JSON inválido en la posición " + posicion + ": " + detalle);
+        }
+    }
+
+    // ========================================================================
+    // Lectura y checkpoint
+    // ========================================================================
+
+    /**
+     * Lee de a líneas directamente los bytes del archivo, para saber la
+     * posición exacta donde termina cada una (la que se guarda en el
+     * checkpoint). Acepta fin de línea \n y \r\n, y saltea el BOM de UTF-8.
+     */
+    private static final class LectorLineas {
+
+        private final InputStream entrada;
+        private final byte[] buffer = new byte[TAMANIO_BUFFER];
+        private int inicioBuffer;
+        private int finBuffer;
+        private byte[] linea = new byte[256];
+        private long posicion;
+        private long numero;
+        private boolean demasiadoLarga;
+
+        // Sin cerrar: la entrada es del canal, que cierra quien lo abrió
+        LectorLineas(FileChannel canal, long posicion, long numero) throws IOException {
+            canal.position(posicion);
+            this.entrada = Channels.newInputStream(canal);
+            this.posicion = posicion;
+            this.numero = numero;
+        }
+
+        /**
+         * La línea siguiente, o null al final del archivo. Si supera
+         * LARGO_MAXIMO_LINEA se descarta y isDemasiadoLarga() lo indica.
+         */
+        String leer() throws IOException {
+            int largo = 0;
+            boolean leyo = false;
+            demasiadoLarga = false;
+            while (true) {
+                if (inicioBuffer == finBuffer) {
+                    finBuffer = entrada.read(buffer);
+                    inicioBuffer = 0;
+                    if (finBuffer <= 0) {
+                        finBuffer = 0;
+                        if (!leyo) {
+                            return null;
+                        }
+                        break;
+                    }
+                }
+                byte b = buffer[inicioBuffer++];
+                posicion++;
+                leyo = true;
+                if (b == '\n') {
+                    break;
+                }
+                if (largo == LARGO_MAXIMO_LINEA) {
+                    demasiadoLarga = true;
+                    continue;
+                }
+                if (largo == linea.length) {
+                    linea = Arrays.copyOf(linea, Math.min(linea.length * 2, LARGO_MAXIMO_LINEA));
+                }
+                linea[largo++] = b;
+            }
+            numero++;
+            if (demasiadoLarga) {
+                return "";
+            }
+            if (largo > 0 && linea[largo - 1] == '\r') {
+                largo--;
+            }
+            String texto = new String(linea, 0, largo, StandardCharsets.UTF_8);
+            if (numero == 1 && texto.startsWith("\uFEFF")) {
+                texto = texto.substring(1);
+            }
+            return texto;
+        }
+
+        boolean isDemasiadoLarga() {
+            return demasiadoLarga;
+        }
+
+        // Bytes consumidos, hasta el fin de la última línea leída
+        long getPosicion() {
+            return posicion;
+        }
+
+        // Número (base 1) de la última línea leída
+        long getNumero() {
+            return numero;
+        }
+    }
+
+    /**
+     * Hasta dónde quedó confirmado: posición y número de la última línea, más
+     * los totales. Guarda también el tamaño y la fecha de modificación del
+     * archivo, para no seguir con un archivo distinto.
+     */
+    private record Checkpoint(long posicion, long linea, long filas, long creados, long rechazados) {
+
+        static Checkpoint leer(Path ruta, long tamanio, long modificado) throws IOException {
+            if (!Files.isRegularFile(ruta)) {
+                return new Checkpoint(0, 0, 0, 0, 0);
+            }
+            Properties propiedades = new Properties();
+            try (InputStream entrada = Files.newInputStream(ruta)) {
+                propiedades.load(entrada);
+            }
+            try {
+                if (Long.parseLong(propiedades.getProperty("tamanio")) != tamanio
+                        || Long.parseLong(propiedades.getProperty("modificado")) != modificado) {
+                    throw new IllegalArgumentException("El archivo cambió desde el checkpoint " + ruta
+                            + ": borrarlo para importar desde el principio");
+                }
+                return new Checkpoint(
+                        Long.parseLong(propiedades.getProperty("posicion")),
+                        Long.parseLong(propiedades.getProperty("linea")),
+                        Long.parseLong(propiedades.getProperty("filas")),
+                        Long.parseLong(propiedades.getProperty("creados")),
+                        Long.parseLong(propiedades.getProperty("rechazados")));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Checkpoint dañado: " + ruta, e);
+            }
+        }
+
+        // Se escribe aparte y se renombra: un corte a mitad de la escritura
+        // deja el checkpoint anterior
+        void guardar(Path ruta, long tamanio, long modificado) throws IOException {
+            Properties propiedades = new Properties();
+            propiedades.setProperty("posicion", Long.toString(posicion));
+            propiedades.setProperty("linea", Long.toString(linea));
+            propiedades.setProperty("filas", Long.toString(filas));
+            propiedades.setProperty("creados", Long.toString(creados));
+            propiedades.setProperty("rechazados", Long.toString(rechazados));
+            propiedades.setProperty("tamanio", Long.toString(tamanio));
+            propiedades.setProperty("modificado", Long.toString(modificado));
+
+            Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+            try (OutputStream salida = Files.newOutputStream(temporal)) {
+                propiedades.store(salida, "ImportadorUsuarios");
+            }
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package ar.edu.utn.tup.service;
+
+import ar.edu.utn.tup.config.Configuracion;
+import ar.edu.utn.tup.dao.UsuarioDAO;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Límite de intentos de login en memoria, por username y por origen (la IP
+ * u otro identificador del cliente). Se consulta antes de ir a la BD: un
+ * ataque de fuerza bruta que supera el límite no genera consultas, ni
+ * cálculos de hash, ni UPDATE de intentos_fallidos.
+ *
+ * Cada clave tiene una cubeta de fichas (token bucket): se permiten ráfagas
+ * de hasta "capacidad" intentos y después uno cada "intervalo". La cubeta se
+ * guarda como un único long, el momento en que vuelve a estar llena, y se
+ * actualiza con compareAndSet: consultar y consumir no toman locks. El mapa
+ * es un ConcurrentHashMap, que reparte las claves en segmentos
+ * independientes.
+ *
+ * Además lleva, por username, los intentos fallidos que todavía no se
+ * grabaron en la BD (ver AutenticacionService): se acumulan acá y se graban
+ * juntos recién cuando alcanzan el umbral de bloqueo.
+ *
+ * La memoria está acotada por maxClaves en cada tabla (username y origen).
+ * Al llenarse se desalojan las claves inactivas (con la cubeta llena). Si
+ * no alcanza, también las que tienen fallidos pendientes, que se pierden:
+ * demoran el bloqueo en la BD, pero la cubeta de ese username sigue
+ * limitando. Si tampoco hay lugar, la clave nueva no se registra y se
+ * permite el intento. En ese caso AutenticacionService graba el fallido en
+ * el momento, como sin limitador.
+ *
+ * Cada instancia del servicio tiene su propio limitador: con varias
+ * instancias los límites son por instancia, y el bloqueo persistido en la
+ * BD sigue siendo el que vale para todas.
+ */
+public final class LimitadorIntentos {
+
+    /**
+     * Foto del limitador.
+     *
+     * @param sinLugar          intentos de claves que no entraron en la tabla
+     * @param fallosDescartados fallidos pendientes que se perdieron al desalojar
+     */
+    public record Estadisticas(int usernames, int origenes, long permitidos, long limitadosPorUsername,
+                               long limitadosPorOrigen, long desalojadas, long sinLugar, long fallosDescartados) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "LimitadorIntentos{usernames=%d, origenes=%d, permitidos=%d, limitadosUsername=%d, " +
+                            "limitadosOrigen=%d, desalojadas=%d, sinLugar=%d, fallosDescartados=%d}",
+                    usernames, origenes, permitidos, limitadosPorUsername, limitadosPorOrigen,
+                    desalojadas, sinLugar, fallosDescartados);
+        }
+    }
+
+    public static final int CAPACIDAD_USERNAME_POR_DEFECTO = 10;
+    public static final long INTERVALO_USERNAME_MS_POR_DEFECTO = 60_000;
+    public static final int CAPACIDAD_ORIGEN_POR_DEFECTO = 50;
+    public static final long INTERVALO_ORIGEN_MS_POR_DEFECTO = 1_000;
+    public static final int MAX_CLAVES_POR_DEFECTO = 100_000;
+
+    private final Tabla usernames;
+    private final Tabla origenes;
+
+    private final LongAdder permitidos = new LongAdder();
+    private final LongAdder limitadosPorUsername = new LongAdder();
+    private final LongAdder limitadosPorOrigen = new LongAdder();
+
+    /**
+     * @param capacidadUsername  ráfaga de intentos permitida por username
+     * @param intervaloUsernameMs cada cuánto se recupera un intento por username
+     * @param capacidadOrigen    ráfaga de intentos permitida por origen
+     * @param intervaloOrigenMs  cada cuánto se recupera un intento por origen
+     * @param maxClaves          máximo de claves en memoria, en cada tabla
+     */
+    public LimitadorIntentos(int capacidadUsername, long intervaloUsernameMs, int capacidadOrigen,
+                             long intervaloOrigenMs, int maxClaves) {
+        if (capacidadUsername <= 0 || intervaloUsernameMs <= 0 || capacidadOrigen <= 0 || intervaloOrigenMs <= 0
+                || maxClaves <= 0) {
+            throw new IllegalArgumentException("Capacidades, intervalos y máximo de claves deben ser positivos");
+        }
+        this.usernames = new Tabla(capacidadUsername, TimeUnit.MILLISECONDS.toNanos(intervaloUsernameMs), maxClaves);
+        this.origenes = new Tabla(capacidadOrigen, TimeUnit.MILLISECONDS.toNanos(intervaloOrigenMs), maxClaves);
+    }
+
+    /**
+     * Crea un limitador con las propiedades limitador.* (ver
+     * db.properties.ejemplo), o null si limitador.maxClaves es 0.
+     */
+    public static LimitadorIntentos desdeConfiguracion(Configuracion config) {
+        int maxClaves = config.getInt("limitador.maxClaves", MAX_CLAVES_POR_DEFECTO);
+        if (maxClaves == 0) {
+            return null;
+        }
+        return new LimitadorIntentos(
+                config.getInt("limitador.username.capacidad", CAPACIDAD_USERNAME_POR_DEFECTO),
+                config.getLong("limitador.username.intervaloMs", INTERVALO_USERNAME_MS_POR_DEFECTO),
+                config.getInt("limitador.origen.capacidad", CAPACIDAD_ORIGEN_POR_DEFECTO),
+                config.getLong("limitador.origen.intervaloMs", INTERVALO_ORIGEN_MS_POR_DEFECTO),
+                maxClaves);
+    }
+
+    /**
+     * Consume un intento del username y otro del origen.
+     *
+     * @param origen null si no se conoce: solo se limita por username
+     * @return false si alguno de los dos agotó sus intentos (en ese caso no
+     *         se consume nada)
+     */
+    public boolean intentar(String username, String origen) {
+        long ahora = System.nanoTime();
+        if (origen != null && !origenes.consumir(origen, ahora)) {
+            limitadosPorOrigen.increment();
+            return false;
+        }
+        if (!usernames.consumir(clave(username), ahora)) {
+            if (origen != null) {
+                origenes.devolver(origen, ahora);
+            }
+            limitadosPorUsername.increment();
+            return false;
+        }
+        permitidos.increment();
+        return true;
+    }
+
+    /**
+     * Anota un intento fallido del username, todavía sin grabar en la BD.
+     *
+     * @return fallidos pendientes del username, incluido este, o -1 si el
+     *         username no tiene lugar en la tabla (hay que grabarlo ya)
+     */
+    public int registrarFallo(String username) {
+        return usernames.sumarPendientes(clave(username), 1, System.nanoTime());
+    }
+
+    /**
+     * Retira los fallidos pendientes del username para grabarlos. Si dos
+     * hilos llegan al umbral a la vez, solo uno los recibe.
+     *
+     * @return cantidad retirada (0 si no había, o si los tomó otro hilo)
+     */
+    public int tomarPendientes(String username) {
+        return usernames.tomarPendientes(clave(username));
+    }
+
+    /**
+     * Devuelve fallidos que se tomaron y no se pudieron grabar.
+     */
+    public void devolverPendientes(String username, int cantidad) {
+        if (cantidad > 0) {
+            usernames.sumarPendientes(clave(username), cantidad, System.nanoTime());
+        }
+    }
+
+    /**
+     * Login exitoso: el username vuelve a empezar (cubeta llena, sin
+     * fallidos pendientes) y al origen se le devuelve el intento.
+     */
+    public void registrarExito(String username, String origen) {
+        usernames.retirar(clave(username));
+        if (origen != null) {
+            origenes.devolver(origen, System.nanoTime());
+        }
+    }
+
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(usernames.cubetas.size(), origenes.cubetas.size(), permitidos.sum(),
+                limitadosPorUsername.sum(), limitadosPorOrigen.sum(),
+                usernames.desalojadas.sum() + origenes.desalojadas.sum(),
+                usernames.sinLugar.sum() + origenes.sinLugar.sum(), usernames.fallosDescartados.sum());
+    }
+
+    // Misma normalización que la BD: "Admin", "admin " y "ádmin" comparten cubeta
+    private static String clave(String username) {
+        return UsuarioDAO.normalizar(username);
+    }
+
+    // ========================================================================
+    // Cubetas
+    // ========================================================================
+
+    private static final class Cubeta {
+        // Momento (System.nanoTime) en que la cubeta vuelve a estar llena
+        final AtomicLong llenaEn;
+        // Fallidos sin grabar; RETIRADA cuando la cubeta ya salió del mapa
+        final AtomicInteger pendientes = new AtomicInteger();
+
+        Cubeta(long ahora) {
+            this.llenaEn = new AtomicLong(ahora);
+        }
+    }
+
+    private static final int RETIRADA = -1;
+
+    private static final class Tabla {
+        final long intervaloNanos;
+        final long ventanaNanos;
+        final int maxClaves;
+        final ConcurrentHashMap<String, Cubeta> cubetas = new ConcurrentHashMap<>();
+
+        // Un solo hilo desaloja a la vez y, si no liberó lugar, no se
+        // vuelve a recorrer el mapa hasta que pase un intervalo
+        final AtomicBoolean desalojando = new AtomicBoolean();
+        final AtomicLong proximoDesalojo = new AtomicLong(System.nanoTime());
+
+        final LongAdder desalojadas = new LongAdder();
+        final LongAdder sinLugar = new LongAdder();
+        final LongAdder fallosDescartados = new LongAdder();
+
+        Tabla(int capacidad, long intervaloNanos, int maxClaves) {
+            this.intervaloNanos = intervaloNanos;
+            this.ventanaNanos = capacidad * intervaloNanos;
+            this.maxClaves = maxClaves;
+        }
+
+        /**
+         * Consume una ficha. Con la cubeta llena, llenaEn queda en el pasado;
+         * cada ficha consumida la corre un intervalo hacia adelante. No hay
+         * fichas cuando consumir otra la dejaría más de capacidad intervalos
+         * adelante.
+         */
+        boolean consumir(String clave, long ahora) {
+            Cubeta cubeta = obtener(clave, ahora);
+            if (cubeta == null) {
+                return true;
+            }
+            while (true) {
+                long llenaEn = cubeta.llenaEn.get();
+                long nueva = (llenaEn - ahora > 0 ? llenaEn : ahora) + intervaloNanos;
+                if (nueva - ahora > ventanaNanos) {
+                    return false;
+                }
+                if (cubeta.llenaEn.compareAndSet(llenaEn, nueva)) {
+                    return true;
+                }
+            }
+        }
+
+        void devolver(String clave, long ahora) {
+            Cubeta cubeta = cubetas.get(clave);
+            if (cubeta == null) {
+                return;
+            }
+            while (true) {
+                long llenaEn = cubeta.llenaEn.get();
+                if (llenaEn - ahora <= 0) {
+                    return;
+                }
+                long nueva = llenaEn - intervaloNanos - ahora > 0 ? llenaEn - intervaloNanos : ahora;
+                if (cubeta.llenaEn.compareAndSet(llenaEn, nueva)) {
+                    return;
+                }
+            }
+        }
+
+        int sumarPendientes(String clave, int cantidad, long ahora) {
+            while (true) {
+                Cubeta cubeta = obtener(clave, ahora);
+                if (cubeta == null) {
+                    return -1;
+                }
+                int actual = cubeta.pendientes.get();
+                // Si la desalojaron entre obtener y sumar se usa la nueva
+                if (actual != RETIRADA && cubeta.pendientes.compareAndSet(actual, actual + cantidad)) {
+                    return actual + cantidad;
+                }
+            }
+        }
+
+        int tomarPendientes(String clave) {
+            Cubeta cubeta = cubetas.get(clave);
+            if (cubeta == null) {
+                return 0;
+            }
+            while (true) {
+                int actual = cubeta.pendientes.get();
+                if (actual <= 0) {
+                    return 0;
+                }
+                if (cubeta.pendientes.compareAndSet(actual, 0)) {
+                    return actual;
+                }
+            }
+        }
+
+        void retirar(String clave) {
+            Cubeta cubeta = cubetas.get(clave);
+            if (cubeta != null) {
+                cubeta.pendientes.set(RETIRADA);
+                cubetas.remove(clave, cubeta);
+            }
+        }
+
+        private Cubeta obtener(String clave, long ahora) {
+            Cubeta cubeta = cubetas.get(clave);
+            if (cubeta != null) {
+                return cubeta;
+            }
+            if (cubetas.size() >= maxClaves) {
+                desalojar(ahora);
+                if (cubetas.size() >= maxClaves) {
+                    sinLugar.increment();
+                    return null;
+                }
+            }
+            return cubetas.computeIfAbsent(clave, c -> new Cubeta(ahora));
+        }
+
+        /**
+         * Libera hasta dejar la tabla al 90%: primero las claves inactivas
+         * sin fallidos pendientes, después las inactivas con pendientes. Las
+         * que están limitando (cubeta sin llenar) no se tocan.
+         */
+        private void desalojar(long ahora) {
+            if (ahora - proximoDesalojo.get() < 0 || !desalojando.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                int objetivo = maxClaves - maxClaves / 10;
+                for (boolean conPendientes : new boolean[]{false, true}) {
+                    for (Map.Entry<String, Cubeta> entrada : cubetas.entrySet()) {
+                        if (cubetas.size() < objetivo) {
+                            return;
+                        }
+                        Cubeta cubeta = entrada.getValue();
+                        if (cubeta.llenaEn.get() - ahora > 0) {
+                            continue;
+                        }
+                        int pendientes = cubeta.pendientes.get();
+                        if (pendientes == RETIRADA || (pendientes > 0 && !conPendientes)
+                                || !cubeta.pendientes.compareAndSet(pendientes, RETIRADA)) {
+                            continue;
+                        }
+                        if (cubetas.remove(entrada.getKey(), cubeta)) {
+                            desalojadas.increment();
+                            fallosDescartados.add(pendientes);
+                        }
+                    }
+                }
+                // No alcanzó: todas las claves están limitando
+                proximoDesalojo.set(ahora + intervaloNanos);
+            } finally {
+                desalojando.set(false);
+            }
+        }
+    }
+}
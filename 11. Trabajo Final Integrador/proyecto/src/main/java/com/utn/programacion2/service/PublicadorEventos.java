@@ -0,0 +1,412 @@
+package ar.edu.utn.tup.service;
+
+import ar.edu.utn.tup.config.DatabaseConfig;
+import ar.edu.utn.tup.dao.EventoUsuarioDAO;
+import ar.edu.utn.tup.entities.EventoUsuario;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Publica en el proceso los cambios de usuarios y credenciales, para que
+ * quien tenga copias locales (cachés, vistas) se entere sin volver a
+ * consultar todo.
+ *
+ * Los eventos pasan por un outbox (tabla evento_usuario):
+ * 1. El servicio anota el evento con la conexión de su transacción (ver
+ *    escribir). Si hay ROLLBACK el evento desaparece con el cambio.
+ * 2. Después del COMMIT avisa al relay, sin esperarlo: el hilo que hizo el
+ *    cambio nunca se bloquea por los suscriptores.
+ * 3. El relay (un hilo propio) lee los eventos confirmados en orden de id,
+ *    los deja en la cola de cada suscriptor y recién entonces los borra del
+ *    outbox. Además revisa el outbox cada intervaloMs, por si algún aviso
+ *    se perdió o quedaron eventos de una corrida anterior.
+ *
+ * Cada evento se entrega al menos una vez: si el proceso se cae entre la
+ * entrega y el borrado, se vuelve a entregar al arrancar. Se asume un solo
+ * relay por base: con varias instancias, la primera que lee un evento lo
+ * borra y las demás no lo ven. Los eventos van a los suscriptores que haya
+ * en ese momento; sin suscriptores, se borran igual.
+ *
+ * Cada suscriptor tiene una cola acotada y un hilo que le entrega los
+ * eventos de a uno. Cuando la cola está llena decide su política:
+ * - DESCARTAR_NUEVO: el evento que no entra se pierde (se cuenta)
+ * - DESCARTAR_VIEJO: se pierde el más viejo de la cola y entra el nuevo
+ * - ESPERAR: el relay espera a que haya lugar (contrapresión). Mientras
+ *   tanto los eventos se acumulan en el outbox, no en memoria, y los demás
+ *   suscriptores también esperan.
+ */
+public final class PublicadorEventos {
+
+    /**
+     * Qué hacer cuando la cola de un suscriptor está llena.
+     */
+    public enum Politica {
+        DESCARTAR_NUEVO,
+        DESCARTAR_VIEJO,
+        ESPERAR
+    }
+
+    /**
+     * Escritura que corre dentro de la transacción del evento.
+     */
+    @FunctionalInterface
+    public interface Escritura {
+        /**
+         * @return true si hubo cambio (y por lo tanto evento)
+         */
+        boolean ejecutar(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Foto de las métricas del publicador.
+     */
+    public record Estadisticas(int suscriptores, long relevados, long entregados, long descartados,
+                               long erroresSuscriptores, long erroresRelay) {
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "PublicadorEventos{suscriptores=%d, relevados=%d, entregados=%d, descartados=%d, " +
+                            "erroresSuscriptores=%d, erroresRelay=%d}",
+                    suscriptores, relevados, entregados, descartados, erroresSuscriptores, erroresRelay);
+        }
+    }
+
+    public static final long INTERVALO_MS_POR_DEFECTO = 1_000;
+    public static final int TAMANIO_TANDA = 200;
+
+    // Cada cuánto revisa una espera (ESPERAR, cierre) si tiene que cortar
+    private static final long ESPERA_MS = 100;
+
+    private final EventoUsuarioDAO eventoDAO = new EventoUsuarioDAO();
+    private final long intervaloMs;
+    private final List<Suscripcion> suscripciones = new CopyOnWriteArrayList<>();
+    private final Semaphore avisos = new Semaphore(0);
+    private final AtomicBoolean cerrado = new AtomicBoolean(false);
+    private final Thread relay;
+    private final Thread ganchoApagado;
+
+    private final LongAdder relevados = new LongAdder();
+    private final LongAdder erroresRelay = new LongAdder();
+
+    public PublicadorEventos() {
+        this(INTERVALO_MS_POR_DEFECTO);
+    }
+
+    /**
+     * @param intervaloMs cada cuánto revisa el outbox sin aviso
+     */
+    public PublicadorEventos(long intervaloMs) {
+        if (intervaloMs <= 0) {
+            throw new IllegalArgumentException("El intervalo debe ser positivo");
+        }
+        this.intervaloMs = intervaloMs;
+
+        this.relay = new Thread(this::relevarMientrasAbierto, "relay-eventos");
+        relay.setDaemon(true);
+        relay.start();
+
+        this.ganchoApagado = new Thread(this::cerrar, "relay-eventos-apagado");
+        Runtime.getRuntime().addShutdownHook(ganchoApagado);
+    }
+
+    // ========================================================================
+    // Suscripción
+    // ========================================================================
+
+    /**
+     * Suscribe un receptor. Se le entregan los eventos en orden, desde un hilo
+     * propio de la suscripción; si lanza una excepción se cuenta y se sigue
+     * con el próximo evento.
+     *
+     * @param capacidad máximo de eventos en la cola del suscriptor
+     */
+    public Suscripcion suscribir(String nombre, Consumer<EventoUsuario> receptor, int capacidad, Politica politica) {
+        if (receptor == null || politica == null || capacidad <= 0) {
+            throw new IllegalArgumentException("Receptor, política y capacidad positiva son obligatorios");
+        }
+        if (cerrado.get()) {
+            throw new IllegalStateException("El publicador está cerrado");
+        }
+        Suscripcion suscripcion = new Suscripcion(nombre, receptor, capacidad, politica);
+        suscripciones.add(suscripcion);
+        return suscripcion;
+    }
+
+    /**
+     * Suscriptor con su cola y su hilo de entrega.
+     */
+    public final class Suscripcion {
+        private final String nombre;
+        private final Consumer<EventoUsuario> receptor;
+        private final Politica politica;
+        private final ArrayBlockingQueue<EventoUsuario> cola;
+        private final Thread hilo;
+        private volatile boolean cancelada;
+
+        private final LongAdder entregados = new LongAdder();
+        private final LongAdder descartados = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+
+        private Suscripcion(String nombre, Consumer<EventoUsuario> receptor, int capacidad, Politica politica) {
+            this.nombre = nombre;
+            this.receptor = receptor;
+            this.politica = politica;
+            this.cola = new ArrayBlockingQueue<>(capacidad);
+            this.hilo = new Thread(this::entregarMientrasActiva, "eventos-" + nombre);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+
+        /**
+         * Deja de recibir eventos. Los que ya estaban en la cola se descartan.
+         */
+        public void cancelar() {
+            cancelada = true;
+            suscripciones.remove(this);
+            hilo.interrupt();
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public int getEnCola() {
+            return cola.size();
+        }
+
+        public long getEntregados() {
+            return entregados.sum();
+        }
+
+        public long getDescartados() {
+            return descartados.sum();
+        }
+
+        public long getErrores() {
+            return errores.sum();
+        }
+
+        /**
+         * Pone el evento en la cola según la política.
+         *
+         * @return false si no se pudo porque se está cerrando: el evento
+         *         tiene que quedar en el outbox
+         */
+        private boolean ofrecer(EventoUsuario evento) throws InterruptedException {
+            if (cancelada || cola.offer(evento)) {
+                return true;
+            }
+            switch (politica) {
+                case DESCARTAR_NUEVO -> descartados.increment();
+                case DESCARTAR_VIEJO -> {
+                    // Si el hilo de entrega vació la cola mientras tanto, no se descarta nada
+                    while (!cola.offer(evento)) {
+                        if (cola.poll() != null) {
+                            descartados.increment();
+                        }
+                    }
+                }
+                case ESPERAR -> {
+                    while (!cola.offer(evento, ESPERA_MS, TimeUnit.MILLISECONDS)) {
+                        if (cancelada) {
+                            return true;
+                        }
+                        if (cerrado.get()) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void entregarMientrasActiva() {
+            while (!cancelada) {
+                EventoUsuario evento;
+                try {
+                    evento = cola.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // cancelar() o cerrar(): se revisa la condición del while
+                    continue;
+                }
+                if (evento == null) {
+                    if (cerrado.get()) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    receptor.accept(evento);
+                    entregados.increment();
+                } catch (RuntimeException e) {
+                    errores.increment();
+                    System.err.println("✗ Error del suscriptor " + nombre + " con " + evento + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ========================================================================
+    // Escritura con outbox (la llaman los servicios)
+    // ========================================================================
+
+    /**
+     * Corre la escritura y anota el evento en la misma transacción. Después
+     * del COMMIT avisa al relay; si algo falla hace ROLLBACK y no hay evento.
+     *
+     * @return lo que devolvió la escritura
+     */
+    public boolean escribir(EventoUsuario.Tipo tipo, Long usuarioId, Escritura escritura) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                boolean huboCambio = escritura.ejecutar(conn);
+                if (huboCambio) {
+                    anotar(tipo, List.of(usuarioId), conn);
+                }
+                conn.commit();
+                if (huboCambio) {
+                    avisar();
+                }
+                return huboCambio;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Anota eventos con la conexión de una transacción en curso. Quien llama
+     * hace el COMMIT y después avisar().
+     */
+    public void anotar(EventoUsuario.Tipo tipo, List<Long> usuarioIds, Connection conn) throws SQLException {
+        eventoDAO.anotar(tipo, usuarioIds, LocalDateTime.now(), conn);
+    }
+
+    /**
+     * Despierta al relay. No bloquea.
+     */
+    public void avisar() {
+        avisos.release();
+    }
+
+    // ========================================================================
+    // Relay
+    // ========================================================================
+
+    private void relevarMientrasAbierto() {
+        while (!cerrado.get()) {
+            boolean hayMas = false;
+            try {
+                hayMas = relevar() == TAMANIO_TANDA;
+            } catch (InterruptedException e) {
+                return;
+            } catch (SQLException | RuntimeException e) {
+                erroresRelay.increment();
+                System.err.println("✗ Error al relevar eventos: " + e.getMessage());
+            }
+            if (hayMas) {
+                continue;
+            }
+            try {
+                avisos.tryAcquire(intervaloMs, TimeUnit.MILLISECONDS);
+                // Una sola pasada atiende todos los avisos acumulados
+                avisos.drainPermits();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Entrega una tanda del outbox y borra lo entregado.
+     *
+     * @return cantidad de eventos leídos
+     */
+    private int relevar() throws SQLException, InterruptedException {
+        List<EventoUsuario> tanda = eventoDAO.buscarPendientes(TAMANIO_TANDA);
+        List<Long> entregados = new ArrayList<>(tanda.size());
+        try {
+            for (EventoUsuario evento : tanda) {
+                for (Suscripcion suscripcion : suscripciones) {
+                    if (!suscripcion.ofrecer(evento)) {
+                        return tanda.size();
+                    }
+                }
+                entregados.add(evento.id());
+            }
+            return tanda.size();
+        } finally {
+            // También si se cortó a mitad de tanda: lo entregado no se repite
+            eventoDAO.eliminar(entregados);
+            relevados.add(entregados.size());
+        }
+    }
+
+    // ========================================================================
+    // Cierre y métricas
+    // ========================================================================
+
+    /**
+     * Detiene el relay y los hilos de entrega. Los suscriptores terminan de
+     * recibir lo que ya tenían en cola; lo que quedó en el outbox se entrega
+     * en la próxima corrida. Se puede llamar más de una vez; también se
+     * ejecuta al apagarse la JVM.
+     */
+    public void cerrar() {
+        if (!cerrado.compareAndSet(false, true)) {
+            return;
+        }
+        // Sin interrupt: podría cortar al relay en medio de una llamada JDBC.
+        // El aviso lo despierta y una espera de ESPERAR corta sola
+        avisar();
+        try {
+            relay.join(TimeUnit.SECONDS.toMillis(5));
+            for (Suscripcion suscripcion : suscripciones) {
+                suscripcion.hilo.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (Thread.currentThread() != ganchoApagado) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(ganchoApagado);
+            } catch (IllegalStateException e) {
+                // La JVM ya se está apagando
+            }
+        }
+    }
+
+    public List<Suscripcion> getSuscripciones() {
+        return List.copyOf(suscripciones);
+    }
+
+    public Estadisticas getEstadisticas() {
+        long entregados = 0;
+        long descartados = 0;
+        long errores = 0;
+        for (Suscripcion suscripcion : suscripciones) {
+            entregados += suscripcion.getEntregados();
+            descartados += suscripcion.getDescartados();
+            errores += suscripcion.getErrores();
+        }
+        return new Estadisticas(suscripciones.size(), relevados.sum(), entregados, descartados, errores,
+                erroresRelay.sum());
+    }
+}
@@ -0,0 +1,69 @@
+package ar.edu.utn.tup.service;
+
+import ar.edu.utn.tup.entities.Usuario;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de una alta masiva de usuarios.
+ *
+ * Un lote no es "todo o nada": cada fila se crea o se rechaza por separado.
+ * Acá quedan los usuarios creados (con su credencial) y, para cada fila
+ * rechazada, su posición en la lista original y el motivo.
+ */
+public class ResultadoLote {
+
+    /**
+     * Fila que no se pudo crear.
+     *
+     * @param indice Posición de la fila en la lista recibida (base 0)
+     * @param username Username de la fila, para identificarla en reportes
+     * @param motivo Mensaje de validación o de base de datos
+     * @param reintentable true si la fila no tiene nada de malo y se rechazó
+     *                     porque el sistema estaba saturado: más tarde puede
+     *                     crearse
+     */
+    public record Fallo(int indice, String username, String motivo, boolean reintentable) {
+    }
+
+    private final List<Usuario> creados = new ArrayList<>();
+    private final List<Fallo> fallos = new ArrayList<>();
+
+    void agregarCreado(Usuario usuario) {
+        creados.add(usuario);
+    }
+
+    void agregarFallo(int indice, Usuario usuario, String motivo) {
+        agregarFallo(indice, usuario, motivo, false);
+    }
+
+    void agregarFallo(int indice, Usuario usuario, String motivo, boolean reintentable) {
+        fallos.add(new Fallo(indice, usuario != null ? usuario.getUsername() : null, motivo, reintentable));
+    }
+
+    public List<Usuario> getCreados() {
+        return Collections.unmodifiableList(creados);
+    }
+
+    public List<Fallo> getFallos() {
+        return Collections.unmodifiableList(fallos);
+    }
+
+    public int getCantidadCreados() {
+        return creados.size();
+    }
+
+    public int getCantidadFallidos() {
+        return fallos.size();
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoLote{" +
+                "creados=" + creados.size() +
+                ", fallidos=" + fallos.size() +
+                '}';
+    }
+}
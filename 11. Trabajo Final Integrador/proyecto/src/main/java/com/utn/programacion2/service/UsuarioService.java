@@ -4,25 +4,78 @@ import ar.edu.utn.tup.config.DatabaseConfig;
 import ar.edu.utn.tup.dao.CredencialAccesoDAO;
 import ar.edu.utn.tup.dao.UsuarioDAO;
 import ar.edu.utn.tup.entities.CredencialAcceso;
+import ar.edu.utn.tup.entities.EventoUsuario;
 import ar.edu.utn.tup.entities.Usuario;
+import ar.edu.utn.tup.entities.UsuarioResumen;
+import ar.edu.utn.tup.security.EjecutorHashing;
+import ar.edu.utn.tup.security.PasswordHasher;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class UsuarioService {
 
     private final UsuarioDAO usuarioDAO;
     private final CredencialAccesoDAO credencialDAO;
+    private final EjecutorHashing ejecutorHashing = EjecutorHashing.getInstancia();
     private static final Pattern EMAIL_PATTERN = Pattern.compile(
             "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"
     );
 
+    // Modo optimista: no se consulta antes de insertar y los duplicados se
+    // detectan por las restricciones UNIQUE de la tabla usuario
+    private volatile boolean verificacionOptimista = false;
+
+    // Caché de lectura para búsquedas por id, username y email
+    private static final int CACHE_MAX_ENTRADAS = 10_000;
+    private static final long CACHE_TTL_MS = 60_000;
+    private final CacheUsuarios cache;
+
+    // Filtro de Bloom para chequear disponibilidad sin ir a la BD (null =
+    // desactivado). Mientras se (re)construye, el nuevo está en filtroEnCarga:
+    // recibe las altas pero todavía no responde consultas
+    private volatile FiltroDisponibilidad filtroDisponibilidad;
+    private volatile FiltroDisponibilidad filtroEnCarga;
+
+    // Eventos de cambios con outbox (null = desactivados, modo por defecto)
+    private volatile PublicadorEventos eventos;
+
     public UsuarioService() {
+        this(new CacheUsuarios(CACHE_MAX_ENTRADAS, CACHE_TTL_MS));
+    }
+
+    public UsuarioService(CacheUsuarios cache) {
         this.usuarioDAO = new UsuarioDAO();
         this.credencialDAO = new CredencialAccesoDAO();
+        this.cache = cache;
+    }
+
+    public CacheUsuarios.Estadisticas getEstadisticasCache() {
+        return cache.getEstadisticas();
+    }
+
+    public boolean isVerificacionOptimista() {
+        return verificacionOptimista;
+    }
+
+    public void setVerificacionOptimista(boolean verificacionOptimista) {
+        this.verificacionOptimista = verificacionOptimista;
     }
 
     // ========================================================================
@@ -32,6 +85,12 @@ public class UsuarioService {
     /**
      * Crea usuario + credencial en UNA transacción atómica.
      * Este es el método principal que demuestra el manejo de transacciones.
+     *
+     * El chequeo de duplicados corre sobre la misma conexión de la transacción
+     * y en una sola consulta. Igual puede haber una carrera entre dos altas
+     * simultáneas, así que la violación de uq_usuario_username/uq_usuario_email
+     * se traduce a la misma IllegalArgumentException. En modo optimista el
+     * chequeo previo se omite y solo se confía en la restricción UNIQUE.
      */
     public Usuario crearUsuarioConCredencial(Usuario usuario, String passwordPlano)
             throws SQLException, IllegalArgumentException {
@@ -39,23 +98,40 @@ public class UsuarioService {
         validarDatosUsuario(usuario);
         validarPassword(passwordPlano);
 
+        // Hashear ANTES de tomar la conexión: el KDF es lento a propósito
+        // y no queremos retener una conexión del pool mientras tanto
+        PasswordHasher.HashYSalt hashYSalt;
+        try {
+            hashYSalt = ejecutorHashing.hashear(passwordPlano);
+        } catch (RejectedExecutionException e) {
+            throw CredencialAccesoService.saturado(e);
+        }
+        return crearConHash(usuario, hashYSalt);
+    }
+
+    // La transacción del alta, con la contraseña ya hasheada (el reintento de
+    // un tramo de crearEnLote reutiliza el hash en lugar de repetir el KDF)
+    private Usuario crearConHash(Usuario usuario, PasswordHasher.HashYSalt hashYSalt) throws SQLException {
+        PublicadorEventos eventos = this.eventos;
+
         Connection conn = null;
 
         try {
             conn = DatabaseConfig.getConnection();
             conn.setAutoCommit(false);  // Iniciar transacción
 
-            // Verificar duplicados
-            if (usuarioDAO.buscarPorUsername(usuario.getUsername()) != null) {
-                throw new IllegalArgumentException(
-                        "El username '" + usuario.getUsername() + "' ya está en uso"
-                );
-            }
-
-            if (usuarioDAO.buscarPorEmail(usuario.getEmail()) != null) {
-                throw new IllegalArgumentException(
-                        "El email '" + usuario.getEmail() + "' ya está registrado"
-                );
+            // Verificar duplicados (una consulta, dentro de la transacción)
+            if (!verificacionOptimista) {
+                Usuario existente = usuarioDAO.buscarPorUsernameOEmail(
+                        usuario.getUsername(), usuario.getEmail(), conn);
+                if (existente != null) {
+                    // Con la comparación de la collation: "José" choca con "jose"
+                    if (UsuarioDAO.normalizar(existente.getUsername())
+                            .equals(UsuarioDAO.normalizar(usuario.getUsername()))) {
+                        throw usernameEnUso(usuario, null);
+                    }
+                    throw emailRegistrado(usuario, null);
+                }
             }
 
             // Preparar usuario
@@ -63,6 +139,10 @@ public class UsuarioService {
             usuario.setActivo(true);
             usuario.setFechaRegistro(LocalDateTime.now());
 
+            // Al filtro antes del INSERT: una vez confirmado, nunca figura
+            // como libre. Si después hay ROLLBACK solo queda un falso positivo
+            agregarAlFiltro(usuario);
+
             // Insertar usuario
             Usuario usuarioCreado = usuarioDAO.crear(usuario, conn);
 
@@ -70,9 +150,8 @@ public class UsuarioService {
             CredencialAcceso credencial = new CredencialAcceso();
             credencial.setUsuarioId(usuarioCreado.getId());
 
-            String[] hashYSalt = hashearPassword(passwordPlano);
-            credencial.setHashPassword(hashYSalt[0]);
-            credencial.setSalt(hashYSalt[1]);
+            credencial.setHashPassword(hashYSalt.hash());
+            credencial.setSalt(hashYSalt.salt());
             credencial.setUltimoCambio(LocalDateTime.now());
             credencial.setRequiereReset(false);
             credencial.setIntentosFallidos(0);
@@ -81,8 +160,16 @@ public class UsuarioService {
             // Insertar credencial
             CredencialAcceso credencialCreada = credencialDAO.crear(credencial, conn);
 
+            // El evento va en la misma transacción (outbox)
+            if (eventos != null) {
+                eventos.anotar(EventoUsuario.Tipo.CREADO, List.of(usuarioCreado.getId()), conn);
+            }
+
             // COMMIT - todo salió bien
             conn.commit();
+            if (eventos != null) {
+                eventos.avisar();
+            }
 
             usuarioCreado.setCredencialAcceso(credencialCreada);
             System.out.println("✓ Usuario y credencial creados exitosamente en transacción");
@@ -98,6 +185,12 @@ public class UsuarioService {
                     System.err.println("✗ Error al hacer rollback: " + rollbackEx.getMessage());
                 }
             }
+            if (e instanceof SQLException sqlEx) {
+                IllegalArgumentException duplicado = traducirViolacionUnicidad(sqlEx, usuario);
+                if (duplicado != null) {
+                    throw duplicado;
+                }
+            }
             throw e;
 
         } finally {
@@ -112,6 +205,267 @@ public class UsuarioService {
         }
     }
 
+    /**
+     * Si la excepción es una violación de uq_usuario_username o uq_usuario_email
+     * devuelve la IllegalArgumentException equivalente al chequeo previo.
+     * Para cualquier otro error devuelve null.
+     */
+    private IllegalArgumentException traducirViolacionUnicidad(SQLException e, Usuario usuario) {
+        // SQLState clase 23 = violación de integridad
+        if (e.getSQLState() == null || !e.getSQLState().startsWith("23") || e.getMessage() == null) {
+            return null;
+        }
+        String mensaje = e.getMessage().toLowerCase(Locale.ROOT);
+        if (mensaje.contains("uq_usuario_username")) {
+            return usernameEnUso(usuario, e);
+        }
+        if (mensaje.contains("uq_usuario_email")) {
+            return emailRegistrado(usuario, e);
+        }
+        return null;
+    }
+
+    private IllegalArgumentException usernameEnUso(Usuario usuario, SQLException causa) {
+        return new IllegalArgumentException(
+                "El username '" + usuario.getUsername() + "' ya está en uso", causa);
+    }
+
+    private IllegalArgumentException emailRegistrado(Usuario usuario, SQLException causa) {
+        return new IllegalArgumentException(
+                "El email '" + usuario.getEmail() + "' ya está registrado", causa);
+    }
+
+    // ========================================================================
+    // ALTA MASIVA (LOTES)
+    // ========================================================================
+
+    public static final int TAMANIO_LOTE_POR_DEFECTO = 500;
+
+    // Para que ImportadorUsuarios no arme tandas más grandes que la cola
+    int getCapacidadColaHashing() {
+        return ejecutorHashing.getCapacidadCola();
+    }
+
+    public ResultadoLote crearUsuariosConCredencialEnLote(List<Usuario> usuarios, List<String> passwordsPlanos)
+            throws SQLException {
+        return crearUsuariosConCredencialEnLote(usuarios, passwordsPlanos, TAMANIO_LOTE_POR_DEFECTO);
+    }
+
+    /**
+     * Crea muchos usuarios con su credencial usando JDBC batch.
+     *
+     * La lista se procesa en tramos de tamanioLote filas. Cada tramo:
+     * 1. Chequea duplicados contra la BD con UNA consulta (IN sobre username/email)
+     * 2. Inserta usuarios y credenciales con un batch cada uno
+     * 3. Hace commit del tramo
+     *
+     * Las filas inválidas o duplicadas se reportan en el resultado sin afectar
+     * al resto. Si un tramo falla en la BD (por ejemplo, otro proceso insertó el
+     * mismo username entre el chequeo y el INSERT) se revierte solo ese tramo y
+     * sus filas se reintentan de a una para aislar la que falla.
+     *
+     * @param usuarios Usuarios a crear
+     * @param passwordsPlanos Contraseña de cada usuario, en la misma posición
+     * @param tamanioLote Cantidad de filas por transacción
+     */
+    public ResultadoLote crearUsuariosConCredencialEnLote(List<Usuario> usuarios, List<String> passwordsPlanos,
+                                                          int tamanioLote) throws SQLException {
+        ResultadoLote resultado = crearEnLote(usuarios, passwordsPlanos, tamanioLote);
+        System.out.println("✓ Lote procesado: " + resultado.getCantidadCreados() + " creados, "
+                + resultado.getCantidadFallidos() + " rechazados");
+        return resultado;
+    }
+
+    // Sin el resumen por consola: ImportadorUsuarios llama una vez por tanda e
+    // informa su propio avance
+    ResultadoLote crearEnLote(List<Usuario> usuarios, List<String> passwordsPlanos, int tamanioLote)
+            throws SQLException {
+        if (usuarios == null || passwordsPlanos == null || usuarios.size() != passwordsPlanos.size()) {
+            throw new IllegalArgumentException("Debe haber exactamente una contraseña por usuario");
+        }
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser positivo");
+        }
+
+        ResultadoLote resultado = new ResultadoLote();
+
+        // Validaciones por fila en paralelo: no tocan la BD ni estado compartido
+        String[] motivos = new String[usuarios.size()];
+        IntStream.range(0, usuarios.size()).parallel().forEach(i -> {
+            try {
+                validarDatosUsuario(usuarios.get(i));
+                validarPassword(passwordsPlanos.get(i));
+            } catch (IllegalArgumentException e) {
+                motivos[i] = e.getMessage();
+            }
+        });
+
+        // Duplicados dentro del propio lote, en orden: gana la primera aparición
+        List<Integer> validos = new ArrayList<>();
+        Set<String> usernamesVistos = new HashSet<>();
+        Set<String> emailsVistos = new HashSet<>();
+        for (int i = 0; i < usuarios.size(); i++) {
+            Usuario usuario = usuarios.get(i);
+            if (motivos[i] != null) {
+                resultado.agregarFallo(i, usuario, motivos[i]);
+            } else if (!usernamesVistos.add(UsuarioDAO.normalizar(usuario.getUsername()))) {
+                resultado.agregarFallo(i, usuario, "Username repetido dentro del lote");
+            } else if (!emailsVistos.add(UsuarioDAO.normalizar(usuario.getEmail()))) {
+                resultado.agregarFallo(i, usuario, "Email repetido dentro del lote");
+            } else {
+                validos.add(i);
+            }
+        }
+
+        for (int desde = 0; desde < validos.size(); desde += tamanioLote) {
+            List<Integer> tramo = validos.subList(desde, Math.min(desde + tamanioLote, validos.size()));
+            procesarTramo(tramo, usuarios, passwordsPlanos, resultado);
+        }
+        return resultado;
+    }
+
+    private void procesarTramo(List<Integer> indices, List<Usuario> usuarios, List<String> passwordsPlanos,
+                               ResultadoLote resultado) throws SQLException {
+        // Duplicados contra la BD: una sola consulta para todo el tramo
+        List<String> usernames = new ArrayList<>(indices.size());
+        List<String> emails = new ArrayList<>(indices.size());
+        for (int i : indices) {
+            usernames.add(usuarios.get(i).getUsername());
+            emails.add(usuarios.get(i).getEmail());
+        }
+
+        Set<String> usernamesExistentes = new HashSet<>();
+        Set<String> emailsExistentes = new HashSet<>();
+        for (Usuario existente : usuarioDAO.buscarPorUsernamesOEmails(usernames, emails)) {
+            usernamesExistentes.add(UsuarioDAO.normalizar(existente.getUsername()));
+            emailsExistentes.add(UsuarioDAO.normalizar(existente.getEmail()));
+        }
+
+        List<Integer> libres = new ArrayList<>();
+        for (int i : indices) {
+            Usuario usuario = usuarios.get(i);
+            if (usernamesExistentes.contains(UsuarioDAO.normalizar(usuario.getUsername()))) {
+                resultado.agregarFallo(i, usuario, usernameEnUso(usuario, null).getMessage());
+            } else if (emailsExistentes.contains(UsuarioDAO.normalizar(usuario.getEmail()))) {
+                resultado.agregarFallo(i, usuario, emailRegistrado(usuario, null).getMessage());
+            } else {
+                libres.add(i);
+            }
+        }
+
+        if (libres.isEmpty()) {
+            return;
+        }
+
+        // Hashear en paralelo en el pool de hashing SIN retener una conexión:
+        // con un tramo grande el KDF tarda segundos. Se envía solo lo que
+        // entra en la cola: sin lugar, se espera el hash pendiente más viejo
+        // del tramo antes de enviar el siguiente. Si igual se rechaza una
+        // tarea (otros llamadores llenaron la cola), esa fila se informa como
+        // fallida
+        List<CompletableFuture<PasswordHasher.HashYSalt>> hashes = new ArrayList<>(libres.size());
+        int masViejo = 0;
+        for (int i : libres) {
+            while (masViejo < hashes.size() && ejecutorHashing.getCapacidadLibre() == 0) {
+                hashes.get(masViejo++).handle((hash, error) -> null).join();
+            }
+            hashes.add(ejecutorHashing.hashearAsync(passwordsPlanos.get(i)));
+        }
+
+        List<Integer> aInsertar = new ArrayList<>(libres.size());
+        List<PasswordHasher.HashYSalt> hashesListos = new ArrayList<>(libres.size());
+        List<Usuario> nuevos = new ArrayList<>(libres.size());
+        List<CredencialAcceso> credenciales = new ArrayList<>(libres.size());
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int j = 0; j < libres.size(); j++) {
+            int i = libres.get(j);
+            Usuario usuario = usuarios.get(i);
+            PasswordHasher.HashYSalt hashYSalt;
+            try {
+                hashYSalt = hashes.get(j).join();
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof RejectedExecutionException rechazo)) {
+                    throw e;
+                }
+                resultado.agregarFallo(i, usuario, CredencialAccesoService.saturado(rechazo).getMessage(), true);
+                continue;
+            }
+            usuario.setEliminado(false);
+            usuario.setActivo(true);
+            usuario.setFechaRegistro(ahora);
+            aInsertar.add(i);
+            hashesListos.add(hashYSalt);
+            nuevos.add(usuario);
+
+            CredencialAcceso credencial = new CredencialAcceso();
+            credencial.setHashPassword(hashYSalt.hash());
+            credencial.setSalt(hashYSalt.salt());
+            credencial.setUltimoCambio(ahora);
+            credencial.setRequiereReset(false);
+            credencial.setIntentosFallidos(0);
+            credencial.setEliminado(false);
+            credenciales.add(credencial);
+        }
+
+        if (nuevos.isEmpty()) {
+            return;
+        }
+
+        // La conexión se pide recién para la transacción: el chequeo de arriba
+        // ya no la protege, pero una carrera con otra alta termina en ROLLBACK
+        // y reintento fila por fila
+        boolean reintentarDeAUno = false;
+        nuevos.forEach(this::agregarAlFiltro);
+        PublicadorEventos eventos = this.eventos;
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                usuarioDAO.crearEnLote(nuevos, conn);
+                List<Long> ids = new ArrayList<>(nuevos.size());
+                for (int j = 0; j < nuevos.size(); j++) {
+                    credenciales.get(j).setUsuarioId(nuevos.get(j).getId());
+                    ids.add(nuevos.get(j).getId());
+                }
+                credencialDAO.crearEnLote(credenciales, conn);
+                if (eventos != null) {
+                    eventos.anotar(EventoUsuario.Tipo.CREADO, ids, conn);
+                }
+                conn.commit();
+                if (eventos != null) {
+                    eventos.avisar();
+                }
+
+                for (int j = 0; j < nuevos.size(); j++) {
+                    nuevos.get(j).setCredencialAcceso(credenciales.get(j));
+                    resultado.agregarCreado(nuevos.get(j));
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                System.err.println("✗ Tramo revertido (ROLLBACK), se reintenta fila por fila: " + e.getMessage());
+                for (Usuario usuario : nuevos) {
+                    usuario.setId(null);
+                }
+                reintentarDeAUno = true;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        // Fuera del try para no retener dos conexiones del pool a la vez. Los
+        // hashes ya están calculados: el reintento no vuelve a pasar por el KDF
+        if (reintentarDeAUno) {
+            for (int j = 0; j < aInsertar.size(); j++) {
+                int i = aInsertar.get(j);
+                Usuario usuario = usuarios.get(i);
+                try {
+                    resultado.agregarCreado(crearConHash(usuario, hashesListos.get(j)));
+                } catch (SQLException | IllegalArgumentException e) {
+                    resultado.agregarFallo(i, usuario, e.getMessage());
+                }
+            }
+        }
+    }
+
     // ========================================================================
     // MÉTODOS PARA COMPATIBILIDAD CON MAIN.JAVA
     // ========================================================================
@@ -125,12 +479,53 @@ public class UsuarioService {
     }
 
     /**
-     * Lista todos los usuarios
+     * Lista todos los usuarios.
+     * Carga la tabla completa en memoria: para tablas grandes usar la
+     * versión paginada o streamTodosLosUsuarios().
      */
     public List<Usuario> listarTodosLosUsuarios() throws SQLException {
         return usuarioDAO.obtenerTodos();
     }
 
+    /**
+     * Lista una página de usuarios (paginación por id).
+     *
+     * @param despuesDeId id del último usuario de la página anterior (null para la primera)
+     * @param tamanioPagina cantidad máxima de usuarios a devolver
+     */
+    public List<Usuario> listarTodosLosUsuarios(Long despuesDeId, int tamanioPagina) throws SQLException {
+        if (tamanioPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        }
+        return usuarioDAO.obtenerPagina(despuesDeId, tamanioPagina);
+    }
+
+    /**
+     * Recorre todos los usuarios con memoria constante.
+     * El Stream debe cerrarse (try-with-resources) para liberar la conexión.
+     */
+    public Stream<Usuario> streamTodosLosUsuarios() throws SQLException {
+        return usuarioDAO.streamTodos();
+    }
+
+    /**
+     * Como streamTodosLosUsuarios(), pero solo con id, username, email y
+     * estado. Pensado para listados: lee menos columnas por fila.
+     */
+    public Stream<UsuarioResumen> streamResumenesDeUsuarios() throws SQLException {
+        return usuarioDAO.streamResumenes();
+    }
+
+    /**
+     * Página de la vista reducida (paginación por id).
+     */
+    public List<UsuarioResumen> listarResumenesDeUsuarios(Long despuesDeId, int tamanioPagina) throws SQLException {
+        if (tamanioPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        }
+        return usuarioDAO.obtenerResumenesPagina(despuesDeId, tamanioPagina);
+    }
+
     /**
      * Busca usuario por ID
      */
@@ -138,7 +533,97 @@ public class UsuarioService {
         if (id == null || id <= 0) {
             throw new IllegalArgumentException("ID inválido");
         }
-        return usuarioDAO.buscarPorId(id);
+        Usuario usuario = cache.buscarPorId(id);
+        if (usuario == null) {
+            long lectura = cache.inicioLectura();
+            usuario = usuarioDAO.buscarPorId(id);
+            cache.guardar(usuario, lectura);
+        }
+        return usuario;
+    }
+
+    /**
+     * Busca varios usuarios por id: primero en la caché y los que faltan en
+     * la BD, con pocas consultas IN sobre una sola conexión (ver
+     * UsuarioDAO.buscarPorIds). Los ids repetidos se buscan una vez.
+     *
+     * @return los encontrados, por id, en el orden de ids (los que no existen
+     *         no están en el mapa)
+     */
+    public Map<Long, Usuario> buscarPorIds(Collection<Long> ids) throws SQLException {
+        if (ids == null) {
+            throw new IllegalArgumentException("Lista de IDs null");
+        }
+        Set<Long> unicos = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("ID inválido: " + id);
+            }
+            unicos.add(id);
+        }
+
+        Map<Long, Usuario> encontrados = cache.buscarPorIds(unicos);
+        if (encontrados.size() < unicos.size()) {
+            List<Long> faltantes = new ArrayList<>(unicos.size() - encontrados.size());
+            for (Long id : unicos) {
+                if (!encontrados.containsKey(id)) {
+                    faltantes.add(id);
+                }
+            }
+            long lectura = cache.inicioLectura();
+            for (Usuario usuario : usuarioDAO.buscarPorIds(faltantes).values()) {
+                cache.guardar(usuario, lectura);
+                encontrados.put(usuario.getId(), usuario);
+            }
+        }
+        return enOrden(unicos, encontrados);
+    }
+
+    /**
+     * Como buscarPorIds, por username. Compara como la collation de la BD
+     * (ver UsuarioDAO.normalizar): de dos usernames que solo difieren en
+     * mayúsculas o acentos queda el primero.
+     *
+     * @return los encontrados, con el username tal como vino, en el orden de
+     *         usernames
+     */
+    public Map<String, Usuario> buscarPorUsernames(Collection<String> usernames) throws SQLException {
+        if (usernames == null) {
+            throw new IllegalArgumentException("Lista de usernames null");
+        }
+        Map<String, String> unicos = new LinkedHashMap<>();
+        for (String username : usernames) {
+            if (username == null || username.trim().isEmpty()) {
+                throw new IllegalArgumentException("Username vacío");
+            }
+            unicos.putIfAbsent(UsuarioDAO.normalizar(username), username);
+        }
+
+        Map<String, Usuario> encontrados = cache.buscarPorUsernames(unicos.values());
+        if (encontrados.size() < unicos.size()) {
+            List<String> faltantes = new ArrayList<>(unicos.size() - encontrados.size());
+            for (String username : unicos.values()) {
+                if (!encontrados.containsKey(username)) {
+                    faltantes.add(username);
+                }
+            }
+            long lectura = cache.inicioLectura();
+            Map<String, Usuario> deLaBase = usuarioDAO.buscarPorUsernames(faltantes);
+            deLaBase.values().forEach(usuario -> cache.guardar(usuario, lectura));
+            encontrados.putAll(deLaBase);
+        }
+        return enOrden(unicos.values(), encontrados);
+    }
+
+    private static <K> Map<K, Usuario> enOrden(Collection<K> claves, Map<K, Usuario> encontrados) {
+        Map<K, Usuario> ordenados = new LinkedHashMap<>(encontrados.size() * 2);
+        for (K clave : claves) {
+            Usuario usuario = encontrados.get(clave);
+            if (usuario != null) {
+                ordenados.put(clave, usuario);
+            }
+        }
+        return ordenados;
     }
 
     /**
@@ -148,7 +633,13 @@ public class UsuarioService {
         if (username == null || username.trim().isEmpty()) {
             throw new IllegalArgumentException("Username vacío");
         }
-        return usuarioDAO.buscarPorUsername(username);
+        Usuario usuario = cache.buscarPorUsername(username);
+        if (usuario == null) {
+            long lectura = cache.inicioLectura();
+            usuario = usuarioDAO.buscarPorUsername(username);
+            cache.guardar(usuario, lectura);
+        }
+        return usuario;
     }
 
     /**
@@ -159,7 +650,17 @@ public class UsuarioService {
         if (usuario.getId() == null) {
             throw new IllegalArgumentException("El usuario debe tener ID");
         }
-        usuarioDAO.actualizar(usuario);
+        Set<Usuario.Campo> campos = usuario.getCamposModificados();
+        boolean cambiaClave = campos.contains(Usuario.Campo.USERNAME) || campos.contains(Usuario.Campo.EMAIL);
+        try {
+            // Antes del UPDATE, como en el alta
+            if (cambiaClave) {
+                agregarAlFiltro(usuario);
+            }
+            escribir(EventoUsuario.Tipo.ACTUALIZADO, usuario.getId(), conn -> actualizarSiCambio(usuario, conn));
+        } finally {
+            cache.invalidar(usuario.getId());
+        }
         return usuario;
     }
 
@@ -167,12 +668,16 @@ public class UsuarioService {
      * Desactiva un usuario
      */
     public Usuario desactivarUsuario(Long id) throws SQLException {
-        Usuario usuario = buscarUsuarioPorId(id);
+        Usuario usuario = buscarUsuarioParaModificar(id);
         if (usuario == null) {
             throw new IllegalArgumentException("Usuario no encontrado con ID: " + id);
         }
         usuario.setActivo(false);
-        usuarioDAO.actualizar(usuario);
+        try {
+            escribir(EventoUsuario.Tipo.DESACTIVADO, id, conn -> actualizarSiCambio(usuario, conn));
+        } finally {
+            cache.invalidar(id);
+        }
         return usuario;
     }
 
@@ -180,15 +685,28 @@ public class UsuarioService {
      * Activa un usuario
      */
     public Usuario activarUsuario(Long id) throws SQLException {
-        Usuario usuario = buscarUsuarioPorId(id);
+        Usuario usuario = buscarUsuarioParaModificar(id);
         if (usuario == null) {
             throw new IllegalArgumentException("Usuario no encontrado con ID: " + id);
         }
         usuario.setActivo(true);
-        usuarioDAO.actualizar(usuario);
+        try {
+            escribir(EventoUsuario.Tipo.ACTIVADO, id, conn -> actualizarSiCambio(usuario, conn));
+        } finally {
+            cache.invalidar(id);
+        }
         return usuario;
     }
 
+    // Lectura directa a la BD (sin caché) para no pisar cambios recientes
+    // con una copia vieja al hacer leer-modificar-escribir
+    private Usuario buscarUsuarioParaModificar(Long id) throws SQLException {
+        if (id == null || id <= 0) {
+            throw new IllegalArgumentException("ID inválido");
+        }
+        return usuarioDAO.buscarPorId(id);
+    }
+
     /**
      * Elimina lógicamente un usuario
      */
@@ -196,7 +714,50 @@ public class UsuarioService {
         if (id == null || id <= 0) {
             throw new IllegalArgumentException("ID inválido");
         }
-        return usuarioDAO.eliminarLogicamente(id);
+        try {
+            return escribir(EventoUsuario.Tipo.ELIMINADO, id, conn -> usuarioDAO.eliminarLogicamente(id, conn));
+        } finally {
+            cache.invalidar(id);
+        }
+    }
+
+    // Sin cambios no hay UPDATE, y tampoco evento
+    private boolean actualizarSiCambio(Usuario usuario, Connection conn) throws SQLException {
+        return usuario.tieneCambios() && usuarioDAO.actualizar(usuario, conn);
+    }
+
+    // Sin eventos es la escritura de siempre, en autocommit. Con eventos, la
+    // escritura y su evento van en una transacción (ver PublicadorEventos)
+    private boolean escribir(EventoUsuario.Tipo tipo, Long usuarioId, PublicadorEventos.Escritura escritura)
+            throws SQLException {
+        PublicadorEventos publicador = eventos;
+        if (publicador != null) {
+            return publicador.escribir(tipo, usuarioId, escritura);
+        }
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return escritura.ejecutar(conn);
+        }
+    }
+
+    // ========================================================================
+    // EVENTOS DE CAMBIOS (OUTBOX)
+    // ========================================================================
+
+    /**
+     * Anota un evento por cada alta, edición, activación, desactivación y
+     * baja, en la misma transacción que el cambio (requiere la tabla de
+     * database/04_migracion_eventos.sql). El publicador los entrega a sus
+     * suscriptores después del COMMIT.
+     */
+    public void activarEventos(PublicadorEventos publicador) {
+        if (publicador == null) {
+            throw new IllegalArgumentException("Publicador no puede ser null");
+        }
+        eventos = publicador;
+    }
+
+    public void desactivarEventos() {
+        eventos = null;
     }
 
     // ========================================================================
@@ -207,7 +768,13 @@ public class UsuarioService {
         if (!esEmailValido(email)) {
             throw new IllegalArgumentException("Email inválido");
         }
-        return usuarioDAO.buscarPorEmail(email);
+        Usuario usuario = cache.buscarPorEmail(email);
+        if (usuario == null) {
+            long lectura = cache.inicioLectura();
+            usuario = usuarioDAO.buscarPorEmail(email);
+            cache.guardar(usuario, lectura);
+        }
+        return usuario;
     }
 
     public List<Usuario> obtenerActivos() throws SQLException {
@@ -221,6 +788,102 @@ public class UsuarioService {
         return usuarioDAO.buscarConCredencial(id);
     }
 
+    // ========================================================================
+    // DISPONIBILIDAD DE USERNAME Y EMAIL
+    // ========================================================================
+
+    /**
+     * Indica si el username está libre. Con el filtro activo, la gran
+     * mayoría de los libres se responde sin ir a la BD; si el filtro dice
+     * "puede estar en uso" se confirma con una búsqueda (caché y BD).
+     *
+     * Es una consulta para la interfaz (por ejemplo, mientras se escribe el
+     * formulario de alta): la que decide al crear es la restricción UNIQUE.
+     */
+    public boolean isUsernameDisponible(String username) throws SQLException {
+        if (username == null || username.trim().isEmpty()) {
+            throw new IllegalArgumentException("Username vacío");
+        }
+        FiltroDisponibilidad filtro = filtroDisponibilidad;
+        if (filtro != null && filtro.usernameSeguroLibre(username)) {
+            return true;
+        }
+        return buscarUsuarioPorUsername(username) == null;
+    }
+
+    public boolean isEmailDisponible(String email) throws SQLException {
+        if (!esEmailValido(email)) {
+            throw new IllegalArgumentException("Email inválido");
+        }
+        FiltroDisponibilidad filtro = filtroDisponibilidad;
+        if (filtro != null && filtro.emailSeguroLibre(email)) {
+            return true;
+        }
+        return buscarPorEmail(email) == null;
+    }
+
+    /**
+     * Construye el filtro de disponibilidad recorriendo la tabla usuario en
+     * streaming (memoria constante, eliminados incluidos) y lo activa. Se
+     * puede volver a llamar para reconstruirlo: hasta que termina sigue
+     * respondiendo el anterior.
+     *
+     * Las altas y cambios de username o email que hace este servicio se
+     * agregan solos. Los que hagan otros procesos sobre la misma BD no: ahí
+     * el filtro puede responder "libre" para algo ocupado, y la restricción
+     * UNIQUE rechaza el alta igual.
+     *
+     * @param capacidad           claves esperadas (dos por usuario)
+     * @param tasaFalsosPositivos tasa buscada con esa cantidad (0.01 = 1%)
+     */
+    public void activarFiltroDisponibilidad(long capacidad, double tasaFalsosPositivos) throws SQLException {
+        FiltroDisponibilidad filtro = new FiltroDisponibilidad(capacidad, tasaFalsosPositivos);
+        long inicio = System.nanoTime();
+
+        // Primero se publica para recibir altas: una que confirme antes de que
+        // arranque la consulta la ve la consulta; una posterior, el filtro
+        filtroEnCarga = filtro;
+        try (Stream<UsuarioResumen> usuarios = usuarioDAO.streamResumenesConEliminados()) {
+            usuarios.forEach(usuario -> {
+                filtro.agregarUsername(usuario.username());
+                filtro.agregarEmail(usuario.email());
+            });
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof SQLException sqlEx) {
+                throw sqlEx;
+            }
+            throw e;
+        } finally {
+            filtroEnCarga = null;
+        }
+        filtroDisponibilidad = filtro;
+
+        FiltroDisponibilidad.Estadisticas estadisticas = filtro.getEstadisticas();
+        System.out.printf(Locale.ROOT, "✓ Filtro de disponibilidad: %d claves en %.1f s, %.1f KB, k=%d, " +
+                        "falsos positivos ≈ %.3f%% (%.3f%% con %d claves)%n",
+                estadisticas.claves(), (System.nanoTime() - inicio) / 1e9, estadisticas.bytes() / 1024.0,
+                estadisticas.funcionesHash(), estadisticas.tasaFalsosPositivos() * 100,
+                tasaFalsosPositivos * 100, capacidad);
+    }
+
+    public void desactivarFiltroDisponibilidad() {
+        filtroDisponibilidad = null;
+    }
+
+    public FiltroDisponibilidad.Estadisticas getEstadisticasFiltroDisponibilidad() {
+        FiltroDisponibilidad filtro = filtroDisponibilidad;
+        return filtro != null ? filtro.getEstadisticas() : null;
+    }
+
+    private void agregarAlFiltro(Usuario usuario) {
+        for (FiltroDisponibilidad filtro : new FiltroDisponibilidad[]{filtroDisponibilidad, filtroEnCarga}) {
+            if (filtro != null) {
+                filtro.agregarUsername(usuario.getUsername());
+                filtro.agregarEmail(usuario.getEmail());
+            }
+        }
+    }
+
     // ========================================================================
     // VALIDACIONES
     // ========================================================================
@@ -258,35 +921,4 @@ public class UsuarioService {
         }
         return EMAIL_PATTERN.matcher(email).matches();
     }
-
-    // ========================================================================
-    // UTILIDAD PARA HASHEAR CONTRASEÑAS
-    // ========================================================================
-
-    private String[] hashearPassword(String passwordPlano) {
-        try {
-            java.security.SecureRandom random = new java.security.SecureRandom();
-            byte[] saltBytes = new byte[16];
-            random.nextBytes(saltBytes);
-            String salt = bytesToHex(saltBytes);
-
-            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
-            String passwordConSalt = passwordPlano + salt;
-            byte[] hashBytes = digest.digest(passwordConSalt.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            String hash = bytesToHex(hashBytes);
-
-            return new String[]{hash, salt};
-
-        } catch (java.security.NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error al hashear contraseña", e);
-        }
-    }
-
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
-        }
-        return result.toString();
-    }
 }
\ No newline at end of file
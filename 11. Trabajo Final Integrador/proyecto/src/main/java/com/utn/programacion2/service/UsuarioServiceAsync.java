@@ -0,0 +1,208 @@
+package ar.edu.utn.tup.service;
+
+import ar.edu.utn.tup.entities.CredencialAcceso;
+import ar.edu.utn.tup.entities.Usuario;
+import ar.edu.utn.tup.entities.UsuarioResumen;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * Fachada asíncrona de UsuarioService y CredencialAccesoService.
+ *
+ * Cada método encola la llamada bloqueante en un EjecutorServicios (hilos
+ * virtuales o pool de plataforma, según la configuración) y devuelve un
+ * CompletableFuture. Así un llamador puede lanzar varias búsquedas a la vez
+ * y combinarlas (ver ambos() y todos()) en lugar de esperarlas en serie.
+ *
+ * Las validaciones y los errores son los mismos del servicio sincrónico:
+ * llegan como causa del futuro (IllegalArgumentException, SQLException).
+ *
+ * Con timeoutMs cada llamada tiene un plazo; al vencerse, o si se cancela el
+ * futuro, la consulta en curso se corta y la conexión vuelve al pool (ver
+ * EjecutorServicios.enviar).
+ */
+public class UsuarioServiceAsync {
+
+    private final UsuarioService usuarioService;
+    private final CredencialAccesoService credencialService;
+    private final EjecutorServicios ejecutor;
+    private final long timeoutMs;
+
+    public UsuarioServiceAsync(UsuarioService usuarioService, CredencialAccesoService credencialService,
+                               EjecutorServicios ejecutor) {
+        this(usuarioService, credencialService, ejecutor, 0);
+    }
+
+    /**
+     * @param timeoutMs plazo de cada llamada en milisegundos; 0 = sin plazo
+     */
+    public UsuarioServiceAsync(UsuarioService usuarioService, CredencialAccesoService credencialService,
+                               EjecutorServicios ejecutor, long timeoutMs) {
+        if (timeoutMs < 0) {
+            throw new IllegalArgumentException("El timeout no puede ser negativo");
+        }
+        this.usuarioService = usuarioService;
+        this.credencialService = credencialService;
+        this.ejecutor = ejecutor;
+        this.timeoutMs = timeoutMs;
+    }
+
+    private <T> CompletableFuture<T> enviar(EjecutorServicios.Llamada<T> llamada) {
+        return ejecutor.enviar(llamada, timeoutMs);
+    }
+
+    // ========================================================================
+    // Usuarios
+    // ========================================================================
+
+    public CompletableFuture<Usuario> crearUsuarioConCredencial(Usuario usuario, String passwordPlano) {
+        return enviar(() -> usuarioService.crearUsuarioConCredencial(usuario, passwordPlano));
+    }
+
+    public CompletableFuture<Usuario> buscarUsuarioPorId(Long id) {
+        return enviar(() -> usuarioService.buscarUsuarioPorId(id));
+    }
+
+    public CompletableFuture<Usuario> buscarUsuarioPorUsername(String username) {
+        return enviar(() -> usuarioService.buscarUsuarioPorUsername(username));
+    }
+
+    public CompletableFuture<Map<Long, Usuario>> buscarPorIds(Collection<Long> ids) {
+        return enviar(() -> usuarioService.buscarPorIds(ids));
+    }
+
+    public CompletableFuture<Map<String, Usuario>> buscarPorUsernames(Collection<String> usernames) {
+        return enviar(() -> usuarioService.buscarPorUsernames(usernames));
+    }
+
+    public CompletableFuture<Usuario> buscarPorEmail(String email) {
+        return enviar(() -> usuarioService.buscarPorEmail(email));
+    }
+
+    public CompletableFuture<List<Usuario>> listarTodosLosUsuarios() {
+        return enviar(usuarioService::listarTodosLosUsuarios);
+    }
+
+    public CompletableFuture<List<Usuario>> listarTodosLosUsuarios(Long despuesDeId, int tamanioPagina) {
+        return enviar(() -> usuarioService.listarTodosLosUsuarios(despuesDeId, tamanioPagina));
+    }
+
+    public CompletableFuture<List<UsuarioResumen>> listarResumenesDeUsuarios(Long despuesDeId, int tamanioPagina) {
+        return enviar(() -> usuarioService.listarResumenesDeUsuarios(despuesDeId, tamanioPagina));
+    }
+
+    public CompletableFuture<List<Usuario>> obtenerActivos() {
+        return enviar(usuarioService::obtenerActivos);
+    }
+
+    public CompletableFuture<Usuario> actualizarUsuario(Usuario usuario) {
+        return enviar(() -> usuarioService.actualizarUsuario(usuario));
+    }
+
+    public CompletableFuture<Usuario> desactivarUsuario(Long id) {
+        return enviar(() -> usuarioService.desactivarUsuario(id));
+    }
+
+    public CompletableFuture<Usuario> activarUsuario(Long id) {
+        return enviar(() -> usuarioService.activarUsuario(id));
+    }
+
+    public CompletableFuture<Boolean> eliminarUsuario(Long id) {
+        return enviar(() -> usuarioService.eliminarUsuario(id));
+    }
+
+    // ========================================================================
+    // Credenciales
+    // ========================================================================
+
+    public CompletableFuture<CredencialAcceso> buscarCredencialPorUsuarioId(Long usuarioId) {
+        return enviar(() -> credencialService.buscarPorUsuarioId(usuarioId));
+    }
+
+    /**
+     * Usuario con su credencial en una sola consulta (JOIN).
+     */
+    public CompletableFuture<Usuario> buscarConCredencial(Long id) {
+        return enviar(() -> usuarioService.buscarConCredencial(id));
+    }
+
+    /**
+     * Usuario con su credencial en dos consultas simultáneas, cada una con
+     * su conexión. La del usuario puede salir de la caché; conviene cuando
+     * el usuario suele estar cacheado y la credencial no.
+     */
+    public CompletableFuture<Usuario> buscarConCredencialEnParalelo(Long id) {
+        return ambos(buscarUsuarioPorId(id), buscarCredencialPorUsuarioId(id), (usuario, credencial) -> {
+            // La caché devuelve copias: asignar la credencial no la modifica
+            if (usuario != null) {
+                usuario.setCredencialAcceso(credencial);
+            }
+            return usuario;
+        });
+    }
+
+    // ========================================================================
+    // Composición
+    // ========================================================================
+
+    /**
+     * Combina dos futuros. Falla con el primer error de cualquiera de los
+     * dos sin esperar al otro, y en ese caso (o si se cancela el resultado)
+     * cancela el que siga pendiente: su conexión vuelve al pool sin esperar
+     * un resultado que ya no sirve.
+     */
+    public static <A, B, R> CompletableFuture<R> ambos(CompletableFuture<A> primero, CompletableFuture<B> segundo,
+                                                       BiFunction<? super A, ? super B, ? extends R> combinar) {
+        CompletableFuture<R> resultado = new CompletableFuture<>();
+        fallarConLaPrimera(resultado, List.of(primero, segundo));
+        // Si falla combinar, su excepción también llega al resultado
+        primero.thenCombine(segundo, combinar).whenComplete((valor, error) -> {
+            if (error == null) {
+                resultado.complete(valor);
+            } else {
+                resultado.completeExceptionally(error);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Espera todos los futuros y devuelve sus valores en el mismo orden. Al
+     * primer fallo termina y cancela los que sigan pendientes.
+     */
+    public static <T> CompletableFuture<List<T>> todos(List<CompletableFuture<T>> futuros) {
+        List<CompletableFuture<T>> partes = List.copyOf(futuros);
+        CompletableFuture<List<T>> resultado = new CompletableFuture<>();
+        fallarConLaPrimera(resultado, partes);
+        CompletableFuture.allOf(partes.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            List<T> valores = new ArrayList<>(partes.size());
+            partes.forEach(parte -> valores.add(parte.join()));
+            resultado.complete(valores);
+        });
+        return resultado;
+    }
+
+    // thenCombine y allOf esperan a todas las partes aunque una ya haya
+    // fallado: acá el primer error completa el resultado, y un resultado
+    // fallido o cancelado corta las partes pendientes
+    private static void fallarConLaPrimera(CompletableFuture<?> resultado,
+                                           List<? extends CompletableFuture<?>> partes) {
+        for (CompletableFuture<?> parte : partes) {
+            parte.whenComplete((valor, error) -> {
+                if (error != null) {
+                    resultado.completeExceptionally(error);
+                }
+            });
+        }
+        resultado.whenComplete((valor, error) -> {
+            if (error != null) {
+                partes.forEach(parte -> parte.cancel(true));
+            }
+        });
+    }
+}